@@ -1,11 +1,14 @@
 package com.pop.codelab.chatopbackend.auth.controller;
 
 import com.pop.codelab.chatopbackend.auth.dto.requests.AuthenticateDto;
+import com.pop.codelab.chatopbackend.auth.dto.requests.PasswordChangeDto;
+import com.pop.codelab.chatopbackend.auth.dto.requests.RefreshTokenDto;
 import com.pop.codelab.chatopbackend.auth.dto.requests.RegisterDto;
 import com.pop.codelab.chatopbackend.auth.dto.responses.JwtDto;
 import com.pop.codelab.chatopbackend.auth.dto.responses.UserDto;
 import com.pop.codelab.chatopbackend.auth.service.AuthenticationService;
 import com.pop.codelab.chatopbackend.auth.service.AuthenticationServiceImpl;
+import com.pop.codelab.chatopbackend.common.responses.MessageDto;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -63,6 +66,21 @@ public class AuthenticationController {
         return ResponseEntity.ok(this.authenticationService.authenticate(authDto));
     }
 
+    /**
+     * Exchanges a refresh token for a new access token and a new refresh token.
+     *
+     * @param refreshTokenDto The RefreshTokenDto object containing the refresh token.
+     * @return ResponseEntity<JwtDto> The response entity containing the new access token and the new refresh token.
+     */
+    @Operation(summary = "Exchanges a refresh token.", description = "Provide the latest refresh token to receive a new token and a new refresh token")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Return the new User tokens - Refreshed successfully", content = @Content(schema = @Schema(implementation = JwtDto.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized : Invalid, expired or reused refresh token.")})
+    @PostMapping(path = "/refresh")
+    public ResponseEntity<JwtDto> refresh(@Valid @RequestBody final RefreshTokenDto refreshTokenDto) {
+        return ResponseEntity.ok(this.authenticationService.refresh(refreshTokenDto));
+    }
+
     /**
      * Retrieves user information for the authenticated user.
      *
@@ -77,4 +95,56 @@ public class AuthenticationController {
     public ResponseEntity<UserDto> getUserInformations(final Authentication authentication) {
         return ResponseEntity.ok(this.authenticationService.getUserInformations(authentication));
     }
+
+    /**
+     * Logs the authenticated user out, revoking the token of the request and the refresh token if given.
+     *
+     * @param authentication  The Authentication object representing the authenticated user.
+     * @param refreshTokenDto The RefreshTokenDto object containing the refresh token of the session, optional.
+     * @return The ResponseEntity containing a MessageDto object confirming the logout.
+     */
+    @PostMapping("/logout")
+    @Operation(summary = "Logs the authenticated user out, revoking its token")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Logged out successfully.", content = @Content(schema = @Schema(implementation = MessageDto.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized : Invalid user.")})
+    public ResponseEntity<MessageDto> logout(final Authentication authentication,
+                                             @RequestBody(required = false) final RefreshTokenDto refreshTokenDto) {
+        this.authenticationService.logout(authentication, refreshTokenDto);
+        return ResponseEntity.ok(MessageDto.builder().message("Logged out !").build());
+    }
+
+    /**
+     * Logs the authenticated user out of all its sessions, revoking all the tokens issued to the user.
+     *
+     * @param authentication The Authentication object representing the authenticated user.
+     * @return The ResponseEntity containing a MessageDto object confirming the logout.
+     */
+    @PostMapping("/logout-all")
+    @Operation(summary = "Logs the authenticated user out of all its sessions, revoking all its tokens")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Logged out of all sessions successfully.", content = @Content(schema = @Schema(implementation = MessageDto.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized : Invalid user.")})
+    public ResponseEntity<MessageDto> logoutAll(final Authentication authentication) {
+        this.authenticationService.logoutAll(authentication);
+        return ResponseEntity.ok(MessageDto.builder().message("Logged out of all sessions !").build());
+    }
+
+    /**
+     * Changes the password of the authenticated user, revoking all the tokens issued to the user.
+     *
+     * @param authentication    The Authentication object representing the authenticated user.
+     * @param passwordChangeDto The PasswordChangeDto object containing the current and the new passwords.
+     * @return The ResponseEntity containing the JwtDto object representing a new JWT token.
+     */
+    @PutMapping("/password")
+    @Operation(summary = "Changes the password of the authenticated user, revoking all its tokens")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Password changed - Return a new User token", content = @Content(schema = @Schema(implementation = JwtDto.class))),
+            @ApiResponse(responseCode = "400", description = "Bad request"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized : Invalid user or wrong password.")})
+    public ResponseEntity<JwtDto> changePassword(final Authentication authentication,
+                                                 @Valid @RequestBody final PasswordChangeDto passwordChangeDto) {
+        return ResponseEntity.ok(this.authenticationService.changePassword(authentication, passwordChangeDto));
+    }
 }
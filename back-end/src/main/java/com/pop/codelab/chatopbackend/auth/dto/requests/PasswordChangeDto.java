@@ -0,0 +1,32 @@
+package com.pop.codelab.chatopbackend.auth.dto.requests;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * The PasswordChangeDto class represents the request object used to change the password of the authenticated user.
+ * It contains the current password of the user and the new one.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@Data
+@Builder
+public class PasswordChangeDto {
+
+    /**
+     * The current password of the user, checked before the password is changed.
+     */
+    @NotNull
+    @JsonProperty("current_password")
+    private String currentPassword;
+
+    /**
+     * The new password of the user.
+     */
+    @NotNull
+    @JsonProperty("new_password")
+    private String newPassword;
+}
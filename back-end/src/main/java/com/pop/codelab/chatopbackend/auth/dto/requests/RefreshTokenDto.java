@@ -0,0 +1,29 @@
+package com.pop.codelab.chatopbackend.auth.dto.requests;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The RefreshTokenDto class represents the request object holding a refresh token, exchanged for new tokens or
+ * revoked on logout.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshTokenDto {
+
+    /**
+     * The refresh token issued with the latest access token.
+     */
+    @NotNull
+    @JsonProperty("refresh_token")
+    private String refreshToken;
+}
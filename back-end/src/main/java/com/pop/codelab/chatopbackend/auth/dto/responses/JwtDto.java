@@ -7,7 +7,8 @@ import lombok.Data;
 
 /**
  * The JwtDto class represents a JSON Web Token (JWT) data transfer object.
- * It contains the access token used for authentication.
+ * It contains the short-lived access token used for authentication, its lifetime, and the refresh token exchanged
+ * for a new access token once it has expired.
  */
 @Data
 @Builder
@@ -19,4 +20,16 @@ public class JwtDto {
      */
     @JsonProperty("token")
     private String accessToken;
+
+    /**
+     * This variable represents the refresh token, exchanged once for a new access token and a new refresh token.
+     */
+    @JsonProperty("refresh_token")
+    private String refreshToken;
+
+    /**
+     * This variable represents the lifetime of the access token, in seconds.
+     */
+    @JsonProperty("expires_in")
+    private long expiresIn;
 }
@@ -0,0 +1,72 @@
+package com.pop.codelab.chatopbackend.auth.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * The RefreshToken class represents a refresh token, exchanged for a new access token and a new refresh token.
+ * The class represents a table called "refresh_tokens" in the database.
+ * <p>
+ * Only the SHA-256 digest of the token is stored, so that the table does not hold usable tokens. The tokens issued
+ * by the rotations of a refresh token share the family of the first one : a token used twice reveals that the token
+ * has been stolen, and the whole family is revoked.</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@Data
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+        // The refresh tokens are looked up by their digest, revoked by family or by user, and purged once expired
+        @Index(name = "refresh_tokens_token_hash_IDX", columnList = "token_hash", unique = true),
+        @Index(name = "refresh_tokens_family_id_IDX", columnList = "family_id"),
+        @Index(name = "refresh_tokens_user_id_IDX", columnList = "user_id"),
+        @Index(name = "refresh_tokens_expires_at_IDX", columnList = "expires_at")
+})
+public class RefreshToken {
+
+    /**
+     * The `id` variable is the unique identifier of the refresh token.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * The `userId` variable is the ID of the user the refresh token has been issued to.
+     */
+    @Column(nullable = false, name = "user_id")
+    private Long userId;
+
+    /**
+     * The `tokenHash` variable is the hexadecimal SHA-256 digest of the refresh token.
+     */
+    @Column(nullable = false, length = 64, name = "token_hash")
+    private String tokenHash;
+
+    /**
+     * The `familyId` variable is the ID shared by the refresh tokens issued by the rotations of the same login.
+     */
+    @Column(nullable = false, length = 36, name = "family_id")
+    private String familyId;
+
+    /**
+     * The `expiresAt` variable is the instant the refresh token expires.
+     */
+    @Column(nullable = false, name = "expires_at", columnDefinition = "TIMESTAMP(3) NOT NULL")
+    private Instant expiresAt;
+
+    /**
+     * The `usedAt` variable is the instant the refresh token has been exchanged, null while it has not been.
+     */
+    @Column(name = "used_at", columnDefinition = "TIMESTAMP(3) NULL")
+    private Instant usedAt;
+}
@@ -0,0 +1,64 @@
+package com.pop.codelab.chatopbackend.auth.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * The TokenRevocation class represents the revocation of a token, or of all the tokens issued to a user before an
+ * instant. The class represents a table called "token_revocations" in the database, which the nodes of the
+ * application poll to share the revocations.
+ * <p>
+ * A revocation is useless once the tokens it revokes have expired : the rows are deleted after their expiry.</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@Data
+@Entity
+@Table(name = "token_revocations", indexes = {
+        // The nodes poll the latest revocations, and delete the expired ones
+        @Index(name = "token_revocations_revoked_at_IDX", columnList = "revoked_at"),
+        @Index(name = "token_revocations_expires_at_IDX", columnList = "expires_at")
+})
+public class TokenRevocation {
+
+    /**
+     * The `id` variable is the unique identifier of the revocation.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * The `userId` variable represents the ID of the user whose token, or tokens, are revoked.
+     */
+    @Column(nullable = false, name = "user_id")
+    private Long userId;
+
+    /**
+     * The `tokenId` variable represents the ID (jti claim) of the revoked token, or null if all the tokens issued
+     * to the user before the revocation are revoked.
+     */
+    @Column(length = 36, name = "token_id")
+    private String tokenId;
+
+    /**
+     * The `revokedAt` variable represents the instant of the revocation.
+     */
+    @Column(nullable = false, name = "revoked_at", columnDefinition = "TIMESTAMP(3) NOT NULL")
+    private Instant revokedAt;
+
+    /**
+     * The `expiresAt` variable represents the instant the revoked tokens have all expired.
+     */
+    @Column(nullable = false, name = "expires_at", columnDefinition = "TIMESTAMP(3) NOT NULL")
+    private Instant expiresAt;
+}
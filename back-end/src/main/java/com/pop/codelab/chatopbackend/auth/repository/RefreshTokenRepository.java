@@ -0,0 +1,76 @@
+package com.pop.codelab.chatopbackend.auth.repository;
+
+import com.pop.codelab.chatopbackend.auth.entity.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * The RefreshTokenRepository interface provides the operations on the refresh tokens.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ * @see RefreshToken
+ */
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    /**
+     * Retrieves a refresh token by its digest, using the unique index of the digests.
+     *
+     * @param tokenHash the hexadecimal SHA-256 digest of the refresh token
+     * @return an Optional containing the refresh token, or an empty Optional if it does not exist
+     */
+    @Transactional(readOnly = true)
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    /**
+     * Marks a refresh token as exchanged, unless it already is. The update is atomic : of two concurrent exchanges
+     * of the same token, only one marks it.
+     *
+     * @param id     the ID of the refresh token
+     * @param usedAt the instant of the exchange
+     * @return 1 if the token has been marked, 0 if it had already been exchanged
+     */
+    @Modifying
+    @Transactional
+    @Query("update RefreshToken t set t.usedAt = :usedAt where t.id = :id and t.usedAt is null")
+    int markUsed(@Param("id") Long id, @Param("usedAt") Instant usedAt);
+
+    /**
+     * Deletes the refresh tokens of a family.
+     *
+     * @param familyId the ID of the family
+     * @return the number of refresh tokens deleted
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from RefreshToken t where t.familyId = :familyId")
+    int deleteByFamilyId(@Param("familyId") String familyId);
+
+    /**
+     * Deletes the refresh tokens of a user.
+     *
+     * @param userId the ID of the user
+     * @return the number of refresh tokens deleted
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from RefreshToken t where t.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    /**
+     * Deletes the expired refresh tokens.
+     *
+     * @param before the instant before which the refresh tokens have expired
+     * @return the number of refresh tokens deleted
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from RefreshToken t where t.expiresAt < :before")
+    int deleteExpired(@Param("before") Instant before);
+}
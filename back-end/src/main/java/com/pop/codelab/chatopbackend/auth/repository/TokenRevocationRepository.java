@@ -0,0 +1,50 @@
+package com.pop.codelab.chatopbackend.auth.repository;
+
+import com.pop.codelab.chatopbackend.auth.entity.TokenRevocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * The TokenRevocationRepository interface provides the operations on the token revocations shared by the nodes.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ * @see TokenRevocation
+ */
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, Long> {
+
+    /**
+     * Retrieves the revocations whose tokens have not all expired yet.
+     *
+     * @param now the current instant
+     * @return the revocations still in force
+     */
+    @Transactional(readOnly = true)
+    List<TokenRevocation> findByExpiresAtAfter(Instant now);
+
+    /**
+     * Retrieves the revocations recorded since an instant, by any node.
+     *
+     * @param since the instant from which the revocations are retrieved
+     * @return the revocations recorded since the instant
+     */
+    @Transactional(readOnly = true)
+    List<TokenRevocation> findByRevokedAtGreaterThanEqual(Instant since);
+
+    /**
+     * Deletes the revocations whose tokens have all expired.
+     *
+     * @param before the instant before which the revocations have expired
+     * @return the number of revocations deleted
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from TokenRevocation r where r.expiresAt < :before")
+    int deleteExpired(@Param("before") Instant before);
+}
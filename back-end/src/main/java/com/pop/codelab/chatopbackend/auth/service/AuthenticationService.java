@@ -1,6 +1,8 @@
 package com.pop.codelab.chatopbackend.auth.service;
 
 import com.pop.codelab.chatopbackend.auth.dto.requests.AuthenticateDto;
+import com.pop.codelab.chatopbackend.auth.dto.requests.PasswordChangeDto;
+import com.pop.codelab.chatopbackend.auth.dto.requests.RefreshTokenDto;
 import com.pop.codelab.chatopbackend.auth.dto.requests.RegisterDto;
 import com.pop.codelab.chatopbackend.auth.dto.responses.JwtDto;
 import com.pop.codelab.chatopbackend.auth.dto.responses.UserDto;
@@ -34,4 +36,37 @@ public interface AuthenticationService {
      * @return The UserDto object containing the details of the authenticated user.
      */
     UserDto getUserInformations(Authentication principalUser);
+
+    /**
+     * Exchanges a refresh token for a new access token and a new refresh token.
+     *
+     * @param refreshTokenDto The RefreshTokenDto object containing the refresh token.
+     * @return The JwtDto object containing the new access token and the new refresh token.
+     */
+    JwtDto refresh(RefreshTokenDto refreshTokenDto);
+
+    /**
+     * Logs the authenticated user out : the token of the request is revoked, and so is the refresh token if given.
+     *
+     * @param principalUser   The Authentication object representing the authenticated user.
+     * @param refreshTokenDto The RefreshTokenDto object containing the refresh token of the session, may be null.
+     */
+    void logout(Authentication principalUser, RefreshTokenDto refreshTokenDto);
+
+    /**
+     * Logs the authenticated user out of all its sessions : all the tokens issued to the user, access and
+     * refresh tokens, are revoked.
+     *
+     * @param principalUser The Authentication object representing the authenticated user.
+     */
+    void logoutAll(Authentication principalUser);
+
+    /**
+     * Changes the password of the authenticated user, then revokes all the tokens issued to the user.
+     *
+     * @param principalUser     The Authentication object representing the authenticated user.
+     * @param passwordChangeDto The PasswordChangeDto object containing the current and the new passwords.
+     * @return The JwtDto object containing a new access token for the user.
+     */
+    JwtDto changePassword(Authentication principalUser, PasswordChangeDto passwordChangeDto);
 }
@@ -1,16 +1,17 @@
 package com.pop.codelab.chatopbackend.auth.service;
 
 import com.pop.codelab.chatopbackend.auth.dto.requests.AuthenticateDto;
+import com.pop.codelab.chatopbackend.auth.dto.requests.PasswordChangeDto;
+import com.pop.codelab.chatopbackend.auth.dto.requests.RefreshTokenDto;
 import com.pop.codelab.chatopbackend.auth.dto.requests.RegisterDto;
 import com.pop.codelab.chatopbackend.auth.dto.responses.JwtDto;
 import com.pop.codelab.chatopbackend.auth.dto.responses.UserDto;
 import com.pop.codelab.chatopbackend.business.user.repository.UserRepository;
 import com.pop.codelab.chatopbackend.business.user.entity.User;
-import com.pop.codelab.chatopbackend.services.JwtService;
+import com.pop.codelab.chatopbackend.business.user.mapper.UserMapper;
+import com.pop.codelab.chatopbackend.services.VerifiedToken;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
-import org.modelmapper.ModelMapper;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -43,19 +44,21 @@ public class AuthenticationServiceImpl implements AuthenticationService {
      */
     private final PasswordEncoder passwordEncoder;
 
+
     /**
-     * The JwtServiceImpl class is responsible for generating and validating JSON Web Tokens (JWT).
-     * It provides methods for extracting claims from a token, generating a token based on user details,
-     * and checking if a token is valid and not expired.
+     * UserMapper instance, generated at compile time, to map a Dto to an Entity and vice versa.
      */
-    private final JwtService jwtService;
+    private final UserMapper userMapper;
 
+    /**
+     * The tokenRevocationService variable revokes the tokens of the users logging out or changing their password.
+     */
+    private final TokenRevocationService tokenRevocationService;
 
     /**
-     * ModelMapper instance to map a Dto to an Entity and vice versa.
+     * The refreshTokenService variable issues the access tokens along with their refresh tokens.
      */
-    @Autowired
-    private ModelMapper modelMapper;
+    private final RefreshTokenService refreshTokenService;
 
     /**
      * Registers a user with the given user information.
@@ -65,12 +68,12 @@ public class AuthenticationServiceImpl implements AuthenticationService {
      */
     public JwtDto register(final RegisterDto userDto) {
         log.debug("Register user : {}", userDto);
-        User user = modelMapper.map(userDto, User.class);
+        User user = userMapper.toUser(userDto);
         user.setPassword(passwordEncoder.encode(userDto.getPassword()));
 
         User registeredUser = userRepository.save(user);
 
-        return this.jwtService.generateToken(registeredUser);
+        return this.refreshTokenService.issueTokens(registeredUser);
     }
 
     /**
@@ -85,13 +88,14 @@ public class AuthenticationServiceImpl implements AuthenticationService {
         if (!this.checkUserPassword(user, authDto.getPassword())) {
             throw new BadCredentialsException("Wrong credentials !");
         }
-        JwtDto response = jwtService.generateToken(user);
+        JwtDto response = this.refreshTokenService.issueTokens(user);
         log.debug("Authenticated user : {}", user);
         return response;
     }
 
     /**
      * Retrieves user information for the authenticated user.
+     * The user is read from the users cache, which the authentication of the request has just filled.
      *
      * @param principal The Authentication object representing the authenticated user.
      * @return The user information as a UserDto object.
@@ -99,9 +103,90 @@ public class AuthenticationServiceImpl implements AuthenticationService {
     public UserDto getUserInformations(final Authentication principal) {
         User loggedInUser = (User) principal.getPrincipal();
         log.debug("UserDetails principal : {}", loggedInUser);
-        User user = this.userRepository.findById(loggedInUser.getId()).orElse(null);
+        User user = this.userRepository.findPrincipalById(loggedInUser.getId()).orElse(null);
         log.debug("Me : {}", user);
-        return this.modelMapper.map(user, UserDto.class);
+        return this.userMapper.toUserDto(user);
+    }
+
+    /**
+     * Exchanges a refresh token for a new access token and a new refresh token.
+     *
+     * @param refreshTokenDto The RefreshTokenDto object containing the refresh token.
+     * @return The JwtDto object containing the new access token and the new refresh token.
+     * @throws BadCredentialsException if the refresh token is unknown, expired or already used.
+     */
+    public JwtDto refresh(final RefreshTokenDto refreshTokenDto) {
+        return this.refreshTokenService.refresh(refreshTokenDto.getRefreshToken());
+    }
+
+    /**
+     * Logs the authenticated user out : the token of the request is revoked, and so is the refresh token if given.
+     *
+     * @param principal       The Authentication object representing the authenticated user.
+     * @param refreshTokenDto The RefreshTokenDto object containing the refresh token of the session, may be null.
+     */
+    public void logout(final Authentication principal, final RefreshTokenDto refreshTokenDto) {
+        if (principal.getCredentials() instanceof VerifiedToken token) {
+            this.tokenRevocationService.revoke(token);
+        }
+        if (refreshTokenDto != null && refreshTokenDto.getRefreshToken() != null) {
+            this.refreshTokenService.revoke(refreshTokenDto.getRefreshToken());
+        }
+        log.debug("Logged out user : {}", principal.getPrincipal());
+    }
+
+    /**
+     * Logs the authenticated user out of all its sessions : all the tokens issued to the user until now are revoked,
+     * and the token version of the user is increased so that the self-contained tokens are rejected as well.
+     *
+     * @param principal The Authentication object representing the authenticated user.
+     */
+    public void logoutAll(final Authentication principal) {
+        User loggedInUser = (User) principal.getPrincipal();
+        this.userRepository.findById(loggedInUser.getId()).ifPresent(user -> {
+            user.setTokenVersion(user.getTokenVersion() + 1);
+            this.userRepository.save(user);
+        });
+        this.revokeAll(principal, loggedInUser.getId());
+        log.debug("Logged out user from all sessions : {}", loggedInUser);
+    }
+
+    /**
+     * Changes the password of the authenticated user, then revokes all the tokens issued to the user until now.
+     * The user is read from the database rather than from the users cache, whose users are only principals.
+     *
+     * @param principal         The Authentication object representing the authenticated user.
+     * @param passwordChangeDto The PasswordChangeDto object containing the current and the new passwords.
+     * @return The JwtDto object containing a new access token for the user.
+     * @throws BadCredentialsException if the current password is wrong.
+     */
+    public JwtDto changePassword(final Authentication principal, final PasswordChangeDto passwordChangeDto) {
+        User loggedInUser = (User) principal.getPrincipal();
+        User user = this.userRepository.findById(loggedInUser.getId()).orElse(null);
+        if (!this.checkUserPassword(user, passwordChangeDto.getCurrentPassword())) {
+            throw new BadCredentialsException("Wrong credentials !");
+        }
+        user.setPassword(this.passwordEncoder.encode(passwordChangeDto.getNewPassword()));
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        User savedUser = this.userRepository.save(user);
+        this.revokeAll(principal, savedUser.getId());
+        log.debug("Password changed for user : {}", savedUser);
+        return this.refreshTokenService.issueTokens(savedUser);
+    }
+
+    /**
+     * Revokes all the tokens issued to a user, refresh tokens included, along with the token of the request, which is
+     * revoked by its ID as well.
+     *
+     * @param principal The Authentication object representing the authenticated user.
+     * @param userId    The ID of the user.
+     */
+    private void revokeAll(final Authentication principal, final Long userId) {
+        this.tokenRevocationService.revokeAll(userId);
+        this.refreshTokenService.revokeAll(userId);
+        if (principal.getCredentials() instanceof VerifiedToken token && token.getId() != null) {
+            this.tokenRevocationService.revoke(token);
+        }
     }
 
     /**
@@ -0,0 +1,47 @@
+package com.pop.codelab.chatopbackend.auth.service;
+
+import com.pop.codelab.chatopbackend.auth.dto.responses.JwtDto;
+import com.pop.codelab.chatopbackend.business.user.entity.User;
+
+/**
+ * The RefreshTokenService interface issues the access tokens along with rotating refresh tokens, and exchanges the
+ * refresh tokens for new ones.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+public interface RefreshTokenService {
+
+    /**
+     * Issues an access token and the first refresh token of a new family to a user who has just authenticated.
+     *
+     * @param user the authenticated user
+     * @return the JwtDto object containing the access token and the refresh token
+     */
+    JwtDto issueTokens(User user);
+
+    /**
+     * Exchanges a refresh token for a new access token and a new refresh token of the same family. A refresh token
+     * is exchanged once : a token used again revokes its family and all the tokens of its user.
+     *
+     * @param refreshToken the refresh token
+     * @return the JwtDto object containing the new access token and the new refresh token
+     * @throws org.springframework.security.authentication.BadCredentialsException if the refresh token is unknown,
+     *                                                                             expired or already used
+     */
+    JwtDto refresh(String refreshToken);
+
+    /**
+     * Revokes a refresh token along with the tokens of its family, on logout. An unknown token is ignored.
+     *
+     * @param refreshToken the refresh token
+     */
+    void revoke(String refreshToken);
+
+    /**
+     * Revokes all the refresh tokens of a user.
+     *
+     * @param userId the ID of the user
+     */
+    void revokeAll(Long userId);
+}
@@ -0,0 +1,166 @@
+package com.pop.codelab.chatopbackend.auth.service;
+
+import com.pop.codelab.chatopbackend.auth.dto.responses.JwtDto;
+import com.pop.codelab.chatopbackend.auth.entity.RefreshToken;
+import com.pop.codelab.chatopbackend.auth.repository.RefreshTokenRepository;
+import com.pop.codelab.chatopbackend.business.user.entity.User;
+import com.pop.codelab.chatopbackend.business.user.repository.UserRepository;
+import com.pop.codelab.chatopbackend.services.JwtService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * The RefreshTokenServiceImpl class is an implementation of the RefreshTokenService interface.
+ * <p>
+ * The access tokens are short-lived, so that a revoked access token is only accepted by the revocation check for a
+ * short while, and the requests are authenticated without reading the database. The database is read on the
+ * refresh path instead : the refresh tokens are random values, stored as their SHA-256 digest and looked up by its
+ * unique index.</p>
+ * <p>
+ * Each refresh token is exchanged once, for a new refresh token of the same family. A refresh token used again has
+ * been stolen, either by the client replaying it or by the one it has been stolen from : the family is revoked, and
+ * so are the access tokens of the user.</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@Service
+@RequiredArgsConstructor
+@Log4j2
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+
+    /**
+     * The number of random bytes of a refresh token.
+     */
+    private static final int TOKEN_BYTES = 32;
+
+    /**
+     * The refreshExpiration variable represents the lifetime of the refresh tokens.
+     * It is set using the value from the application property 'application.security.jwt.refresh.expiration'.
+     */
+    @Value("${application.security.jwt.refresh.expiration}")
+    private Duration refreshExpiration;
+
+    /**
+     * The refreshTokenRepository variable represents the repository of the refresh tokens.
+     */
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    /**
+     * The userRepository variable is used to load the user of a refresh token, from the users cache if cached.
+     */
+    private final UserRepository userRepository;
+
+    /**
+     * The jwtService variable generates the access tokens.
+     */
+    private final JwtService jwtService;
+
+    /**
+     * The tokenRevocationService variable revokes the access tokens of a user whose refresh token has been reused.
+     */
+    private final TokenRevocationService tokenRevocationService;
+
+    /**
+     * The generator of the random values of the refresh tokens.
+     */
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Override
+    public JwtDto issueTokens(final User user) {
+        return this.issueTokens(user, UUID.randomUUID().toString());
+    }
+
+    @Override
+    public JwtDto refresh(final String refreshToken) {
+        RefreshToken storedToken = this.refreshTokenRepository.findByTokenHash(digest(refreshToken))
+                .filter(token -> token.getExpiresAt().isAfter(Instant.now()))
+                .orElseThrow(() -> new BadCredentialsException("Invalid refresh token !"));
+        if (this.refreshTokenRepository.markUsed(storedToken.getId(), Instant.now()) == 0) {
+            this.refreshTokenRepository.deleteByFamilyId(storedToken.getFamilyId());
+            this.tokenRevocationService.revokeAll(storedToken.getUserId());
+            log.warn("Refresh token reused, tokens of the user {} revoked", storedToken.getUserId());
+            throw new BadCredentialsException("Invalid refresh token !");
+        }
+        User user = this.userRepository.findPrincipalById(storedToken.getUserId())
+                .orElseThrow(() -> new BadCredentialsException("Invalid refresh token !"));
+        return this.issueTokens(user, storedToken.getFamilyId());
+    }
+
+    @Override
+    public void revoke(final String refreshToken) {
+        this.refreshTokenRepository.findByTokenHash(digest(refreshToken))
+                .ifPresent(token -> this.refreshTokenRepository.deleteByFamilyId(token.getFamilyId()));
+    }
+
+    @Override
+    public void revokeAll(final Long userId) {
+        int deleted = this.refreshTokenRepository.deleteByUserId(userId);
+        log.debug("{} refresh token(s) of the user {} revoked", deleted, userId);
+    }
+
+    /**
+     * Deletes the expired refresh tokens. The used tokens are kept until they expire, so that their reuse is detected.
+     * The purge is run at the interval set by the application property
+     * 'application.security.jwt.refresh.purge-interval'.
+     */
+    @Scheduled(fixedDelayString = "${application.security.jwt.refresh.purge-interval}",
+            initialDelayString = "${application.security.jwt.refresh.purge-interval}")
+    public void purgeExpiredTokens() {
+        int deleted = this.refreshTokenRepository.deleteExpired(Instant.now());
+        log.debug("{} expired refresh token(s) deleted", deleted);
+    }
+
+    /**
+     * Issues an access token and a new refresh token of a family to a user.
+     *
+     * @param user     the user
+     * @param familyId the ID of the family of the refresh token
+     * @return the JwtDto object containing the access token and the refresh token
+     */
+    private JwtDto issueTokens(final User user, final String familyId) {
+        byte[] randomBytes = new byte[TOKEN_BYTES];
+        this.secureRandom.nextBytes(randomBytes);
+        String refreshToken = Base64.getUrlEncoder().withoutPadding().encodeToString(randomBytes);
+
+        RefreshToken storedToken = new RefreshToken();
+        storedToken.setUserId(user.getId());
+        storedToken.setTokenHash(digest(refreshToken));
+        storedToken.setFamilyId(familyId);
+        storedToken.setExpiresAt(Instant.now().plus(this.refreshExpiration));
+        this.refreshTokenRepository.save(storedToken);
+
+        JwtDto response = this.jwtService.generateToken(user);
+        response.setRefreshToken(refreshToken);
+        return response;
+    }
+
+    /**
+     * Computes the digest under which a refresh token is stored.
+     *
+     * @param refreshToken the refresh token
+     * @return the hexadecimal SHA-256 digest of the refresh token
+     */
+    private static String digest(final String refreshToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(refreshToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
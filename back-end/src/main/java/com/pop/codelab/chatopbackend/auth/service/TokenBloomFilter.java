@@ -0,0 +1,121 @@
+package com.pop.codelab.chatopbackend.auth.service;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The TokenBloomFilter class is a Bloom filter of token IDs : it tells without any false negative, in a few bits per
+ * token, whether a token may have been revoked.
+ * <p>
+ * The bit positions of a token are derived from the two halves of its random ID (double hashing), so that a lookup
+ * neither hashes a string nor allocates. The filter can be read and updated concurrently.</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+final class TokenBloomFilter {
+
+    /**
+     * The bits of the filter, by words of 64 bits.
+     */
+    private final AtomicLongArray words;
+
+    /**
+     * The number of bits of the filter.
+     */
+    private final long bitCount;
+
+    /**
+     * The number of bits set for each token.
+     */
+    private final int hashCount;
+
+    /**
+     * Constructs a Bloom filter sized for a number of tokens and a false positive rate.
+     *
+     * @param expectedTokens    the number of tokens the filter is sized for
+     * @param falsePositiveRate the rate of the tokens wrongly reported as revoked once the filter holds the expected
+     *                          number of tokens, between 0 and 1
+     */
+    TokenBloomFilter(final long expectedTokens, final double falsePositiveRate) {
+        long tokens = Math.max(1, expectedTokens);
+        long bits = (long) Math.ceil(-tokens * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.max(1, Math.min(Integer.MAX_VALUE - 8, (bits + 63) / 64));
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = (long) wordCount * 64;
+        this.hashCount = (int) Math.max(1, Math.round((double) this.bitCount / tokens * Math.log(2)));
+    }
+
+    /**
+     * Adds a token to the filter.
+     *
+     * @param tokenId the ID of the token
+     */
+    void put(final UUID tokenId) {
+        this.put(tokenId.getMostSignificantBits(), tokenId.getLeastSignificantBits());
+    }
+
+    /**
+     * Adds a token to the filter, by the two halves of its ID.
+     *
+     * @param mostSignificantBits  the most significant bits of the ID of the token
+     * @param leastSignificantBits the least significant bits of the ID of the token
+     */
+    void put(final long mostSignificantBits, final long leastSignificantBits) {
+        long hash1 = mix(mostSignificantBits);
+        long hash2 = mix(leastSignificantBits) | 1;
+        for (int i = 0; i < this.hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, this.bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = this.words.get(word);
+            } while ((current & mask) == 0 && !this.words.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    /**
+     * Tells whether a token may have been added to the filter.
+     *
+     * @param tokenId the ID of the token
+     * @return false if the token has certainly not been added, true if it may have been
+     */
+    boolean mightContain(final UUID tokenId) {
+        long hash1 = mix(tokenId.getMostSignificantBits());
+        long hash2 = mix(tokenId.getLeastSignificantBits()) | 1;
+        for (int i = 0; i < this.hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, this.bitCount);
+            if ((this.words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the size of the filter.
+     *
+     * @return the number of bytes of the bits of the filter
+     */
+    long getSizeInBytes() {
+        return this.bitCount / 8;
+    }
+
+    /**
+     * Mixes the bits of a half of a token ID (the finalizer of MurmurHash3), so that the positions derived from the
+     * fixed bits of the UUID version and variant are spread too.
+     *
+     * @param value the value to mix
+     * @return the mixed value
+     */
+    static long mix(final long value) {
+        long mixed = value;
+        mixed ^= mixed >>> 33;
+        mixed *= 0xff51afd7ed558ccdL;
+        mixed ^= mixed >>> 33;
+        mixed *= 0xc4ceb9fe1a85ec53L;
+        mixed ^= mixed >>> 33;
+        return mixed;
+    }
+}
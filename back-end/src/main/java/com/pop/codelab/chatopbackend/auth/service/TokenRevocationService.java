@@ -0,0 +1,36 @@
+package com.pop.codelab.chatopbackend.auth.service;
+
+import com.pop.codelab.chatopbackend.services.VerifiedToken;
+
+/**
+ * The TokenRevocationService interface revokes the tokens before their expiry, on a logout or a password change,
+ * and tells whether a token has been revoked.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+public interface TokenRevocationService {
+
+    /**
+     * Tells whether a token has been revoked, by itself or along with all the tokens of its user.
+     * The check is answered from memory : it is run by each authenticated request.
+     *
+     * @param token the verified token
+     * @return true if the token has been revoked
+     */
+    boolean isRevoked(VerifiedToken token);
+
+    /**
+     * Revokes a token. A token issued without ID revokes all the tokens of its user.
+     *
+     * @param token the verified token to revoke
+     */
+    void revoke(VerifiedToken token);
+
+    /**
+     * Revokes all the tokens issued to a user until now.
+     *
+     * @param userId the ID of the user
+     */
+    void revokeAll(Long userId);
+}
@@ -0,0 +1,272 @@
+package com.pop.codelab.chatopbackend.auth.service;
+
+import com.pop.codelab.chatopbackend.auth.entity.TokenRevocation;
+import com.pop.codelab.chatopbackend.auth.repository.TokenRevocationRepository;
+import com.pop.codelab.chatopbackend.services.VerifiedToken;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The TokenRevocationServiceImpl class is an implementation of the TokenRevocationService interface.
+ * <p>
+ * The revocations are recorded in the token_revocations table, and held in memory by each node : the IDs of the
+ * revoked tokens in a Bloom filter in front of the exact set of the revoked IDs, a primitive hash table, and the
+ * instant before which the tokens of a user are revoked ("not before") by user ID. A token which has not been revoked, the common case, is
+ * told apart by a few bits of the filter, without any allocation : the exact set is only read for the tokens the
+ * filter reports as maybe revoked.</p>
+ * <p>
+ * The nodes poll the table at the interval set by the 'application.security.jwt.revocation.sync-interval'
+ * property, so that a token revoked on a node is rejected by the others within this interval. The revocations are
+ * forgotten, and deleted from the table, once the tokens they revoke have expired.</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@Service
+@RequiredArgsConstructor
+@Log4j2
+public class TokenRevocationServiceImpl implements TokenRevocationService {
+
+    /**
+     * The time the polls of the revocations overlap, so that the revocations committed late, or recorded by a node
+     * whose clock is late, are not missed.
+     */
+    private static final Duration SYNC_OVERLAP = Duration.ofMinutes(1);
+
+    /**
+     * The jwtExpiration variable represents the expiration time (in milliseconds) of the tokens.
+     * It is set using the value from the application property 'application.security.jwt.expiration'.
+     */
+    @Value("${application.security.jwt.expiration}")
+    private long jwtExpiration;
+
+    /**
+     * The expectedRevocations variable represents the number of revoked tokens the Bloom filter is sized for.
+     * It is set using the value from the application property
+     * 'application.security.jwt.revocation.expected-revocations'.
+     */
+    @Value("${application.security.jwt.revocation.expected-revocations}")
+    private long expectedRevocations;
+
+    /**
+     * The falsePositiveRate variable represents the rate of the tokens the Bloom filter reports as maybe revoked.
+     * It is set using the value from the application property
+     * 'application.security.jwt.revocation.false-positive-rate'.
+     */
+    @Value("${application.security.jwt.revocation.false-positive-rate}")
+    private double falsePositiveRate;
+
+    /**
+     * The tokenRevocationRepository variable represents the repository of the revocations shared by the nodes.
+     */
+    private final TokenRevocationRepository tokenRevocationRepository;
+
+    /**
+     * The meterRegistry variable represents the registry of the metrics of the revocations.
+     */
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * The revokedTokens variable holds the IDs of the revoked tokens along with their expiry, guarded by the lock of
+     * the revocations.
+     */
+    private final RevokedTokenSet revokedTokens = new RevokedTokenSet();
+
+    /**
+     * The notBefore variable holds the instant before which the tokens of a user are revoked, along with the expiry
+     * of this revocation, by user ID. Both are held by the same value, so that they are updated and removed
+     * together.
+     */
+    private final Map<Long, NotBefore> notBefore = new ConcurrentHashMap<>();
+
+    /**
+     * The Bloom filter of the IDs of the revoked tokens, replaced once the expired revocations are forgotten.
+     */
+    private volatile TokenBloomFilter bloomFilter;
+
+    /**
+     * The lock making the revocations of the tokens and the rebuild of the Bloom filter mutually exclusive, so that
+     * no revocation is written to a filter being replaced. The checks of the tokens do not take it.
+     */
+    private final Object revokedTokensLock = new Object();
+
+    /**
+     * The instant the latest poll of the revocations has started.
+     */
+    private volatile Instant lastSync;
+
+    /**
+     * Loads the revocations still in force, then registers the metrics of the revocations.
+     */
+    @PostConstruct
+    public void init() {
+        this.bloomFilter = new TokenBloomFilter(this.expectedRevocations, this.falsePositiveRate);
+        Instant now = Instant.now();
+        List<TokenRevocation> revocations = this.tokenRevocationRepository.findByExpiresAtAfter(now);
+        revocations.forEach(this::apply);
+        this.lastSync = now;
+        Gauge.builder("jwt.revocations", this, service -> service.revokedTokenCount())
+                .description("Tokens revoked before their expiry")
+                .register(this.meterRegistry);
+        Gauge.builder("jwt.revocations.users", this.notBefore, Map::size)
+                .description("Users whose tokens have all been revoked before their expiry")
+                .register(this.meterRegistry);
+        log.info("{} token revocation(s) loaded, Bloom filter of {} bytes", revocations.size(),
+                this.bloomFilter.getSizeInBytes());
+    }
+
+    @Override
+    public boolean isRevoked(final VerifiedToken token) {
+        NotBefore userNotBefore = this.notBefore.get(token.getUserId());
+        if (userNotBefore != null && token.getIssuedAt() < userNotBefore.issuedBefore()) {
+            return true;
+        }
+        UUID tokenId = token.getId();
+        if (tokenId == null || !this.bloomFilter.mightContain(tokenId)) {
+            return false;
+        }
+        // Rarely reached : the token has been revoked, or is a false positive of the filter
+        synchronized (this.revokedTokensLock) {
+            return this.revokedTokens.contains(tokenId);
+        }
+    }
+
+    @Override
+    public void revoke(final VerifiedToken token) {
+        if (token.getId() == null) {
+            this.revokeAll(token.getUserId());
+            return;
+        }
+        TokenRevocation revocation = new TokenRevocation();
+        revocation.setUserId(token.getUserId());
+        revocation.setTokenId(token.getId().toString());
+        revocation.setRevokedAt(Instant.now());
+        revocation.setExpiresAt(token.getExpiresAt() == null
+                ? Instant.now().plusMillis(this.jwtExpiration) : token.getExpiresAt());
+        this.apply(this.tokenRevocationRepository.save(revocation));
+        log.debug("Token {} of the user {} revoked", token.getId(), token.getUserId());
+    }
+
+    @Override
+    public void revokeAll(final Long userId) {
+        TokenRevocation revocation = new TokenRevocation();
+        revocation.setUserId(userId);
+        // Stored to the millisecond, as the tokens are issued : the other nodes read the same instant
+        revocation.setRevokedAt(Instant.now().truncatedTo(ChronoUnit.MILLIS));
+        revocation.setExpiresAt(revocation.getRevokedAt().plusMillis(this.jwtExpiration));
+        this.apply(this.tokenRevocationRepository.save(revocation));
+        log.debug("All the tokens of the user {} revoked", userId);
+    }
+
+    /**
+     * Polls the revocations recorded by all the nodes since the previous poll.
+     * The poll is run at the interval set by the application property
+     * 'application.security.jwt.revocation.sync-interval'.
+     */
+    @Scheduled(fixedDelayString = "${application.security.jwt.revocation.sync-interval}",
+            initialDelayString = "${application.security.jwt.revocation.sync-interval}")
+    public void syncRevocations() {
+        Instant startedAt = Instant.now();
+        this.tokenRevocationRepository.findByRevokedAtGreaterThanEqual(this.lastSync.minus(SYNC_OVERLAP))
+                .forEach(this::apply);
+        this.lastSync = startedAt;
+    }
+
+    /**
+     * Forgets the revocations whose tokens have all expired, then deletes them from the database. The Bloom filter is
+     * rebuilt from the revocations left, since it cannot forget a token.
+     * The purge is run at the interval set by the application property
+     * 'application.security.jwt.revocation.purge-interval'.
+     */
+    @Scheduled(fixedDelayString = "${application.security.jwt.revocation.purge-interval}",
+            initialDelayString = "${application.security.jwt.revocation.purge-interval}")
+    public void purgeExpiredRevocations() {
+        long now = Instant.now().getEpochSecond();
+        // Removed atomically : a revocation merged meanwhile extends the expiry, and keeps the entry
+        this.notBefore.keySet().forEach(userId -> this.notBefore.computeIfPresent(userId,
+                (id, userNotBefore) -> userNotBefore.expiresAt() < now ? null : userNotBefore));
+        int forgotten;
+        synchronized (this.revokedTokensLock) {
+            forgotten = this.revokedTokens.removeExpired(now);
+            if (forgotten > 0) {
+                TokenBloomFilter rebuilt = new TokenBloomFilter(this.expectedRevocations, this.falsePositiveRate);
+                this.revokedTokens.putAll(rebuilt);
+                // The filter being read by the checks meanwhile is a superset of the rebuilt one
+                this.bloomFilter = rebuilt;
+            }
+        }
+        int deleted = this.tokenRevocationRepository.deleteExpired(Instant.now().minus(SYNC_OVERLAP));
+        log.debug("Token revocations purged : {} forgotten, {} deleted", forgotten, deleted);
+    }
+
+    /**
+     * Returns the number of revoked tokens held in memory, for the metrics.
+     *
+     * @return the number of revoked tokens
+     */
+    private int revokedTokenCount() {
+        synchronized (this.revokedTokensLock) {
+            return this.revokedTokens.size();
+        }
+    }
+
+    /**
+     * Applies a revocation to the revocations held in memory. A revocation may be applied several times.
+     *
+     * @param revocation the revocation
+     */
+    private void apply(final TokenRevocation revocation) {
+        long expiresAt = revocation.getExpiresAt().getEpochSecond();
+        if (revocation.getTokenId() == null) {
+            this.notBefore.merge(revocation.getUserId(),
+                    new NotBefore(revocation.getRevokedAt().toEpochMilli(), expiresAt), NotBefore::merge);
+            return;
+        }
+        UUID tokenId;
+        try {
+            tokenId = UUID.fromString(revocation.getTokenId());
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid revoked token ID : {}", revocation.getTokenId());
+            return;
+        }
+        synchronized (this.revokedTokensLock) {
+            // The exact set first : a token found by the filter is always in the set
+            this.revokedTokens.add(tokenId, expiresAt);
+            this.bloomFilter.put(tokenId);
+        }
+    }
+
+    /**
+     * The revocation of all the tokens of a user issued before an instant.
+     *
+     * @param issuedBefore the instant before which the tokens are revoked, in milliseconds since the epoch
+     * @param expiresAt    the instant the last of these tokens expires, in seconds since the epoch
+     */
+    private record NotBefore(long issuedBefore, long expiresAt) {
+
+        /**
+         * Merges two revocations of the same user : the latest instant and the latest expiry win.
+         *
+         * @param other the other revocation
+         * @return the merged revocation
+         */
+        NotBefore merge(final NotBefore other) {
+            return new NotBefore(Math.max(this.issuedBefore, other.issuedBefore),
+                    Math.max(this.expiresAt, other.expiresAt));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.pop.codelab.chatopbackend.business.image.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+
+/**
+ * The StoredImage class represents an image stored once in the content-addressed image storage, whatever the number
+ * of rentals showing it. The class represents a table called "images" in the database.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ * @see com.pop.codelab.chatopbackend.services.ImageStoragePaths
+ */
+@Data
+@Entity
+@Table(name = "images")
+public class StoredImage {
+
+    /**
+     * The `contentKey` variable represents the content key of the image : the SHA-256 hash of its bytes followed by
+     * the extension of its format. It is the file name of the image, and the picture of the rentals showing it.
+     */
+    @Id
+    @Column(length = 80, name = "content_key")
+    private String contentKey;
+
+    /**
+     * The `refCount` variable represents the number of rentals showing the image, which share its stored bytes.
+     * An image uploaded but not shown by any rental yet has no reference.
+     */
+    @Column(nullable = false, name = "ref_count")
+    private int refCount;
+
+    /**
+     * The `size` variable represents the size of the image, in bytes.
+     */
+    @Column(nullable = false)
+    private long size;
+
+    /**
+     * The `createdAt` variable represents the instant the image was first stored.
+     */
+    @CreationTimestamp
+    @Column(nullable = false, name = "created_at",
+            columnDefinition = "TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3)")
+    private Instant createdAt;
+
+    /**
+     * The `referencedAt` variable represents the instant of the last upload of the image. The garbage collection
+     * spares the images uploaded within its grace period, which may not be referenced by their rental yet.
+     */
+    @Column(nullable = false, name = "referenced_at",
+            columnDefinition = "TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3)")
+    private Instant referencedAt;
+}
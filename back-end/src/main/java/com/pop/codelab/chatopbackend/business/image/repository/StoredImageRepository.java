@@ -0,0 +1,73 @@
+package com.pop.codelab.chatopbackend.business.image.repository;
+
+import com.pop.codelab.chatopbackend.business.image.entity.StoredImage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * The StoredImageRepository interface provides the operations on the reference counts of the stored images :
+ * the number of rentals showing each image.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ * @see StoredImage
+ */
+public interface StoredImageRepository extends JpaRepository<StoredImage, String> {
+
+    /**
+     * Records the upload of an image : records the image without reference if it is new, otherwise records the
+     * instant of the upload, so that the garbage collection spares the images just uploaded, which their rental may
+     * not reference yet. The statement is atomic, so that concurrent uploads of the same bytes record a single row.
+     *
+     * @param contentKey the content key of the image
+     * @param size       the size of the image, in bytes
+     * @return the number of rows inserted or updated
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "insert into images (content_key, ref_count, size, created_at, referenced_at) "
+            + "values (:contentKey, 0, :size, current_timestamp(3), current_timestamp(3)) "
+            + "on duplicate key update referenced_at = current_timestamp(3)",
+            nativeQuery = true)
+    int recordUpload(@Param("contentKey") String contentKey, @Param("size") long size);
+
+    /**
+     * Adds a reference to an image, once a rental shows it. The statement is atomic.
+     *
+     * @param contentKey the content key of the image
+     * @return the number of rows updated, 0 if the image is not recorded
+     */
+    @Modifying
+    @Transactional
+    @Query("update StoredImage i set i.refCount = i.refCount + 1 where i.contentKey = :contentKey")
+    int addReference(@Param("contentKey") String contentKey);
+
+    /**
+     * Removes a reference to an image, once a rental does not show it anymore. The statement is atomic, and the
+     * count never goes below zero.
+     *
+     * @param contentKey the content key of the image
+     * @return the number of rows updated, 0 if the image is not recorded or has no reference left
+     */
+    @Modifying
+    @Transactional
+    @Query("update StoredImage i set i.refCount = i.refCount - 1 where i.contentKey = :contentKey and i.refCount > 0")
+    int removeReference(@Param("contentKey") String contentKey);
+
+    /**
+     * Deletes the record of an image uploaded once and never referenced : its upload date is still its creation
+     * date, as any later upload of the same bytes records its own date. The statement is atomic.
+     *
+     * @param contentKey the content key of the image
+     * @return the number of rows deleted, 0 if the image is referenced, has been uploaded several times or is not
+     * recorded
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from StoredImage i where i.contentKey = :contentKey and i.refCount = 0"
+            + " and i.referencedAt = i.createdAt")
+    int deleteIfUploadedOnce(@Param("contentKey") String contentKey);
+}
@@ -0,0 +1,32 @@
+package com.pop.codelab.chatopbackend.business.message.mapper;
+
+import com.pop.codelab.chatopbackend.business.message.dto.requests.MessageToSendDto;
+import com.pop.codelab.chatopbackend.business.message.entity.Message;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingConstants;
+import org.mapstruct.ReportingPolicy;
+
+/**
+ * The MessageMapper interface maps the message DTOs to the Message entity.
+ * <p>
+ * Its implementation is generated by MapStruct at compile time, with no reflection at runtime.</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ * @see Message
+ */
+@Mapper(componentModel = MappingConstants.ComponentModel.SPRING, unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface MessageMapper {
+
+    /**
+     * Maps a MessageToSendDto to a new Message entity.
+     *
+     * @param messageDto the MessageToSendDto to map
+     * @return the new Message entity
+     */
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    Message toMessage(MessageToSendDto messageDto);
+}
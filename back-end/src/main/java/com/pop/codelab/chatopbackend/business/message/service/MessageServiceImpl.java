@@ -3,12 +3,10 @@ package com.pop.codelab.chatopbackend.business.message.service;
 import com.pop.codelab.chatopbackend.business.message.repository.MessageRepository;
 import com.pop.codelab.chatopbackend.business.message.dto.requests.MessageToSendDto;
 import com.pop.codelab.chatopbackend.business.message.entity.Message;
+import com.pop.codelab.chatopbackend.business.message.mapper.MessageMapper;
 import com.pop.codelab.chatopbackend.common.responses.MessageDto;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
-import org.modelmapper.ModelMapper;
-import org.modelmapper.convention.MatchingStrategies;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 /**
@@ -34,14 +32,12 @@ public class MessageServiceImpl implements MessageService {
     private final MessageRepository messageRepository;
 
     /**
-     * The modelMapper variable is an instance of the ModelMapper class.
-     * It is used for mapping objects between different models.
-     * Here between Dto and Entity and vice versa
+     * The messageMapper variable represents the mapper, generated at compile time, used to map
+     * the message DTOs to the Message entity.
      *
-     * @see ModelMapper
+     * @see MessageMapper
      */
-    @Autowired
-    private ModelMapper modelMapper;
+    private final MessageMapper messageMapper;
 
     /**
      * Creates a new message using the provided MessageToSendDto.
@@ -51,7 +47,7 @@ public class MessageServiceImpl implements MessageService {
      */
     @Override
     public MessageDto create(final MessageToSendDto messageDto) {
-        Message message = this.modelMapper.map(messageDto, Message.class);
+        Message message = this.messageMapper.toMessage(messageDto);
         this.messageRepository.save(message);
         log.debug("Message : {} has been sent.", message.getMessage());
         return MessageDto
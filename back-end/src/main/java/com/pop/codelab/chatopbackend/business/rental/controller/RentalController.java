@@ -1,24 +1,41 @@
 package com.pop.codelab.chatopbackend.business.rental.controller;
 
 import com.pop.codelab.chatopbackend.business.rental.dto.requests.RentalCreationDto;
+import com.pop.codelab.chatopbackend.business.rental.dto.requests.RentalSearchDto;
 import com.pop.codelab.chatopbackend.business.rental.dto.requests.RentalUpdateDto;
 import com.pop.codelab.chatopbackend.business.rental.dto.responses.AllRentalsDto;
 import com.pop.codelab.chatopbackend.business.rental.dto.responses.OneRentalDto;
+import com.pop.codelab.chatopbackend.business.rental.dto.responses.RentalImportReportDto;
+import com.pop.codelab.chatopbackend.business.rental.dto.responses.RentalSearchResultsDto;
+import com.pop.codelab.chatopbackend.business.rental.dto.responses.RentalsPageVersionDto;
+import com.pop.codelab.chatopbackend.business.rental.importer.RentalImportFormat;
+import com.pop.codelab.chatopbackend.business.rental.service.RentalImportService;
 import com.pop.codelab.chatopbackend.business.rental.service.RentalServiceImpl;
 import com.pop.codelab.chatopbackend.common.responses.MessageDto;
+import com.pop.codelab.chatopbackend.common.responses.ResourceVersionDto;
+import com.pop.codelab.chatopbackend.configuration.MultipartConfiguration;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
 
 /**
  * Retrieves all rentals from the repository.
@@ -48,42 +65,152 @@ public class RentalController {
     @Autowired
     private RentalServiceImpl rentalService;
 
+    /**
+     * Represents the rental import service used to import rentals in bulk.
+     */
+    @Autowired
+    private RentalImportService rentalImportService;
+
 
     /**
-     * Retrieves all rentals from the repository.
+     * Retrieves a page of rentals from the repository.
+     * The pagination relies on a cursor : the {@code next_cursor} value of a page must be provided as the
+     * {@code after} parameter to retrieve the next page.
+     * When neither {@code after} nor {@code limit} is provided, every rental is returned, without next cursor.
      *
-     * @return a ResponseEntity containing AllRentalsDto object representing all rentals and the appropriate HTTP status code
-     * @throws ResourceNotFoundException if no rentals are found
+     * @param after   the ID of the last rental of the previous page, or null to retrieve the first page
+     * @param limit   the maximum number of rentals of the page, or null to use the default page size
+     *                (or to retrieve every rental when {@code after} is null too)
+     * @param summary true to retrieve rental summaries, without their description
+     * @param request the current request, holding the If-None-Match and If-Modified-Since headers
+     * @return a ResponseEntity containing AllRentalsDto object representing the page of rentals and the appropriate HTTP status code
      */
     @GetMapping(value = "")
-    @Operation(summary = "Get all rentals")
+    @Operation(summary = "Get a page of rentals")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "OK : List of rentals found", content = @Content(schema = @Schema(implementation = AllRentalsDto.class))),
+            @ApiResponse(responseCode = "304", description = "Not Modified : the page of rentals has not changed"),
             @ApiResponse(responseCode = "401", description = "Unauthorized : the user must authenticate itself to get" +
                     " the requested response"),
             @ApiResponse(responseCode = "404", description = "Not Found : No rentals found")
     })
-    public ResponseEntity<AllRentalsDto> getAllRentails() {
-        return ResponseEntity.ok(this.rentalService.getAllRentals());
+    public ResponseEntity<AllRentalsDto> getAllRentails(final @RequestParam(required = false) Long after,
+                                                        final @RequestParam(required = false) Integer limit,
+                                                        final @RequestParam(defaultValue = "false") boolean summary,
+                                                        final WebRequest request) {
+        RentalsPageVersionDto pageVersion = this.rentalService.getRentalsPageVersion(after, limit, summary);
+        ResourceVersionDto version = pageVersion.getVersion();
+        if (request.checkNotModified(version.getETag(), version.getLastModifiedMillis())) {
+            // 304 Not Modified : the rentals are neither loaded nor serialized
+            return null;
+        }
+        // The page is built from the rentals its version was computed on, without running the page query again
+        return ResponseEntity.ok(this.rentalService.getAllRentals(pageVersion, summary));
+
+    }
+
+    /**
+     * Searches the rentals by price and surface ranges, owner and name prefix.
+     * The rentals are sorted by price, surface or from the newest, and the {@code next_cursor} value of a page must
+     * be provided as the {@code cursor} parameter, along with the same criteria, to retrieve the next page.
+     *
+     * @param criteria the search criteria bound from the query parameters
+     * @return a ResponseEntity containing the RentalSearchResultsDto object representing the page of rentals found
+     */
+    @GetMapping(value = "/search")
+    @Operation(summary = "Search rentals")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK : Page of rentals found", content = @Content(schema = @Schema(implementation = RentalSearchResultsDto.class))),
+            @ApiResponse(responseCode = "400", description = "Bad Request : the search cursor is invalid"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized : the user must authenticate itself to get" +
+                    " the requested response")
+    })
+    public ResponseEntity<RentalSearchResultsDto> searchRentals(final @ModelAttribute RentalSearchDto criteria) {
+        return ResponseEntity.ok(this.rentalService.searchRentals(criteria));
+    }
 
+    /**
+     * Searches the rentals whose name or description matches a full-text query, by decreasing relevance.
+     * The accents, the case and the most frequent French words of the query are ignored. The {@code next_cursor}
+     * value of a page must be provided as the {@code cursor} parameter, along with the same query, to retrieve the
+     * next page.
+     *
+     * @param q       the full-text query
+     * @param cursor  the cursor of the page to retrieve, or null to retrieve the first page
+     * @param limit   the maximum number of rentals of the page, or null to use the default page size
+     * @param summary true to retrieve rental summaries, without their description
+     * @return a ResponseEntity containing the RentalSearchResultsDto object representing the page of rentals found
+     */
+    @GetMapping(value = "/search", params = "q")
+    @Operation(summary = "Full-text search of rentals")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK : Page of rentals found", content = @Content(schema = @Schema(implementation = RentalSearchResultsDto.class))),
+            @ApiResponse(responseCode = "400", description = "Bad Request : the query holds no searchable term or the search cursor is invalid"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized : the user must authenticate itself to get" +
+                    " the requested response"),
+            @ApiResponse(responseCode = "503", description = "Service Unavailable : the full-text index is not built yet")
+    })
+    public ResponseEntity<RentalSearchResultsDto> searchRentalsByText(final @RequestParam String q,
+                                                                      final @RequestParam(required = false) String cursor,
+                                                                      final @RequestParam(required = false) Integer limit,
+                                                                      final @RequestParam(defaultValue = "false") boolean summary) {
+        return ResponseEntity.ok(this.rentalService.searchRentalsByText(q, cursor, limit, summary));
+    }
+
+    /**
+     * Streams all the rentals as a JSON object holding the rentals array.
+     * The rentals are written to the response one at a time while they are read from the database, so the memory
+     * used does not depend on the number of rentals and the first bytes are sent as soon as possible.
+     *
+     * @param summary true to stream rental summaries, without their description
+     * @return a ResponseEntity containing the StreamingResponseBody writing the rentals
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Stream all rentals")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK : List of rentals streamed", content = @Content(schema = @Schema(implementation = AllRentalsDto.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized : the user must authenticate itself to get" +
+                    " the requested response")
+    })
+    public ResponseEntity<StreamingResponseBody> streamAllRentals(final @RequestParam(defaultValue = "false") boolean summary) {
+        // The rentals are written by another thread : it serves their pictures at the URL of this request
+        RequestAttributes requestAttributes = RequestContextHolder.currentRequestAttributes();
+        StreamingResponseBody responseBody = outputStream -> {
+            RequestContextHolder.setRequestAttributes(requestAttributes);
+            try {
+                this.rentalService.streamAllRentals(summary, outputStream);
+            } finally {
+                RequestContextHolder.resetRequestAttributes();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(responseBody);
     }
 
     /**
      * Retrieves a rental by its ID.
+     * The ETag and Last-Modified headers of the response allow the client to send a conditional request, which is
+     * answered by a 304 Not Modified status if the rental has not changed.
      *
-     * @param id the ID of the rental to be retrieved
+     * @param id      the ID of the rental to be retrieved
+     * @param request the current request, holding the If-None-Match and If-Modified-Since headers
      * @return a ResponseEntity containing the rental with the specified ID and the appropriate HTTP status code
      */
     @Operation(summary = "Get a rental by Id")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "OK : Rental found", content = @Content(schema = @Schema(implementation = OneRentalDto.class))),
+            @ApiResponse(responseCode = "304", description = "Not Modified : the rental has not changed"),
             @ApiResponse(responseCode = "401", description = "Unauthorized : the user must authenticate itself to get" +
                     " the requested response"),
             @ApiResponse(responseCode = "404", description = "Not Found : the rental has not been retrieved")
 
     })
     @GetMapping("/{id}")
-    public ResponseEntity<OneRentalDto> getRentalById(final @PathVariable Long id) {
+    public ResponseEntity<OneRentalDto> getRentalById(final @PathVariable Long id, final WebRequest request) {
+        ResourceVersionDto version = this.rentalService.getRentalVersion(id);
+        if (request.checkNotModified(version.getETag(), version.getLastModifiedMillis())) {
+            // 304 Not Modified : the rental DTO is neither built nor serialized
+            return null;
+        }
         return ResponseEntity.ok(this.rentalService.getRentalById(id));
     }
 
@@ -99,6 +226,7 @@ public class RentalController {
     @Operation(summary = "Create a new rental")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Created : Rental created", content = @Content(schema = @Schema(implementation = MessageDto.class))),
+            @ApiResponse(responseCode = "400", description = "Bad Request : a field is missing or invalid"),
             @ApiResponse(responseCode = "401", description = "Unauthorized : the user must authenticate itself to get" +
                     " the requested response")
     })
@@ -106,6 +234,66 @@ public class RentalController {
         return new ResponseEntity<>(this.rentalService.createRental(rentalDto, authentication), HttpStatus.CREATED);
     }
 
+    /**
+     * Creates a new rental from a multipart/form-data body holding the fields of a RentalCreationDto, read as a
+     * stream. The body is not parsed by the servlet container (see {@link MultipartConfiguration}) : the picture is
+     * written straight to the upload directory while it is received, instead of being spooled to a temporary file
+     * then copied, and an oversized upload is rejected as soon as it crosses the size limits.
+     *
+     * @param contentType    the content type of the request, holding the boundary of the parts
+     * @param request        the current request, giving the body and its length
+     * @param authentication the Authentication object representing the logged-in user
+     *                       we need it to set the rental owner
+     * @return a ResponseEntity<MessageDto> containing the status code and message
+     * @throws IOException if the body cannot be read or the picture cannot be saved
+     */
+    @PostMapping(path = MultipartConfiguration.STREAMED_RENTAL_CREATION_PATH,
+            consumes = {MediaType.MULTIPART_FORM_DATA_VALUE})
+    @Operation(summary = "Create a new rental, its picture streamed to the image storage",
+            requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    content = @Content(mediaType = MediaType.MULTIPART_FORM_DATA_VALUE,
+                            schema = @Schema(implementation = RentalCreationDto.class))))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Created : Rental created", content = @Content(schema = @Schema(implementation = MessageDto.class))),
+            @ApiResponse(responseCode = "400", description = "Bad Request : the body is malformed or a field is missing or invalid"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized : the user must authenticate itself to get" +
+                    " the requested response"),
+            @ApiResponse(responseCode = "413", description = "Payload Too Large : the picture or the request is too large")
+    })
+    public ResponseEntity<MessageDto> createStreamedRental(
+            final @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, final HttpServletRequest request,
+            final Authentication authentication) throws IOException {
+        MessageDto message = this.rentalService.createRental(MediaType.parseMediaType(contentType),
+                request.getContentLengthLong(), request.getInputStream(), authentication);
+        return new ResponseEntity<>(message, HttpStatus.CREATED);
+    }
+
+    /**
+     * Imports the rentals of a NDJSON or CSV file, owned by the logged-in user.
+     * The file is read as a stream and its valid rentals are saved by batches : the response reports the rows
+     * imported and rejected, and the progress of the import batch by batch.
+     *
+     * @param contentType    the content type of the file : application/x-ndjson or text/csv
+     * @param inputStream    the content of the file
+     * @param authentication the Authentication object representing the logged-in user, owner of the rentals
+     * @return a ResponseEntity containing the RentalImportReportDto of the import
+     * @throws IOException if the file cannot be read
+     */
+    @PostMapping(path = "/import", consumes = {RentalImportFormat.NDJSON_VALUE, RentalImportFormat.CSV_VALUE})
+    @Operation(summary = "Import rentals from a NDJSON or CSV file")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK : Rentals imported", content = @Content(schema = @Schema(implementation = RentalImportReportDto.class))),
+            @ApiResponse(responseCode = "400", description = "Bad Request : the CSV header or the file structure is invalid"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized : the user must authenticate itself to get" +
+                    " the requested response")
+    })
+    public ResponseEntity<RentalImportReportDto> importRentals(final @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                               final InputStream inputStream,
+                                                               final Authentication authentication) throws IOException {
+        RentalImportFormat format = RentalImportFormat.fromContentType(MediaType.parseMediaType(contentType));
+        return ResponseEntity.ok(this.rentalImportService.importRentals(format, inputStream, authentication));
+    }
+
     /**
      * Updates a rental with the specified ID.
      *
@@ -120,7 +308,9 @@ public class RentalController {
             @ApiResponse(responseCode = "200", description = "Rental updated", content = @Content(schema = @Schema(implementation = MessageDto.class))),
             @ApiResponse(responseCode = "401", description = "Unauthorized : the user must authenticate itself to get" +
                     " the requested response"),
-            @ApiResponse(responseCode = "404", description = "Not Found : the rental has not been retrieved")
+            @ApiResponse(responseCode = "404", description = "Not Found : the rental has not been retrieved"),
+            @ApiResponse(responseCode = "409", description = "Conflict : the rental has been modified meanwhile, "
+                    + "the update may be sent again")
 
     })
     @PutMapping(value = "/{id}")
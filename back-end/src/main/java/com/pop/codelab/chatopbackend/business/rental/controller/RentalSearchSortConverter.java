@@ -0,0 +1,30 @@
+package com.pop.codelab.chatopbackend.business.rental.controller;
+
+import com.pop.codelab.chatopbackend.business.rental.repository.RentalSearchSort;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * The RentalSearchSortConverter class converts the {@code sort} query parameter of the rental search to a
+ * RentalSearchSort, regardless of its case ({@code sort=price} as well as {@code sort=PRICE}).
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@Component
+public class RentalSearchSortConverter implements Converter<String, RentalSearchSort> {
+
+    /**
+     * Converts the sort query parameter to a RentalSearchSort.
+     *
+     * @param source the value of the sort query parameter
+     * @return the matching RentalSearchSort, or null if the parameter is blank
+     * @throws IllegalArgumentException if the value does not match any sort order
+     */
+    @Override
+    public RentalSearchSort convert(final String source) {
+        return source.isBlank() ? null : RentalSearchSort.valueOf(source.strip().toUpperCase(Locale.ROOT));
+    }
+}
@@ -1,6 +1,7 @@
 package com.pop.codelab.chatopbackend.business.rental.dto.requests;
 
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.Data;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -16,10 +17,21 @@ import java.math.BigDecimal;
 
 public class RentalCreationDto {
 
+    /**
+     * The maximum length of the name of a rental, the length of its column.
+     */
+    public static final int NAME_MAX_LENGTH = 248;
+
+    /**
+     * The maximum length of the description of a rental, the length of its column.
+     */
+    public static final int DESCRIPTION_MAX_LENGTH = 2000;
+
     /**
      * Represents the name of a rental.
      */
     @NotNull
+    @Size(max = NAME_MAX_LENGTH)
     private String name;
 
     /**
@@ -43,5 +55,6 @@ public class RentalCreationDto {
      * Represents the description of a rental.
      */
     @NotNull
+    @Size(max = DESCRIPTION_MAX_LENGTH)
     private String description;
 }
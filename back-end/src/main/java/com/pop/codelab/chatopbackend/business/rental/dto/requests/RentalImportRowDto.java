@@ -0,0 +1,36 @@
+package com.pop.codelab.chatopbackend.business.rental.dto.requests;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * The RentalImportRowDto class represents a rental read from a bulk import file.
+ * Its values are checked by the rental import service against the columns of the rentals table before being saved.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@Data
+public class RentalImportRowDto {
+
+    /**
+     * The name of the rental, required, of 248 characters at most.
+     */
+    private String name;
+
+    /**
+     * The surface of the rental, required and positive.
+     */
+    private BigDecimal surface;
+
+    /**
+     * The price of the rental, required and positive or zero.
+     */
+    private BigDecimal price;
+
+    /**
+     * The description of the rental, required, of 2000 characters at most.
+     */
+    private String description;
+}
@@ -0,0 +1,68 @@
+package com.pop.codelab.chatopbackend.business.rental.dto.requests;
+
+import com.pop.codelab.chatopbackend.business.rental.repository.RentalSearchSort;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * The RentalSearchDto class represents the criteria of a rental search, bound from the query parameters.
+ * Every criterion is optional : the criteria which are not provided do not filter the rentals.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@Data
+public class RentalSearchDto {
+
+    /**
+     * The minimum price of the rentals, inclusive.
+     */
+    private BigDecimal minPrice;
+
+    /**
+     * The maximum price of the rentals, inclusive.
+     */
+    private BigDecimal maxPrice;
+
+    /**
+     * The minimum surface of the rentals, inclusive.
+     */
+    private BigDecimal minSurface;
+
+    /**
+     * The maximum surface of the rentals, inclusive.
+     */
+    private BigDecimal maxSurface;
+
+    /**
+     * The ID of the user owning the rentals.
+     */
+    private Long ownerId;
+
+    /**
+     * The beginning of the name of the rentals. The comparison follows the collation of the rentals table,
+     * which ignores the case and the accents.
+     */
+    private String name;
+
+    /**
+     * The order the rentals are sorted in, the newest rentals first by default.
+     */
+    private RentalSearchSort sort = RentalSearchSort.NEWEST;
+
+    /**
+     * The cursor returned with the previous page as {@code next_cursor}, or null to retrieve the first page.
+     */
+    private String cursor;
+
+    /**
+     * The maximum number of rentals of the page, or null to use the default page size.
+     */
+    private Integer limit;
+
+    /**
+     * True to retrieve rental summaries, which do not hold the description.
+     */
+    private boolean summary;
+}
@@ -1,5 +1,7 @@
 package com.pop.codelab.chatopbackend.business.rental.dto.responses;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Builder;
 import lombok.Data;
 
@@ -24,4 +26,13 @@ public class AllRentalsDto {
      */
     private Iterable<OneRentalDto> rentals;
 
+    /**
+     * The nextCursor variable represents the cursor to provide as the {@code after} parameter to retrieve
+     * the next page of rentals.
+     * It is the ID of the last rental of the page, and it is null (not serialized) when there is no next page.
+     */
+    @JsonProperty("next_cursor")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long nextCursor;
+
 }
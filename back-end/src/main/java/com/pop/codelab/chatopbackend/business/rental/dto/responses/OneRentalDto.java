@@ -1,6 +1,7 @@
 package com.pop.codelab.chatopbackend.business.rental.dto.responses;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -8,6 +9,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
 
 /**
@@ -17,7 +19,7 @@ import java.time.LocalDate;
  * @version 2.0
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @AllArgsConstructor
 @NoArgsConstructor
 public class OneRentalDto {
@@ -51,6 +53,7 @@ public class OneRentalDto {
     private String picture;
     /**
      * The description value provides additional information or details about the rental entity.
+     * It is not serialized in the rental summaries, see {@link RentalSummaryDto}.
      */
     private String description;
     /**
@@ -74,4 +77,40 @@ public class OneRentalDto {
     @JsonFormat(pattern = "yyyy/MM/dd")
     private LocalDate updatedAt;
 
+    /**
+     * The version variable represents the version of the rental entity, used to build its ETag.
+     * It is not serialized.
+     */
+    @JsonIgnore
+    private Long version;
+
+    /**
+     * The modifiedAt variable represents the instant when the rental entity was last modified, used as its
+     * Last-Modified date. It is not serialized.
+     */
+    @JsonIgnore
+    private Instant modifiedAt;
+
+    /**
+     * Creates a rental summary, which holds every rental detail but the description.
+     * This constructor is used by the JPQL constructor expressions of the rental summaries queries,
+     * so that the description is not read from the database.
+     *
+     * @param id        the identifier of the rental
+     * @param name      the name of the rental
+     * @param surface   the surface of the rental
+     * @param price     the price of the rental
+     * @param picture   the picture file name of the rental
+     * @param ownerId   the identifier of the rental owner
+     * @param createdAt the creation date of the rental
+     * @param updatedAt  the last update date of the rental
+     * @param version    the version of the rental
+     * @param modifiedAt the instant when the rental was last modified
+     */
+    public OneRentalDto(final Long id, final String name, final BigDecimal surface, final BigDecimal price,
+                        final String picture, final Long ownerId, final LocalDate createdAt,
+                        final LocalDate updatedAt, final Long version, final Instant modifiedAt) {
+        this(id, name, surface, price, picture, null, ownerId, createdAt, updatedAt, version, modifiedAt);
+    }
+
 }
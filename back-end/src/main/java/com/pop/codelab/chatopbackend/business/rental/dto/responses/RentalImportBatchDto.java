@@ -0,0 +1,44 @@
+package com.pop.codelab.chatopbackend.business.rental.dto.responses;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * The RentalImportBatchDto class represents the response DTO (Data Transfer Object)
+ * for the progress of a bulk import : a batch of rentals saved in one transaction.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@Data
+@Builder
+public class RentalImportBatchDto {
+
+    /**
+     * The number variable represents the number of the batch, counted from 1.
+     */
+    private int number;
+
+    /**
+     * The rentals variable represents the number of rentals of the batch.
+     */
+    private int rentals;
+
+    /**
+     * The saved variable is true if the rentals of the batch have been saved, false if its transaction failed.
+     */
+    private boolean saved;
+
+    /**
+     * The lastLine variable represents the number of the line of the file the last rental of the batch starts at.
+     */
+    @JsonProperty("last_line")
+    private long lastLine;
+
+    /**
+     * The durationMillis variable represents the time taken to save the batch, in milliseconds.
+     */
+    @JsonProperty("duration_ms")
+    private long durationMillis;
+}
@@ -0,0 +1,26 @@
+package com.pop.codelab.chatopbackend.business.rental.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * The RentalImportErrorDto class represents the response DTO (Data Transfer Object)
+ * for a row of a bulk import file which has been rejected.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class RentalImportErrorDto {
+
+    /**
+     * The line variable represents the number of the line of the file the rejected row starts at.
+     */
+    private long line;
+
+    /**
+     * The message variable represents the reason why the row has been rejected.
+     */
+    private String message;
+}
@@ -0,0 +1,61 @@
+package com.pop.codelab.chatopbackend.business.rental.dto.responses;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * The RentalImportReportDto class represents the response DTO (Data Transfer Object)
+ * for the report of a bulk import of rentals.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ * @see RentalImportBatchDto
+ * @see RentalImportErrorDto
+ */
+@Data
+@Builder
+public class RentalImportReportDto {
+
+    /**
+     * The rowsRead variable represents the number of rows read from the file.
+     */
+    @JsonProperty("rows_read")
+    private long rowsRead;
+
+    /**
+     * The rowsImported variable represents the number of rentals saved.
+     */
+    @JsonProperty("rows_imported")
+    private long rowsImported;
+
+    /**
+     * The rowsRejected variable represents the number of rows which could not be read, which are invalid,
+     * or whose batch could not be saved.
+     */
+    @JsonProperty("rows_rejected")
+    private long rowsRejected;
+
+    /**
+     * The durationMillis variable represents the time taken by the whole import, in milliseconds.
+     */
+    @JsonProperty("duration_ms")
+    private long durationMillis;
+
+    /**
+     * The batches variable represents the progress of the import, batch by batch.
+     *
+     * @see RentalImportBatchDto
+     */
+    private List<RentalImportBatchDto> batches;
+
+    /**
+     * The errors variable represents the first rejected rows, up to a maximum number, the rowsRejected variable
+     * counting them all.
+     *
+     * @see RentalImportErrorDto
+     */
+    private List<RentalImportErrorDto> errors;
+}
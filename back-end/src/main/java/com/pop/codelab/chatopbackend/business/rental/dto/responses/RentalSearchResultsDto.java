@@ -0,0 +1,43 @@
+package com.pop.codelab.chatopbackend.business.rental.dto.responses;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * The RentalSearchResultsDto class represents the response DTO (Data Transfer Object)
+ * for a page of the rentals found by a search.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ * @see OneRentalDto
+ */
+@Data
+@Builder
+public class RentalSearchResultsDto {
+
+    /**
+     * The rentals variable represents the rentals of the page, in the order requested by the search.
+     *
+     * @see OneRentalDto
+     */
+    private Iterable<OneRentalDto> rentals;
+
+    /**
+     * The nextCursor variable represents the cursor to provide as the {@code cursor} parameter, along with the same
+     * criteria, to retrieve the next page of results.
+     * It is null (not serialized) when there is no next page.
+     */
+    @JsonProperty("next_cursor")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+
+    /**
+     * The total variable represents the number of rentals matching the criteria, on all the pages.
+     * It is provided (serialized) only when the search is answered by the in-memory rental index,
+     * which counts the rentals without querying the database.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long total;
+}
@@ -0,0 +1,32 @@
+package com.pop.codelab.chatopbackend.business.rental.dto.responses;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * The RentalSummaryDto class represents a rental summary in a response, which holds every rental detail
+ * but the description.
+ * The description key is left out of its JSON representation, whereas a OneRentalDto always holds it,
+ * even when the rental has no description.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ * @see OneRentalDto
+ */
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+@JsonIgnoreProperties("description")
+public class RentalSummaryDto extends OneRentalDto {
+
+    /**
+     * Creates the summary of a rental.
+     *
+     * @param rentalDto the rental to summarize
+     */
+    public RentalSummaryDto(final OneRentalDto rentalDto) {
+        super(rentalDto.getId(), rentalDto.getName(), rentalDto.getSurface(), rentalDto.getPrice(),
+                rentalDto.getPicture(), null, rentalDto.getOwnerId(), rentalDto.getCreatedAt(),
+                rentalDto.getUpdatedAt(), rentalDto.getVersion(), rentalDto.getModifiedAt());
+    }
+}
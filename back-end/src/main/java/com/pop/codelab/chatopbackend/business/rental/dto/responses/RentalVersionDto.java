@@ -0,0 +1,33 @@
+package com.pop.codelab.chatopbackend.business.rental.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * The RentalVersionDto class represents the version of a rental entity, without its details.
+ * It is used to compute the ETag and the Last-Modified date of a page of rentals.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class RentalVersionDto {
+
+    /**
+     * The id variable represents the identifier of the rental entity.
+     */
+    private Long id;
+
+    /**
+     * The version variable represents the version of the rental entity.
+     */
+    private Long version;
+
+    /**
+     * The modifiedAt variable represents the instant when the rental entity was last modified.
+     */
+    private Instant modifiedAt;
+}
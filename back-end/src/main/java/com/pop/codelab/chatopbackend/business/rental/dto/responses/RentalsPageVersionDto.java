@@ -0,0 +1,34 @@
+package com.pop.codelab.chatopbackend.business.rental.dto.responses;
+
+import com.pop.codelab.chatopbackend.common.responses.ResourceVersionDto;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * The RentalsPageVersionDto class represents the version of a page of rentals, along with the IDs of its rentals.
+ * It allows to answer a conditional request for the page, then to build the page from the rentals the version
+ * was computed on, without selecting them a second time.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ * @see AllRentalsDto
+ */
+@Data
+@Builder
+public class RentalsPageVersionDto {
+
+    /**
+     * The version variable represents the ETag and the Last-Modified date of the page.
+     */
+    private ResourceVersionDto version;
+
+    /**
+     * The ids variable represents the IDs of the rentals of the page, in ascending order.
+     */
+    private long[] ids;
+
+    /**
+     * The nextCursor variable represents the cursor of the next page, or null when there is no next page.
+     */
+    private Long nextCursor;
+}
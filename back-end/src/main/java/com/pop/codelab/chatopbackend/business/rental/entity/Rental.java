@@ -4,10 +4,14 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.pop.codelab.chatopbackend.common.entity.BaseEntity;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.Data;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 
 /**
  * The Rental class represents a rental in the system.
@@ -20,7 +24,17 @@ import java.math.BigDecimal;
  */
 @Data
 @Entity // JPA entity
-@Table(name = "rentals")
+@Table(name = "rentals", indexes = {
+        // Search indexes : each one also holds the ID, which breaks the ties of the sort orders.
+        // The index of the owner foreign key serves the owner filter sorted from the newest rentals.
+        @Index(name = "rentals_price_IDX", columnList = "price, id"),
+        @Index(name = "rentals_surface_IDX", columnList = "surface, id"),
+        @Index(name = "rentals_owner_price_IDX", columnList = "owner_id, price, id"),
+        @Index(name = "rentals_owner_surface_IDX", columnList = "owner_id, surface, id"),
+        @Index(name = "rentals_name_IDX", columnList = "name, id"),
+        // The references to an image are looked up by the garbage collection of the unreferenced images.
+        @Index(name = "rentals_picture_IDX", columnList = "picture")
+})
 public class Rental extends BaseEntity {
     /**
      * The `name` variable represents the name of a rental in the system.
@@ -54,10 +68,20 @@ public class Rental extends BaseEntity {
     /**
      * The `picture` variable represents the file name of a rental picture in the system.
      * It is a field of type String, and it is marked as private, indicating that it can only be accessed within the class.
-     * This variable is used to store the name of the rental picture.
+     * This variable is used to store the name of the rental picture : the content key of the picture (its SHA-256
+     * hash and format extension), shared by the rentals showing the same picture.
      */
     private String picture;
 
+    /**
+     * The `pictureVariants` variable represents the fixed-size variants of the rental picture which have been
+     * generated, as comma separated names (thumb, card, full). It is null until the variants are available.
+     *
+     * @see com.pop.codelab.chatopbackend.services.ImageVariant
+     */
+    @Column(length = 64, name = "picture_variants")
+    private String pictureVariants;
+
     /**
      * The description of a rental in the system.
      * It represents the text description of the rental.
@@ -78,4 +102,21 @@ public class Rental extends BaseEntity {
      */
     @Column(nullable = false, name = "owner_id")
     private Long ownerId;
+
+    /**
+     * The `version` variable represents the version of the rental, incremented by Hibernate each time the rental
+     * is updated. It is used for optimistic locking and to build the ETag of the rental.
+     */
+    @Version
+    @Column(nullable = false, columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private Long version;
+
+    /**
+     * The `modifiedAt` variable represents the instant, at the millisecond, when the rental was last modified.
+     * Unlike the `updatedAt` date, it is precise enough to be used as the Last-Modified date of the rental.
+     */
+    @UpdateTimestamp
+    @Column(nullable = false, name = "modified_at",
+            columnDefinition = "TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3)")
+    private Instant modifiedAt;
 }
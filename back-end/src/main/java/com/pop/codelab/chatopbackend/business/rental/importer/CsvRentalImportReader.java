@@ -0,0 +1,177 @@
+package com.pop.codelab.chatopbackend.business.rental.importer;
+
+import com.pop.codelab.chatopbackend.business.rental.dto.requests.RentalImportRowDto;
+import com.pop.codelab.chatopbackend.exception.BadRequestException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The CsvRentalImportReader class reads the rentals of a CSV file (RFC 4180).
+ * The first record of the file is the header, naming the name, surface, price and description columns in any order;
+ * the other columns are ignored. A quoted value may hold commas, line breaks and doubled quotes.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+class CsvRentalImportReader implements RentalImportReader {
+
+    /**
+     * The names of the columns read from the file.
+     */
+    private static final List<String> COLUMNS = List.of("name", "surface", "price", "description");
+
+    /**
+     * The reader variable represents the reader of the file.
+     */
+    private final BufferedReader reader;
+
+    /**
+     * The columnIndexes variable represents the index, in the records, of each of the COLUMNS.
+     */
+    private final int[] columnIndexes = new int[COLUMNS.size()];
+
+    /**
+     * The line variable represents the number of the last line read.
+     */
+    private long line;
+
+    /**
+     * Creates the reader of a CSV file, and reads its header.
+     *
+     * @param reader the reader of the file
+     * @throws IOException         if the file cannot be read
+     * @throws BadRequestException if the header is missing or does not name all the columns
+     */
+    CsvRentalImportReader(final BufferedReader reader) throws IOException {
+        this.reader = reader;
+        List<String> header = this.readRecord();
+        if (header == null) {
+            throw new BadRequestException("The CSV file has no header");
+        }
+        List<String> names = header.stream()
+                // The byte order mark some spreadsheets write at the start of the file is not part of the first name
+                .map(name -> name.replace("\uFEFF", "").strip().toLowerCase(Locale.ROOT))
+                .toList();
+        for (int column = 0; column < COLUMNS.size(); column++) {
+            this.columnIndexes[column] = names.indexOf(COLUMNS.get(column));
+            if (this.columnIndexes[column] < 0) {
+                throw new BadRequestException("The CSV header has no '" + COLUMNS.get(column) + "' column");
+            }
+        }
+    }
+
+    @Override
+    public RentalImportRow read() throws IOException {
+        List<String> record;
+        long recordLine;
+        do {
+            recordLine = this.line + 1;
+            record = this.readRecord();
+            if (record == null) {
+                return null;
+            }
+        } while (record.size() == 1 && record.get(0).isBlank());
+        try {
+            RentalImportRowDto rental = new RentalImportRowDto();
+            rental.setName(this.value(record, 0));
+            rental.setSurface(toDecimal(this.value(record, 1), "surface"));
+            rental.setPrice(toDecimal(this.value(record, 2), "price"));
+            rental.setDescription(this.value(record, 3));
+            return new RentalImportRow(recordLine, rental, null);
+        } catch (IllegalArgumentException e) {
+            return new RentalImportRow(recordLine, null, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the value of a column in a record.
+     *
+     * @param record the values of the record
+     * @param column the index of the column in the COLUMNS
+     * @return the value of the column, or null if the record is too short or the value empty
+     */
+    private String value(final List<String> record, final int column) {
+        int index = this.columnIndexes[column];
+        if (index >= record.size() || record.get(index).isEmpty()) {
+            return null;
+        }
+        return record.get(index);
+    }
+
+    /**
+     * Converts the value of a numeric column.
+     *
+     * @param value  the value of the column, may be null
+     * @param column the name of the column
+     * @return the decimal value, or null if the value is null
+     * @throws IllegalArgumentException if the value is not a decimal number
+     */
+    private static BigDecimal toDecimal(final String value, final String column) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return new BigDecimal(value.strip());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + column + " : '" + value + "'");
+        }
+    }
+
+    /**
+     * Reads the values of the next record, which spans several lines when a quoted value holds line breaks.
+     *
+     * @return the values of the record, or null at the end of the file
+     * @throws IOException if the file cannot be read
+     */
+    private List<String> readRecord() throws IOException {
+        String text = this.reader.readLine();
+        if (text == null) {
+            return null;
+        }
+        this.line++;
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        int position = 0;
+        while (true) {
+            if (position == text.length()) {
+                if (!quoted) {
+                    values.add(value.toString());
+                    return values;
+                }
+                // Line break within a quoted value
+                text = this.reader.readLine();
+                if (text == null) {
+                    throw new BadRequestException("Unterminated quoted value at the end of the CSV file");
+                }
+                this.line++;
+                value.append('\n');
+                position = 0;
+                continue;
+            }
+            char character = text.charAt(position++);
+            if (quoted) {
+                if (character != '"') {
+                    value.append(character);
+                } else if (position < text.length() && text.charAt(position) == '"') {
+                    value.append('"');
+                    position++;
+                } else {
+                    quoted = false;
+                }
+            } else if (character == '"') {
+                quoted = true;
+            } else if (character == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(character);
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.pop.codelab.chatopbackend.business.rental.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.pop.codelab.chatopbackend.business.rental.dto.requests.RentalImportRowDto;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * The NdjsonRentalImportReader class reads the rentals of a newline delimited JSON file : one JSON object per line.
+ * The blank lines are skipped.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+class NdjsonRentalImportReader implements RentalImportReader {
+
+    /**
+     * The reader variable represents the reader of the lines of the file.
+     */
+    private final BufferedReader reader;
+
+    /**
+     * The rowReader variable represents the object reader binding each line to a RentalImportRowDto.
+     */
+    private final ObjectReader rowReader;
+
+    /**
+     * The line variable represents the number of the last line read.
+     */
+    private long line;
+
+    /**
+     * Creates the reader of a NDJSON file.
+     *
+     * @param reader       the reader of the lines of the file
+     * @param objectMapper the object mapper reading the rows
+     */
+    NdjsonRentalImportReader(final BufferedReader reader, final ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.rowReader = objectMapper.readerFor(RentalImportRowDto.class);
+    }
+
+    @Override
+    public RentalImportRow read() throws IOException {
+        String text;
+        do {
+            text = this.reader.readLine();
+            if (text == null) {
+                return null;
+            }
+            this.line++;
+        } while (text.isBlank());
+        try {
+            return new RentalImportRow(this.line, this.rowReader.readValue(text), null);
+        } catch (JsonProcessingException e) {
+            return new RentalImportRow(this.line, null, "Invalid JSON : " + e.getOriginalMessage());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.pop.codelab.chatopbackend.business.rental.importer;
+
+import com.pop.codelab.chatopbackend.exception.BadRequestException;
+import org.springframework.http.MediaType;
+
+/**
+ * The RentalImportFormat enum represents the formats of the files the rentals can be imported from.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+public enum RentalImportFormat {
+
+    /**
+     * Newline delimited JSON : one JSON object per line, holding the name, surface, price and description fields.
+     */
+    NDJSON(MediaType.parseMediaType("application/x-ndjson")),
+
+    /**
+     * Comma separated values : a header line naming the name, surface, price and description columns, then one
+     * rental per record. The values holding commas, quotes or line breaks are quoted, their quotes doubled.
+     */
+    CSV(MediaType.parseMediaType("text/csv"));
+
+    /**
+     * The media type of the NDJSON imports.
+     */
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+
+    /**
+     * The media type of the CSV imports.
+     */
+    public static final String CSV_VALUE = "text/csv";
+
+    /**
+     * The mediaType variable represents the media type of the format.
+     */
+    private final MediaType mediaType;
+
+    /**
+     * Creates an import format.
+     *
+     * @param mediaType the media type of the format
+     */
+    RentalImportFormat(final MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    /**
+     * Returns the import format of a content type.
+     *
+     * @param contentType the content type of the imported file
+     * @return the matching import format
+     * @throws BadRequestException if the content type matches no import format
+     */
+    public static RentalImportFormat fromContentType(final MediaType contentType) {
+        for (RentalImportFormat format : values()) {
+            if (format.mediaType.isCompatibleWith(contentType)) {
+                return format;
+            }
+        }
+        throw new BadRequestException("Unsupported import format : " + contentType);
+    }
+}
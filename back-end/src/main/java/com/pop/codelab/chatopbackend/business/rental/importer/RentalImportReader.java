@@ -0,0 +1,47 @@
+package com.pop.codelab.chatopbackend.business.rental.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The RentalImportReader interface reads the rows of a bulk import file one at a time, so that the file is never
+ * held in memory whatever its size.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+public interface RentalImportReader {
+
+    /**
+     * Reads the next row of the file.
+     * A row which cannot be read (malformed JSON, missing CSV value, invalid number...) is returned with its error,
+     * and the reading goes on with the next row.
+     *
+     * @return the next row of the file, or null once the whole file has been read
+     * @throws IOException if the file cannot be read
+     */
+    RentalImportRow read() throws IOException;
+
+    /**
+     * Creates the reader of a bulk import file.
+     *
+     * @param format       the format of the file
+     * @param inputStream  the content of the file, encoded in UTF-8
+     * @param objectMapper the object mapper reading the NDJSON rows
+     * @return the reader of the file
+     * @throws IOException if the file cannot be read
+     */
+    static RentalImportReader of(final RentalImportFormat format, final InputStream inputStream,
+                                 final ObjectMapper objectMapper) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        return switch (format) {
+            case NDJSON -> new NdjsonRentalImportReader(reader, objectMapper);
+            case CSV -> new CsvRentalImportReader(reader);
+        };
+    }
+}
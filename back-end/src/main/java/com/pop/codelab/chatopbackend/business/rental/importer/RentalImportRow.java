@@ -0,0 +1,32 @@
+package com.pop.codelab.chatopbackend.business.rental.importer;
+
+import com.pop.codelab.chatopbackend.business.rental.dto.requests.RentalImportRowDto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * The RentalImportRow class represents a row read from a bulk import file : either the rental it holds,
+ * or the reason why it could not be read.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class RentalImportRow {
+
+    /**
+     * The line variable represents the number of the line of the file the row starts at, counted from 1.
+     */
+    private long line;
+
+    /**
+     * The rental variable represents the rental read from the row, or null if the row could not be read.
+     */
+    private RentalImportRowDto rental;
+
+    /**
+     * The error variable represents the reason why the row could not be read, or null if it has been read.
+     */
+    private String error;
+}
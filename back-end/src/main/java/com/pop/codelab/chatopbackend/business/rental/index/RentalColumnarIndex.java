@@ -0,0 +1,573 @@
+package com.pop.codelab.chatopbackend.business.rental.index;
+
+import com.pop.codelab.chatopbackend.business.rental.dto.requests.RentalSearchDto;
+import com.pop.codelab.chatopbackend.business.rental.repository.RentalRepository;
+import com.pop.codelab.chatopbackend.business.rental.repository.RentalSearchCursor;
+import com.pop.codelab.chatopbackend.business.rental.repository.RentalSearchSort;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The RentalColumnarIndex class is an in-memory read model of the rentals, which answers the rental searches
+ * filtering by price, surface and owner without querying the database.
+ * <p>
+ * The rentals are held column by column in primitive arrays sorted by ID : the prices in cents, the surfaces,
+ * the owner IDs and the IDs. A search scans these arrays without allocating any object per rental : the rentals
+ * sorted from the newest are read backwards from the end of the arrays and the scan stops as soon as the page is
+ * full, the rentals sorted by price or surface are selected by a bounded heap of row numbers (top-N).</p>
+ * <p>
+ * The arrays are copy-on-write : the searches read an immutable snapshot of the columns published through a
+ * volatile field, and never lock. The writes are serialized : a rental saved with a new highest ID is appended in
+ * the free capacity of the arrays, beyond the size of the published snapshots, any other write copies the
+ * arrays. The index is built from the database once the application is ready and updated by the rental service
+ * each time a rental is saved. It only reflects the rentals saved through this instance of the application.</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@Component
+@RequiredArgsConstructor
+@Log4j2
+public class RentalColumnarIndex {
+
+    /**
+     * The initial number of rentals the arrays can hold.
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * The number of rentals read from the database at once when building the index.
+     */
+    private static final int BUILD_BATCH_SIZE = 10_000;
+
+    /**
+     * The enabled variable tells whether the index is built and used to answer the rental searches.
+     * It is set using the value from the application property 'application.rentals.columnar-index.enabled'.
+     */
+    @Value("${application.rentals.columnar-index.enabled}")
+    private boolean enabled;
+
+    /**
+     * The rentalRepository variable is used to read the rentals when building the index.
+     */
+    private final RentalRepository rentalRepository;
+
+    /**
+     * The columns variable represents the published snapshot of the columns, or null while the index is not built.
+     */
+    private volatile Columns columns;
+
+    /**
+     * Builds the index once the application is ready, if it is enabled.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (this.enabled) {
+            this.rebuild();
+        } else {
+            log.info("The columnar rental index is disabled");
+        }
+    }
+
+    /**
+     * Builds the index from the rentals of the database, read by batches of ID ranges.
+     * The rentals saved while the index is being built wait for the build to be over before updating it.
+     * If the build fails, the index is left unavailable and the searches keep on querying the database.
+     */
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        try {
+            Columns built = new Columns(INITIAL_CAPACITY);
+            long after = 0L;
+            List<RentalIndexEntry> batch;
+            do {
+                batch = this.rentalRepository.findRentalIndexEntriesAfter(after, Limit.of(BUILD_BATCH_SIZE));
+                for (RentalIndexEntry entry : batch) {
+                    built = built.append(entry);
+                }
+                if (!batch.isEmpty()) {
+                    after = batch.get(batch.size() - 1).getId();
+                }
+            } while (batch.size() == BUILD_BATCH_SIZE);
+            this.columns = built;
+            log.info("Columnar rental index built : {} rental(s) in {} ms",
+                    built.size, (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.error("The columnar rental index could not be built, the searches will query the database", e);
+        }
+    }
+
+    /**
+     * Tells whether the index can answer a search : the index must be built and the search must not filter
+     * the rentals by name, which the index does not hold.
+     *
+     * @param criteria the search criteria
+     * @return true if the search can be answered by the index
+     */
+    public boolean canSearch(final RentalSearchDto criteria) {
+        return this.columns != null && (criteria.getName() == null || criteria.getName().isBlank());
+    }
+
+    /**
+     * Adds a rental to the index, or updates it if it is already indexed.
+     * The update is ignored while the index is not built : the build reads the rental from the database.
+     *
+     * @param entry the index entry of the saved rental
+     */
+    public synchronized void upsert(final RentalIndexEntry entry) {
+        Columns current = this.columns;
+        if (current == null) {
+            return;
+        }
+        int position = Arrays.binarySearch(current.ids, 0, current.size, entry.getId());
+        if (position >= 0) {
+            Columns updated = current.copy(current.size);
+            updated.set(position, entry);
+            this.columns = updated;
+        } else if (-position - 1 == current.size) {
+            this.columns = current.append(entry);
+        } else {
+            this.columns = current.insert(-position - 1, entry);
+        }
+    }
+
+    /**
+     * Returns the number of rentals held by the index.
+     *
+     * @return the number of indexed rentals, 0 while the index is not built
+     */
+    public int size() {
+        Columns current = this.columns;
+        return current == null ? 0 : current.size;
+    }
+
+    /**
+     * Counts the rentals matching the criteria of a search.
+     *
+     * @param criteria the search criteria, which must not filter the rentals by name
+     * @return the number of rentals matching the criteria
+     */
+    public long count(final RentalSearchDto criteria) {
+        Columns current = this.columns;
+        Filter filter = new Filter(criteria);
+        long count = 0;
+        for (int row = 0; row < current.size; row++) {
+            if (filter.matches(current, row)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Searches the rentals matching the given criteria, sorted in the requested order.
+     *
+     * @param criteria the search criteria, which must not filter the rentals by name
+     * @param after    the position of the last rental of the previous page, or null to retrieve the first page
+     * @param limit    the maximum number of rentals to retrieve
+     * @return the IDs of the rentals found, in the requested order
+     */
+    public long[] search(final RentalSearchDto criteria, final RentalSearchCursor after, final int limit) {
+        Columns current = this.columns;
+        Filter filter = new Filter(criteria);
+        RentalSearchSort sort = criteria.getSort() == null ? RentalSearchSort.NEWEST : criteria.getSort();
+        return sort == RentalSearchSort.NEWEST
+                ? searchNewest(current, filter, after, limit)
+                : searchSorted(current, filter, sort, after, limit);
+    }
+
+    /**
+     * Selects the newest matching rentals, reading the rows backwards from the last one, or from the row before
+     * the rental of the cursor, and stopping as soon as the page is full.
+     *
+     * @param columns the snapshot of the columns
+     * @param filter  the filter of the search
+     * @param after   the position of the last rental of the previous page, or null
+     * @param limit   the maximum number of rentals to retrieve
+     * @return the IDs of the rentals found, from the newest
+     */
+    private static long[] searchNewest(final Columns columns, final Filter filter, final RentalSearchCursor after,
+                                       final int limit) {
+        int row = columns.size - 1;
+        if (after != null) {
+            int position = Arrays.binarySearch(columns.ids, 0, columns.size, after.getId());
+            row = (position >= 0 ? position : -position - 1) - 1;
+        }
+        long[] ids = new long[limit];
+        int count = 0;
+        for (; row >= 0 && count < limit; row--) {
+            if (filter.matches(columns, row)) {
+                ids[count++] = columns.ids[row];
+            }
+        }
+        return count == limit ? ids : Arrays.copyOf(ids, count);
+    }
+
+    /**
+     * Selects the first matching rentals in the order of a sort key, with a max-heap of row numbers bounded to
+     * the page size : its root is the last row of the page found so far, replaced each time a better row is found.
+     *
+     * @param columns the snapshot of the columns
+     * @param filter  the filter of the search
+     * @param sort    the sort order, by price or by surface
+     * @param after   the position of the last rental of the previous page, or null
+     * @param limit   the maximum number of rentals to retrieve
+     * @return the IDs of the rentals found, in the sort order
+     */
+    private static long[] searchSorted(final Columns columns, final Filter filter, final RentalSearchSort sort,
+                                       final RentalSearchCursor after, final int limit) {
+        boolean byPrice = sort == RentalSearchSort.PRICE;
+        long afterKey = 0L;
+        long afterId = 0L;
+        if (after != null) {
+            afterKey = byPrice
+                    ? toCents(after.getSortValue(), RoundingMode.HALF_UP)
+                    : toSortableKey(after.getSortValue().doubleValue());
+            afterId = after.getId();
+        }
+        int[] heap = new int[limit];
+        int heapSize = 0;
+        for (int row = 0; row < columns.size; row++) {
+            if (!filter.matches(columns, row)) {
+                continue;
+            }
+            if (after != null) {
+                long key = columns.key(byPrice, row);
+                if (key < afterKey || key == afterKey && columns.ids[row] <= afterId) {
+                    continue;
+                }
+            }
+            if (heapSize < limit) {
+                heap[heapSize] = row;
+                siftUp(columns, byPrice, heap, heapSize++);
+            } else if (limit > 0 && columns.compare(byPrice, row, heap[0]) < 0) {
+                heap[0] = row;
+                siftDown(columns, byPrice, heap, 0, heapSize);
+            }
+        }
+        // Heap sort : the greatest row is moved to the end until the heap is empty
+        for (int end = heapSize - 1; end > 0; end--) {
+            int greatest = heap[0];
+            heap[0] = heap[end];
+            heap[end] = greatest;
+            siftDown(columns, byPrice, heap, 0, end);
+        }
+        long[] ids = new long[heapSize];
+        for (int i = 0; i < heapSize; i++) {
+            ids[i] = columns.ids[heap[i]];
+        }
+        return ids;
+    }
+
+    /**
+     * Moves a row up the max-heap until its parent is greater.
+     *
+     * @param columns the snapshot of the columns
+     * @param byPrice true to compare the rows by price, false by surface
+     * @param heap    the heap of row numbers
+     * @param index   the index of the row to move in the heap
+     */
+    private static void siftUp(final Columns columns, final boolean byPrice, final int[] heap, final int index) {
+        int child = index;
+        while (child > 0) {
+            int parent = (child - 1) >>> 1;
+            if (columns.compare(byPrice, heap[child], heap[parent]) <= 0) {
+                return;
+            }
+            int row = heap[child];
+            heap[child] = heap[parent];
+            heap[parent] = row;
+            child = parent;
+        }
+    }
+
+    /**
+     * Moves a row down the max-heap until its children are smaller.
+     *
+     * @param columns the snapshot of the columns
+     * @param byPrice true to compare the rows by price, false by surface
+     * @param heap    the heap of row numbers
+     * @param index   the index of the row to move in the heap
+     * @param size    the number of rows of the heap
+     */
+    private static void siftDown(final Columns columns, final boolean byPrice, final int[] heap, final int index,
+                                 final int size) {
+        int parent = index;
+        while (true) {
+            int greatest = parent;
+            int left = 2 * parent + 1;
+            int right = left + 1;
+            if (left < size && columns.compare(byPrice, heap[left], heap[greatest]) > 0) {
+                greatest = left;
+            }
+            if (right < size && columns.compare(byPrice, heap[right], heap[greatest]) > 0) {
+                greatest = right;
+            }
+            if (greatest == parent) {
+                return;
+            }
+            int row = heap[parent];
+            heap[parent] = heap[greatest];
+            heap[greatest] = row;
+            parent = greatest;
+        }
+    }
+
+    /**
+     * Converts an amount to cents, saturating the amounts which do not fit in a long.
+     *
+     * @param amount       the amount
+     * @param roundingMode the rounding mode of the fractions of cent
+     * @return the amount in cents
+     */
+    static long toCents(final BigDecimal amount, final RoundingMode roundingMode) {
+        BigDecimal cents = amount.movePointRight(2).setScale(0, roundingMode);
+        if (cents.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) >= 0) {
+            return Long.MAX_VALUE;
+        }
+        if (cents.compareTo(BigDecimal.valueOf(Long.MIN_VALUE)) <= 0) {
+            return Long.MIN_VALUE;
+        }
+        return cents.longValue();
+    }
+
+    /**
+     * Maps a double to a long having the same order, so that the surfaces are compared like the prices.
+     *
+     * @param value the double value
+     * @return the sortable long key of the value
+     */
+    static long toSortableKey(final double value) {
+        long bits = Double.doubleToLongBits(value == 0.0d ? 0.0d : value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    /**
+     * The Columns class represents a snapshot of the columns of the index. Only the first {@code size} rows of its
+     * arrays belong to the snapshot, the following ones may be written by the next appends.
+     */
+    private static final class Columns {
+
+        /**
+         * The IDs of the rentals, in ascending order.
+         */
+        private final long[] ids;
+
+        /**
+         * The prices of the rentals, in cents.
+         */
+        private final long[] priceCents;
+
+        /**
+         * The surfaces of the rentals.
+         */
+        private final double[] surfaces;
+
+        /**
+         * The IDs of the users owning the rentals.
+         */
+        private final long[] ownerIds;
+
+        /**
+         * The number of rentals of the snapshot.
+         */
+        private final int size;
+
+        /**
+         * Creates empty columns.
+         *
+         * @param capacity the number of rentals the arrays can hold
+         */
+        private Columns(final int capacity) {
+            this(new long[capacity], new long[capacity], new double[capacity], new long[capacity], 0);
+        }
+
+        /**
+         * Creates a snapshot of columns.
+         *
+         * @param ids        the IDs of the rentals
+         * @param priceCents the prices of the rentals, in cents
+         * @param surfaces   the surfaces of the rentals
+         * @param ownerIds   the IDs of the users owning the rentals
+         * @param size       the number of rentals of the snapshot
+         */
+        private Columns(final long[] ids, final long[] priceCents, final double[] surfaces, final long[] ownerIds,
+                        final int size) {
+            this.ids = ids;
+            this.priceCents = priceCents;
+            this.surfaces = surfaces;
+            this.ownerIds = ownerIds;
+            this.size = size;
+        }
+
+        /**
+         * Copies the columns into new arrays.
+         *
+         * @param capacity the number of rentals the new arrays can hold, at least the size of the snapshot
+         * @return the copy of the columns
+         */
+        private Columns copy(final int capacity) {
+            return new Columns(Arrays.copyOf(this.ids, capacity), Arrays.copyOf(this.priceCents, capacity),
+                    Arrays.copyOf(this.surfaces, capacity), Arrays.copyOf(this.ownerIds, capacity), this.size);
+        }
+
+        /**
+         * Appends a rental whose ID is greater than the ones of the snapshot. The rental is written in the free
+         * capacity of the arrays, beyond the size of this snapshot, which are copied only when they are full.
+         *
+         * @param entry the index entry of the rental
+         * @return the snapshot holding the appended rental
+         */
+        private Columns append(final RentalIndexEntry entry) {
+            Columns appended = this.size < this.ids.length
+                    ? this
+                    : this.copy(Math.max(INITIAL_CAPACITY, this.ids.length + (this.ids.length >> 1)));
+            appended.set(this.size, entry);
+            return new Columns(appended.ids, appended.priceCents, appended.surfaces, appended.ownerIds,
+                    this.size + 1);
+        }
+
+        /**
+         * Inserts a rental among the rows of the snapshot, in new arrays.
+         *
+         * @param position the row of the rental, so that the IDs stay sorted
+         * @param entry    the index entry of the rental
+         * @return the snapshot holding the inserted rental
+         */
+        private Columns insert(final int position, final RentalIndexEntry entry) {
+            int capacity = this.size < this.ids.length
+                    ? this.ids.length
+                    : Math.max(INITIAL_CAPACITY, this.ids.length + (this.ids.length >> 1));
+            Columns inserted = new Columns(new long[capacity], new long[capacity], new double[capacity],
+                    new long[capacity], this.size + 1);
+            int tail = this.size - position;
+            System.arraycopy(this.ids, 0, inserted.ids, 0, position);
+            System.arraycopy(this.ids, position, inserted.ids, position + 1, tail);
+            System.arraycopy(this.priceCents, 0, inserted.priceCents, 0, position);
+            System.arraycopy(this.priceCents, position, inserted.priceCents, position + 1, tail);
+            System.arraycopy(this.surfaces, 0, inserted.surfaces, 0, position);
+            System.arraycopy(this.surfaces, position, inserted.surfaces, position + 1, tail);
+            System.arraycopy(this.ownerIds, 0, inserted.ownerIds, 0, position);
+            System.arraycopy(this.ownerIds, position, inserted.ownerIds, position + 1, tail);
+            inserted.set(position, entry);
+            return inserted;
+        }
+
+        /**
+         * Writes the columns of a rental at a row of the arrays.
+         *
+         * @param row   the row
+         * @param entry the index entry of the rental
+         */
+        private void set(final int row, final RentalIndexEntry entry) {
+            this.ids[row] = entry.getId();
+            this.priceCents[row] = toCents(entry.getPrice(), RoundingMode.HALF_UP);
+            this.surfaces[row] = entry.getSurface().doubleValue();
+            this.ownerIds[row] = entry.getOwnerId();
+        }
+
+        /**
+         * Returns the sort key of a row.
+         *
+         * @param byPrice true for the price key, false for the surface key
+         * @param row     the row
+         * @return the sort key of the row
+         */
+        private long key(final boolean byPrice, final int row) {
+            return byPrice ? this.priceCents[row] : toSortableKey(this.surfaces[row]);
+        }
+
+        /**
+         * Compares two rows by sort key, then by ID.
+         *
+         * @param byPrice true to compare the rows by price, false by surface
+         * @param row     the first row
+         * @param other   the second row
+         * @return a negative number, zero or a positive number as the first row comes before, is, or comes after
+         * the second one
+         */
+        private int compare(final boolean byPrice, final int row, final int other) {
+            int comparison = Long.compare(this.key(byPrice, row), this.key(byPrice, other));
+            return comparison != 0 ? comparison : Long.compare(this.ids[row], this.ids[other]);
+        }
+    }
+
+    /**
+     * The Filter class holds the criteria of a search as primitive bounds, all inclusive.
+     */
+    private static final class Filter {
+
+        /**
+         * The minimum price, in cents.
+         */
+        private final long minPriceCents;
+
+        /**
+         * The maximum price, in cents.
+         */
+        private final long maxPriceCents;
+
+        /**
+         * The minimum surface.
+         */
+        private final double minSurface;
+
+        /**
+         * The maximum surface.
+         */
+        private final double maxSurface;
+
+        /**
+         * Whether the rentals are filtered by owner.
+         */
+        private final boolean byOwner;
+
+        /**
+         * The ID of the owner of the rentals, if they are filtered by owner.
+         */
+        private final long ownerId;
+
+        /**
+         * Creates the filter of a search.
+         *
+         * @param criteria the search criteria
+         */
+        private Filter(final RentalSearchDto criteria) {
+            this.minPriceCents = criteria.getMinPrice() == null
+                    ? Long.MIN_VALUE : toCents(criteria.getMinPrice(), RoundingMode.CEILING);
+            this.maxPriceCents = criteria.getMaxPrice() == null
+                    ? Long.MAX_VALUE : toCents(criteria.getMaxPrice(), RoundingMode.FLOOR);
+            this.minSurface = criteria.getMinSurface() == null
+                    ? Double.NEGATIVE_INFINITY : criteria.getMinSurface().doubleValue();
+            this.maxSurface = criteria.getMaxSurface() == null
+                    ? Double.POSITIVE_INFINITY : criteria.getMaxSurface().doubleValue();
+            this.byOwner = criteria.getOwnerId() != null;
+            this.ownerId = this.byOwner ? criteria.getOwnerId() : 0L;
+        }
+
+        /**
+         * Tells whether a row matches the filter.
+         *
+         * @param columns the snapshot of the columns
+         * @param row     the row
+         * @return true if the rental of the row matches the filter
+         */
+        private boolean matches(final Columns columns, final int row) {
+            long price = columns.priceCents[row];
+            double surface = columns.surfaces[row];
+            return price >= this.minPriceCents && price <= this.maxPriceCents
+                    && surface >= this.minSurface && surface <= this.maxSurface
+                    && (!this.byOwner || columns.ownerIds[row] == this.ownerId);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.pop.codelab.chatopbackend.business.rental.index;
+
+import com.pop.codelab.chatopbackend.business.rental.entity.Rental;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * The RentalIndexEntry class represents the columns of a rental held by the RentalColumnarIndex.
+ * It is selected straight from the rentals table to build the index, or taken from a saved rental to update it.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ * @see RentalColumnarIndex
+ */
+@Data
+@AllArgsConstructor
+public class RentalIndexEntry {
+
+    /**
+     * The ID of the rental.
+     */
+    private Long id;
+
+    /**
+     * The price of the rental.
+     */
+    private BigDecimal price;
+
+    /**
+     * The surface of the rental.
+     */
+    private BigDecimal surface;
+
+    /**
+     * The ID of the user owning the rental.
+     */
+    private Long ownerId;
+
+    /**
+     * Creates the index entry of a rental.
+     *
+     * @param rental the rental
+     * @return the index entry holding the indexed columns of the rental
+     */
+    public static RentalIndexEntry of(final Rental rental) {
+        return new RentalIndexEntry(rental.getId(), rental.getPrice(), rental.getSurface(), rental.getOwnerId());
+    }
+}
@@ -0,0 +1,119 @@
+package com.pop.codelab.chatopbackend.business.rental.index;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * The RentalTextAnalyzer class splits the texts of the rentals, and the full-text queries, into the terms held
+ * by the RentalTextIndex.
+ * <p>
+ * The texts are mostly written in French : the terms are lower-cased, the accents and ligatures are folded
+ * ("Été" and "ete" give the same term, "cœur" gives "coeur"), the elided articles ("l'appartement") and the most
+ * frequent French words are dropped, and the plural "s" of the longer words is removed.</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+public final class RentalTextAnalyzer {
+
+    /**
+     * The minimum length of a term, shorter words are dropped.
+     */
+    private static final int MIN_TERM_LENGTH = 2;
+
+    /**
+     * The minimum length of a word whose plural mark is removed.
+     */
+    private static final int MIN_PLURAL_LENGTH = 4;
+
+    /**
+     * The French words carrying no meaning on their own, folded like the terms.
+     */
+    private static final Set<String> STOP_WORDS = Set.of(
+            "au", "aux", "avec", "ce", "ces", "cet", "cette", "dans", "de", "des", "du", "elle", "en", "est", "et",
+            "il", "ils", "je", "la", "le", "les", "leur", "leurs", "lui", "ma", "mais", "me", "mes", "mon", "ne",
+            "nos", "notre", "nous", "on", "ou", "par", "pas", "pour", "qu", "que", "qui", "sa", "se", "ses", "son",
+            "sur", "ta", "te", "tes", "ton", "tu", "un", "une", "vos", "votre", "vous");
+
+    /**
+     * Private constructor, the class only holds static methods.
+     */
+    private RentalTextAnalyzer() {
+    }
+
+    /**
+     * Splits a text into terms.
+     *
+     * @param text the text, may be null
+     * @return the terms of the text, in their order of appearance, with their duplicates
+     */
+    public static List<String> analyze(final String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return terms;
+        }
+        String folded = fold(text);
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean wordCharacter = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (wordCharacter && start < 0) {
+                start = i;
+            } else if (!wordCharacter && start >= 0) {
+                String term = toTerm(folded.substring(start, i));
+                if (term != null) {
+                    terms.add(term);
+                }
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Lower-cases a text and removes its accents and ligatures.
+     *
+     * @param text the text
+     * @return the folded text
+     */
+    static String fold(final String text) {
+        String decomposed = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char character = decomposed.charAt(i);
+            switch (Character.getType(character)) {
+                case Character.NON_SPACING_MARK, Character.COMBINING_SPACING_MARK, Character.ENCLOSING_MARK -> {
+                    // Accent removed
+                }
+                default -> {
+                    switch (character) {
+                        case 'œ' -> folded.append("oe");
+                        case 'æ' -> folded.append("ae");
+                        case 'ß' -> folded.append("ss");
+                        default -> folded.append(character);
+                    }
+                }
+            }
+        }
+        return folded.toString();
+    }
+
+    /**
+     * Turns a folded word into a term.
+     *
+     * @param word the folded word
+     * @return the term, or null if the word is too short or is a stop word
+     */
+    private static String toTerm(final String word) {
+        if (word.length() < MIN_TERM_LENGTH || STOP_WORDS.contains(word)) {
+            return null;
+        }
+        if (word.length() >= MIN_PLURAL_LENGTH && word.endsWith("s") && !word.endsWith("ss")
+                && !Character.isDigit(word.charAt(0))) {
+            return word.substring(0, word.length() - 1);
+        }
+        return word;
+    }
+}
@@ -0,0 +1,43 @@
+package com.pop.codelab.chatopbackend.business.rental.index;
+
+import com.pop.codelab.chatopbackend.business.rental.entity.Rental;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * The RentalTextEntry class represents the texts of a rental held by the RentalTextIndex.
+ * It is selected straight from the rentals table to build the index, or taken from a saved rental to update it.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ * @see RentalTextIndex
+ */
+@Data
+@AllArgsConstructor
+public class RentalTextEntry {
+
+    /**
+     * The ID of the rental.
+     */
+    private Long id;
+
+    /**
+     * The name of the rental.
+     */
+    private String name;
+
+    /**
+     * The description of the rental.
+     */
+    private String description;
+
+    /**
+     * Creates the text entry of a rental.
+     *
+     * @param rental the rental
+     * @return the text entry holding the texts of the rental
+     */
+    public static RentalTextEntry of(final Rental rental) {
+        return new RentalTextEntry(rental.getId(), rental.getName(), rental.getDescription());
+    }
+}
@@ -0,0 +1,494 @@
+package com.pop.codelab.chatopbackend.business.rental.index;
+
+import com.pop.codelab.chatopbackend.business.rental.repository.RentalRepository;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The RentalTextIndex class is an in-memory inverted index of the names and descriptions of the rentals, which
+ * answers the full-text searches without querying the database.
+ * <p>
+ * Each rental is given a document number, and each term (see {@link RentalTextAnalyzer}) is mapped to its
+ * postings : the numbers of the documents holding it, with its frequency in each of them. The terms of the name
+ * weigh {@link #NAME_WEIGHT} times the ones of the description. The documents are ranked with the BM25 formula, by
+ * decreasing score then by rental ID, and the results are paged from the score and the ID of the last rental of
+ * the previous page.</p>
+ * <p>
+ * The index is built from the database once the application is ready and updated by the rental service each time
+ * a rental is saved. The searches share a read lock and the updates take the write lock. It only reflects the
+ * rentals saved through this instance of the application.</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@Component
+@RequiredArgsConstructor
+@Log4j2
+public class RentalTextIndex {
+
+    /**
+     * The BM25 term frequency saturation parameter.
+     */
+    private static final float K1 = 1.2f;
+
+    /**
+     * The BM25 document length normalization parameter.
+     */
+    private static final float B = 0.75f;
+
+    /**
+     * The number of times a term of the name of a rental counts compared to a term of its description.
+     */
+    private static final int NAME_WEIGHT = 2;
+
+    /**
+     * The initial number of documents the index can hold.
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * The number of rentals read from the database at once when building the index.
+     */
+    private static final int BUILD_BATCH_SIZE = 2_000;
+
+    /**
+     * The enabled variable tells whether the index is built and used to answer the full-text searches.
+     * It is set using the value from the application property 'application.rentals.text-index.enabled'.
+     */
+    @Value("${application.rentals.text-index.enabled}")
+    private boolean enabled;
+
+    /**
+     * The rentalRepository variable is used to read the rentals when building the index.
+     */
+    private final RentalRepository rentalRepository;
+
+    /**
+     * The lock shared by the searches and taken exclusively by the updates.
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * The postings of each term.
+     */
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    /**
+     * The document number of each indexed rental, by rental ID.
+     */
+    private final Map<Long, Integer> documents = new HashMap<>();
+
+    /**
+     * The rental ID of each document.
+     */
+    private long[] rentalIds = new long[INITIAL_CAPACITY];
+
+    /**
+     * The weighted number of terms of each document.
+     */
+    private int[] lengths = new int[INITIAL_CAPACITY];
+
+    /**
+     * The distinct terms of each document, to remove its postings when the rental is updated.
+     */
+    private String[][] terms = new String[INITIAL_CAPACITY][];
+
+    /**
+     * The number of documents.
+     */
+    private int documentCount;
+
+    /**
+     * The sum of the lengths of the documents.
+     */
+    private long totalLength;
+
+    /**
+     * Whether the index has been built.
+     */
+    private volatile boolean built;
+
+    /**
+     * Builds the index once the application is ready, if it is enabled.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (this.enabled) {
+            this.rebuild();
+        } else {
+            log.info("The full-text rental index is disabled");
+        }
+    }
+
+    /**
+     * Builds the index from the rentals of the database, read by batches of ID ranges.
+     * The rentals saved while the index is being built wait for the build to be over before updating it.
+     */
+    public void rebuild() {
+        long start = System.nanoTime();
+        this.lock.writeLock().lock();
+        try {
+            this.postings.clear();
+            this.documents.clear();
+            this.documentCount = 0;
+            this.totalLength = 0;
+            long after = 0L;
+            List<RentalTextEntry> batch;
+            do {
+                batch = this.rentalRepository.findRentalTextEntriesAfter(after, Limit.of(BUILD_BATCH_SIZE));
+                for (RentalTextEntry entry : batch) {
+                    this.add(entry);
+                }
+                if (!batch.isEmpty()) {
+                    after = batch.get(batch.size() - 1).getId();
+                }
+            } while (batch.size() == BUILD_BATCH_SIZE);
+            this.built = true;
+            log.info("Full-text rental index built : {} rental(s), {} term(s) in {} ms",
+                    this.documentCount, this.postings.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            this.built = false;
+            log.error("The full-text rental index could not be built", e);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Tells whether the index can answer the full-text searches.
+     *
+     * @return true once the index is built
+     */
+    public boolean isReady() {
+        return this.built;
+    }
+
+    /**
+     * Indexes the texts of a rental, replacing its previous texts if it is already indexed.
+     * The update is ignored while the index is not built : the build reads the rental from the database.
+     *
+     * @param entry the text entry of the saved rental
+     */
+    public void index(final RentalTextEntry entry) {
+        this.lock.writeLock().lock();
+        try {
+            if (this.built) {
+                this.add(entry);
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Searches the rentals matching at least one term of a query, by decreasing relevance.
+     *
+     * @param query the full-text query
+     * @param after the position of the last rental of the previous page, or null to retrieve the first page
+     * @param limit the maximum number of rentals to retrieve
+     * @return the rentals found, with their scores, and the number of rentals matching the query
+     */
+    public Hits search(final String query, final RentalTextSearchCursor after, final int limit) {
+        Set<String> queryTerms = new LinkedHashSet<>(RentalTextAnalyzer.analyze(query));
+        this.lock.readLock().lock();
+        try {
+            float[] scores = new float[this.documentCount];
+            int[] matched = new int[this.documentCount];
+            int matchedCount = 0;
+            float averageLength = this.documentCount == 0 ? 1f : (float) this.totalLength / this.documentCount;
+            for (String term : queryTerms) {
+                Postings termPostings = this.postings.get(term);
+                if (termPostings == null) {
+                    continue;
+                }
+                float idf = (float) Math.log(1 + (this.documentCount - termPostings.size + 0.5)
+                        / (termPostings.size + 0.5));
+                for (int i = 0; i < termPostings.size; i++) {
+                    int document = termPostings.documents[i];
+                    int frequency = termPostings.frequencies[i];
+                    if (scores[document] == 0f) {
+                        matched[matchedCount++] = document;
+                    }
+                    scores[document] += idf * frequency * (K1 + 1)
+                            / (frequency + K1 * (1 - B + B * this.lengths[document] / averageLength));
+                }
+            }
+            return this.selectTop(scores, matched, matchedCount, after, limit);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Selects the best matched documents coming after the cursor with a heap bounded to the page size : its
+     * root is the last document of the page found so far, replaced each time a better document is found.
+     *
+     * @param scores       the score of each document
+     * @param matched      the numbers of the matched documents
+     * @param matchedCount the number of matched documents
+     * @param after        the position of the last rental of the previous page, or null
+     * @param limit        the maximum number of rentals to retrieve
+     * @return the hits of the page
+     */
+    private Hits selectTop(final float[] scores, final int[] matched, final int matchedCount,
+                           final RentalTextSearchCursor after, final int limit) {
+        int[] heap = new int[limit];
+        int heapSize = 0;
+        for (int i = 0; i < matchedCount; i++) {
+            int document = matched[i];
+            if (after != null && !this.comesAfter(scores, document, after.getScore(), after.getId())) {
+                continue;
+            }
+            if (heapSize < limit) {
+                heap[heapSize] = document;
+                this.siftUp(scores, heap, heapSize++);
+            } else if (limit > 0 && this.ranksBefore(scores, document, heap[0])) {
+                heap[0] = document;
+                this.siftDown(scores, heap, heapSize);
+            }
+        }
+        // Heap sort : the last ranked document is moved to the end until the heap is empty
+        for (int end = heapSize - 1; end > 0; end--) {
+            int last = heap[0];
+            heap[0] = heap[end];
+            heap[end] = last;
+            this.siftDown(scores, heap, end);
+        }
+        long[] ids = new long[heapSize];
+        float[] hitScores = new float[heapSize];
+        for (int i = 0; i < heapSize; i++) {
+            ids[i] = this.rentalIds[heap[i]];
+            hitScores[i] = scores[heap[i]];
+        }
+        return new Hits(ids, hitScores, matchedCount);
+    }
+
+    /**
+     * Tells whether a document comes after a position in the ranking.
+     *
+     * @param scores   the score of each document
+     * @param document the document
+     * @param score    the score of the position
+     * @param rentalId the rental ID of the position
+     * @return true if the document is ranked after the position
+     */
+    private boolean comesAfter(final float[] scores, final int document, final float score, final long rentalId) {
+        return scores[document] < score || scores[document] == score && this.rentalIds[document] > rentalId;
+    }
+
+    /**
+     * Tells whether a document is ranked before another one : by decreasing score, then by rental ID.
+     *
+     * @param scores   the score of each document
+     * @param document the document
+     * @param other    the other document
+     * @return true if the document is ranked before the other one
+     */
+    private boolean ranksBefore(final float[] scores, final int document, final int other) {
+        return scores[document] > scores[other]
+                || scores[document] == scores[other] && this.rentalIds[document] < this.rentalIds[other];
+    }
+
+    /**
+     * Moves a document up the heap until its parent is ranked after it.
+     *
+     * @param scores the score of each document
+     * @param heap   the heap of document numbers, rooted at the last ranked document
+     * @param index  the index of the document to move in the heap
+     */
+    private void siftUp(final float[] scores, final int[] heap, final int index) {
+        int child = index;
+        while (child > 0) {
+            int parent = (child - 1) >>> 1;
+            if (!this.ranksBefore(scores, heap[parent], heap[child])) {
+                return;
+            }
+            int document = heap[child];
+            heap[child] = heap[parent];
+            heap[parent] = document;
+            child = parent;
+        }
+    }
+
+    /**
+     * Moves the root of the heap down until its children are ranked before it.
+     *
+     * @param scores the score of each document
+     * @param heap   the heap of document numbers, rooted at the last ranked document
+     * @param size   the number of documents of the heap
+     */
+    private void siftDown(final float[] scores, final int[] heap, final int size) {
+        int parent = 0;
+        while (true) {
+            int last = parent;
+            int left = 2 * parent + 1;
+            int right = left + 1;
+            if (left < size && this.ranksBefore(scores, heap[last], heap[left])) {
+                last = left;
+            }
+            if (right < size && this.ranksBefore(scores, heap[last], heap[right])) {
+                last = right;
+            }
+            if (last == parent) {
+                return;
+            }
+            int document = heap[parent];
+            heap[parent] = heap[last];
+            heap[last] = document;
+            parent = last;
+        }
+    }
+
+    /**
+     * Indexes the texts of a rental, under the write lock.
+     *
+     * @param entry the text entry of the rental
+     */
+    private void add(final RentalTextEntry entry) {
+        Integer existingDocument = this.documents.get(entry.getId());
+        int document;
+        if (existingDocument != null) {
+            document = existingDocument;
+            this.remove(document);
+        } else {
+            document = this.documentCount++;
+            if (document == this.rentalIds.length) {
+                int capacity = this.rentalIds.length + (this.rentalIds.length >> 1);
+                this.rentalIds = Arrays.copyOf(this.rentalIds, capacity);
+                this.lengths = Arrays.copyOf(this.lengths, capacity);
+                this.terms = Arrays.copyOf(this.terms, capacity);
+            }
+            this.documents.put(entry.getId(), document);
+            this.rentalIds[document] = entry.getId();
+        }
+
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : RentalTextAnalyzer.analyze(entry.getName())) {
+            frequencies.merge(term, NAME_WEIGHT, Integer::sum);
+        }
+        for (String term : RentalTextAnalyzer.analyze(entry.getDescription())) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        String[] documentTerms = new String[frequencies.size()];
+        int length = 0;
+        int i = 0;
+        for (Map.Entry<String, Integer> frequency : frequencies.entrySet()) {
+            Postings termPostings = this.postings.computeIfAbsent(frequency.getKey(), term -> new Postings());
+            termPostings.add(document, frequency.getValue());
+            documentTerms[i++] = frequency.getKey();
+            length += frequency.getValue();
+        }
+        this.terms[document] = documentTerms;
+        this.lengths[document] = length;
+        this.totalLength += length;
+    }
+
+    /**
+     * Removes the postings of a document, under the write lock.
+     *
+     * @param document the document number
+     */
+    private void remove(final int document) {
+        for (String term : this.terms[document]) {
+            Postings termPostings = this.postings.get(term);
+            if (termPostings != null && termPostings.remove(document) && termPostings.size == 0) {
+                this.postings.remove(term);
+            }
+        }
+        this.totalLength -= this.lengths[document];
+        this.terms[document] = new String[0];
+        this.lengths[document] = 0;
+    }
+
+    /**
+     * The Hits class represents a page of full-text search results.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static final class Hits {
+
+        /**
+         * The IDs of the rentals found, by decreasing relevance.
+         */
+        private final long[] ids;
+
+        /**
+         * The relevance scores of the rentals found.
+         */
+        private final float[] scores;
+
+        /**
+         * The number of rentals matching the query, on all the pages.
+         */
+        private final int total;
+    }
+
+    /**
+     * The Postings class holds the documents holding a term, with the frequency of the term in each of them,
+     * in no particular order.
+     */
+    private static final class Postings {
+
+        /**
+         * The document numbers.
+         */
+        private int[] documents = new int[4];
+
+        /**
+         * The frequencies of the term in the documents.
+         */
+        private int[] frequencies = new int[4];
+
+        /**
+         * The number of documents holding the term.
+         */
+        private int size;
+
+        /**
+         * Adds a document holding the term.
+         *
+         * @param document  the document number
+         * @param frequency the frequency of the term in the document
+         */
+        private void add(final int document, final int frequency) {
+            if (this.size == this.documents.length) {
+                this.documents = Arrays.copyOf(this.documents, this.size * 2);
+                this.frequencies = Arrays.copyOf(this.frequencies, this.size * 2);
+            }
+            this.documents[this.size] = document;
+            this.frequencies[this.size++] = frequency;
+        }
+
+        /**
+         * Removes a document, replaced by the last one.
+         *
+         * @param document the document number
+         * @return true if the document held the term
+         */
+        private boolean remove(final int document) {
+            for (int i = 0; i < this.size; i++) {
+                if (this.documents[i] == document) {
+                    this.size--;
+                    this.documents[i] = this.documents[this.size];
+                    this.frequencies[i] = this.frequencies[this.size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
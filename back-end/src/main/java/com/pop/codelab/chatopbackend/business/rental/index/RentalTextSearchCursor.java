@@ -0,0 +1,75 @@
+package com.pop.codelab.chatopbackend.business.rental.index;
+
+import com.pop.codelab.chatopbackend.exception.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * The RentalTextSearchCursor class represents the position of the last rental of a full-text search results page :
+ * its relevance score and its ID. The next page is made of the rentals which come after it, by decreasing score
+ * then by ID. The cursor is handed to the client as an opaque URL-safe string.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class RentalTextSearchCursor {
+
+    /**
+     * The prefix of the encoded full-text search cursors.
+     */
+    private static final String PREFIX = "TEXT:";
+
+    /**
+     * The separator of the parts of an encoded cursor.
+     */
+    private static final String SEPARATOR = ":";
+
+    /**
+     * The score variable represents the relevance score of the last rental of the page.
+     */
+    private float score;
+
+    /**
+     * The id variable represents the ID of the last rental of the page.
+     */
+    private long id;
+
+    /**
+     * Encodes the cursor as an opaque URL-safe string. The score is encoded bit for bit, so that the rental of
+     * the cursor is compared exactly to the following ones.
+     *
+     * @return the encoded cursor
+     */
+    public String encode() {
+        String cursor = PREFIX + Integer.toHexString(Float.floatToIntBits(this.score)) + SEPARATOR + this.id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor previously returned to the client.
+     *
+     * @param encodedCursor the encoded cursor
+     * @return the decoded cursor
+     * @throws BadRequestException if the cursor is malformed or does not belong to a full-text search
+     */
+    public static RentalTextSearchCursor decode(final String encodedCursor) {
+        try {
+            String cursor = new String(Base64.getUrlDecoder().decode(encodedCursor), StandardCharsets.UTF_8);
+            if (cursor.startsWith(PREFIX)) {
+                String[] parts = cursor.substring(PREFIX.length()).split(SEPARATOR, -1);
+                if (parts.length == 2) {
+                    return new RentalTextSearchCursor(Float.intBitsToFloat(Integer.parseUnsignedInt(parts[0], 16)),
+                            Long.parseLong(parts[1]));
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // Not a cursor : reported below
+        }
+        throw new BadRequestException("Invalid search cursor : " + encodedCursor);
+    }
+}
@@ -0,0 +1,86 @@
+package com.pop.codelab.chatopbackend.business.rental.mapper;
+
+import com.pop.codelab.chatopbackend.business.rental.dto.requests.RentalCreationDto;
+import com.pop.codelab.chatopbackend.business.rental.dto.requests.RentalImportRowDto;
+import com.pop.codelab.chatopbackend.business.rental.dto.requests.RentalUpdateDto;
+import com.pop.codelab.chatopbackend.business.rental.dto.responses.OneRentalDto;
+import com.pop.codelab.chatopbackend.business.rental.entity.Rental;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingConstants;
+import org.mapstruct.MappingTarget;
+import org.mapstruct.ReportingPolicy;
+
+/**
+ * The RentalMapper interface maps the rental DTOs to the Rental entity and vice versa.
+ * <p>
+ * Its implementation is generated by MapStruct at compile time : the mapping is plain getter/setter code,
+ * with no reflection at runtime, and any unmapped target property makes the build fail.</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ * @see Rental
+ */
+@Mapper(componentModel = MappingConstants.ComponentModel.SPRING, unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface RentalMapper {
+
+    /**
+     * Maps a RentalCreationDto to a new Rental entity.
+     * The picture and the owner are not mapped : they are set by the rental service once the picture
+     * has been stored and the authenticated user is known.
+     *
+     * @param rentalDto the RentalCreationDto to map
+     * @return the new Rental entity
+     */
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "picture", ignore = true)
+    @Mapping(target = "pictureVariants", ignore = true)
+    @Mapping(target = "ownerId", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "modifiedAt", ignore = true)
+    Rental toRental(RentalCreationDto rentalDto);
+
+    /**
+     * Maps a RentalImportRowDto to a new Rental entity.
+     * The picture is not mapped : imported rentals have none. The owner is set by the import service.
+     *
+     * @param rowDto the RentalImportRowDto to map
+     * @return the new Rental entity
+     */
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "picture", ignore = true)
+    @Mapping(target = "pictureVariants", ignore = true)
+    @Mapping(target = "ownerId", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "modifiedAt", ignore = true)
+    Rental toRental(RentalImportRowDto rowDto);
+
+    /**
+     * Maps a Rental entity to a OneRentalDto.
+     *
+     * @param rental the Rental entity to map
+     * @return the OneRentalDto of the rental
+     */
+    OneRentalDto toOneRentalDto(Rental rental);
+
+    /**
+     * Updates a Rental entity with the details of a RentalUpdateDto.
+     * Only the name, the surface, the price and the description can be updated.
+     *
+     * @param rentalDto the RentalUpdateDto holding the new rental details
+     * @param rental    the Rental entity to update
+     */
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "picture", ignore = true)
+    @Mapping(target = "pictureVariants", ignore = true)
+    @Mapping(target = "ownerId", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "modifiedAt", ignore = true)
+    void updateRental(RentalUpdateDto rentalDto, @MappingTarget Rental rental);
+}
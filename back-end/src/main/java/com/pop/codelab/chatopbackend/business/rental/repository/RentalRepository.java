@@ -1,7 +1,27 @@
 package com.pop.codelab.chatopbackend.business.rental.repository;
 
+import com.pop.codelab.chatopbackend.business.rental.dto.responses.OneRentalDto;
+import com.pop.codelab.chatopbackend.business.rental.dto.responses.RentalVersionDto;
 import com.pop.codelab.chatopbackend.business.rental.entity.Rental;
+import com.pop.codelab.chatopbackend.business.rental.index.RentalIndexEntry;
+import com.pop.codelab.chatopbackend.business.rental.index.RentalTextEntry;
+import com.pop.codelab.chatopbackend.configuration.CacheConfiguration;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * RentalRepository is an interface that extends the JpaRepository interface, which provides basic CRUD operations
@@ -17,6 +37,157 @@ import org.springframework.data.jpa.repository.JpaRepository;
  * @version 1.0
  * @see Rental
  * @see JpaRepository
+ * @see RentalSearchRepository
  */
-public interface RentalRepository extends JpaRepository<Rental, Long> {
+public interface RentalRepository extends JpaRepository<Rental, Long>, RentalSearchRepository {
+
+    /**
+     * The number of rows fetched from the database at once when streaming the rentals.
+     */
+    String STREAM_FETCH_SIZE = "500";
+
+    /**
+     * Retrieves a rental straight into a OneRentalDto through a JPQL constructor expression.
+     * No Rental entity is hydrated nor attached to the persistence context.
+     * <p>
+     * The rentals are cached by ID in the {@link CacheConfiguration#RENTALS_CACHE} cache, which stands in front
+     * of the database : a cache hit neither runs the query nor opens a transaction. Unknown rentals are not cached.
+     * The cached DTOs are shared, so they must not be modified by the callers.</p>
+     *
+     * @param id the ID of the rental to retrieve
+     * @return an Optional containing the rental DTO if found, or an empty Optional if not found
+     */
+    @Cacheable(cacheNames = CacheConfiguration.RENTALS_CACHE, key = "#p0", unless = "#result == null")
+    @Transactional(readOnly = true)
+    @Query("select new com.pop.codelab.chatopbackend.business.rental.dto.responses.OneRentalDto("
+            + "r.id, r.name, r.surface, r.price, r.picture, r.description, r.ownerId, r.createdAt, r.updatedAt, "
+            + "r.version, r.modifiedAt) "
+            + "from Rental r where r.id = :id")
+    Optional<OneRentalDto> findRentalDtoById(@Param("id") Long id);
+
+    /**
+     * Streams all the rentals straight into OneRentalDto objects, ordered by ID.
+     * <p>
+     * The rows are pulled from the database by batches of {@link #STREAM_FETCH_SIZE} rows through a server-side
+     * cursor (the {@code useCursorFetch} option of the MySQL driver), so that the memory used does not depend on
+     * the number of rentals. The stream must be consumed within a transaction and closed once done.</p>
+     *
+     * @return a stream of the rental DTOs
+     */
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query("select new com.pop.codelab.chatopbackend.business.rental.dto.responses.OneRentalDto("
+            + "r.id, r.name, r.surface, r.price, r.picture, r.description, r.ownerId, r.createdAt, r.updatedAt, "
+            + "r.version, r.modifiedAt) "
+            + "from Rental r order by r.id")
+    Stream<OneRentalDto> streamRentalDtos();
+
+    /**
+     * Streams all the rental summaries, ordered by ID.
+     * The rows are pulled from the database by batches of {@link #STREAM_FETCH_SIZE} rows through a server-side
+     * cursor. The stream must be consumed within a transaction and closed once done.
+     *
+     * @return a stream of the rental summaries
+     */
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query("select new com.pop.codelab.chatopbackend.business.rental.dto.responses.OneRentalDto("
+            + "r.id, r.name, r.surface, r.price, r.picture, r.ownerId, r.createdAt, r.updatedAt, "
+            + "r.version, r.modifiedAt) "
+            + "from Rental r order by r.id")
+    Stream<OneRentalDto> streamRentalSummaries();
+
+    /**
+     * Streams the pictures of all the rentals, in no particular order.
+     * The rows are pulled from the database by batches of {@link #STREAM_FETCH_SIZE} rows through a server-side
+     * cursor. The stream must be consumed within a transaction and closed once done.
+     *
+     * @return a stream of the file names of the pictures, a picture shown by several rentals being repeated
+     */
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query("select r.picture from Rental r where r.picture is not null")
+    Stream<String> streamPictures();
+
+    /**
+     * Checks whether a picture is shown by a rental. The query is served by the rentals_picture_IDX index.
+     *
+     * @param picture the file name of the picture
+     * @return true if at least one rental shows the picture
+     */
+    @Transactional(readOnly = true)
+    boolean existsByPicture(String picture);
+
+    /**
+     * Retrieves the ID, the version and the last modification instant of the next page of rentals.
+     * It allows to compute the ETag of a page of rentals without loading their details.
+     *
+     * @param after the ID of the last rental of the previous page (0 to start from the beginning)
+     * @param limit the maximum number of rentals to retrieve
+     * @return the versions of the rentals whose ID is greater than the given one, ordered by ID
+     */
+    @Transactional(readOnly = true)
+    @Query("select new com.pop.codelab.chatopbackend.business.rental.dto.responses.RentalVersionDto("
+            + "r.id, r.version, r.modifiedAt) "
+            + "from Rental r where r.id > :after order by r.id")
+    List<RentalVersionDto> findRentalVersionsAfter(@Param("after") Long after, Limit limit);
+
+    /**
+     * Retrieves the columns held by the in-memory rental index of the rentals whose ID is greater than the given
+     * one, ordered by ID. It is used to build the index batch by batch.
+     *
+     * @param after the ID of the last rental of the previous batch (0 to start from the beginning)
+     * @param limit the maximum number of rentals to retrieve
+     * @return the index entries of the rentals whose ID is greater than the given one, ordered by ID
+     */
+    @Transactional(readOnly = true)
+    @Query("select new com.pop.codelab.chatopbackend.business.rental.index.RentalIndexEntry("
+            + "r.id, r.price, r.surface, r.ownerId) "
+            + "from Rental r where r.id > :after order by r.id")
+    List<RentalIndexEntry> findRentalIndexEntriesAfter(@Param("after") Long after, Limit limit);
+
+    /**
+     * Retrieves the names and descriptions of the rentals whose ID is greater than the given one, ordered by ID.
+     * It is used to build the full-text rental index batch by batch.
+     *
+     * @param after the ID of the last rental of the previous batch (0 to start from the beginning)
+     * @param limit the maximum number of rentals to retrieve
+     * @return the text entries of the rentals whose ID is greater than the given one, ordered by ID
+     */
+    @Transactional(readOnly = true)
+    @Query("select new com.pop.codelab.chatopbackend.business.rental.index.RentalTextEntry("
+            + "r.id, r.name, r.description) "
+            + "from Rental r where r.id > :after order by r.id")
+    List<RentalTextEntry> findRentalTextEntriesAfter(@Param("after") Long after, Limit limit);
+
+    /**
+     * Retrieves rentals by their IDs straight into OneRentalDto objects, in no particular order.
+     *
+     * @param ids the IDs of the rentals to retrieve
+     * @return the DTOs of the rentals found
+     */
+    @Transactional(readOnly = true)
+    @Query("select new com.pop.codelab.chatopbackend.business.rental.dto.responses.OneRentalDto("
+            + "r.id, r.name, r.surface, r.price, r.picture, r.description, r.ownerId, r.createdAt, r.updatedAt, "
+            + "r.version, r.modifiedAt) "
+            + "from Rental r where r.id in :ids")
+    List<OneRentalDto> findRentalDtosByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Records the picture variants of a rental, provided that its picture has not been replaced in the meantime.
+     * The version and the modification instant of the rental are updated, so that its ETag and its Last-Modified
+     * date change along with the URL of its picture.
+     *
+     * @param id         the ID of the rental
+     * @param picture    the file name of the picture the variants have been generated from
+     * @param variants   the comma separated names of the variants
+     * @param modifiedAt the modification instant of the rental
+     * @return the number of rentals updated, 0 if the rental or its picture has changed
+     */
+    @Modifying
+    @Transactional
+    @Query("update Rental r set r.pictureVariants = :variants, r.version = r.version + 1, r.modifiedAt = :modifiedAt "
+            + "where r.id = :id and r.picture = :picture")
+    int updatePictureVariants(@Param("id") Long id, @Param("picture") String picture,
+                              @Param("variants") String variants, @Param("modifiedAt") Instant modifiedAt);
 }
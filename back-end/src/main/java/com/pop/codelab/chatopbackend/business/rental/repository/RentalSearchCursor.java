@@ -0,0 +1,81 @@
+package com.pop.codelab.chatopbackend.business.rental.repository;
+
+import com.pop.codelab.chatopbackend.exception.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * The RentalSearchCursor class represents the position of the last rental of a search results page.
+ * <p>
+ * The next page is made of the rentals which come after this position in the sort order, so that it is read
+ * from the index of the sort order without skipping the rentals of the previous pages. The cursor is handed
+ * to the client as an opaque URL-safe string.</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class RentalSearchCursor {
+
+    /**
+     * The separator of the parts of an encoded cursor.
+     */
+    private static final String SEPARATOR = ":";
+
+    /**
+     * The sort variable represents the sort order of the search the cursor belongs to.
+     */
+    private RentalSearchSort sort;
+
+    /**
+     * The sortValue variable represents the value of the sort key of the last rental of the page,
+     * or null when the rentals are sorted by ID only.
+     */
+    private BigDecimal sortValue;
+
+    /**
+     * The id variable represents the ID of the last rental of the page.
+     */
+    private Long id;
+
+    /**
+     * Encodes the cursor as an opaque URL-safe string.
+     *
+     * @return the encoded cursor
+     */
+    public String encode() {
+        String cursor = this.sort.name() + SEPARATOR
+                + (this.sortValue == null ? "" : this.sortValue.toPlainString()) + SEPARATOR
+                + this.id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor previously returned to the client.
+     *
+     * @param encodedCursor the encoded cursor
+     * @param sort          the sort order of the search, which must be the one the cursor has been built for
+     * @return the decoded cursor
+     * @throws BadRequestException if the cursor is malformed or does not belong to a search with the given sort order
+     */
+    public static RentalSearchCursor decode(final String encodedCursor, final RentalSearchSort sort) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(encodedCursor), StandardCharsets.UTF_8)
+                    .split(SEPARATOR, -1);
+            if (parts.length == 3 && RentalSearchSort.valueOf(parts[0]) == sort
+                    && parts[1].isEmpty() == (sort.getAttribute() == null)) {
+                return new RentalSearchCursor(sort,
+                        parts[1].isEmpty() ? null : new BigDecimal(parts[1]),
+                        Long.valueOf(parts[2]));
+            }
+        } catch (IllegalArgumentException e) {
+            // Not a cursor : reported below
+        }
+        throw new BadRequestException("Invalid search cursor : " + encodedCursor);
+    }
+}
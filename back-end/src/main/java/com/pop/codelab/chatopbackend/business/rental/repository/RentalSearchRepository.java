@@ -0,0 +1,27 @@
+package com.pop.codelab.chatopbackend.business.rental.repository;
+
+import com.pop.codelab.chatopbackend.business.rental.dto.requests.RentalSearchDto;
+import com.pop.codelab.chatopbackend.business.rental.dto.responses.OneRentalDto;
+
+import java.util.List;
+
+/**
+ * The RentalSearchRepository interface is the fragment of the RentalRepository which searches the rentals
+ * with a query built from the provided criteria.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ * @see RentalRepository
+ */
+public interface RentalSearchRepository {
+
+    /**
+     * Searches the rentals matching the given criteria, sorted in the requested order.
+     *
+     * @param criteria the search criteria
+     * @param after    the position of the last rental of the previous page, or null to retrieve the first page
+     * @param limit    the maximum number of rentals to retrieve
+     * @return the rentals found, selected straight into DTOs
+     */
+    List<OneRentalDto> searchRentals(RentalSearchDto criteria, RentalSearchCursor after, int limit);
+}
@@ -0,0 +1,137 @@
+package com.pop.codelab.chatopbackend.business.rental.repository;
+
+import com.pop.codelab.chatopbackend.business.rental.dto.requests.RentalSearchDto;
+import com.pop.codelab.chatopbackend.business.rental.dto.responses.OneRentalDto;
+import com.pop.codelab.chatopbackend.business.rental.entity.Rental;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The RentalSearchRepositoryImpl class implements the rental search with the JPA Criteria API.
+ * <p>
+ * Only the provided criteria are added to the query, so that the database picks the composite index matching
+ * them (see the indexes of the rentals table). The rentals are sorted by the sort key then by ID, and a page
+ * is resumed from the position of the last rental of the previous page (keyset pagination) : the rentals of the
+ * previous pages are neither read nor skipped, whatever the page.</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+public class RentalSearchRepositoryImpl implements RentalSearchRepository {
+
+    /**
+     * The escape character of the LIKE patterns.
+     */
+    private static final char LIKE_ESCAPE = '!';
+
+    /**
+     * The entityManager variable represents the JPA entity manager used to run the search queries.
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Searches the rentals matching the given criteria, sorted in the requested order.
+     * The rentals are selected straight into DTOs by a read-only query.
+     *
+     * @param criteria the search criteria
+     * @param after    the position of the last rental of the previous page, or null to retrieve the first page
+     * @param limit    the maximum number of rentals to retrieve
+     * @return the rentals found
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<OneRentalDto> searchRentals(final RentalSearchDto criteria, final RentalSearchCursor after,
+                                            final int limit) {
+        CriteriaBuilder builder = this.entityManager.getCriteriaBuilder();
+        CriteriaQuery<OneRentalDto> query = builder.createQuery(OneRentalDto.class);
+        Root<Rental> rental = query.from(Rental.class);
+        if (criteria.isSummary()) {
+            query.select(builder.construct(OneRentalDto.class,
+                    rental.get("id"), rental.get("name"), rental.get("surface"), rental.get("price"),
+                    rental.get("picture"), rental.get("ownerId"), rental.get("createdAt"), rental.get("updatedAt"),
+                    rental.get("version"), rental.get("modifiedAt")));
+        } else {
+            query.select(builder.construct(OneRentalDto.class,
+                    rental.get("id"), rental.get("name"), rental.get("surface"), rental.get("price"),
+                    rental.get("picture"), rental.get("description"), rental.get("ownerId"),
+                    rental.get("createdAt"), rental.get("updatedAt"), rental.get("version"),
+                    rental.get("modifiedAt")));
+        }
+
+        List<Predicate> predicates = new ArrayList<>();
+        Path<BigDecimal> price = rental.get("price");
+        Path<BigDecimal> surface = rental.get("surface");
+        Path<Long> id = rental.get("id");
+        if (criteria.getMinPrice() != null) {
+            predicates.add(builder.greaterThanOrEqualTo(price, criteria.getMinPrice()));
+        }
+        if (criteria.getMaxPrice() != null) {
+            predicates.add(builder.lessThanOrEqualTo(price, criteria.getMaxPrice()));
+        }
+        if (criteria.getMinSurface() != null) {
+            predicates.add(builder.greaterThanOrEqualTo(surface, criteria.getMinSurface()));
+        }
+        if (criteria.getMaxSurface() != null) {
+            predicates.add(builder.lessThanOrEqualTo(surface, criteria.getMaxSurface()));
+        }
+        if (criteria.getOwnerId() != null) {
+            predicates.add(builder.equal(rental.get("ownerId"), criteria.getOwnerId()));
+        }
+        if (criteria.getName() != null && !criteria.getName().isBlank()) {
+            // A prefix pattern, without leading wildcard, can be looked up in the name index
+            predicates.add(builder.like(rental.get("name"), escapeLikePattern(criteria.getName().strip()) + "%",
+                    LIKE_ESCAPE));
+        }
+
+        RentalSearchSort sort = criteria.getSort();
+        if (sort.getAttribute() == null) {
+            if (after != null) {
+                predicates.add(builder.lessThan(id, after.getId()));
+            }
+            query.orderBy(builder.desc(id));
+        } else {
+            Path<BigDecimal> sortKey = rental.get(sort.getAttribute());
+            if (after != null) {
+                // (key, id) > (value, lastId), written so that the range on the key can be read from its index
+                predicates.add(builder.greaterThanOrEqualTo(sortKey, after.getSortValue()));
+                predicates.add(builder.or(
+                        builder.greaterThan(sortKey, after.getSortValue()),
+                        builder.greaterThan(id, after.getId())));
+            }
+            query.orderBy(builder.asc(sortKey), builder.asc(id));
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+
+        return this.entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Escapes the wildcards of a LIKE pattern so that they are matched literally.
+     *
+     * @param value the value to escape
+     * @return the escaped value
+     */
+    private static String escapeLikePattern(final String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (char character : value.toCharArray()) {
+            if (character == '%' || character == '_' || character == LIKE_ESCAPE) {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(character);
+        }
+        return escaped.toString();
+    }
+}
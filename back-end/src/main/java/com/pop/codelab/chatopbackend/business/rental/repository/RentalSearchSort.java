@@ -0,0 +1,72 @@
+package com.pop.codelab.chatopbackend.business.rental.repository;
+
+import com.pop.codelab.chatopbackend.business.rental.dto.responses.OneRentalDto;
+
+import java.math.BigDecimal;
+
+/**
+ * The RentalSearchSort enum represents the orders in which the rentals found by a search can be sorted.
+ * <p>
+ * Each order is backed by an index of the rentals table, and the rental ID always breaks the ties, so that
+ * the order is total and a page can be resumed from the sort key and the ID of the last rental of the
+ * previous page.</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+public enum RentalSearchSort {
+
+    /**
+     * Sorts the rentals from the cheapest to the most expensive.
+     */
+    PRICE("price"),
+
+    /**
+     * Sorts the rentals from the smallest to the largest.
+     */
+    SURFACE("surface"),
+
+    /**
+     * Sorts the rentals from the most recently created to the oldest one. The IDs being allocated in ascending
+     * order, the newest rentals are the ones with the highest IDs.
+     */
+    NEWEST(null);
+
+    /**
+     * The attribute variable represents the name of the Rental attribute the rentals are sorted by,
+     * or null when the rentals are sorted by ID only.
+     */
+    private final String attribute;
+
+    /**
+     * Creates a sort order.
+     *
+     * @param attribute the name of the Rental attribute the rentals are sorted by, or null to sort by ID only
+     */
+    RentalSearchSort(final String attribute) {
+        this.attribute = attribute;
+    }
+
+    /**
+     * Returns the name of the Rental attribute the rentals are sorted by.
+     *
+     * @return the name of the sort attribute, or null when the rentals are sorted by ID only
+     */
+    public String getAttribute() {
+        return this.attribute;
+    }
+
+    /**
+     * Returns the value of the sort key of a rental.
+     *
+     * @param rentalDto the rental
+     * @return the value of the sort attribute of the rental, or null when the rentals are sorted by ID only
+     */
+    public BigDecimal getSortValue(final OneRentalDto rentalDto) {
+        return switch (this) {
+            case PRICE -> rentalDto.getPrice();
+            case SURFACE -> rentalDto.getSurface();
+            case NEWEST -> null;
+        };
+    }
+}
@@ -0,0 +1,32 @@
+package com.pop.codelab.chatopbackend.business.rental.service;
+
+import com.pop.codelab.chatopbackend.business.rental.dto.responses.RentalImportReportDto;
+import com.pop.codelab.chatopbackend.business.rental.importer.RentalImportFormat;
+import org.springframework.security.core.Authentication;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The RentalImportService interface provides the bulk import of rentals.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+public interface RentalImportService {
+
+    /**
+     * Imports the rentals of a file on behalf of the authenticated user, who becomes their owner.
+     * The rows are read and validated one at a time, and the valid rentals are saved by batches, each batch in
+     * its own transaction : the invalid rows, and the rows of a batch which could not be saved, are rejected
+     * without stopping the import.
+     *
+     * @param format         The format of the file.
+     * @param inputStream    The content of the file.
+     * @param authentication The authentication object representing the user's credentials.
+     * @return A RentalImportReportDto counting the rows imported and rejected, batch by batch.
+     * @throws IOException If the file cannot be read.
+     */
+    RentalImportReportDto importRentals(RentalImportFormat format, InputStream inputStream,
+                                        Authentication authentication) throws IOException;
+}
@@ -0,0 +1,302 @@
+package com.pop.codelab.chatopbackend.business.rental.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pop.codelab.chatopbackend.business.rental.dto.requests.RentalImportRowDto;
+import com.pop.codelab.chatopbackend.business.rental.dto.responses.RentalImportBatchDto;
+import com.pop.codelab.chatopbackend.business.rental.dto.responses.RentalImportErrorDto;
+import com.pop.codelab.chatopbackend.business.rental.dto.responses.RentalImportReportDto;
+import com.pop.codelab.chatopbackend.business.rental.entity.Rental;
+import com.pop.codelab.chatopbackend.business.rental.importer.RentalImportFormat;
+import com.pop.codelab.chatopbackend.business.rental.importer.RentalImportReader;
+import com.pop.codelab.chatopbackend.business.rental.importer.RentalImportRow;
+import com.pop.codelab.chatopbackend.business.rental.index.RentalColumnarIndex;
+import com.pop.codelab.chatopbackend.business.rental.index.RentalIndexEntry;
+import com.pop.codelab.chatopbackend.business.rental.index.RentalTextEntry;
+import com.pop.codelab.chatopbackend.business.rental.index.RentalTextIndex;
+import com.pop.codelab.chatopbackend.business.rental.mapper.RentalMapper;
+import com.pop.codelab.chatopbackend.business.rental.repository.RentalRepository;
+import com.pop.codelab.chatopbackend.business.user.entity.User;
+import com.pop.codelab.chatopbackend.configuration.CacheConfiguration;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The RentalImportServiceImpl class imports the rentals of NDJSON and CSV files.
+ * <p>
+ * The file is read as a stream : only the rentals of the current batch are held in memory. Each batch is saved
+ * in its own transaction with {@code saveAll}; as the rental IDs are allocated by blocks from a sequence, Hibernate
+ * sends the inserts of the batch by JDBC batches (hibernate.jdbc.batch_size), rewritten by the MySQL driver as
+ * multi-row inserts, instead of one round trip per rental.</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@Service
+@RequiredArgsConstructor
+@Log4j2
+public class RentalImportServiceImpl implements RentalImportService {
+
+    /**
+     * The maximum number of rejected rows detailed in an import report.
+     */
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    /**
+     * The maximum length of the name of a rental (rentals.name column).
+     */
+    private static final int MAX_NAME_LENGTH = 248;
+
+    /**
+     * The maximum length of the description of a rental (rentals.description column).
+     */
+    private static final int MAX_DESCRIPTION_LENGTH = 2000;
+
+    /**
+     * The maximum number of digits of the integer part of a price or a surface (decimal(38, 2) columns).
+     */
+    private static final int MAX_INTEGER_DIGITS = 36;
+
+    /**
+     * The batchSize variable represents the number of rentals saved in each transaction.
+     * It is set using the value from the application property 'application.rentals.import.batch-size'.
+     */
+    @Value("${application.rentals.import.batch-size}")
+    private int batchSize;
+
+    /**
+     * The entityManager variable represents the persistence context of the current request, cleared after each
+     * batch so that the imported rentals do not pile up in it.
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * The rentalRepository variable represents the repository saving the rentals.
+     */
+    private final RentalRepository rentalRepository;
+
+    /**
+     * The rentalMapper variable represents the mapper converting the imported rows to rental entities.
+     */
+    private final RentalMapper rentalMapper;
+
+    /**
+     * The transactionTemplate variable represents the template running each batch in its own transaction.
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * The objectMapper variable represents the object mapper reading the NDJSON rows.
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * The cacheManager variable represents the cache manager holding the rentals cache.
+     */
+    private final CacheManager cacheManager;
+
+    /**
+     * The rentalColumnarIndex variable represents the in-memory rental index, updated with the imported rentals.
+     */
+    private final RentalColumnarIndex rentalColumnarIndex;
+
+    /**
+     * The rentalTextIndex variable represents the full-text rental index, updated with the imported rentals.
+     */
+    private final RentalTextIndex rentalTextIndex;
+
+    @Override
+    public RentalImportReportDto importRentals(final RentalImportFormat format, final InputStream inputStream,
+                                               final Authentication authentication) throws IOException {
+        long start = System.nanoTime();
+        long ownerId = ((User) authentication.getPrincipal()).getId();
+        ImportProgress progress = new ImportProgress();
+        RentalImportReader reader = RentalImportReader.of(format, inputStream, this.objectMapper);
+
+        List<Rental> batch = new ArrayList<>(this.batchSize);
+        List<Long> batchLines = new ArrayList<>(this.batchSize);
+        RentalImportRow row;
+        while ((row = reader.read()) != null) {
+            progress.rowsRead++;
+            String error = row.getError() != null ? row.getError() : this.validate(row.getRental());
+            if (error != null) {
+                progress.reject(row.getLine(), error);
+                continue;
+            }
+            Rental rental = this.rentalMapper.toRental(row.getRental());
+            rental.setOwnerId(ownerId);
+            batch.add(rental);
+            batchLines.add(row.getLine());
+            if (batch.size() == this.batchSize) {
+                this.saveBatch(batch, batchLines, progress);
+            }
+        }
+        if (!batch.isEmpty()) {
+            this.saveBatch(batch, batchLines, progress);
+        }
+
+        long durationMillis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Rental import by user {} : {} rows read, {} imported, {} rejected in {} ms",
+                ownerId, progress.rowsRead, progress.rowsImported, progress.rowsRejected, durationMillis);
+        return RentalImportReportDto.builder()
+                .rowsRead(progress.rowsRead)
+                .rowsImported(progress.rowsImported)
+                .rowsRejected(progress.rowsRejected)
+                .durationMillis(durationMillis)
+                .batches(progress.batches)
+                .errors(progress.errors)
+                .build();
+    }
+
+    /**
+     * Checks the values of an imported row against the columns of the rentals table, so that a valid row can
+     * always be saved and never makes its whole batch fail.
+     *
+     * @param rowDto the imported row
+     * @return the errors of the row, or null if the row is valid
+     */
+    private String validate(final RentalImportRowDto rowDto) {
+        List<String> errors = new ArrayList<>();
+        if (rowDto.getName() == null || rowDto.getName().isBlank()) {
+            errors.add("name is required");
+        } else if (rowDto.getName().length() > MAX_NAME_LENGTH) {
+            errors.add("name exceeds " + MAX_NAME_LENGTH + " characters");
+        }
+        if (rowDto.getSurface() == null) {
+            errors.add("surface is required");
+        } else if (rowDto.getSurface().signum() <= 0 || isTooLarge(rowDto.getSurface())) {
+            errors.add("surface must be positive, with at most " + MAX_INTEGER_DIGITS + " integer digits");
+        }
+        if (rowDto.getPrice() == null) {
+            errors.add("price is required");
+        } else if (rowDto.getPrice().signum() < 0 || isTooLarge(rowDto.getPrice())) {
+            errors.add("price must be positive or zero, with at most " + MAX_INTEGER_DIGITS + " integer digits");
+        }
+        if (rowDto.getDescription() == null || rowDto.getDescription().isBlank()) {
+            errors.add("description is required");
+        } else if (rowDto.getDescription().length() > MAX_DESCRIPTION_LENGTH) {
+            errors.add("description exceeds " + MAX_DESCRIPTION_LENGTH + " characters");
+        }
+        return errors.isEmpty() ? null : String.join(", ", errors);
+    }
+
+    /**
+     * Tells whether a decimal value does not fit in a decimal(38, 2) column.
+     *
+     * @param value the decimal value
+     * @return true if the integer part of the value has too many digits
+     */
+    private static boolean isTooLarge(final BigDecimal value) {
+        return value.precision() - value.scale() > MAX_INTEGER_DIGITS;
+    }
+
+    /**
+     * Saves a batch of rentals in its own transaction, then updates the rental indexes with them.
+     * If the transaction fails, the rentals of the batch are rejected. The batch is emptied in both cases.
+     *
+     * @param batch      the rentals of the batch
+     * @param batchLines the numbers of the lines of the rentals of the batch
+     * @param progress   the progress of the import
+     */
+    private void saveBatch(final List<Rental> batch, final List<Long> batchLines, final ImportProgress progress) {
+        long start = System.nanoTime();
+        int number = progress.batches.size() + 1;
+        boolean saved;
+        try {
+            this.transactionTemplate.executeWithoutResult(status -> this.rentalRepository.saveAll(batch));
+            saved = true;
+        } catch (RuntimeException e) {
+            log.error("Rental import : batch {} (lines {} to {}) could not be saved", number, batchLines.get(0),
+                    batchLines.get(batchLines.size() - 1), e);
+            saved = false;
+        } finally {
+            this.entityManager.clear();
+        }
+        long durationMillis = (System.nanoTime() - start) / 1_000_000;
+
+        if (saved) {
+            Cache rentalsCache = this.cacheManager.getCache(CacheConfiguration.RENTALS_CACHE);
+            for (Rental rental : batch) {
+                if (rentalsCache != null) {
+                    rentalsCache.evict(rental.getId());
+                }
+                this.rentalColumnarIndex.upsert(RentalIndexEntry.of(rental));
+                this.rentalTextIndex.index(RentalTextEntry.of(rental));
+            }
+            progress.rowsImported += batch.size();
+        } else {
+            for (Long line : batchLines) {
+                progress.reject(line, "Batch " + number + " could not be saved");
+            }
+        }
+        progress.batches.add(RentalImportBatchDto.builder()
+                .number(number)
+                .rentals(batch.size())
+                .saved(saved)
+                .lastLine(batchLines.get(batchLines.size() - 1))
+                .durationMillis(durationMillis)
+                .build());
+        log.debug("Rental import : batch {} of {} rentals {} in {} ms, {} rows read", number, batch.size(),
+                saved ? "saved" : "rejected", durationMillis, progress.rowsRead);
+        batch.clear();
+        batchLines.clear();
+    }
+
+    /**
+     * The ImportProgress class counts the rows of an import, and keeps its batches and its first errors.
+     */
+    private static final class ImportProgress {
+
+        /**
+         * The number of rows read.
+         */
+        private long rowsRead;
+
+        /**
+         * The number of rentals saved.
+         */
+        private long rowsImported;
+
+        /**
+         * The number of rows rejected.
+         */
+        private long rowsRejected;
+
+        /**
+         * The batches saved or rejected.
+         */
+        private final List<RentalImportBatchDto> batches = new ArrayList<>();
+
+        /**
+         * The first rows rejected.
+         */
+        private final List<RentalImportErrorDto> errors = new ArrayList<>();
+
+        /**
+         * Rejects a row.
+         *
+         * @param line    the number of the line of the row
+         * @param message the reason why the row is rejected
+         */
+        private void reject(final long line, final String message) {
+            this.rowsRejected++;
+            if (this.errors.size() < MAX_REPORTED_ERRORS) {
+                this.errors.add(new RentalImportErrorDto(line, message));
+            }
+        }
+    }
+}
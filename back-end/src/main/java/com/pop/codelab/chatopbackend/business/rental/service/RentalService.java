@@ -1,13 +1,22 @@
 package com.pop.codelab.chatopbackend.business.rental.service;
 
 import com.pop.codelab.chatopbackend.business.rental.dto.requests.RentalCreationDto;
+import com.pop.codelab.chatopbackend.business.rental.dto.requests.RentalSearchDto;
 import com.pop.codelab.chatopbackend.business.rental.dto.requests.RentalUpdateDto;
 import com.pop.codelab.chatopbackend.business.rental.dto.responses.AllRentalsDto;
 import com.pop.codelab.chatopbackend.business.rental.dto.responses.OneRentalDto;
+import com.pop.codelab.chatopbackend.business.rental.dto.responses.RentalSearchResultsDto;
+import com.pop.codelab.chatopbackend.business.rental.dto.responses.RentalsPageVersionDto;
 import com.pop.codelab.chatopbackend.common.responses.MessageDto;
+import com.pop.codelab.chatopbackend.common.responses.ResourceVersionDto;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.ModelAttribute;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
 /**
  * The RentalService interface provides methods for managing rental entities.
  *
@@ -17,13 +26,67 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 public interface RentalService {
 
     /**
-     * Retrieves a list of all rental entities.
+     * Retrieves a page of rental entities using keyset pagination.
+     * Every rental entity is retrieved when neither a cursor nor a limit is given.
      *
-     * @return An instance of AllRentalsDto containing the list of rental entities.
+     * @param after The ID of the last rental of the previous page, or null to retrieve the first page.
+     * @param limit The maximum number of rentals of the page, or null to use the default page size.
+     * @param summary True to retrieve rental summaries, which do not hold the description.
+     * @return An instance of AllRentalsDto containing the page of rental entities and the cursor of the next page.
      * @see AllRentalsDto
      * @see OneRentalDto
      */
-    AllRentalsDto getAllRentals();
+    AllRentalsDto getAllRentals(Long after, Integer limit, boolean summary);
+
+    /**
+     * Builds a page of rental entities from the IDs its version was computed on.
+     *
+     * @param pageVersion The version of the page, as returned by {@link #getRentalsPageVersion}.
+     * @param summary     True to retrieve rental summaries, which do not hold the description.
+     * @return An instance of AllRentalsDto containing the page of rental entities and the cursor of the next page.
+     */
+    AllRentalsDto getAllRentals(RentalsPageVersionDto pageVersion, boolean summary);
+
+    /**
+     * Searches the rental entities matching the given criteria, page by page.
+     *
+     * @param criteria The search criteria, holding the sort order and the cursor of the page to retrieve.
+     * @return A RentalSearchResultsDto containing the page of rentals found and the cursor of the next page if any.
+     */
+    RentalSearchResultsDto searchRentals(RentalSearchDto criteria);
+
+    /**
+     * Searches the rental entities whose name or description matches a full-text query, by decreasing relevance.
+     *
+     * @param query   The full-text query.
+     * @param cursor  The cursor of the page to retrieve, or null to retrieve the first page.
+     * @param limit   The maximum number of rentals of the page, or null to use the default page size.
+     * @param summary True to retrieve rental summaries, which do not hold the description.
+     * @return A RentalSearchResultsDto containing the page of rentals found and the cursor of the next page if any.
+     */
+    RentalSearchResultsDto searchRentalsByText(String query, String cursor, Integer limit, boolean summary);
+
+    /**
+     * Streams all the rental entities as a JSON object to the given output stream.
+     * The JSON object has the same structure as an AllRentalsDto, without the next page cursor.
+     *
+     * @param summary      True to stream rental summaries, which do not hold the description.
+     * @param outputStream The output stream to write the JSON object to.
+     * @throws IOException If the JSON object cannot be written.
+     */
+    void streamAllRentals(boolean summary, OutputStream outputStream) throws IOException;
+
+    /**
+     * Retrieves the version of a page of rental entities, as returned by {@link #getAllRentals}, along with the IDs
+     * of its rental entities.
+     *
+     * @param after   The ID of the last rental of the previous page, or null to retrieve the first page.
+     * @param limit   The maximum number of rentals of the page, or null to use the default page size.
+     * @param summary True if the page holds rental summaries.
+     * @return An instance of RentalsPageVersionDto holding the ETag and the Last-Modified date of the page,
+     * the IDs of its rental entities and the cursor of the next page.
+     */
+    RentalsPageVersionDto getRentalsPageVersion(Long after, Integer limit, boolean summary);
 
     /**
      * Retrieves a specific rental entity based on the provided ID.
@@ -33,6 +96,14 @@ public interface RentalService {
      */
     OneRentalDto getRentalById(Long id);
 
+    /**
+     * Retrieves the version of a specific rental entity based on the provided ID.
+     *
+     * @param id The identifier of the rental entity.
+     * @return An instance of ResourceVersionDto holding the ETag and the Last-Modified date of the rental entity.
+     */
+    ResourceVersionDto getRentalVersion(Long id);
+
     /**
      * Creates a new rental entity based on the provided rental data and authentication.
      *
@@ -42,6 +113,20 @@ public interface RentalService {
      */
     MessageDto createRental(RentalCreationDto rentalDto, Authentication authentication);
 
+    /**
+     * Creates a new rental from a multipart/form-data body read as a stream, the picture being written straight
+     * to the upload directory while it is received.
+     *
+     * @param contentType    The content type of the request, holding the boundary of the parts.
+     * @param contentLength  The length of the body, or -1 if unknown.
+     * @param body           The request body, holding the fields of a RentalCreationDto.
+     * @param authentication The authentication object representing the user's credentials.
+     * @return A MessageDto object indicating the result of the create operation.
+     * @throws IOException If the body cannot be read or the picture cannot be saved.
+     */
+    MessageDto createRental(MediaType contentType, long contentLength, InputStream body,
+                            Authentication authentication) throws IOException;
+
     /**
      * Updates the rental entity with the provided ID based on the rental data and authentication.
      *
@@ -54,4 +139,14 @@ public interface RentalService {
             Long id,
             @ModelAttribute RentalUpdateDto rentalDto, Authentication authentication);
 
+    /**
+     * Replaces the picture of the rental entity with the provided ID by an image already stored.
+     *
+     * @param id             the identifier of the rental entity to update
+     * @param picture        the content key of the stored image
+     * @param authentication the authentication object representing the user's credentials
+     * @return a MessageDto object indicating the result of the update operation
+     */
+    MessageDto updateRentalPicture(Long id, String picture, Authentication authentication);
+
 }
@@ -1,32 +1,77 @@
 package com.pop.codelab.chatopbackend.business.rental.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.pop.codelab.chatopbackend.business.rental.repository.RentalRepository;
+import com.pop.codelab.chatopbackend.business.rental.repository.RentalSearchCursor;
+import com.pop.codelab.chatopbackend.business.rental.repository.RentalSearchSort;
 import com.pop.codelab.chatopbackend.business.rental.dto.requests.RentalCreationDto;
+import com.pop.codelab.chatopbackend.business.rental.dto.requests.RentalSearchDto;
 import com.pop.codelab.chatopbackend.business.rental.dto.requests.RentalUpdateDto;
 import com.pop.codelab.chatopbackend.business.rental.dto.responses.AllRentalsDto;
 import com.pop.codelab.chatopbackend.business.rental.dto.responses.OneRentalDto;
+import com.pop.codelab.chatopbackend.business.rental.dto.responses.RentalSearchResultsDto;
+import com.pop.codelab.chatopbackend.business.rental.dto.responses.RentalSummaryDto;
+import com.pop.codelab.chatopbackend.business.rental.dto.responses.RentalVersionDto;
+import com.pop.codelab.chatopbackend.business.rental.dto.responses.RentalsPageVersionDto;
 import com.pop.codelab.chatopbackend.business.rental.entity.Rental;
+import com.pop.codelab.chatopbackend.business.rental.index.RentalColumnarIndex;
+import com.pop.codelab.chatopbackend.business.rental.index.RentalIndexEntry;
+import com.pop.codelab.chatopbackend.business.rental.index.RentalTextAnalyzer;
+import com.pop.codelab.chatopbackend.business.rental.index.RentalTextEntry;
+import com.pop.codelab.chatopbackend.business.rental.index.RentalTextIndex;
+import com.pop.codelab.chatopbackend.business.rental.index.RentalTextSearchCursor;
+import com.pop.codelab.chatopbackend.business.rental.mapper.RentalMapper;
 import com.pop.codelab.chatopbackend.business.user.entity.User;
 import com.pop.codelab.chatopbackend.business.user.service.UserServiceImpl;
+import com.pop.codelab.chatopbackend.common.multipart.MultipartPart;
+import com.pop.codelab.chatopbackend.common.multipart.MultipartStreamReader;
 import com.pop.codelab.chatopbackend.common.responses.MessageDto;
+import com.pop.codelab.chatopbackend.common.responses.ResourceVersionDto;
+import com.pop.codelab.chatopbackend.configuration.CacheConfiguration;
+import com.pop.codelab.chatopbackend.exception.BadRequestException;
+import com.pop.codelab.chatopbackend.exception.PayloadTooLargeException;
 import com.pop.codelab.chatopbackend.exception.ResourceNotFoundException;
+import com.pop.codelab.chatopbackend.exception.ServiceUnavailableException;
 import com.pop.codelab.chatopbackend.services.ImageService;
+import com.pop.codelab.chatopbackend.services.ImageVariant;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
-import org.modelmapper.ModelMapper;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * The RentalServiceImpl class provides CRUD operations for managing RentalCreationDto objects.
@@ -40,13 +85,45 @@ import java.util.Optional;
 @Log4j2
 public class RentalServiceImpl implements RentalService {
 
+    /**
+     * The number of bytes of the SHA-256 hash kept in the ETag of a page of rentals.
+     */
+    private static final int ETAG_HASH_BYTES = 16;
+
+    /**
+     * The maximum number of bytes of a text field of a streamed rental creation.
+     */
+    private static final int MAX_FIELD_SIZE = 8 * 1024;
+
+    /**
+     * The maxFileSize variable represents the maximum size of an uploaded picture.
+     * It is set using the value from the application property 'spring.servlet.multipart.max-file-size'.
+     */
+    @Value("${spring.servlet.multipart.max-file-size}")
+    private DataSize maxFileSize;
+
+    /**
+     * The maxRequestSize variable represents the maximum size of a multipart request.
+     * It is set using the value from the application property 'spring.servlet.multipart.max-request-size'.
+     */
+    @Value("${spring.servlet.multipart.max-request-size}")
+    private DataSize maxRequestSize;
+
+    /**
+     * The defaultPageSize variable represents the number of rentals returned by a page when the client provides
+     * a cursor but no limit.
+     * It is set using the value from the application property 'application.rentals.page.default-size'.
+     */
+    @Value("${application.rentals.page.default-size}")
+    private int defaultPageSize;
 
     /**
-     * The uploadDirectory variable represents the directory where uploaded files are stored.
-     * It is a String type and is set using the value from the application property 'application.local-storage.upload-directory' using the @Value annotation.
+     * The maxPageSize variable represents the maximum number of rentals that a page can contain, whatever the
+     * limit requested by the client, so that the memory used by a request stays bounded.
+     * It is set using the value from the application property 'application.rentals.page.max-size'.
      */
-    @Value("${application.local-storage.upload-directory}")
-    private String uploadDirectory;
+    @Value("${application.rentals.page.max-size}")
+    private int maxPageSize;
 
     /**
      * The rentalRepository variable is an instance of the RentalRepository interface.
@@ -71,7 +148,7 @@ public class RentalServiceImpl implements RentalService {
      * It is used to handle image-related operations in the application.
      * The ImageService class has the following methods:
      * <ul>
-     *     <li>saveImageToStorage(String uploadDirectory, MultipartFile imageFile): Saves the given image file to the specified upload directory.</li>
+     *     <li>saveImageToStorage(MultipartFile imageFile): Saves the given image file to the image storage.</li>
      *     <li>getImage(String imageDirectory, String imageName): Retrieves the image with the specified imageDirectory and imageName.</li>
      *     <li>deleteImage(String imageDirectory, String imageName): Deletes the image with the specified imageDirectory and imageName.</li>
      * </ul>
@@ -86,44 +163,77 @@ public class RentalServiceImpl implements RentalService {
     private final UserServiceImpl userService;
 
     /**
-     * The ModelMapper class is used for mapping objects from one type to another.
-     * It is a powerful and flexible Java bean mapping library that simplifies the mapping process between two objects.
-     * Here, used to map Dto and Entity.
-     * <p>
-     * The ModelMapper class is autowired to enable dependency injection, making it easy to use within a Spring application.</p>
+     * The rentalMapper variable represents the mapper, generated at compile time, used to map the rental
+     * DTOs to the Rental entity and vice versa.
      *
-     * @see RentalServiceImpl
-     * @see RentalCreationDto
-     * @see CrudService
-     * @see RentalRepository
-     * @see ImageService
+     * @see RentalMapper
      */
-    @Autowired
-    private ModelMapper modelMapper;
+    private final RentalMapper rentalMapper;
 
     /**
-     * Retrieves all rentals from the repository.
+     * The cacheManager variable gives access to the rentals cache, whose entries are invalidated when a rental is saved.
      *
-     * @return a list of RentalCreationDto objects representing all rentals
+     * @see CacheConfiguration
      */
-    public AllRentalsDto getAllRentals() {
-        log.info("Collecting all rentals...");
-        List<Rental> rentals = rentalRepository.findAll();
-        List<OneRentalDto> rentalsList = new ArrayList<>();
-        for (Rental rental : rentals) {
-            OneRentalDto oneRentalResponseDto = modelMapper.map(rental, OneRentalDto.class);
-            if (rental.getPicture() != null && !rental.getPicture().isEmpty()) {
-                String imageToServeUrl = this.imageService.getImageToServeUrl(rental.getPicture());
-                if (!imageToServeUrl.isEmpty()) {
-                    oneRentalResponseDto.setPicture(imageToServeUrl);
-                }
-            }
-            rentalsList.add(oneRentalResponseDto);
-        }
+    private final CacheManager cacheManager;
+
+    /**
+     * The objectMapper variable represents the JSON object mapper of the application, used to stream the rentals.
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * The rentalColumnarIndex variable represents the in-memory index answering the rental searches without
+     * querying the database. It is updated each time a rental is saved.
+     *
+     * @see RentalColumnarIndex
+     */
+    private final RentalColumnarIndex rentalColumnarIndex;
+
+    /**
+     * The rentalTextIndex variable represents the in-memory inverted index answering the full-text searches.
+     * It is updated each time a rental is saved.
+     *
+     * @see RentalTextIndex
+     */
+    private final RentalTextIndex rentalTextIndex;
+
+    /**
+     * Retrieves a page of rentals from the repository using keyset pagination.
+     * When neither a cursor nor a limit is given, every rental is retrieved in a single page, so that the clients
+     * which do not paginate, such as the front-end, still get every rental.
+     * The page is built from the rentals its version is computed on, see {@link #getAllRentals(RentalsPageVersionDto,
+     * boolean)}.
+     *
+     * @param after   the ID of the last rental of the previous page, or null to retrieve the first page
+     * @param limit   the maximum number of rentals of the page, or null to use the default page size
+     * @param summary true to retrieve rental summaries, which do not hold the description
+     * @return an AllRentalsDto containing the page of rentals and the cursor of the next page if any
+     */
+    public AllRentalsDto getAllRentals(final Long after, final Integer limit, final boolean summary) {
+        return this.getAllRentals(this.getRentalsPageVersion(after, limit, summary), summary);
+    }
+
+    /**
+     * Builds a page of rentals from the IDs its version was computed on, so that the rentals are not selected
+     * a second time once the version of the page has been checked.
+     * The rentals are read from the rentals cache, and the ones missing from it are selected by their ID
+     * by a single read-only query, straight into DTOs.
+     *
+     * @param pageVersion the version of the page, holding the IDs of its rentals and the cursor of the next page
+     * @param summary     true to retrieve rental summaries, which do not hold the description
+     * @return an AllRentalsDto containing the page of rentals and the cursor of the next page if any
+     */
+    public AllRentalsDto getAllRentals(final RentalsPageVersionDto pageVersion, final boolean summary) {
+        log.info("Collecting {} rental(s) (summary : {})...", pageVersion.getIds().length, summary);
+        List<OneRentalDto> rentals = this.findCachedRentalDtos(pageVersion.getIds(), summary);
         log.debug("Rental(s) count : {}", rentals.size());
         AllRentalsDto response = AllRentalsDto
                 .builder()
-                .rentals(rentalsList)
+                .rentals(rentals.stream()
+                        .map(rentalDto -> this.toListedRental(rentalDto, summary))
+                        .toList())
+                .nextCursor(pageVersion.getNextCursor())
                 .build();
         log.debug("Response {}", response.getRentals());
         return response;
@@ -131,68 +241,388 @@ public class RentalServiceImpl implements RentalService {
 
 
     /**
-     * Retrieves a RentalCreationDto object by its ID.
+     * Retrieves a rental by its ID.
+     * The rental is read from the rentals cache, or selected straight into a DTO by a read-only query
+     * on a cache miss.
      *
      * @param id the ID of the rental to be retrieved
-     * @return an Optional object containing a RentalCreationDto if found, or an empty Optional if not found
+     * @return the OneRentalDto of the rental
      * @throws ResourceNotFoundException if the rental with the given ID is not found
      */
     public OneRentalDto getRentalById(final Long id) {
-        Optional<Rental> optionalRental = rentalRepository.findById(id);
-        if (optionalRental.isEmpty()) {
-            log.warn("Rental id : {} not found ! ", id);
-            throw new ResourceNotFoundException(String.format("Rental id : %s not found ! ", id));
+        OneRentalDto rentalDto = this.withImageToServeUrl(this.findCachedRentalDto(id), ImageVariant.FULL);
+        log.debug("Rental Dto retrieved : {} ", rentalDto);
+        return rentalDto;
+    }
+
+
+    /**
+     * Searches the rentals matching the given criteria using keyset pagination.
+     * The cursor of the next page holds the sort key and the ID of the last rental of the page, so that the next
+     * page is read from the index of the sort order right after it.
+     * One extra rental is fetched to know whether a next page exists without running a count query.
+     *
+     * @param criteria the search criteria, holding the sort order and the cursor of the page to retrieve
+     * @return a RentalSearchResultsDto containing the page of rentals found and the cursor of the next page if any
+     * @throws BadRequestException if the cursor is invalid
+     */
+    public RentalSearchResultsDto searchRentals(final RentalSearchDto criteria) {
+        if (criteria.getSort() == null) {
+            criteria.setSort(RentalSearchSort.NEWEST);
         }
-        OneRentalDto rentalDto = modelMapper.map(optionalRental, OneRentalDto.class);
-        if (optionalRental.get().getPicture() != null && !optionalRental.get().getPicture().isEmpty()) {
-            String imageToServeUrl = this.imageService.getImageToServeUrl(optionalRental.get().getPicture());
-            if (!imageToServeUrl.isEmpty()) {
-                rentalDto.setPicture(imageToServeUrl);
+        int pageSize = this.getPageSize(criteria.getLimit());
+        RentalSearchCursor after = criteria.getCursor() == null || criteria.getCursor().isBlank()
+                ? null
+                : RentalSearchCursor.decode(criteria.getCursor(), criteria.getSort());
+        List<OneRentalDto> rentals;
+        Long total = null;
+        if (this.rentalColumnarIndex.canSearch(criteria)) {
+            log.info("Searching rentals in the columnar index : {} (page size : {})...", criteria, pageSize);
+            rentals = this.findCachedRentalDtos(this.rentalColumnarIndex.search(criteria, after, pageSize + 1),
+                    criteria.isSummary());
+            total = this.rentalColumnarIndex.count(criteria);
+        } else {
+            log.info("Searching rentals : {} (page size : {})...", criteria, pageSize);
+            rentals = rentalRepository.searchRentals(criteria, after, pageSize + 1);
+        }
+        boolean hasNextPage = rentals.size() > pageSize;
+        if (hasNextPage) {
+            rentals = rentals.subList(0, pageSize);
+        }
+        log.debug("Rental(s) found : {}", rentals.size());
+        OneRentalDto lastRental = hasNextPage ? rentals.get(rentals.size() - 1) : null;
+        return RentalSearchResultsDto
+                .builder()
+                .rentals(rentals.stream()
+                        .map(rentalDto -> this.toListedRental(rentalDto, criteria.isSummary()))
+                        .toList())
+                .nextCursor(lastRental == null ? null : new RentalSearchCursor(criteria.getSort(),
+                        criteria.getSort().getSortValue(lastRental), lastRental.getId()).encode())
+                .total(total)
+                .build();
+    }
+
+    /**
+     * Searches the rentals whose name or description matches a full-text query, by decreasing relevance.
+     * The query is answered by the in-memory full-text index, then the rentals of the page are read from the
+     * rentals cache, the ones missing from it being selected by a single query.
+     * One extra rental is fetched to know whether a next page exists.
+     *
+     * @param query   the full-text query
+     * @param cursor  the cursor of the page to retrieve, or null to retrieve the first page
+     * @param limit   the maximum number of rentals of the page, or null to use the default page size
+     * @param summary true to retrieve rental summaries, which do not hold the description
+     * @return a RentalSearchResultsDto containing the page of rentals found and the cursor of the next page if any
+     * @throws BadRequestException         if the query holds no searchable term or if the cursor is invalid
+     * @throws ServiceUnavailableException if the full-text index is not built yet
+     */
+    public RentalSearchResultsDto searchRentalsByText(final String query, final String cursor, final Integer limit,
+                                                      final boolean summary) {
+        if (RentalTextAnalyzer.analyze(query).isEmpty()) {
+            throw new BadRequestException("The query holds no searchable term : " + query);
+        }
+        if (!this.rentalTextIndex.isReady()) {
+            throw new ServiceUnavailableException("The full-text search is not available yet");
+        }
+        int pageSize = this.getPageSize(limit);
+        RentalTextSearchCursor after = cursor == null || cursor.isBlank() ? null : RentalTextSearchCursor.decode(cursor);
+        log.info("Searching rentals matching '{}' (page size : {})...", query, pageSize);
+        RentalTextIndex.Hits hits = this.rentalTextIndex.search(query, after, pageSize + 1);
+        boolean hasNextPage = hits.getIds().length > pageSize;
+        long[] ids = hasNextPage ? Arrays.copyOf(hits.getIds(), pageSize) : hits.getIds();
+        List<OneRentalDto> rentals = this.findCachedRentalDtos(ids, summary);
+        log.debug("Rental(s) found : {} of {}", rentals.size(), hits.getTotal());
+        return RentalSearchResultsDto
+                .builder()
+                .rentals(rentals.stream()
+                        .map(rentalDto -> this.toListedRental(rentalDto, summary))
+                        .toList())
+                .nextCursor(hasNextPage
+                        ? new RentalTextSearchCursor(hits.getScores()[pageSize - 1], ids[pageSize - 1]).encode()
+                        : null)
+                .total((long) hits.getTotal())
+                .build();
+    }
+
+    /**
+     * Streams all the rentals as a {@code {"rentals":[...]}} JSON object to the given output stream.
+     * <p>
+     * The rentals are pulled one at a time from a database cursor, then mapped and written straight to the
+     * output stream by a JSON generator : neither the list of rentals nor the JSON document is held in memory,
+     * so the memory used by the request does not depend on the number of rentals. The generator is flushed after
+     * the first rental so that the client receives the first bytes as soon as possible.</p>
+     *
+     * @param summary      true to stream rental summaries, which do not hold the description
+     * @param outputStream the output stream to write the JSON object to
+     * @throws IOException if the JSON object cannot be written
+     */
+    @Transactional(readOnly = true)
+    public void streamAllRentals(final boolean summary, final OutputStream outputStream) throws IOException {
+        log.info("Streaming all rentals (summary : {})...", summary);
+        ObjectWriter rentalWriter = objectMapper.writerFor(summary ? RentalSummaryDto.class : OneRentalDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long count = 0;
+        try (Stream<OneRentalDto> rentals = summary
+                ? rentalRepository.streamRentalSummaries()
+                : rentalRepository.streamRentalDtos();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("rentals");
+            Iterator<OneRentalDto> iterator = rentals.iterator();
+            while (iterator.hasNext()) {
+                rentalWriter.writeValue(generator, this.toListedRental(iterator.next(), summary));
+                if (++count == 1) {
+                    generator.flush();
+                }
             }
+            generator.writeEndArray();
+            generator.writeEndObject();
         }
-        log.debug("Rental Dto retrieved : {} ", rentalDto);
-        return rentalDto;
+        log.debug("Rental(s) streamed : {}", count);
     }
 
+    /**
+     * Computes the version of a page of rentals from the IDs and the versions of its rentals only, so that
+     * a conditional request can be answered without loading the details of the rentals nor serializing them.
+     * The ETag is a hash of the page parameters and of the ID and version of each rental of the page (including
+     * the extra rental telling whether a next page exists), and the Last-Modified date is the most recent
+     * modification instant of these rentals.
+     * The IDs of the rentals of the page are kept along with its version, to build the page without running
+     * the page query again.
+     * When neither a cursor nor a limit is given, the page holds every rental and has no next page.
+     *
+     * @param after   the ID of the last rental of the previous page, or null to retrieve the first page
+     * @param limit   the maximum number of rentals of the page, or null to use the default page size
+     * @param summary true if the page holds rental summaries
+     * @return the RentalsPageVersionDto holding the version of the page, the IDs of its rentals and the next cursor
+     */
+    public RentalsPageVersionDto getRentalsPageVersion(final Long after, final Integer limit,
+                                                       final boolean summary) {
+        boolean paginated = after != null || limit != null;
+        int pageSize = paginated ? this.getPageSize(limit) : Integer.MAX_VALUE;
+        long cursor = after == null ? 0L : after;
+        List<RentalVersionDto> versions = rentalRepository.findRentalVersionsAfter(cursor,
+                paginated ? Limit.of(pageSize + 1) : Limit.unlimited());
+        MessageDigest digest = this.newETagDigest();
+        ByteBuffer buffer = ByteBuffer.allocate(2 * Long.BYTES);
+        digest.update(buffer.putLong(cursor).putLong(summary ? -pageSize : pageSize).array());
+        Instant lastModified = null;
+        for (RentalVersionDto version : versions) {
+            buffer.clear();
+            digest.update(buffer.putLong(version.getId()).putLong(version.getVersion()).array());
+            if (lastModified == null || version.getModifiedAt().isAfter(lastModified)) {
+                lastModified = version.getModifiedAt();
+            }
+        }
+        boolean hasNextPage = versions.size() > pageSize;
+        long[] ids = versions.stream()
+                .limit(pageSize)
+                .mapToLong(RentalVersionDto::getId)
+                .toArray();
+        return RentalsPageVersionDto.builder()
+                .version(ResourceVersionDto.builder()
+                        .eTag("\"rentals-" + HexFormat.of().formatHex(digest.digest(), 0, ETAG_HASH_BYTES) + "\"")
+                        .lastModified(lastModified)
+                        .build())
+                .ids(ids)
+                .nextCursor(hasNextPage ? ids[ids.length - 1] : null)
+                .build();
+    }
+
+    /**
+     * Retrieves the version of a rental from the rentals cache, or from the database on a cache miss.
+     * The ETag is made of the ID and the version of the rental.
+     *
+     * @param id the ID of the rental
+     * @return the ResourceVersionDto holding the ETag and the Last-Modified date of the rental
+     * @throws ResourceNotFoundException if the rental with the given ID is not found
+     */
+    public ResourceVersionDto getRentalVersion(final Long id) {
+        OneRentalDto rentalDto = this.findCachedRentalDto(id);
+        return ResourceVersionDto.builder()
+                .eTag("\"" + rentalDto.getId() + "-" + rentalDto.getVersion() + "\"")
+                .lastModified(rentalDto.getModifiedAt())
+                .build();
+    }
 
     /**
      * Creates a rental using the provided rental data.
+     * The fields are checked before the picture is saved, and the picture is deleted if the rental cannot be created.
      *
      * @param rentalDtoToSave   The RentalCreationDto object containing the rental data.
      * @param authentication   The authentication object representing the user's credentials.
      * @return A MessageDto object indicating that the rental has been created.
      */
     public MessageDto createRental(final RentalCreationDto rentalDtoToSave, final Authentication authentication) {
-
-        RentalCreationDto rentalDto = modelMapper.map(rentalDtoToSave, RentalCreationDto.class);
-
-        Rental rental = modelMapper.map(rentalDto, Rental.class);
-
-        rental.setOwnerId(this.getauthenticatedUserId(authentication));
+        checkRentalCreation(rentalDtoToSave);
         MultipartFile imageFile = rentalDtoToSave.getPicture();
+        String uploadedFileName = null;
         if (imageFile != null) {
             try {
-                String uploadedFileName = imageService.saveImageToStorage(uploadDirectory, imageFile);
+                uploadedFileName = imageService.saveImageToStorage(imageFile);
                 log.debug("Rental {} - Picture : {} has been uploaded : {}",
                         rentalDtoToSave.getName(),
                         rentalDtoToSave.getPicture().getOriginalFilename(),
                         uploadedFileName);
-                rental.setPicture(uploadedFileName);
             } catch (IOException e) {
                 log.error("An error has occurred when saving file : {}", imageFile.getOriginalFilename());
                 throw new RuntimeException(e);
             }
         }
-        this.rentalRepository.save(rental);
+        try {
+            return this.saveCreatedRental(rentalDtoToSave, uploadedFileName, authentication);
+        } catch (RuntimeException e) {
+            this.discardPicture(uploadedFileName);
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a rental from a multipart/form-data body read as a stream, holding the same fields as a
+     * RentalCreationDto.
+     * <p>
+     * The body is parsed part by part while it is received : the picture is hashed and written straight to the
+     * upload directory, instead of being spooled to a temporary file by the servlet container then copied. The size
+     * limits of the multipart requests are enforced while reading, so that an oversized upload is rejected as soon as
+     * the limit is crossed. The parts may come in any order ; the unknown parts are skipped. The fields are checked
+     * once the body has been read, and the picture is deleted if the rental cannot be created.</p>
+     *
+     * @param contentType    The content type of the request, holding the boundary of the parts.
+     * @param contentLength  The length of the body, or -1 if unknown.
+     * @param body           The request body.
+     * @param authentication The authentication object representing the user's credentials.
+     * @return A MessageDto object indicating that the rental has been created.
+     * @throws IOException              If the body cannot be read or the picture cannot be saved.
+     * @throws BadRequestException      If the body is malformed, or if a field is missing or invalid.
+     * @throws PayloadTooLargeException If the body, the picture or a field exceeds its maximum size.
+     */
+    public MessageDto createRental(final MediaType contentType, final long contentLength, final InputStream body,
+                                   final Authentication authentication) throws IOException {
+        if (contentLength > this.maxRequestSize.toBytes()) {
+            throw new PayloadTooLargeException("The request exceeds " + this.maxRequestSize.toBytes() + " bytes");
+        }
+        MultipartStreamReader reader = new MultipartStreamReader(body, contentType, this.maxFileSize.toBytes(),
+                this.maxRequestSize.toBytes());
+        RentalCreationDto rentalDto = new RentalCreationDto();
+        String uploadedFileName = null;
+        try {
+            Optional<MultipartPart> nextPart;
+            while ((nextPart = reader.nextPart()).isPresent()) {
+                MultipartPart part = nextPart.get();
+                switch (part.getName()) {
+                    case "name" -> rentalDto.setName(part.readValue(MAX_FIELD_SIZE));
+                    case "surface" -> rentalDto.setSurface(parseDecimal(part));
+                    case "price" -> rentalDto.setPrice(parseDecimal(part));
+                    case "description" -> rentalDto.setDescription(part.readValue(MAX_FIELD_SIZE));
+                    case "picture" -> {
+                        // A file input left empty by a browser is sent as a part without file name
+                        if (part.isFile() && !part.getFileName().isEmpty() && uploadedFileName == null) {
+                            uploadedFileName = imageService.saveImageToStorage(part.getInputStream(),
+                                    part.getFileName());
+                            log.debug("Picture : {} has been streamed : {}", part.getFileName(), uploadedFileName);
+                        }
+                    }
+                    default -> log.debug("The part {} of the rental creation is skipped", part.getName());
+                }
+            }
+            checkRentalCreation(rentalDto);
+            return this.saveCreatedRental(rentalDto, uploadedFileName, authentication);
+        } catch (IOException | RuntimeException e) {
+            this.discardPicture(uploadedFileName);
+            throw e;
+        }
+    }
+
+    /**
+     * Checks the fields of a rental to create against the constraints of its RentalCreationDto : the required fields
+     * and the maximum lengths of the columns, so that an invalid rental is rejected before it is saved.
+     *
+     * @param rentalDto the RentalCreationDto object containing the rental data
+     * @throws BadRequestException if a field is missing or too long
+     */
+    private static void checkRentalCreation(final RentalCreationDto rentalDto) {
+        if (rentalDto.getName() == null || rentalDto.getSurface() == null || rentalDto.getPrice() == null
+                || rentalDto.getDescription() == null) {
+            throw new BadRequestException("The name, surface, price and description of the rental are required");
+        }
+        if (rentalDto.getName().length() > RentalCreationDto.NAME_MAX_LENGTH) {
+            throw new BadRequestException("The name of the rental exceeds " + RentalCreationDto.NAME_MAX_LENGTH
+                    + " characters");
+        }
+        if (rentalDto.getDescription().length() > RentalCreationDto.DESCRIPTION_MAX_LENGTH) {
+            throw new BadRequestException("The description of the rental exceeds "
+                    + RentalCreationDto.DESCRIPTION_MAX_LENGTH + " characters");
+        }
+    }
+
+    /**
+     * Deletes the picture uploaded for a rental which has not been created, unless a rental references it.
+     * A failure is only logged : the picture is then left to the garbage collection of the unreferenced images.
+     *
+     * @param picture the content key of the picture, or null if none has been uploaded
+     */
+    private void discardPicture(final String picture) {
+        if (picture == null || this.rentalRepository.existsByPicture(picture)) {
+            return;
+        }
+        try {
+            this.imageService.discardImage(picture);
+        } catch (IOException | RuntimeException e) {
+            log.warn("The picture {} of a rental which has not been created cannot be deleted : {}", picture,
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * Saves a new rental owned by the authenticated user, then updates the caches and indexes of the rentals and
+     * generates the variants of its picture.
+     *
+     * @param rentalDtoToSave The RentalCreationDto object containing the rental data.
+     * @param picture         The content key of the stored picture of the rental, or null if it has none.
+     * @param authentication  The authentication object representing the user's credentials.
+     * @return A MessageDto object indicating that the rental has been created.
+     */
+    private MessageDto saveCreatedRental(final RentalCreationDto rentalDtoToSave, final String picture,
+                                         final Authentication authentication) {
+        Rental rental = rentalMapper.toRental(rentalDtoToSave);
+        rental.setOwnerId(this.getauthenticatedUserId(authentication));
+        rental.setPicture(picture);
+        Rental savedRental = this.rentalRepository.save(rental);
+        this.evictCachedRental(savedRental.getId());
+        this.rentalColumnarIndex.upsert(RentalIndexEntry.of(savedRental));
+        this.rentalTextIndex.index(RentalTextEntry.of(savedRental));
+        if (savedRental.getPicture() != null) {
+            this.imageService.addReference(savedRental.getPicture());
+            this.generatePictureVariants(savedRental);
+        }
         log.debug("Rental : {} has been created.", rentalDtoToSave);
         return MessageDto.builder()
                 .message("Rental created")
                 .build();
     }
 
+    /**
+     * Reads a decimal field of a multipart body.
+     *
+     * @param part the part holding the field
+     * @return the value of the field
+     * @throws IOException         if the body cannot be read
+     * @throws BadRequestException if the field is not a decimal number
+     */
+    private static BigDecimal parseDecimal(final MultipartPart part) throws IOException {
+        String value = part.readValue(MAX_FIELD_SIZE).trim();
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("The field " + part.getName() + " is not a number : " + value);
+        }
+    }
 
     /**
      * Updates an existing rental entity with the provided rental data.
+     * The rental is read and saved in a single transaction. Its cached entry is evicted, and the indexes of the
+     * rentals are updated, once the transaction has been committed : a read concurrent with the update cannot cache
+     * the rental as it was before the update.
      *
      * @param id             the identifier of the rental entity to update
      * @param rentalDto      the RentalUpdateDto object containing the rental data
@@ -202,7 +632,11 @@ public class RentalServiceImpl implements RentalService {
      *
      * @throws ResourceNotFoundException   if no rental with the given ID is found
      * @throws HttpClientErrorException    if the authenticated user is not authorized to update the rental
+     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException if the rental has been modified since
+     *                                                                        it was read, such as by the recording
+     *                                                                        of its picture variants
      */
+    @Transactional
     public MessageDto updateRental(
             final Long id,
             final @ModelAttribute RentalUpdateDto rentalDto, final Authentication authentication) {
@@ -212,11 +646,15 @@ public class RentalServiceImpl implements RentalService {
         if (savedRental.getOwnerId() != getauthenticatedUserId(authentication)) {
             throw new HttpClientErrorException(HttpStatus.UNAUTHORIZED);
         }
-        savedRental.setName(rentalDto.getName());
-        savedRental.setSurface(rentalDto.getSurface());
-        savedRental.setPrice(rentalDto.getPrice());
-        savedRental.setDescription(rentalDto.getDescription());
+        rentalMapper.updateRental(rentalDto, savedRental);
         Rental updatedRental = rentalRepository.save(savedRental);
+        this.evictCachedRental(updatedRental.getId());
+        RentalIndexEntry indexEntry = RentalIndexEntry.of(updatedRental);
+        RentalTextEntry textEntry = RentalTextEntry.of(updatedRental);
+        afterCommit(() -> {
+            this.rentalColumnarIndex.upsert(indexEntry);
+            this.rentalTextIndex.index(textEntry);
+        });
         log.debug("Rental {} has been updated ! ", updatedRental.getName());
         return MessageDto
                 .builder()
@@ -224,6 +662,39 @@ public class RentalServiceImpl implements RentalService {
                 .build();
     }
 
+    /**
+     * Replaces the picture of an existing rental by an image already stored, such as the image assembled by a
+     * resumable upload, then generates the variants of the new picture in the background.
+     *
+     * @param id             the identifier of the rental entity to update
+     * @param picture        the content key of the stored image
+     * @param authentication the authentication object representing the user's credentials
+     * @return a MessageDto object indicating that the picture of the rental has been updated
+     * @throws ResourceNotFoundException if no rental with the given ID is found
+     * @throws HttpClientErrorException  if the authenticated user does not own the rental
+     */
+    public MessageDto updateRentalPicture(final Long id, final String picture, final Authentication authentication) {
+        Rental savedRental = rentalRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("No rental found with Id : " + id));
+        doesLoggedUserOwnThisRental(savedRental.getOwnerId(), authentication);
+        String previousPicture = savedRental.getPicture();
+        savedRental.setPicture(picture);
+        // The variants of the previous picture are recorded again once those of the new picture are generated
+        savedRental.setPictureVariants(null);
+        Rental updatedRental = rentalRepository.save(savedRental);
+        // The new picture is counted first, so that a picture replaced by itself never drops to no reference
+        this.imageService.addReference(picture);
+        if (previousPicture != null) {
+            this.imageService.removeReference(previousPicture);
+        }
+        this.evictCachedRental(updatedRental.getId());
+        this.generatePictureVariants(updatedRental);
+        log.debug("Rental {} - Picture replaced by {}", updatedRental.getId(), picture);
+        return MessageDto
+                .builder()
+                .message("Rental picture updated")
+                .build();
+    }
+
     /**
      * Retrieves the authenticated user ID from the given Authentication object.
      *
@@ -236,6 +707,185 @@ public class RentalServiceImpl implements RentalService {
         return user.getId();
     }
 
+    /**
+     * Retrieves the shared DTO of a rental from the rentals cache, or from the database on a cache miss.
+     *
+     * @param id the ID of the rental
+     * @return the cached OneRentalDto of the rental, which must not be modified
+     * @throws ResourceNotFoundException if the rental with the given ID is not found
+     */
+    private OneRentalDto findCachedRentalDto(final Long id) {
+        return rentalRepository.findRentalDtoById(id).orElseThrow(() -> {
+            log.warn("Rental id : {} not found ! ", id);
+            return new ResourceNotFoundException(String.format("Rental id : %s not found ! ", id));
+        });
+    }
+
+    /**
+     * Retrieves the DTOs of rentals, in the order of their IDs, from the rentals cache. The rentals missing from
+     * the cache are selected by queries of at most {@link #maxPageSize} IDs each (a single query for a page),
+     * then cached.
+     *
+     * @param ids     the IDs of the rentals
+     * @param summary true to retrieve rental summaries, which do not hold the description
+     * @return the DTOs of the rentals found, in the order of the given IDs
+     */
+    private List<OneRentalDto> findCachedRentalDtos(final long[] ids, final boolean summary) {
+        Cache rentalsCache = this.cacheManager.getCache(CacheConfiguration.RENTALS_CACHE);
+        OneRentalDto[] rentals = new OneRentalDto[ids.length];
+        Map<Long, Integer> missingPositions = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            rentals[i] = rentalsCache == null ? null : rentalsCache.get(ids[i], OneRentalDto.class);
+            if (rentals[i] == null) {
+                missingPositions.put(ids[i], i);
+            }
+        }
+        if (!missingPositions.isEmpty()) {
+            log.debug("Rental(s) missing from the cache : {}", missingPositions.size());
+            List<Long> missingIds = List.copyOf(missingPositions.keySet());
+            for (int from = 0; from < missingIds.size(); from += maxPageSize) {
+                List<Long> batch = missingIds.subList(from, Math.min(from + maxPageSize, missingIds.size()));
+                for (OneRentalDto rentalDto : rentalRepository.findRentalDtosByIds(batch)) {
+                    rentals[missingPositions.get(rentalDto.getId())] = rentalDto;
+                    if (rentalsCache != null) {
+                        rentalsCache.put(rentalDto.getId(), rentalDto);
+                    }
+                }
+            }
+        }
+        return Arrays.stream(rentals)
+                .filter(Objects::nonNull)
+                .map(rentalDto -> summary ? rentalDto.toBuilder().description(null).build() : rentalDto)
+                .toList();
+    }
+
+    /**
+     * Creates the message digest used to hash the ETag of a page of rentals.
+     *
+     * @return a new SHA-256 MessageDigest
+     */
+    private MessageDigest newETagDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns a copy of a rental DTO whose picture file name is replaced by the URL the picture is served at,
+     * in the given variant if it is available, otherwise in its original size.
+     * The DTO itself is never modified, as it may be shared by the rentals cache, and it is returned as is
+     * if its picture is not set or if the image has not been found.
+     *
+     * @param rentalDto the rental DTO
+     * @param variant   the variant of the picture to serve
+     * @return the rental DTO holding the URL of its picture
+     */
+    private OneRentalDto withImageToServeUrl(final OneRentalDto rentalDto, final ImageVariant variant) {
+        if (rentalDto.getPicture() != null && !rentalDto.getPicture().isEmpty()) {
+            String imageToServeUrl = this.imageService.getImageToServeUrl(rentalDto.getPicture(), variant);
+            if (!imageToServeUrl.isEmpty()) {
+                return rentalDto.toBuilder().picture(imageToServeUrl).build();
+            }
+        }
+        return rentalDto;
+    }
+
+    /**
+     * Returns the picture variant served by the rental lists.
+     *
+     * @param summary true if the rentals are listed as summaries
+     * @return the thumbnail for the summaries, the card picture otherwise
+     */
+    private static ImageVariant listVariant(final boolean summary) {
+        return summary ? ImageVariant.THUMB : ImageVariant.CARD;
+    }
+
+    /**
+     * Returns a rental as it is listed : holding the URL of the picture variant served by the rental lists,
+     * and as a RentalSummaryDto, whose JSON representation has no description key, when listed as a summary.
+     *
+     * @param rentalDto the rental DTO
+     * @param summary   true if the rentals are listed as summaries
+     * @return the rental DTO to list
+     */
+    private OneRentalDto toListedRental(final OneRentalDto rentalDto, final boolean summary) {
+        OneRentalDto listedRental = this.withImageToServeUrl(rentalDto, listVariant(summary));
+        return summary ? new RentalSummaryDto(listedRental) : listedRental;
+    }
+
+    /**
+     * Generates the variants of the picture of a rental which has just been saved, in the background, then records
+     * them in the rental. A failure only leaves the rental served with its original picture.
+     *
+     * @param rental the saved rental, holding a picture
+     */
+    private void generatePictureVariants(final Rental rental) {
+        Long rentalId = rental.getId();
+        String picture = rental.getPicture();
+        this.imageService.generateImageVariants(picture).whenComplete((variants, failure) -> {
+            if (failure != null) {
+                log.error("The variants of the picture {} of the rental {} have not been generated.",
+                        picture, rentalId, failure);
+            } else if (!variants.isEmpty()) {
+                this.rentalRepository.updatePictureVariants(rentalId, picture, ImageVariant.join(variants),
+                        Instant.now());
+                this.evictCachedRental(rentalId);
+                log.debug("Rental {} - Picture variants recorded : {}", rentalId, variants);
+            }
+        });
+    }
+
+    /**
+     * Invalidates the cached entry of a rental which has just been saved, so that its next read loads
+     * its details as stored in the database (with the scale of the decimal columns and the timestamps).
+     * Within a transaction, the entry is evicted once the transaction has been committed : evicted before, it could
+     * be cached again from the rental not yet committed.
+     *
+     * @param rentalId the ID of the saved rental
+     */
+    private void evictCachedRental(final Long rentalId) {
+        afterCommit(() -> {
+            Cache rentalsCache = this.cacheManager.getCache(CacheConfiguration.RENTALS_CACHE);
+            if (rentalsCache != null) {
+                rentalsCache.evict(rentalId);
+            }
+        });
+    }
+
+    /**
+     * Runs an action once the current transaction has been committed, or right away outside any transaction.
+     * The action is not run if the transaction is rolled back.
+     *
+     * @param action the action to run
+     */
+    private static void afterCommit(final Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Computes the size of a rentals page from the limit requested by the client.
+     *
+     * @param limit the limit requested by the client, may be null
+     * @return the default page size if no valid limit is provided, otherwise the limit capped to the maximum page size
+     */
+    private int getPageSize(final Integer limit) {
+        if (limit == null || limit <= 0) {
+            return defaultPageSize;
+        }
+        return Math.min(limit, maxPageSize);
+    }
+
     /**
      * Checks if the logged in user owns the rental.
      *
@@ -0,0 +1,165 @@
+package com.pop.codelab.chatopbackend.business.upload.controller;
+
+import com.pop.codelab.chatopbackend.business.upload.dto.requests.UploadCompletionDto;
+import com.pop.codelab.chatopbackend.business.upload.dto.requests.UploadCreationDto;
+import com.pop.codelab.chatopbackend.business.upload.dto.responses.UploadSessionDto;
+import com.pop.codelab.chatopbackend.business.upload.service.UploadServiceImpl;
+import com.pop.codelab.chatopbackend.common.responses.MessageDto;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The UploadController class provides the endpoints of the resumable uploads of the rental pictures.
+ * <p>
+ * An upload is opened with the size of the file, then its chunks are sent by PUT requests at their offset, in any
+ * order and possibly in parallel. Its progress lists the ranges still missing, so that an interrupted upload is
+ * resumed rather than started over. Once complete, the file becomes the picture of a rental.</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@Tag(name = "UploadController", description = "Provides endpoints for the resumable uploads of ${app.name} pictures")
+@RestController
+@RequestMapping("uploads")
+public class UploadController {
+
+    /**
+     * Represents the upload service used in the UploadController class.
+     */
+    @Autowired
+    private UploadServiceImpl uploadService;
+
+    /**
+     * Opens a resumable upload for a file of the given size.
+     *
+     * @param uploadDto      the size and the name of the file to upload
+     * @param authentication the authentication object of the logged-in user, who owns the upload
+     * @return a ResponseEntity containing the progress of the new upload and the HTTP status code 201
+     * @throws IOException if the file of the upload cannot be created
+     */
+    @PostMapping(path = "", consumes = {MediaType.APPLICATION_JSON_VALUE})
+    @Operation(summary = "Open a resumable upload")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Created : Upload opened", content = @Content(schema = @Schema(implementation = UploadSessionDto.class))),
+            @ApiResponse(responseCode = "400", description = "Bad Request : the size is missing, or too many uploads are in progress"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized : the user must authenticate itself to get" +
+                    " the requested response"),
+            @ApiResponse(responseCode = "413", description = "Payload Too Large : the file is too large"),
+            @ApiResponse(responseCode = "503", description = "Service Unavailable : too many uploads are in progress")
+    })
+    public ResponseEntity<UploadSessionDto> createUpload(final @RequestBody UploadCreationDto uploadDto,
+                                                         final Authentication authentication) throws IOException {
+        return new ResponseEntity<>(this.uploadService.createUpload(uploadDto, authentication), HttpStatus.CREATED);
+    }
+
+    /**
+     * Retrieves the progress of an upload : the bytes received and the ranges still missing.
+     *
+     * @param id             the identifier of the upload
+     * @param authentication the authentication object of the logged-in user
+     * @return a ResponseEntity containing the progress of the upload
+     */
+    @GetMapping("/{id}")
+    @Operation(summary = "Get the progress of an upload")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK : Upload found", content = @Content(schema = @Schema(implementation = UploadSessionDto.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized : the user must authenticate itself to get" +
+                    " the requested response"),
+            @ApiResponse(responseCode = "404", description = "Not Found : no upload of the user with this Id")
+    })
+    public ResponseEntity<UploadSessionDto> getUpload(final @PathVariable String id,
+                                                      final Authentication authentication) {
+        return ResponseEntity.ok(this.uploadService.getUpload(id, authentication));
+    }
+
+    /**
+     * Writes a chunk of an upload at the given offset. The body holds the raw bytes of the chunk.
+     *
+     * @param id             the identifier of the upload
+     * @param offset         the position of the first byte of the chunk in the file
+     * @param content        the bytes of the chunk
+     * @param authentication the authentication object of the logged-in user
+     * @return a ResponseEntity containing the progress of the upload once the chunk has been written
+     * @throws IOException if the chunk cannot be read or written
+     */
+    @PutMapping(path = "/{id}", consumes = {MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    @Operation(summary = "Send a chunk of an upload at its offset")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK : Chunk written", content = @Content(schema = @Schema(implementation = UploadSessionDto.class))),
+            @ApiResponse(responseCode = "400", description = "Bad Request : the chunk does not fit in the file"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized : the user must authenticate itself to get" +
+                    " the requested response"),
+            @ApiResponse(responseCode = "404", description = "Not Found : no upload of the user with this Id")
+    })
+    public ResponseEntity<UploadSessionDto> writeChunk(final @PathVariable String id,
+                                                       final @RequestParam long offset,
+                                                       final InputStream content,
+                                                       final Authentication authentication) throws IOException {
+        return ResponseEntity.ok(this.uploadService.writeChunk(id, offset, content, authentication));
+    }
+
+    /**
+     * Completes an upload whose bytes have all been received : the file becomes the picture of the given rental.
+     *
+     * @param id             the identifier of the upload
+     * @param completionDto  the ID of the rental, owned by the logged-in user
+     * @param authentication the authentication object of the logged-in user
+     * @return a ResponseEntity containing a MessageDto with a success message
+     * @throws IOException if the uploaded file cannot be stored
+     */
+    @PostMapping(path = "/{id}/complete", consumes = {MediaType.APPLICATION_JSON_VALUE})
+    @Operation(summary = "Complete an upload and attach the file to a rental")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK : Rental picture updated", content = @Content(schema = @Schema(implementation = MessageDto.class))),
+            @ApiResponse(responseCode = "400", description = "Bad Request : the rental is missing or the upload is incomplete"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized : the user must authenticate itself to get" +
+                    " the requested response"),
+            @ApiResponse(responseCode = "404", description = "Not Found : no upload of the user or no rental with this Id")
+    })
+    public ResponseEntity<MessageDto> completeUpload(final @PathVariable String id,
+                                                     final @RequestBody UploadCompletionDto completionDto,
+                                                     final Authentication authentication) throws IOException {
+        return ResponseEntity.ok(this.uploadService.completeUpload(id, completionDto, authentication));
+    }
+
+    /**
+     * Cancels an upload, discarding the bytes received.
+     *
+     * @param id             the identifier of the upload
+     * @param authentication the authentication object of the logged-in user
+     * @return a ResponseEntity containing a MessageDto with a success message
+     */
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Cancel an upload")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK : Upload cancelled", content = @Content(schema = @Schema(implementation = MessageDto.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized : the user must authenticate itself to get" +
+                    " the requested response"),
+            @ApiResponse(responseCode = "404", description = "Not Found : no upload of the user with this Id")
+    })
+    public ResponseEntity<MessageDto> cancelUpload(final @PathVariable String id,
+                                                   final Authentication authentication) {
+        return ResponseEntity.ok(this.uploadService.cancelUpload(id, authentication));
+    }
+}
@@ -0,0 +1,22 @@
+package com.pop.codelab.chatopbackend.business.upload.dto.requests;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * The UploadCompletionDto class represents the request DTO (Data Transfer Object) completing a resumable upload :
+ * the uploaded file becomes the picture of the given rental.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@Data
+public class UploadCompletionDto {
+
+    /**
+     * The rental_id variable represents the ID of the rental whose picture is replaced by the uploaded file.
+     * It is required.
+     */
+    @JsonProperty("rental_id")
+    private Long rentalId;
+}
@@ -0,0 +1,27 @@
+package com.pop.codelab.chatopbackend.business.upload.dto.requests;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * The UploadCreationDto class represents the request DTO (Data Transfer Object) opening a resumable upload
+ * of a rental picture.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@Data
+public class UploadCreationDto {
+
+    /**
+     * The size variable represents the size of the file to upload, in bytes. It is required.
+     */
+    private Long size;
+
+    /**
+     * The fileName variable represents the name of the file to upload. It is optional : its extension is only kept
+     * for the files whose image format is not recognized.
+     */
+    @JsonProperty("file_name")
+    private String fileName;
+}
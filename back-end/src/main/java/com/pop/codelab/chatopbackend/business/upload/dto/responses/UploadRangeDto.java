@@ -0,0 +1,26 @@
+package com.pop.codelab.chatopbackend.business.upload.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * The UploadRangeDto class represents the response DTO (Data Transfer Object) for a range of bytes of a resumable
+ * upload which has not been received yet.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class UploadRangeDto {
+
+    /**
+     * The offset variable represents the position of the first byte of the range in the file.
+     */
+    private long offset;
+
+    /**
+     * The length variable represents the number of bytes of the range.
+     */
+    private long length;
+}
@@ -0,0 +1,49 @@
+package com.pop.codelab.chatopbackend.business.upload.dto.responses;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * The UploadSessionDto class represents the response DTO (Data Transfer Object) for the progress of a resumable
+ * upload.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ * @see UploadRangeDto
+ */
+@Data
+@Builder
+public class UploadSessionDto {
+
+    /**
+     * The id variable represents the identifier of the upload, used in the URL of its chunks.
+     */
+    private String id;
+
+    /**
+     * The size variable represents the size of the file to upload, in bytes.
+     */
+    private long size;
+
+    /**
+     * The received variable represents the number of distinct bytes of the file received so far.
+     */
+    private long received;
+
+    /**
+     * The missingRanges variable represents the ranges of bytes of the file still to be sent, in the order of
+     * their offsets. The upload can be completed once it is empty.
+     */
+    @JsonProperty("missing_ranges")
+    private List<UploadRangeDto> missingRanges;
+
+    /**
+     * The expiresAt variable represents the time the upload is discarded at if no chunk is received meanwhile.
+     */
+    @JsonProperty("expires_at")
+    private Instant expiresAt;
+}
@@ -0,0 +1,75 @@
+package com.pop.codelab.chatopbackend.business.upload.service;
+
+import com.pop.codelab.chatopbackend.business.upload.dto.requests.UploadCompletionDto;
+import com.pop.codelab.chatopbackend.business.upload.dto.requests.UploadCreationDto;
+import com.pop.codelab.chatopbackend.business.upload.dto.responses.UploadSessionDto;
+import com.pop.codelab.chatopbackend.common.responses.MessageDto;
+import org.springframework.security.core.Authentication;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The UploadService interface provides methods for uploading the rental pictures chunk by chunk, so that an
+ * interrupted upload is resumed instead of being started over.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+public interface UploadService {
+
+    /**
+     * Opens a resumable upload owned by the authenticated user.
+     *
+     * @param uploadDto      The UploadCreationDto object holding the size of the file to upload.
+     * @param authentication The authentication object representing the user's credentials.
+     * @return The progress of the new upload, with nothing received yet.
+     * @throws IOException If the file of the upload cannot be created.
+     */
+    UploadSessionDto createUpload(UploadCreationDto uploadDto, Authentication authentication) throws IOException;
+
+    /**
+     * Retrieves the progress of an upload of the authenticated user.
+     *
+     * @param id             The identifier of the upload.
+     * @param authentication The authentication object representing the user's credentials.
+     * @return The progress of the upload.
+     */
+    UploadSessionDto getUpload(String id, Authentication authentication);
+
+    /**
+     * Writes a chunk of an upload of the authenticated user at its offset. The chunks may be sent in any order,
+     * concurrently, and sent again.
+     *
+     * @param id             The identifier of the upload.
+     * @param offset         The position of the first byte of the chunk in the file.
+     * @param content        The bytes of the chunk, read until their end but not closed.
+     * @param authentication The authentication object representing the user's credentials.
+     * @return The progress of the upload once the chunk has been written.
+     * @throws IOException If the chunk cannot be read or written.
+     */
+    UploadSessionDto writeChunk(String id, long offset, InputStream content, Authentication authentication)
+            throws IOException;
+
+    /**
+     * Completes an upload of the authenticated user whose bytes have all been received : the uploaded file is
+     * stored and becomes the picture of the given rental.
+     *
+     * @param id             The identifier of the upload.
+     * @param completionDto  The UploadCompletionDto object holding the ID of the rental.
+     * @param authentication The authentication object representing the user's credentials.
+     * @return A MessageDto object indicating that the picture of the rental has been updated.
+     * @throws IOException If the uploaded file cannot be stored.
+     */
+    MessageDto completeUpload(String id, UploadCompletionDto completionDto, Authentication authentication)
+            throws IOException;
+
+    /**
+     * Cancels an upload of the authenticated user, discarding the bytes received.
+     *
+     * @param id             The identifier of the upload.
+     * @param authentication The authentication object representing the user's credentials.
+     * @return A MessageDto object indicating that the upload has been cancelled.
+     */
+    MessageDto cancelUpload(String id, Authentication authentication);
+}
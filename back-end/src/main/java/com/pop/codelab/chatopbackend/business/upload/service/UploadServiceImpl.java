@@ -0,0 +1,407 @@
+package com.pop.codelab.chatopbackend.business.upload.service;
+
+import com.pop.codelab.chatopbackend.business.rental.dto.responses.OneRentalDto;
+import com.pop.codelab.chatopbackend.business.rental.service.RentalService;
+import com.pop.codelab.chatopbackend.business.upload.dto.requests.UploadCompletionDto;
+import com.pop.codelab.chatopbackend.business.upload.dto.requests.UploadCreationDto;
+import com.pop.codelab.chatopbackend.business.upload.dto.responses.UploadSessionDto;
+import com.pop.codelab.chatopbackend.business.user.entity.User;
+import com.pop.codelab.chatopbackend.common.responses.MessageDto;
+import com.pop.codelab.chatopbackend.exception.BadRequestException;
+import com.pop.codelab.chatopbackend.exception.PayloadTooLargeException;
+import com.pop.codelab.chatopbackend.exception.ResourceNotFoundException;
+import com.pop.codelab.chatopbackend.exception.ServiceUnavailableException;
+import com.pop.codelab.chatopbackend.services.ImageService;
+import com.pop.codelab.chatopbackend.services.ImageStorage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The UploadServiceImpl class implements the resumable uploads of the rental pictures.
+ * <p>
+ * An upload is opened for a file of a known size, whose chunks are then sent at their offset, in any order and
+ * possibly concurrently : each chunk is written straight to a hidden file of the staging directory by a positional
+ * FileChannel write, so that an interrupted chunk only has to be sent again from the last byte received. Once all
+ * its bytes are received, the file is hashed and put under its content key, without being copied on a local storage,
+ * and becomes the picture of a rental.</p>
+ * <p>
+ * The uploads in progress are held in memory : the files of the uploads idle for longer than their time to live
+ * are deleted by a background sweeper, and those left by a previous run at startup.</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ * @see UploadSession
+ */
+@Service
+@RequiredArgsConstructor
+@Log4j2
+public class UploadServiceImpl implements UploadService {
+
+    /**
+     * The prefix of the files of the uploads in progress, hidden from the image catalogue.
+     */
+    private static final String UPLOAD_FILE_PREFIX = ".upload-";
+
+    /**
+     * The suffix of the files of the uploads in progress.
+     */
+    private static final String UPLOAD_FILE_SUFFIX = ".part";
+
+    /**
+     * The size of the buffer the chunks are written through.
+     */
+    private static final int CHUNK_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The maximum size of an uploaded file, the same as for the multipart uploads.
+     * It is set using the value from the application property 'spring.servlet.multipart.max-file-size'.
+     */
+    @Value("${spring.servlet.multipart.max-file-size}")
+    private DataSize maxFileSize;
+
+    /**
+     * The time an upload is kept without receiving any chunk.
+     * It is set using the value from the application property 'application.images.uploads.session-ttl'.
+     */
+    @Value("${application.images.uploads.session-ttl}")
+    private Duration sessionTtl;
+
+    /**
+     * The maximum number of uploads in progress, each one holding an open file.
+     * It is set using the value from the application property 'application.images.uploads.max-sessions'.
+     */
+    @Value("${application.images.uploads.max-sessions}")
+    private int maxSessions;
+
+    /**
+     * The maximum number of uploads in progress of a user.
+     * It is set using the value from the application property 'application.images.uploads.max-sessions-per-user'.
+     */
+    @Value("${application.images.uploads.max-sessions-per-user}")
+    private int maxSessionsPerUser;
+
+    /**
+     * The imageService variable represents the service storing the uploaded images under their content key.
+     *
+     * @see ImageService
+     */
+    private final ImageService imageService;
+
+    /**
+     * The rentalService variable represents the service updating the picture of the rentals.
+     *
+     * @see RentalService
+     */
+    private final RentalService rentalService;
+
+    /**
+     * The imageStorage variable represents the storage backend of the images, in whose staging directory the
+     * uploads are written.
+     *
+     * @see ImageStorage
+     */
+    private final ImageStorage imageStorage;
+
+    /**
+     * The uploads in progress by their identifier.
+     */
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Deletes the files of the uploads left by a previous run of the application, which cannot be resumed.
+     *
+     * @throws IOException if the staging directory cannot be listed
+     */
+    @PostConstruct
+    public void deleteAbandonedUploads() throws IOException {
+        Path uploadPath = this.imageStorage.getStagingDirectory();
+        if (!Files.isDirectory(uploadPath)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(uploadPath,
+                UPLOAD_FILE_PREFIX + "*" + UPLOAD_FILE_SUFFIX)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+                log.debug("Abandoned upload {} deleted", file.getFileName());
+            }
+        }
+    }
+
+    /**
+     * Opens a resumable upload owned by the authenticated user, creating the file its chunks are written to.
+     *
+     * @param uploadDto      The UploadCreationDto object holding the size of the file to upload.
+     * @param authentication The authentication object representing the user's credentials.
+     * @return The progress of the new upload, with nothing received yet.
+     * @throws IOException                 If the file of the upload cannot be created.
+     * @throws BadRequestException         If the size is missing or invalid, or if the user has too many uploads
+     *                                     in progress.
+     * @throws PayloadTooLargeException    If the file is larger than the maximum file size.
+     * @throws ServiceUnavailableException If the maximum number of uploads in progress is reached.
+     */
+    public UploadSessionDto createUpload(final UploadCreationDto uploadDto, final Authentication authentication)
+            throws IOException {
+        if (uploadDto.getSize() == null || uploadDto.getSize() <= 0) {
+            throw new BadRequestException("The size of the file to upload is required");
+        }
+        if (uploadDto.getSize() > this.maxFileSize.toBytes()) {
+            throw new PayloadTooLargeException("The file exceeds " + this.maxFileSize.toBytes() + " bytes");
+        }
+        long ownerId = getAuthenticatedUserId(authentication);
+        if (this.sessions.values().stream().filter(session -> session.getOwnerId() == ownerId).count()
+                >= this.maxSessionsPerUser) {
+            throw new BadRequestException("At most " + this.maxSessionsPerUser + " uploads may be in progress");
+        }
+        if (this.sessions.size() >= this.maxSessions) {
+            throw new ServiceUnavailableException("Too many uploads are in progress, please retry later");
+        }
+        String id = UUID.randomUUID().toString();
+        Path path = this.imageStorage.getStagingDirectory().resolve(UPLOAD_FILE_PREFIX + id + UPLOAD_FILE_SUFFIX);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        UploadSession session = new UploadSession(id, ownerId, uploadDto.getSize(), uploadDto.getFileName(), path,
+                channel);
+        this.sessions.put(id, session);
+        log.debug("Upload {} of {} bytes opened by the user {}", id, session.getSize(), ownerId);
+        return this.toUploadSessionDto(session);
+    }
+
+    /**
+     * Retrieves the progress of an upload of the authenticated user.
+     *
+     * @param id             The identifier of the upload.
+     * @param authentication The authentication object representing the user's credentials.
+     * @return The progress of the upload.
+     * @throws ResourceNotFoundException If the user has no upload in progress with this identifier.
+     */
+    public UploadSessionDto getUpload(final String id, final Authentication authentication) {
+        return this.toUploadSessionDto(this.findSession(id, authentication));
+    }
+
+    /**
+     * Writes a chunk of an upload of the authenticated user at its offset, as it is read from the request.
+     * The bytes written are recorded even if the chunk is interrupted, so that only the rest has to be sent again.
+     *
+     * @param id             The identifier of the upload.
+     * @param offset         The position of the first byte of the chunk in the file.
+     * @param content        The bytes of the chunk, read until their end but not closed.
+     * @param authentication The authentication object representing the user's credentials.
+     * @return The progress of the upload once the chunk has been written.
+     * @throws IOException               If the chunk cannot be read or written.
+     * @throws ResourceNotFoundException If the user has no upload in progress with this identifier.
+     * @throws BadRequestException       If the chunk does not fit in the file.
+     */
+    public UploadSessionDto writeChunk(final String id, final long offset, final InputStream content,
+                                       final Authentication authentication) throws IOException {
+        UploadSession session = this.findSession(id, authentication);
+        if (offset < 0 || offset >= session.getSize()) {
+            throw new BadRequestException("The offset must be between 0 and " + (session.getSize() - 1));
+        }
+        if (!session.beginWrite()) {
+            throw uploadNotFound(id);
+        }
+        long position = offset;
+        try {
+            byte[] bytes = new byte[CHUNK_BUFFER_SIZE];
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            int read;
+            while ((read = content.read(bytes)) >= 0) {
+                if (position + read > session.getSize()) {
+                    throw new BadRequestException("The chunk ends beyond the " + session.getSize()
+                            + " bytes of the file");
+                }
+                buffer.clear().limit(read);
+                while (buffer.hasRemaining()) {
+                    position += session.getChannel().write(buffer, position);
+                }
+            }
+        } finally {
+            session.endWrite(offset, position);
+        }
+        log.debug("Upload {} - {} bytes written at {}", id, position - offset, offset);
+        return this.toUploadSessionDto(session);
+    }
+
+    /**
+     * Completes an upload of the authenticated user whose bytes have all been received : the uploaded file is
+     * moved under its content key and becomes the picture of the given rental, owned by the same user.
+     *
+     * @param id             The identifier of the upload.
+     * @param completionDto  The UploadCompletionDto object holding the ID of the rental.
+     * @param authentication The authentication object representing the user's credentials.
+     * @return A MessageDto object indicating that the picture of the rental has been updated.
+     * @throws IOException               If the uploaded file cannot be stored.
+     * @throws ResourceNotFoundException If the upload or the rental is not found.
+     * @throws BadRequestException       If the rental is missing or if bytes of the file have not been received.
+     * @throws HttpClientErrorException  If the authenticated user does not own the rental.
+     */
+    public MessageDto completeUpload(final String id, final UploadCompletionDto completionDto,
+                                     final Authentication authentication) throws IOException {
+        if (completionDto.getRentalId() == null) {
+            throw new BadRequestException("The rental the uploaded picture is attached to is required");
+        }
+        UploadSession session = this.findSession(id, authentication);
+        // The rental is checked first, so that no image is stored for a rental which cannot be updated
+        OneRentalDto rental = this.rentalService.getRentalById(completionDto.getRentalId());
+        if (!Objects.equals(rental.getOwnerId(), session.getOwnerId())) {
+            throw new HttpClientErrorException(HttpStatus.UNAUTHORIZED);
+        }
+        session.closeToComplete();
+        this.sessions.remove(id, session);
+        String picture;
+        try {
+            session.getChannel().close();
+            picture = this.imageService.saveImageToStorage(session.getPath(), session.getFileName());
+        } finally {
+            Files.deleteIfExists(session.getPath());
+        }
+        log.debug("Upload {} completed as {}", id, picture);
+        return this.rentalService.updateRentalPicture(completionDto.getRentalId(), picture, authentication);
+    }
+
+    /**
+     * Cancels an upload of the authenticated user, deleting its file.
+     *
+     * @param id             The identifier of the upload.
+     * @param authentication The authentication object representing the user's credentials.
+     * @return A MessageDto object indicating that the upload has been cancelled.
+     * @throws ResourceNotFoundException If the user has no upload in progress with this identifier.
+     * @throws BadRequestException       If chunks of the upload are being written.
+     */
+    public MessageDto cancelUpload(final String id, final Authentication authentication) {
+        UploadSession session = this.findSession(id, authentication);
+        session.closeToCancel();
+        this.sessions.remove(id, session);
+        this.discard(session);
+        log.debug("Upload {} cancelled", id);
+        return MessageDto.builder()
+                .message("Upload cancelled")
+                .build();
+    }
+
+    /**
+     * Discards the uploads which have not received any chunk for longer than their time to live.
+     * The sweep is run at the interval set by the application property 'application.images.uploads.sweep-interval'.
+     */
+    @Scheduled(fixedDelayString = "${application.images.uploads.sweep-interval}",
+            initialDelayString = "${application.images.uploads.sweep-interval}")
+    public void discardExpiredUploads() {
+        Instant deadline = Instant.now().minus(this.sessionTtl);
+        int discarded = 0;
+        for (UploadSession session : this.sessions.values()) {
+            if (session.closeIfExpired(deadline)) {
+                this.sessions.remove(session.getId(), session);
+                this.discard(session);
+                discarded++;
+            }
+        }
+        if (discarded > 0) {
+            log.info("{} expired upload(s) discarded, {} in progress", discarded, this.sessions.size());
+        }
+    }
+
+    /**
+     * Closes the files of the uploads in progress when the application stops. The files are deleted at the next
+     * startup.
+     */
+    @PreDestroy
+    public void closeUploads() {
+        this.sessions.values().forEach(session -> {
+            try {
+                session.getChannel().close();
+            } catch (IOException e) {
+                log.warn("The file of the upload {} cannot be closed.", session.getId(), e);
+            }
+        });
+    }
+
+    /**
+     * Finds an upload in progress of the authenticated user.
+     *
+     * @param id             The identifier of the upload.
+     * @param authentication The authentication object representing the user's credentials.
+     * @return The upload.
+     * @throws ResourceNotFoundException If the user has no upload in progress with this identifier.
+     */
+    private UploadSession findSession(final String id, final Authentication authentication) {
+        UploadSession session = this.sessions.get(id);
+        // The uploads of the other users are not disclosed
+        if (session == null || session.getOwnerId() != getAuthenticatedUserId(authentication)) {
+            throw uploadNotFound(id);
+        }
+        return session;
+    }
+
+    /**
+     * Closes and deletes the file of a closed upload.
+     *
+     * @param session the upload
+     */
+    private void discard(final UploadSession session) {
+        try {
+            session.getChannel().close();
+            Files.deleteIfExists(session.getPath());
+        } catch (IOException e) {
+            log.warn("The file of the upload {} cannot be deleted.", session.getId(), e);
+        }
+    }
+
+    /**
+     * Builds the progress of an upload.
+     *
+     * @param session the upload
+     * @return the UploadSessionDto of the upload
+     */
+    private UploadSessionDto toUploadSessionDto(final UploadSession session) {
+        return UploadSessionDto.builder()
+                .id(session.getId())
+                .size(session.getSize())
+                .received(session.getReceived())
+                .missingRanges(session.getMissingRanges())
+                .expiresAt(session.getLastActivity().plus(this.sessionTtl))
+                .build();
+    }
+
+    /**
+     * Builds the exception thrown when an upload is not found.
+     *
+     * @param id the identifier of the upload
+     * @return the ResourceNotFoundException
+     */
+    private static ResourceNotFoundException uploadNotFound(final String id) {
+        return new ResourceNotFoundException("No upload found with Id : " + id);
+    }
+
+    /**
+     * Retrieves the authenticated user ID from the given Authentication object.
+     *
+     * @param authentication the Authentication object representing the authenticated user
+     * @return the ID of the authenticated user
+     */
+    private static long getAuthenticatedUserId(final Authentication authentication) {
+        return ((User) authentication.getPrincipal()).getId();
+    }
+}
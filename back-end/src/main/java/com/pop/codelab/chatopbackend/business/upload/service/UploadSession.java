@@ -0,0 +1,258 @@
+package com.pop.codelab.chatopbackend.business.upload.service;
+
+import com.pop.codelab.chatopbackend.business.upload.dto.responses.UploadRangeDto;
+import com.pop.codelab.chatopbackend.exception.BadRequestException;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The UploadSession class represents a resumable upload in progress : the file its chunks are written to, at their
+ * offset, and the ranges of bytes received so far.
+ * <p>
+ * The chunks may be written concurrently : the positional writes of a FileChannel do not share any position, and
+ * the ranges received are recorded under the lock of the session once each chunk has been written.</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@Getter
+final class UploadSession {
+
+    /**
+     * The id variable represents the identifier of the upload.
+     */
+    private final String id;
+
+    /**
+     * The ownerId variable represents the ID of the user who opened the upload.
+     */
+    private final long ownerId;
+
+    /**
+     * The size variable represents the size of the file to upload, in bytes.
+     */
+    private final long size;
+
+    /**
+     * The fileName variable represents the name of the file to upload, or null if unknown.
+     */
+    private final String fileName;
+
+    /**
+     * The path variable represents the file of the staging directory the chunks are written to.
+     */
+    private final Path path;
+
+    /**
+     * The channel variable represents the channel the chunks are written through, at their offset.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The ranges of bytes received, disjoint and not adjacent : the end (exclusive) of each range by its start.
+     */
+    @Getter(AccessLevel.NONE)
+    private final TreeMap<Long, Long> receivedRanges = new TreeMap<>();
+
+    /**
+     * The number of distinct bytes received.
+     */
+    private long received;
+
+    /**
+     * The number of chunks being written.
+     */
+    @Getter(AccessLevel.NONE)
+    private int activeWrites;
+
+    /**
+     * True once the upload has been completed, cancelled or expired : no chunk can be written anymore.
+     */
+    @Getter(AccessLevel.NONE)
+    private boolean closed;
+
+    /**
+     * The time of the last activity of the upload, its expiry being computed from it.
+     */
+    private Instant lastActivity;
+
+    /**
+     * Constructs an upload session.
+     *
+     * @param id       the identifier of the upload
+     * @param ownerId  the ID of the user who opened the upload
+     * @param size     the size of the file to upload, in bytes
+     * @param fileName the name of the file to upload, or null if unknown
+     * @param path     the file the chunks are written to
+     * @param channel  the channel the chunks are written through
+     */
+    UploadSession(final String id, final long ownerId, final long size, final String fileName, final Path path,
+                  final FileChannel channel) {
+        this.id = id;
+        this.ownerId = ownerId;
+        this.size = size;
+        this.fileName = fileName;
+        this.path = path;
+        this.channel = channel;
+        this.lastActivity = Instant.now();
+    }
+
+    /**
+     * Starts the writing of a chunk.
+     *
+     * @return false if the upload is closed, in which case the chunk must not be written
+     */
+    synchronized boolean beginWrite() {
+        if (this.closed) {
+            return false;
+        }
+        this.activeWrites++;
+        this.lastActivity = Instant.now();
+        return true;
+    }
+
+    /**
+     * Ends the writing of a chunk, recording the range of bytes written, which may be shorter than the chunk if
+     * its writing has failed.
+     *
+     * @param start the offset of the first byte written
+     * @param end   the offset following the last byte written
+     */
+    synchronized void endWrite(final long start, final long end) {
+        this.addReceivedRange(start, end);
+        this.activeWrites--;
+        this.lastActivity = Instant.now();
+    }
+
+    /**
+     * Closes the upload to complete it : all its bytes must have been received and no chunk may be being written.
+     *
+     * @throws BadRequestException if the upload cannot be completed yet
+     */
+    synchronized void closeToComplete() {
+        this.checkNoActiveWrite();
+        if (this.received < this.size) {
+            throw new BadRequestException("The upload is incomplete : " + this.received + " of " + this.size
+                    + " bytes received");
+        }
+        this.closed = true;
+    }
+
+    /**
+     * Closes the upload to cancel it : no chunk may be being written.
+     *
+     * @throws BadRequestException if chunks are being written
+     */
+    synchronized void closeToCancel() {
+        this.checkNoActiveWrite();
+        this.closed = true;
+    }
+
+    /**
+     * Closes the upload if it is idle since the given deadline.
+     *
+     * @param deadline the time before which the last activity of an expired upload occurred
+     * @return true if the upload has expired and is now closed
+     */
+    synchronized boolean closeIfExpired(final Instant deadline) {
+        if (this.closed || this.activeWrites > 0 || !this.lastActivity.isBefore(deadline)) {
+            return false;
+        }
+        this.closed = true;
+        return true;
+    }
+
+    /**
+     * Returns the number of distinct bytes received.
+     *
+     * @return the number of bytes received
+     */
+    synchronized long getReceived() {
+        return this.received;
+    }
+
+    /**
+     * Returns the time of the last activity of the upload.
+     *
+     * @return the time of the last chunk received, or of the creation of the upload
+     */
+    synchronized Instant getLastActivity() {
+        return this.lastActivity;
+    }
+
+    /**
+     * Returns the ranges of bytes not received yet.
+     *
+     * @return the missing ranges, in the order of their offsets
+     */
+    synchronized List<UploadRangeDto> getMissingRanges() {
+        List<UploadRangeDto> missingRanges = new ArrayList<>();
+        long position = 0;
+        for (Map.Entry<Long, Long> range : this.receivedRanges.entrySet()) {
+            if (range.getKey() > position) {
+                missingRanges.add(new UploadRangeDto(position, range.getKey() - position));
+            }
+            position = range.getValue();
+        }
+        if (position < this.size) {
+            missingRanges.add(new UploadRangeDto(position, this.size - position));
+        }
+        return missingRanges;
+    }
+
+    /**
+     * Records a range of bytes received, merged with the ranges it overlaps or touches.
+     *
+     * @param start the offset of the first byte of the range
+     * @param end   the offset following the last byte of the range
+     */
+    private void addReceivedRange(final long start, final long end) {
+        if (start >= end) {
+            return;
+        }
+        long mergedStart = start;
+        long mergedEnd = end;
+        Map.Entry<Long, Long> previous = this.receivedRanges.floorEntry(start);
+        if (previous != null && previous.getValue() >= start) {
+            mergedStart = previous.getKey();
+            mergedEnd = Math.max(mergedEnd, previous.getValue());
+            this.removeReceivedRange(previous);
+        }
+        Map.Entry<Long, Long> next;
+        while ((next = this.receivedRanges.ceilingEntry(mergedStart)) != null && next.getKey() <= mergedEnd) {
+            mergedEnd = Math.max(mergedEnd, next.getValue());
+            this.removeReceivedRange(next);
+        }
+        this.receivedRanges.put(mergedStart, mergedEnd);
+        this.received += mergedEnd - mergedStart;
+    }
+
+    /**
+     * Removes a range of bytes received, before it is merged into a larger one.
+     *
+     * @param range the range to remove
+     */
+    private void removeReceivedRange(final Map.Entry<Long, Long> range) {
+        this.receivedRanges.remove(range.getKey());
+        this.received -= range.getValue() - range.getKey();
+    }
+
+    /**
+     * Checks that no chunk is being written.
+     *
+     * @throws BadRequestException if chunks are being written
+     */
+    private void checkNoActiveWrite() {
+        if (this.activeWrites > 0) {
+            throw new BadRequestException("Chunks of the upload are still being written");
+        }
+    }
+}
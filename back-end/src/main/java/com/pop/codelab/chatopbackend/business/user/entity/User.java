@@ -40,5 +40,12 @@ public class User extends BaseEntity {
     @Column(nullable = false, length = 64)
     private String password;
 
+    /**
+     * The tokenVersion variable represents the version of the tokens of a user, carried by its self-contained
+     * tokens : incrementing it invalidates all the self-contained tokens issued to the user before.
+     */
+    @Column(nullable = false, name = "token_version", columnDefinition = "INT NOT NULL DEFAULT 0")
+    private int tokenVersion;
+
 
 }
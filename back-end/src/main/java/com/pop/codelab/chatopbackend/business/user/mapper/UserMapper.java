@@ -0,0 +1,41 @@
+package com.pop.codelab.chatopbackend.business.user.mapper;
+
+import com.pop.codelab.chatopbackend.auth.dto.requests.RegisterDto;
+import com.pop.codelab.chatopbackend.auth.dto.responses.UserDto;
+import com.pop.codelab.chatopbackend.business.user.entity.User;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingConstants;
+import org.mapstruct.ReportingPolicy;
+
+/**
+ * The UserMapper interface maps the User entity to the user DTOs and vice versa.
+ * <p>
+ * Its implementation is generated by MapStruct at compile time, with no reflection at runtime.</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ * @see User
+ */
+@Mapper(componentModel = MappingConstants.ComponentModel.SPRING, unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface UserMapper {
+
+    /**
+     * Maps a User entity to a UserDto.
+     *
+     * @param user the User entity to map
+     * @return the UserDto of the user
+     */
+    UserDto toUserDto(User user);
+
+    /**
+     * Maps a RegisterDto to a new User entity.
+     * The password is not mapped : it must be encoded by the caller. The token version of a new user is 0.
+     *
+     * @param registerDto the RegisterDto to map
+     * @return the new User entity
+     */
+    @Mapping(target = "password", ignore = true)
+    @Mapping(target = "tokenVersion", ignore = true)
+    User toUser(RegisterDto registerDto);
+}
@@ -1,7 +1,13 @@
 package com.pop.codelab.chatopbackend.business.user.repository;
 
 import com.pop.codelab.chatopbackend.business.user.entity.User;
+import com.pop.codelab.chatopbackend.configuration.CacheConfiguration;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -13,9 +19,12 @@ import java.util.Optional;
  * the primary key (Long).
  * The interface also includes a custom method findByEmail to find a User entity
  * by its email address.
+ * <p>
+ * The users authenticated by their token are cached by ID in the {@link CacheConfiguration#USERS_CACHE} cache,
+ * whose entries are invalidated when a user is saved or deleted.</p>
  *
  * @author Pignon Pierre-Olivier
- * @version 1.0
+ * @version 2.0
  */
 public interface UserRepository extends JpaRepository<User, Long> {
 
@@ -27,5 +36,40 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     Optional<User> findByEmail(String email);
 
+    /**
+     * Finds the user authenticated by a token, by ID.
+     * <p>
+     * The users are cached by ID in the {@link CacheConfiguration#USERS_CACHE} cache : the authenticated requests
+     * of a user do not run any query as long as the user is cached. Unknown users are not cached. The cached users
+     * are shared, so they must not be modified by the callers.</p>
+     *
+     * @param id The ID of the user to find.
+     * @return An Optional object containing the User if found, or an empty Optional if not found.
+     */
+    @Cacheable(cacheNames = CacheConfiguration.USERS_CACHE, key = "#p0", unless = "#result == null")
+    @Transactional(readOnly = true)
+    @Query("select u from User u where u.id = :id")
+    Optional<User> findPrincipalById(@Param("id") Long id);
+
+    /**
+     * Saves a user, and invalidates its cached entry so that the next authenticated request loads it again.
+     *
+     * @param user The user to save.
+     * @param <S>  The type of the user.
+     * @return The saved user.
+     */
+    @Override
+    @CacheEvict(cacheNames = CacheConfiguration.USERS_CACHE, key = "#result.id")
+    <S extends User> S save(S user);
+
+    /**
+     * Deletes a user by ID, and invalidates its cached entry.
+     *
+     * @param id The ID of the user to delete.
+     */
+    @Override
+    @CacheEvict(cacheNames = CacheConfiguration.USERS_CACHE, key = "#p0")
+    void deleteById(Long id);
+
 
 }
@@ -3,10 +3,10 @@ package com.pop.codelab.chatopbackend.business.user.service;
 import com.pop.codelab.chatopbackend.auth.dto.responses.UserDto;
 import com.pop.codelab.chatopbackend.business.user.repository.UserRepository;
 import com.pop.codelab.chatopbackend.business.user.entity.User;
+import com.pop.codelab.chatopbackend.business.user.mapper.UserMapper;
 import com.pop.codelab.chatopbackend.exception.ResourceNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
-import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Service;
 
 /**
@@ -32,10 +32,11 @@ public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
 
     /**
-     * The ModelMapper variable represents an instance of the ModelMapper class used for mapping objects between different classes.
+     * The userMapper variable represents the mapper, generated at compile time, used to map the User entity
+     * to the user DTOs.
      * It is a private final variable, indicating that it cannot be changed once initialized.
      */
-    private final ModelMapper modelMapper;
+    private final UserMapper userMapper;
 
     /**
      * Finds a user by their ID.
@@ -48,6 +49,6 @@ public class UserServiceImpl implements UserService {
     public UserDto findUserById(final Long id) {
         User user = userRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("No user found with Id : " + id));
         log.debug("User id : {} - name : {} has been found.", user.getId(), user.getName());
-        return this.modelMapper.map(user, UserDto.class);
+        return this.userMapper.toUserDto(user);
     }
 }
@@ -15,7 +15,7 @@ import java.time.LocalDate;
  * but can be used as a superclass for other entities.
  *
  * @author Pignon Pierre-Olivier
- * @version 1.0
+ * @version 2.0
  */
 @MappedSuperclass
 @Data
@@ -24,10 +24,14 @@ public abstract class BaseEntity {
     /**
      * The `id` variable is a unique identifier for an entity in the system.
      * It is annotated with @Id, indicating that it represents the primary key of the entity.
+     * <p>
+     * The IDs are allocated by blocks from a sequence per entity table (the {@code <table>_seq} tables on MySQL), so that
+     * Hibernate knows the ID of an entity before inserting it and can batch the inserts, which an IDENTITY column
+     * prevents.</p>
      */
     @Id
     @Column(unique = true, nullable = false)
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
     private Long id;
 
     /**
@@ -0,0 +1,82 @@
+package com.pop.codelab.chatopbackend.common.multipart;
+
+import com.pop.codelab.chatopbackend.exception.PayloadTooLargeException;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The MultipartPart class represents a part of a multipart/form-data body read by a {@link MultipartStreamReader}.
+ * <p>
+ * The content of the part is not buffered : it is read straight from the request body through its input stream,
+ * which must be consumed before moving to the next part.</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@Getter
+public final class MultipartPart {
+
+    /**
+     * The name variable represents the name of the form field held by the part.
+     */
+    private final String name;
+
+    /**
+     * The fileName variable represents the name of the uploaded file, or null if the part holds a plain field.
+     */
+    private final String fileName;
+
+    /**
+     * The contentType variable represents the content type of the part, or null if it is not given.
+     */
+    private final String contentType;
+
+    /**
+     * The inputStream variable represents the content of the part, which ends at the next boundary.
+     */
+    private final InputStream inputStream;
+
+    /**
+     * Constructs a part.
+     *
+     * @param name        the name of the form field
+     * @param fileName    the name of the uploaded file, or null for a plain field
+     * @param contentType the content type of the part, or null
+     * @param inputStream the content of the part
+     */
+    MultipartPart(final String name, final String fileName, final String contentType,
+                  final InputStream inputStream) {
+        this.name = name;
+        this.fileName = fileName;
+        this.contentType = contentType;
+        this.inputStream = inputStream;
+    }
+
+    /**
+     * Tells whether the part holds an uploaded file.
+     *
+     * @return true if the part holds a file, false if it holds a plain field
+     */
+    public boolean isFile() {
+        return this.fileName != null;
+    }
+
+    /**
+     * Reads the content of a plain field as an UTF-8 string.
+     *
+     * @param maxLength the maximum number of bytes of the field
+     * @return the value of the field
+     * @throws IOException              if the request body cannot be read
+     * @throws PayloadTooLargeException if the field is longer than the given maximum
+     */
+    public String readValue(final int maxLength) throws IOException {
+        byte[] bytes = this.inputStream.readNBytes(maxLength + 1);
+        if (bytes.length > maxLength) {
+            throw new PayloadTooLargeException("The field " + this.name + " exceeds " + maxLength + " bytes");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,350 @@
+package com.pop.codelab.chatopbackend.common.multipart;
+
+import com.pop.codelab.chatopbackend.exception.BadRequestException;
+import com.pop.codelab.chatopbackend.exception.PayloadTooLargeException;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * The MultipartStreamReader class reads a multipart/form-data body (RFC 7578) part by part, in a single pass.
+ * <p>
+ * Unlike the multipart support of the servlet container, which spools every file to a temporary file before the
+ * controller is called, the parts are read straight from the request body : a file can be written to its final
+ * location while it is received. Only a small buffer is held in memory, whatever the size of the parts.</p>
+ * <p>
+ * The limits are enforced as the body is read, so that an oversized upload is rejected as soon as the limit is
+ * crossed rather than once received : a {@link PayloadTooLargeException} is thrown when a part, or the whole body,
+ * is too large, and a {@link BadRequestException} when the body is malformed.</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ * @see MultipartPart
+ */
+public final class MultipartStreamReader {
+
+    /**
+     * The size of the read buffer.
+     */
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    /**
+     * The maximum size of the headers of a part.
+     */
+    private static final int MAX_HEADERS_SIZE = 8 * 1024;
+
+    /**
+     * The maximum number of parts of a body.
+     */
+    private static final int MAX_PARTS = 64;
+
+    /**
+     * The request body.
+     */
+    private final InputStream input;
+
+    /**
+     * The delimiter of the parts : a line break followed by two dashes and the boundary.
+     */
+    private final byte[] delimiter;
+
+    /**
+     * The maximum size of the content of a part.
+     */
+    private final long maxPartSize;
+
+    /**
+     * The maximum size of the whole body.
+     */
+    private final long maxBodySize;
+
+    /**
+     * The read buffer, whose bytes from head to tail have been read from the body but not consumed yet.
+     */
+    private final byte[] buffer;
+
+    /**
+     * The position of the first byte not consumed in the buffer.
+     */
+    private int head;
+
+    /**
+     * The position following the last byte read in the buffer.
+     */
+    private int tail;
+
+    /**
+     * The number of bytes read from the body.
+     */
+    private long bodySize;
+
+    /**
+     * The number of parts read.
+     */
+    private int parts;
+
+    /**
+     * The content of the current part, or of the preamble before the first part is read.
+     */
+    private PartInputStream current;
+
+    /**
+     * True once the closing delimiter has been read.
+     */
+    private boolean finished;
+
+    /**
+     * Constructs a reader of a multipart/form-data body.
+     *
+     * @param input       the request body
+     * @param contentType the content type of the request, holding the boundary of the parts
+     * @param maxPartSize the maximum size of the content of a part
+     * @param maxBodySize the maximum size of the whole body
+     * @throws BadRequestException if the content type is not multipart/form-data or has no boundary
+     */
+    public MultipartStreamReader(final InputStream input, final MediaType contentType, final long maxPartSize,
+                                 final long maxBodySize) {
+        String boundary = contentType.getParameter("boundary");
+        if (!MediaType.MULTIPART_FORM_DATA.includes(contentType) || boundary == null || boundary.isEmpty()
+                || boundary.length() > 70) {
+            throw new BadRequestException("A multipart/form-data body with a boundary is expected");
+        }
+        if (boundary.startsWith("\"") && boundary.endsWith("\"") && boundary.length() > 1) {
+            boundary = boundary.substring(1, boundary.length() - 1);
+        }
+        this.input = input;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        this.maxPartSize = maxPartSize;
+        this.maxBodySize = maxBodySize;
+        this.buffer = new byte[BUFFER_SIZE];
+        // The first delimiter is not preceded by a line break : it is found as if it were
+        this.buffer[0] = '\r';
+        this.buffer[1] = '\n';
+        this.tail = 2;
+        this.bodySize = -2;
+        this.current = new PartInputStream(Long.MAX_VALUE);
+    }
+
+    /**
+     * Moves to the next part of the body. The rest of the current part, if any, is skipped.
+     *
+     * @return the next part, or an empty Optional once the last part has been read
+     * @throws IOException         if the body cannot be read
+     * @throws BadRequestException if the body is malformed
+     */
+    public Optional<MultipartPart> nextPart() throws IOException {
+        if (this.finished) {
+            return Optional.empty();
+        }
+        this.current.skipToEnd();
+        // The delimiter is followed either by two dashes closing the body, or by a line break and the part headers
+        ensure(2);
+        if (this.buffer[this.head] == '-' && this.buffer[this.head + 1] == '-') {
+            this.finished = true;
+            return Optional.empty();
+        }
+        readLine(MAX_HEADERS_SIZE);
+        if (++this.parts > MAX_PARTS) {
+            throw new BadRequestException("A multipart body holds " + MAX_PARTS + " parts at most");
+        }
+        HttpHeaders headers = new HttpHeaders();
+        int headersSize = 0;
+        String line;
+        while (!(line = readLine(MAX_HEADERS_SIZE - headersSize)).isEmpty()) {
+            headersSize += line.length() + 2;
+            int colon = line.indexOf(':');
+            if (colon <= 0) {
+                throw new BadRequestException("Malformed multipart header : " + line);
+            }
+            headers.add(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+        }
+        String disposition = headers.getFirst(HttpHeaders.CONTENT_DISPOSITION);
+        if (disposition == null || !disposition.toLowerCase(Locale.ROOT).startsWith("form-data")) {
+            throw new BadRequestException("A multipart part without a form-data Content-Disposition header");
+        }
+        ContentDisposition contentDisposition;
+        try {
+            contentDisposition = ContentDisposition.parse(disposition);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Malformed multipart Content-Disposition header : " + disposition);
+        }
+        if (contentDisposition.getName() == null) {
+            throw new BadRequestException("A multipart part without a name");
+        }
+        this.current = new PartInputStream(this.maxPartSize);
+        return Optional.of(new MultipartPart(contentDisposition.getName(), contentDisposition.getFilename(),
+                headers.getFirst(HttpHeaders.CONTENT_TYPE), this.current));
+    }
+
+    /**
+     * Reads a line of the part headers, ended by a line break.
+     *
+     * @param maxLength the maximum length of the line
+     * @return the line, without its line break
+     * @throws IOException         if the body cannot be read
+     * @throws BadRequestException if the body ends or the line exceeds the maximum length before the line break
+     */
+    private String readLine(final int maxLength) throws IOException {
+        int length = 0;
+        while (true) {
+            ensure(length + 2);
+            if (this.buffer[this.head + length] == '\r' && this.buffer[this.head + length + 1] == '\n') {
+                String line = new String(this.buffer, this.head, length, StandardCharsets.UTF_8);
+                this.head += length + 2;
+                return line;
+            }
+            if (++length > maxLength) {
+                throw new BadRequestException("The headers of a multipart part are too large");
+            }
+        }
+    }
+
+    /**
+     * Ensures that the given number of bytes is available in the buffer, reading the body if needed.
+     *
+     * @param count the number of bytes needed, at most the size of the buffer
+     * @throws IOException         if the body cannot be read
+     * @throws BadRequestException if the body ends before
+     */
+    private void ensure(final int count) throws IOException {
+        while (this.tail - this.head < count) {
+            if (!fill()) {
+                throw new BadRequestException("Unexpected end of the multipart body");
+            }
+        }
+    }
+
+    /**
+     * Reads more bytes of the body into the buffer, after moving the bytes not consumed to its start.
+     *
+     * @return false if the end of the body has been reached
+     * @throws IOException              if the body cannot be read
+     * @throws PayloadTooLargeException if the body exceeds its maximum size
+     */
+    private boolean fill() throws IOException {
+        if (this.head > 0) {
+            System.arraycopy(this.buffer, this.head, this.buffer, 0, this.tail - this.head);
+            this.tail -= this.head;
+            this.head = 0;
+        }
+        int read = this.input.read(this.buffer, this.tail, this.buffer.length - this.tail);
+        if (read < 0) {
+            return false;
+        }
+        this.tail += read;
+        this.bodySize += read;
+        if (this.bodySize > this.maxBodySize) {
+            throw new PayloadTooLargeException("The request exceeds " + this.maxBodySize + " bytes");
+        }
+        return true;
+    }
+
+    /**
+     * Finds the delimiter in the buffer.
+     *
+     * @return the position of the delimiter, or -1 if the buffer does not hold it entirely
+     */
+    private int indexOfDelimiter() {
+        byte first = this.delimiter[0];
+        int last = this.tail - this.delimiter.length;
+        for (int position = this.head; position <= last; position++) {
+            if (this.buffer[position] == first && Arrays.equals(this.buffer, position,
+                    position + this.delimiter.length, this.delimiter, 0, this.delimiter.length)) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The PartInputStream class reads the content of a part, up to the next delimiter, which it consumes.
+     */
+    private final class PartInputStream extends InputStream {
+
+        /**
+         * The maximum size of the content of the part.
+         */
+        private final long maxSize;
+
+        /**
+         * The number of bytes of the part read so far.
+         */
+        private long size;
+
+        /**
+         * True once the delimiter ending the part has been consumed.
+         */
+        private boolean ended;
+
+        /**
+         * Constructs the input stream of a part.
+         *
+         * @param maxSize the maximum size of the content of the part
+         */
+        private PartInputStream(final long maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+            if (this.ended) {
+                return -1;
+            }
+            if (length == 0) {
+                return 0;
+            }
+            while (true) {
+                int delimiterIndex = indexOfDelimiter();
+                int available;
+                if (delimiterIndex == head) {
+                    head += delimiter.length;
+                    this.ended = true;
+                    return -1;
+                } else if (delimiterIndex >= 0) {
+                    available = delimiterIndex - head;
+                } else {
+                    // The end of the buffer may hold the beginning of the delimiter : it is kept for the next fill
+                    available = tail - head - (delimiter.length - 1);
+                }
+                if (available > 0) {
+                    int count = Math.min(length, available);
+                    System.arraycopy(buffer, head, bytes, offset, count);
+                    head += count;
+                    this.size += count;
+                    if (this.size > this.maxSize) {
+                        throw new PayloadTooLargeException("A multipart part exceeds " + this.maxSize + " bytes");
+                    }
+                    return count;
+                }
+                if (!fill()) {
+                    throw new BadRequestException("Unexpected end of the multipart body");
+                }
+            }
+        }
+
+        /**
+         * Skips the rest of the part, up to and including its delimiter.
+         *
+         * @throws IOException if the body cannot be read
+         */
+        private void skipToEnd() throws IOException {
+            byte[] skipped = new byte[BUFFER_SIZE];
+            while (read(skipped, 0, skipped.length) >= 0) {
+                // Skips the content of the part
+            }
+        }
+    }
+}
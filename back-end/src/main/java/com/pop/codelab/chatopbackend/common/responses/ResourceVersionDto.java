@@ -0,0 +1,34 @@
+package com.pop.codelab.chatopbackend.common.responses;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * A data transfer object class representing the version of a resource, used to answer conditional requests
+ * (If-None-Match and If-Modified-Since headers) without building the resource itself.
+ */
+@Data
+@Builder
+public class ResourceVersionDto {
+
+    /**
+     * Represents the strong entity tag of the resource, quotes included.
+     */
+    private String eTag;
+
+    /**
+     * Represents the instant when the resource was last modified.
+     */
+    private Instant lastModified;
+
+    /**
+     * Returns the Last-Modified date of the resource in milliseconds since the epoch, or -1 if it is unknown.
+     *
+     * @return the Last-Modified date of the resource in milliseconds since the epoch
+     */
+    public long getLastModifiedMillis() {
+        return lastModified == null ? -1 : lastModified.toEpochMilli();
+    }
+}
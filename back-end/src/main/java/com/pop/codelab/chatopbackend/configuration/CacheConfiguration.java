@@ -0,0 +1,82 @@
+package com.pop.codelab.chatopbackend.configuration;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Configuration class for the in-process caches of the application.
+ * <p>
+ * The caches are Caffeine caches : they are bounded in size (W-TinyLFU eviction), their entries expire after
+ * a time to live, and they record their statistics. Their hit, miss and eviction counts are exposed by the
+ * actuator through the {@code cache.gets}, {@code cache.puts} and {@code cache.evictions} metrics, and they are
+ * listed by the {@code caches} endpoint.</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@Configuration
+@EnableCaching
+public class CacheConfiguration {
+
+    /**
+     * The name of the cache holding the rentals, as OneRentalDto objects, by rental ID.
+     */
+    public static final String RENTALS_CACHE = "rentals";
+
+    /**
+     * The name of the cache holding the users authenticated by their token, as User entities, by user ID.
+     */
+    public static final String USERS_CACHE = "users";
+
+    /**
+     * The maximum number of rentals held by the rentals cache.
+     */
+    @Value("${application.cache.rentals.maximum-size}")
+    private long rentalsMaximumSize;
+
+    /**
+     * The time to live of the entries of the rentals cache.
+     */
+    @Value("${application.cache.rentals.time-to-live}")
+    private Duration rentalsTimeToLive;
+
+    /**
+     * The maximum number of users held by the users cache.
+     */
+    @Value("${application.cache.users.maximum-size}")
+    private long usersMaximumSize;
+
+    /**
+     * The time to live of the entries of the users cache.
+     */
+    @Value("${application.cache.users.time-to-live}")
+    private Duration usersTimeToLive;
+
+    /**
+     * Registers the caches of the application, each one with its own size bound and time to live.
+     *
+     * @return the CacheManagerCustomizer registering the caches into the CaffeineCacheManager
+     */
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> cacheManagerCustomizer() {
+        return cacheManager -> {
+            cacheManager.registerCustomCache(RENTALS_CACHE, Caffeine.newBuilder()
+                    .maximumSize(rentalsMaximumSize)
+                    .expireAfterWrite(rentalsTimeToLive)
+                    .recordStats()
+                    .build());
+            cacheManager.registerCustomCache(USERS_CACHE, Caffeine.newBuilder()
+                    .maximumSize(usersMaximumSize)
+                    .expireAfterWrite(usersTimeToLive)
+                    .recordStats()
+                    .build());
+        };
+    }
+}
@@ -0,0 +1,156 @@
+package com.pop.codelab.chatopbackend.configuration;
+
+import com.pop.codelab.chatopbackend.services.ImageService;
+import com.pop.codelab.chatopbackend.services.ImageStorage;
+import com.pop.codelab.chatopbackend.services.ImageStorageAttributes;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.web.servlet.resource.AbstractResourceResolver;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.NoSuchFileException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The ImageStorageResourceResolver class resolves the static image resources from the image storage, before the
+ * images bundled with the application.
+ * <p>
+ * Only the images of the image catalogue are resolved, so that no path leads out of the storage : the images
+ * stored on a local file system are resolved as files, the images of a remote storage as resources streamed from
+ * it. The other paths are resolved by the next resolvers of the chain.</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@RequiredArgsConstructor
+public class ImageStorageResourceResolver extends AbstractResourceResolver {
+
+    /**
+     * The image service, which resolves the file name of the stored images from their path.
+     */
+    private final ImageService imageService;
+
+    /**
+     * The storage backend the images are read from.
+     */
+    private final ImageStorage imageStorage;
+
+    @Override
+    protected Resource resolveResourceInternal(@Nullable final HttpServletRequest request,
+                                               @NonNull final String requestPath,
+                                               @NonNull final List<? extends Resource> locations,
+                                               @NonNull final ResourceResolverChain chain) {
+        Optional<String> fileName = this.imageService.getImageToServeFileName(requestPath);
+        if (fileName.isEmpty()) {
+            return chain.resolveResource(request, requestPath, locations);
+        }
+        return this.imageStorage.getLocalPath(fileName.get())
+                .<Resource>map(FileSystemResource::new)
+                .orElseGet(() -> new StoredImageResource(this.imageStorage, fileName.get()));
+    }
+
+    @Override
+    protected String resolveUrlPathInternal(@NonNull final String resourceUrlPath,
+                                            @NonNull final List<? extends Resource> locations,
+                                            @NonNull final ResourceResolverChain chain) {
+        if (this.imageService.getImageToServeFileName(resourceUrlPath).isPresent()) {
+            return resourceUrlPath;
+        }
+        return chain.resolveUrlPath(resourceUrlPath, locations);
+    }
+
+    /**
+     * The StoredImageResource class is the resource of an image of a remote image storage, whose attributes are
+     * read once, and whose content is streamed from the storage.
+     */
+    private static final class StoredImageResource extends AbstractResource {
+
+        /**
+         * The storage backend the image is read from.
+         */
+        private final ImageStorage imageStorage;
+
+        /**
+         * The file name of the image.
+         */
+        private final String fileName;
+
+        /**
+         * The attributes of the image, read on first use, empty if the image is not stored.
+         */
+        private Optional<ImageStorageAttributes> attributes;
+
+        /**
+         * Constructs the resource of an image.
+         *
+         * @param imageStorage the storage backend the image is read from
+         * @param fileName     the file name of the image
+         */
+        StoredImageResource(final ImageStorage imageStorage, final String fileName) {
+            this.imageStorage = imageStorage;
+            this.fileName = fileName;
+        }
+
+        @Override
+        public boolean exists() {
+            return this.getAttributes().isPresent();
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return this.getAttributes().orElseThrow(() -> new FileNotFoundException(this.fileName)).getSize();
+        }
+
+        @Override
+        public long lastModified() throws IOException {
+            return this.getAttributes().orElseThrow(() -> new FileNotFoundException(this.fileName)).getLastModified();
+        }
+
+        @Override
+        public String getFilename() {
+            return this.fileName;
+        }
+
+        @Override
+        @NonNull
+        public String getDescription() {
+            return "Stored image [" + this.fileName + "]";
+        }
+
+        @Override
+        @NonNull
+        public InputStream getInputStream() throws IOException {
+            try {
+                return this.imageStorage.get(this.fileName);
+            } catch (NoSuchFileException e) {
+                throw new FileNotFoundException(this.fileName);
+            }
+        }
+
+        /**
+         * Reads the attributes of the image from the storage, once.
+         *
+         * @return the attributes of the image, or an empty Optional if it is not stored
+         */
+        private Optional<ImageStorageAttributes> getAttributes() {
+            if (this.attributes == null) {
+                try {
+                    this.attributes = this.imageStorage.stat(this.fileName);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return this.attributes;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.pop.codelab.chatopbackend.configuration;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.autoconfigure.web.servlet.MultipartProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.multipart.support.StandardServletMultipartResolver;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.util.Set;
+
+/**
+ * The {@code MultipartConfiguration} class configures the resolution of the multipart requests.
+ * <p>
+ * The multipart requests are parsed by the servlet container before reaching the controllers, each file being
+ * spooled to a temporary file. The requests whose body is read as a stream by their controller, the streamed
+ * rental creations, are left unparsed : their picture is written once, straight to the upload directory. The
+ * rental creations sent to the rentals path keep the standard parsing.</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@Configuration
+public class MultipartConfiguration {
+
+    /**
+     * The path, relative to the rentals path, of the streamed rental creations.
+     */
+    public static final String STREAMED_RENTAL_CREATION_PATH = "/stream";
+
+    /**
+     * The paths, relative to the context path, of the POST requests whose multipart body is read as a stream.
+     */
+    private static final Set<String> STREAMED_UPLOAD_PATHS = Set.of("/rentals" + STREAMED_RENTAL_CREATION_PATH);
+
+    /**
+     * Replaces the multipart resolver of Spring Boot by one which does not resolve the streamed uploads.
+     *
+     * @param multipartProperties the multipart properties of the application (spring.servlet.multipart.*)
+     * @return the multipart resolver of the DispatcherServlet
+     */
+    @Bean(name = DispatcherServlet.MULTIPART_RESOLVER_BEAN_NAME)
+    public StandardServletMultipartResolver multipartResolver(final MultipartProperties multipartProperties) {
+        StandardServletMultipartResolver multipartResolver = new StandardServletMultipartResolver() {
+            @Override
+            public boolean isMultipart(final HttpServletRequest request) {
+                return !isStreamedUpload(request) && super.isMultipart(request);
+            }
+        };
+        multipartResolver.setResolveLazily(multipartProperties.isResolveLazily());
+        multipartResolver.setStrictServletCompliance(multipartProperties.isStrictServletCompliance());
+        return multipartResolver;
+    }
+
+    /**
+     * Tells whether the multipart body of a request is read as a stream by its controller.
+     *
+     * @param request the request
+     * @return true if the body must not be parsed by the servlet container
+     */
+    private static boolean isStreamedUpload(final HttpServletRequest request) {
+        return HttpMethod.POST.matches(request.getMethod())
+                && STREAMED_UPLOAD_PATHS.contains(UrlPathHelper.defaultInstance.getPathWithinApplication(request));
+    }
+}
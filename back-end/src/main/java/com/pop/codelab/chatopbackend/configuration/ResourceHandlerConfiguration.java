@@ -1,5 +1,8 @@
 package com.pop.codelab.chatopbackend.configuration;
 
+import com.pop.codelab.chatopbackend.services.ImageService;
+import com.pop.codelab.chatopbackend.services.ImageStorage;
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -10,10 +13,22 @@ import org.springframework.web.servlet.resource.PathResourceResolver;
  * Implements WebMvcConfigurer interface to configure resource handlers.
  */
 @Configuration
+@RequiredArgsConstructor
 public class ResourceHandlerConfiguration implements WebMvcConfigurer {
 
+    /**
+     * The image service, which resolves the file name of the stored images from their path.
+     */
+    private final ImageService imageService;
+
+    /**
+     * The storage backend of the images.
+     */
+    private final ImageStorage imageStorage;
+
     /**
      * Adds resource handlers to the resource handler registry for accessing images.
+     * The images are resolved from the image storage first, then from the images bundled with the application.
      *
      * @param registry the resource handler registry to add resource handlers to
      */
@@ -25,6 +40,7 @@ public class ResourceHandlerConfiguration implements WebMvcConfigurer {
                 .addResourceLocations("classpath:/static/images/") // Define the location of the images in the resources folder
                 .setCachePeriod(3600)
                 .resourceChain(false)
+                .addResolver(new ImageStorageResourceResolver(this.imageService, this.imageStorage))
                 .addResolver(new PathResourceResolver());
     }
 
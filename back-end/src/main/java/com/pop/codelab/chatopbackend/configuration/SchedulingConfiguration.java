@@ -0,0 +1,16 @@
+package com.pop.codelab.chatopbackend.configuration;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Configuration class enabling the background tasks of the application, run by the {@code @Scheduled} methods of
+ * its beans on the task scheduler of Spring Boot (spring.task.scheduling.*).
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration {
+}
@@ -1,67 +1,466 @@
 package com.pop.codelab.chatopbackend.controllers;
 
 
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import com.pop.codelab.chatopbackend.services.CachedImage;
+import com.pop.codelab.chatopbackend.services.ImageBytesCache;
+import com.pop.codelab.chatopbackend.services.ImageDerivativeCache;
+import com.pop.codelab.chatopbackend.services.ImageService;
+import com.pop.codelab.chatopbackend.services.ImageStorage;
+import com.pop.codelab.chatopbackend.services.ImageStorageAttributes;
+import com.pop.codelab.chatopbackend.services.ImageStoragePaths;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.util.UrlPathHelper;
 
-import java.io.UnsupportedEncodingException;
-import java.net.MalformedURLException;
-import java.net.URLEncoder;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The UploadedFilesController class is a rest controller that handles requests related to uploaded files.
- * It provides methods to serve files from a specified upload directory.
+ * It serves the stored images, which are the largest part of the traffic of the application.
+ * <p>
+ * The images are read from the {@link ImageStorage}. When they are stored on a local file system, the bytes of an
+ * image are never copied through the heap : when the servlet container supports it (the {@code sendfile} support
+ * of Tomcat), the response body is handed over to the container, which writes the file straight to the socket once
+ * the request processing is over ; otherwise the file is transferred to the response with
+ * {@link FileChannel#transferTo}. The images of a remote storage are streamed from it. The most requested images are
+ * served from the off-heap {@link ImageBytesCache}, without any storage access for the content-addressed ones.</p>
+ * <p>
+ * The {@code w}, {@code h} and {@code q} parameters request an image resized to a maximum width, a maximum height
+ * and a JPEG quality of their whitelists. The resized images are kept by the {@link ImageDerivativeCache} and served
+ * from its local files.</p>
+ * <p>
+ * The images are served with their Content-Type and Content-Length, single byte ranges are supported, and the
+ * content-addressed images, whose URL changes along with their content, are cached for a year without being
+ * revalidated. The image URLs are excluded from the JWT authentication, so that no token is decoded and no user is
+ * loaded to serve them.</p>
  *
  * @author Pignon Pierre-Olivier
- * @version 1.0
+ * @version 3.0
  */
 @RestController
+@RequiredArgsConstructor
 public class UploadedFilesController {
 
     /**
-     * Upload directory.
+     * The path prefix of the image URLs, relative to the context path of the application.
      */
-    @Value("${application.local-storage.upload-directory}")
-    private String uploadDirectory;
+    public static final String IMAGES_PATH_PREFIX = "/images/";
 
     /**
-     * Serves a file with the given fileName from the upload directory.
+     * The request attribute set by Tomcat when the connector can send a file on its own.
+     */
+    private static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+
+    /**
+     * The request attribute holding the absolute path of the file to be sent by Tomcat.
+     */
+    private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+
+    /**
+     * The request attribute holding the position of the first byte to be sent by Tomcat.
+     */
+    private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+
+    /**
+     * The request attribute holding the position following the last byte to be sent by Tomcat.
+     */
+    private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * The request parameter of the maximum width of a resized image.
+     */
+    private static final String WIDTH_PARAMETER = "w";
+
+    /**
+     * The request parameter of the maximum height of a resized image.
+     */
+    private static final String HEIGHT_PARAMETER = "h";
+
+    /**
+     * The request parameter of the quality of a resized JPEG image.
+     */
+    private static final String QUALITY_PARAMETER = "q";
+
+    /**
+     * The Cache-Control header of the content-addressed images, which never change.
+     */
+    private static final String IMMUTABLE_CACHE_CONTROL =
+            CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable().getHeaderValue();
+
+    /**
+     * The Cache-Control header of the images stored before the content-addressed storage, which are revalidated.
+     */
+    private static final String LEGACY_CACHE_CONTROL =
+            CacheControl.maxAge(1, TimeUnit.HOURS).cachePublic().getHeaderValue();
+
+    /**
+     * The image service, which resolves the file name of the stored images from their URL.
+     */
+    private final ImageService imageService;
+
+    /**
+     * The storage backend the images are read from.
+     */
+    private final ImageStorage imageStorage;
+
+    /**
+     * The off-heap cache of the most requested images, which are served without reading their file.
+     */
+    private final ImageBytesCache imageBytesCache;
+
+    /**
+     * The disk cache of the images resized on demand.
+     */
+    private final ImageDerivativeCache imageDerivativeCache;
+
+    /**
+     * Serves a stored image, or a single byte range of it, from the image storage.
+     * <p>
+     * The responses are 200 OK, 206 Partial Content for a satisfiable single range, 304 Not Modified when the
+     * image held by the client is still valid, 416 Range Not Satisfiable and 404 Not Found. A HEAD request gets
+     * the headers of the matching GET request without the image.</p>
+     * <p>
+     * The image is resized when the {@code w}, {@code h} or {@code q} parameters are given : a size or a quality which
+     * is not whitelisted is answered with 400 Bad Request, and an image which cannot be resized is served as is.</p>
+     *
+     * @param request  the current request
+     * @param response the current response
+     * @throws IOException if the image cannot be read or written to the response
+     */
+    @RequestMapping(value = "/images/**", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void serveFile(final HttpServletRequest request, final HttpServletResponse response) throws IOException {
+        String relativePath = UrlPathHelper.defaultInstance.getPathWithinApplication(request)
+                .substring(IMAGES_PATH_PREFIX.length());
+        Optional<String> imageFileName = this.imageService.getImageToServeFileName(relativePath);
+        if (imageFileName.isEmpty()) {
+            // A bare status rather than an error page, which would be rendered out of the image security chain
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        String fileName = imageFileName.get();
+        if (request.getParameter(WIDTH_PARAMETER) != null || request.getParameter(HEIGHT_PARAMETER) != null
+                || request.getParameter(QUALITY_PARAMETER) != null) {
+            int width = getIntParameter(request, WIDTH_PARAMETER);
+            int height = getIntParameter(request, HEIGHT_PARAMETER);
+            int quality = getIntParameter(request, QUALITY_PARAMETER);
+            if (width < 0 || height < 0 || quality < 0 || !this.imageDerivativeCache.isAllowed(width, height, quality)) {
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                return;
+            }
+            for (int attempt = 0; attempt < 2; attempt++) {
+                Path derivativePath;
+                try {
+                    derivativePath = this.imageDerivativeCache.getDerivative(fileName, width, height, quality)
+                            .orElse(null);
+                } catch (NoSuchFileException e) {
+                    response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                    return;
+                }
+                if (derivativePath == null) {
+                    // The image cannot be resized : it is served as is
+                    break;
+                }
+                // The derivative is opened before its headers are sent : once open, it stays readable even if it is
+                // evicted, and deleted, meanwhile
+                FileChannel derivative = openIfExists(derivativePath);
+                if (derivative != null) {
+                    try (derivative) {
+                        // The size is the one of the open file, whatever happened to its path meanwhile
+                        ImageStorageAttributes attributes = readAttributes(derivativePath);
+                        long lastModified = attributes != null ? attributes.getLastModified() : -1;
+                        // The derivatives are named after their image : they are as immutable as their image
+                        this.serveImage(request, response, derivativePath.getFileName().toString(),
+                                ImageStoragePaths.isContentAddressed(fileName), derivative,
+                                new ImageStorageAttributes(derivative.size(), lastModified));
+                    }
+                    return;
+                }
+                // Evicted between its resizing and its opening : the image is resized again once
+            }
+        }
+        this.serveImage(request, response, fileName, ImageStoragePaths.isContentAddressed(fileName), null, null);
+    }
+
+    /**
+     * Serves a stored image or a derivative of it, or a single byte range of it.
      *
-     * @param fileName The name of the file to serve.
-     * @return The ResponseEntity containing the resource if the file exists, otherwise a ResponseEntity with status code 404.
+     * @param request              the current request
+     * @param response             the current response
+     * @param fileName             the file name of the image or of the derivative
+     * @param contentAddressed     true if the image is content-addressed, and thereby immutable
+     * @param derivative           the open file of the derivative, or null to serve the stored image
+     * @param derivativeAttributes the attributes of the derivative, or null to serve the stored image
+     * @throws IOException if the image cannot be read or written to the response
      */
-    @GetMapping("/images/{fileName:.+}")
-    public ResponseEntity<Resource> serveFile(@PathVariable final String fileName) {
+    private void serveImage(final HttpServletRequest request, final HttpServletResponse response,
+                            final String fileName, final boolean contentAddressed, final FileChannel derivative,
+                            final ImageStorageAttributes derivativeAttributes) throws IOException {
+        CachedImage cachedImage = derivative == null ? this.imageBytesCache.get(fileName).orElse(null) : null;
+        long size;
+        long lastModified;
+        if (cachedImage != null && contentAddressed) {
+            // A content-addressed image never changes : it is not even looked up in the storage
+            size = cachedImage.getSize();
+            lastModified = cachedImage.getLastModified();
+        } else {
+            // The image may have been deleted since it has been catalogued
+            ImageStorageAttributes attributes = derivative == null ? this.imageStorage.stat(fileName).orElse(null)
+                    : derivativeAttributes;
+            if (attributes == null) {
+                response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            size = attributes.getSize();
+            lastModified = attributes.getLastModified();
+            if (cachedImage != null && (cachedImage.getSize() != size || cachedImage.getLastModified() != lastModified)) {
+                this.imageBytesCache.invalidate(fileName);
+                cachedImage = null;
+            }
+        }
+        String eTag = contentAddressed ? "\"" + fileName + "\"" : "W/\"" + Long.toHexString(size) + "-"
+                + Long.toHexString(lastModified) + "\"";
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, contentAddressed ? IMMUTABLE_CACHE_CONTROL : LEGACY_CACHE_CONTROL);
+        if (new ServletWebRequest(request, response).checkNotModified(eTag, lastModified)) {
+            // 304 Not Modified (or 412 Precondition Failed) : the ETag and Last-Modified headers are already set
+            return;
+        }
+        response.setContentType(MediaTypeFactory.getMediaType(fileName)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        long start = 0;
+        long length = size;
+        HttpRange range = getSingleRange(request, eTag, lastModified);
+        if (range != null) {
+            start = range.getRangeStart(size);
+            long end = range.getRangeEnd(size);
+            if (start >= size || start > end) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setContentLength(0);
+                return;
+            }
+            length = end - start + 1;
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        }
+        response.setContentLengthLong(length);
+        if (HttpMethod.HEAD.matches(request.getMethod()) || length == 0) {
+            return;
+        }
+        if (derivative != null) {
+            sendChannel(response, derivative, fileName, start, length);
+            return;
+        }
+        if (cachedImage == null) {
+            cachedImage = this.imageBytesCache.admit(fileName, size, lastModified).orElse(null);
+        }
+        if (cachedImage != null) {
+            ByteBuffer body = cachedImage.slice(start, length);
+            WritableByteChannel channel = Channels.newChannel(response.getOutputStream());
+            while (body.hasRemaining()) {
+                channel.write(body);
+            }
+            return;
+        }
+        Optional<Path> localPath = this.imageStorage.getLocalPath(fileName);
+        if (localPath.isPresent()) {
+            sendFile(request, response, localPath.get(), start, length);
+        } else {
+            this.sendStoredImage(response, fileName, start, length);
+        }
+    }
+
+    /**
+     * Reads an integer parameter of the request.
+     *
+     * @param request the current request
+     * @param name    the name of the parameter
+     * @return the value of the parameter, 0 if it is missing, or -1 if it is not a positive integer
+     */
+    private static int getIntParameter(final HttpServletRequest request, final String name) {
+        String value = request.getParameter(name);
+        if (value == null) {
+            return 0;
+        }
+        try {
+            int parsed = Integer.parseInt(value);
+            return parsed > 0 ? parsed : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Opens a derivative file for reading.
+     *
+     * @param path the path of the derivative
+     * @return the open file, or null if the derivative has been evicted meanwhile
+     * @throws IOException if the file cannot be opened
+     */
+    private static FileChannel openIfExists(final Path path) throws IOException {
+        try {
+            return FileChannel.open(path, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads the attributes of a derivative file.
+     *
+     * @param path the path of the derivative
+     * @return the attributes of the derivative, or null if it has been evicted meanwhile
+     * @throws IOException if the attributes cannot be read
+     */
+    private static ImageStorageAttributes readAttributes(final Path path) throws IOException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return new ImageStorageAttributes(attributes.size(), attributes.lastModifiedTime().toMillis());
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Retrieves the byte range requested by the Range header, if it must be honoured.
+     * <p>
+     * The Range header is ignored, and the whole image is sent, when it is malformed, when it holds several ranges
+     * (multipart responses are not worth it for images) or when its If-Range condition does not match the current
+     * image.</p>
+     *
+     * @param request      the current request
+     * @param eTag         the ETag of the image
+     * @param lastModified the last modification date of the image, in milliseconds
+     * @return the byte range to send, or null to send the whole image
+     */
+    private static HttpRange getSingleRange(final HttpServletRequest request, final String eTag,
+                                            final long lastModified) {
+        List<HttpRange> ranges;
         try {
-            // Load file as Resource
-            Path filePath = Paths.get(uploadDirectory).resolve(fileName).normalize();
-            Resource resource = new UrlResource(filePath.toUri());
-            // Check if the file exists
-            if (resource.exists()) {
-                // Set Content-Disposition header for file download
-                HttpHeaders headers = new HttpHeaders();
-                // Special characters treatment with an encoding to avoid wrong headers.
-                String encodedFilename = URLEncoder.encode(resource.getFilename(), "UTF-8")
-                        .replaceAll("\\+", "%20");
-                headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" +
-                        encodedFilename + "\"");
-
-                return ResponseEntity.ok().headers(headers).body(resource);
+            ranges = HttpRange.parseRanges(request.getHeader(HttpHeaders.RANGE));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (ranges.size() != 1) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null) {
+            if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+                // The If-Range header requires a strong comparison of the ETags
+                if (eTag.startsWith("W/") || !eTag.equals(ifRange)) {
+                    return null;
+                }
             } else {
-                return ResponseEntity.notFound().build();
+                try {
+                    if (request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 != lastModified / 1000) {
+                        return null;
+                    }
+                } catch (IllegalArgumentException e) {
+                    return null;
+                }
+            }
+        }
+        return ranges.get(0);
+    }
+
+    /**
+     * Sends a part of an image of a remote storage as the response body, streamed from the storage.
+     *
+     * @param response the current response, whose headers are already set
+     * @param fileName the file name of the image
+     * @param start    the position of the first byte to send
+     * @param length   the number of bytes to send
+     * @throws IOException if the image cannot be read or written to the response
+     */
+    private void sendStoredImage(final HttpServletResponse response, final String fileName, final long start,
+                                 final long length) throws IOException {
+        try (InputStream content = this.imageStorage.get(fileName, start, length)) {
+            if (content.transferTo(response.getOutputStream()) != length) {
+                throw new IOException("The image " + fileName + " has been truncated while being sent");
+            }
+        } catch (NoSuchFileException e) {
+            // Deleted between its lookup and its download : the headers are not committed yet
+            if (response.isCommitted()) {
+                throw e;
+            }
+            response.reset();
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
+
+    /**
+     * Sends a part of a file as the response body, without copying its bytes through the heap.
+     * Tomcat sends the file itself when its connector supports it, once the request processing is over.
+     *
+     * @param request  the current request
+     * @param response the current response, whose headers are already set
+     * @param path     the path of the file
+     * @param start    the position of the first byte to send
+     * @param length   the number of bytes to send
+     * @throws IOException if the file cannot be read or written to the response
+     */
+    private static void sendFile(final HttpServletRequest request, final HttpServletResponse response,
+                                 final Path path, final long start, final long length) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTRIBUTE))) {
+            request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, path.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START_ATTRIBUTE, start);
+            request.setAttribute(SENDFILE_END_ATTRIBUTE, start + length);
+            return;
+        }
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            sendChannel(response, file, path.toString(), start, length);
+        }
+    }
+
+    /**
+     * Sends a part of an open file as the response body, without copying its bytes through the heap.
+     *
+     * @param response the current response, whose headers are already set
+     * @param file     the open file
+     * @param name     the name of the file, for the error messages
+     * @param start    the position of the first byte to send
+     * @param length   the number of bytes to send
+     * @throws IOException if the file cannot be read or written to the response
+     */
+    private static void sendChannel(final HttpServletResponse response, final FileChannel file, final String name,
+                                    final long start, final long length) throws IOException {
+        WritableByteChannel body = Channels.newChannel(response.getOutputStream());
+        long position = start;
+        long end = start + length;
+        while (position < end) {
+            long transferred = file.transferTo(position, end - position, body);
+            if (transferred <= 0) {
+                throw new IOException("The file " + name + " has been truncated while being sent");
             }
-        } catch (MalformedURLException ex) {
-            return ResponseEntity.notFound().build();
-        } catch (UnsupportedEncodingException e) {
-            throw new RuntimeException(e);
+            position += transferred;
         }
     }
 }
@@ -1,6 +1,8 @@
 package com.pop.codelab.chatopbackend.exception;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -36,6 +38,95 @@ public class ControllerExceptionHandler {
         return message;
     }
 
+    /**
+     * Handle the BadRequestException and return an appropriate ErrorMessage object.
+     *
+     * @param ex      The BadRequestException that occurred
+     * @param request The WebRequest object representing the current request
+     * @return An ErrorMessage object containing the error details
+     */
+    @ExceptionHandler(BadRequestException.class)
+    @ResponseStatus(value = HttpStatus.BAD_REQUEST)
+    public ErrorMessage badRequestException(final BadRequestException ex, final WebRequest request) {
+        return new ErrorMessage(
+                HttpStatus.BAD_REQUEST.value(),
+                new Date(),
+                ex.getMessage(),
+                request.getDescription(false));
+    }
+
+    /**
+     * Handle the PayloadTooLargeException and return an appropriate ErrorMessage object.
+     *
+     * @param ex      The PayloadTooLargeException that occurred
+     * @param request The WebRequest object representing the current request
+     * @return An ErrorMessage object containing the error details
+     */
+    @ExceptionHandler(PayloadTooLargeException.class)
+    @ResponseStatus(value = HttpStatus.PAYLOAD_TOO_LARGE)
+    public ErrorMessage payloadTooLargeException(final PayloadTooLargeException ex, final WebRequest request) {
+        return new ErrorMessage(
+                HttpStatus.PAYLOAD_TOO_LARGE.value(),
+                new Date(),
+                ex.getMessage(),
+                request.getDescription(false));
+    }
+
+    /**
+     * Handle the ServiceUnavailableException and return an appropriate ErrorMessage object.
+     *
+     * @param ex      The ServiceUnavailableException that occurred
+     * @param request The WebRequest object representing the current request
+     * @return An ErrorMessage object containing the error details
+     */
+    @ExceptionHandler(ServiceUnavailableException.class)
+    @ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorMessage serviceUnavailableException(final ServiceUnavailableException ex, final WebRequest request) {
+        return new ErrorMessage(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                new Date(),
+                ex.getMessage(),
+                request.getDescription(false));
+    }
+
+    /**
+     * Handle the OptimisticLockingFailureException, thrown when an entity has been modified since it was read, such
+     * as a rental whose picture variants have been recorded in the background, and return an appropriate
+     * ErrorMessage object.
+     *
+     * @param ex      The OptimisticLockingFailureException that occurred
+     * @param request The WebRequest object representing the current request
+     * @return An ErrorMessage object containing the error details
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(value = HttpStatus.CONFLICT)
+    public ErrorMessage optimisticLockingFailureException(final OptimisticLockingFailureException ex,
+                                                          final WebRequest request) {
+        return new ErrorMessage(
+                HttpStatus.CONFLICT.value(),
+                new Date(),
+                "The resource has been modified meanwhile, the request may be sent again",
+                request.getDescription(false));
+    }
+
+    /**
+     * Handle the AuthenticationException, thrown on wrong credentials or an invalid refresh token, and return an
+     * appropriate ErrorMessage object.
+     *
+     * @param ex      The AuthenticationException that occurred
+     * @param request The WebRequest object representing the current request
+     * @return An ErrorMessage object containing the error details
+     */
+    @ExceptionHandler(AuthenticationException.class)
+    @ResponseStatus(value = HttpStatus.UNAUTHORIZED)
+    public ErrorMessage authenticationException(final AuthenticationException ex, final WebRequest request) {
+        return new ErrorMessage(
+                HttpStatus.UNAUTHORIZED.value(),
+                new Date(),
+                ex.getMessage(),
+                request.getDescription(false));
+    }
+
     /**
      * Handles exceptions thrown by controllers and returns an appropriate ErrorMessage object.
      *
@@ -0,0 +1,25 @@
+package com.pop.codelab.chatopbackend.exception;
+
+/**
+ * Custom exception class indicating that a request, or a part of it, exceeds the allowed size.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+public class PayloadTooLargeException extends RuntimeException {
+
+    /**
+     * The serialVersionUID is a unique identifier for a Serializable class, used during the deserialization
+     * process to verify that the sender and receiver of a serialized object have loaded compatible classes.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Custom exception class indicating that a request, or a part of it, exceeds the allowed size.
+     *
+     * @param message The error message associated with the exception.
+     */
+    public PayloadTooLargeException(final String message) {
+        super(message);
+    }
+}
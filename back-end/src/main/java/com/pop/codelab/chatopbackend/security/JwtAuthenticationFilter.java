@@ -1,15 +1,20 @@
 package com.pop.codelab.chatopbackend.security;
 
 import com.auth0.jwt.exceptions.JWTVerificationException;
-import com.auth0.jwt.interfaces.DecodedJWT;
+import com.pop.codelab.chatopbackend.auth.service.TokenRevocationService;
 import com.pop.codelab.chatopbackend.business.user.repository.UserRepository;
 import com.pop.codelab.chatopbackend.business.user.entity.User;
+import com.pop.codelab.chatopbackend.configuration.CacheConfiguration;
+import com.pop.codelab.chatopbackend.controllers.UploadedFilesController;
 import com.pop.codelab.chatopbackend.services.JwtService;
+import com.pop.codelab.chatopbackend.services.VerifiedToken;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -24,6 +29,12 @@ import java.util.Optional;
 /**
  * The JwtAuthenticationFilter class is a filter that performs authentication using a JSON Web Token (JWT) for authorization.
  * It extends the OncePerRequestFilter class, which ensures that the filter is only applied once per request.
+ * <p>
+ * The principal of a self-contained token is built from the claims of the token, without loading its user : the
+ * database is only read when the token version of the token differs from that of the cached user.</p>
+ * <p>
+ * The revoked tokens are rejected, and the verified token is kept as the credentials of the authentication, so that
+ * the logout can revoke it.</p>
  */
 @Component
 @RequiredArgsConstructor
@@ -46,6 +57,29 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
      */
     private final UserRepository userRepository;
 
+    /**
+     * The cacheManager variable gives access to the users cache, whose users tell the current token version of
+     * the self-contained tokens.
+     */
+    private final CacheManager cacheManager;
+
+    /**
+     * The tokenRevocationService variable tells whether a token has been revoked before its expiry.
+     */
+    private final TokenRevocationService tokenRevocationService;
+
+    /**
+     * Excludes the image URLs from the JWT authentication : the images are public, so neither the token is decoded
+     * nor the user is loaded from the database to serve them.
+     *
+     * @param request The HttpServletRequest object representing the incoming request.
+     * @return true if the request targets an image, false otherwise.
+     */
+    @Override
+    protected boolean shouldNotFilter(final @NonNull HttpServletRequest request) {
+        return request.getServletPath().startsWith(UploadedFilesController.IMAGES_PATH_PREFIX);
+    }
+
     /**
      * Filters the incoming request and response and performs authentication using a JSON Web Token (JWT) for authorization.
      *
@@ -69,17 +103,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         final byte END_OF_BEARER_PREFIX_INDEX = 7;
         String bearerToken = authHeader.substring(END_OF_BEARER_PREFIX_INDEX);
 
-        DecodedJWT decodedToken;
+        VerifiedToken verifiedToken;
         try {
-            decodedToken = this.jwtService.decodeJwtToken(bearerToken);
+            verifiedToken = this.jwtService.verifyToken(bearerToken);
         } catch (JWTVerificationException e) {
             filterChain.doFilter(request, response);
             return;
         }
         try {
-            if (decodedToken != null && extractUserFromToken(decodedToken).isPresent()) {
-                User user = extractUserFromToken(decodedToken).get();
-                Authentication authentication = new UsernamePasswordAuthenticationToken(user, null, new ArrayList<>());
+            Optional<User> user = verifiedToken == null || tokenRevocationService.isRevoked(verifiedToken)
+                    ? Optional.empty()
+                    : verifiedToken.isSelfContained() ? extractPrincipalFromClaims(verifiedToken)
+                    : extractUserFromToken(verifiedToken);
+            if (user.isPresent()) {
+                Authentication authentication = new UsernamePasswordAuthenticationToken(user.get(), verifiedToken,
+                        new ArrayList<>());
                 SecurityContextHolder.getContext().setAuthentication(authentication);
             }
         } finally {
@@ -87,8 +125,52 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
     }
 
-    private Optional<User> extractUserFromToken(final DecodedJWT token) {
-        Long userId = Long.parseLong(token.getSubject());
-        return userRepository.findById(userId);
+    /**
+     * Retrieves the user authenticated by a token, from the users cache unless it has expired from it.
+     *
+     * @param token The verified token.
+     * @return The user whose ID is the subject of the token, or an empty Optional if it does not exist anymore.
+     */
+    private Optional<User> extractUserFromToken(final VerifiedToken token) {
+        return userRepository.findPrincipalById(token.getUserId());
+    }
+
+    /**
+     * Builds the principal of a self-contained token from its claims. The token version of the token is checked
+     * against the user of the users cache, which is loaded, and cached, when missing from it : the database is read
+     * once per user and cache time to live. A token older than the cached user, invalidated by a logout from all the
+     * sessions or a password change, is rejected without reading the database. A cached user older than the token
+     * is loaded again, and the token is only accepted if it carries the current token version.
+     *
+     * @param token The verified self-contained token.
+     * @return The principal of the token, or an empty Optional if the token has been invalidated.
+     */
+    private Optional<User> extractPrincipalFromClaims(final VerifiedToken token) {
+        Long userId = token.getUserId();
+        Integer version = token.getVersion();
+        if (version == null) {
+            return Optional.empty();
+        }
+        Cache usersCache = cacheManager.getCache(CacheConfiguration.USERS_CACHE);
+        User cachedUser = usersCache == null ? null : usersCache.get(userId, User.class);
+        if (cachedUser != null && cachedUser.getTokenVersion() > version) {
+            return Optional.empty();
+        }
+        if (cachedUser == null || cachedUser.getTokenVersion() != version) {
+            if (cachedUser != null) {
+                usersCache.evict(userId);
+            }
+            Optional<User> user = userRepository.findPrincipalById(userId);
+            if (user.isEmpty() || user.get().getTokenVersion() != version) {
+                return Optional.empty();
+            }
+        }
+        User principal = User.builder()
+                .name(token.getName())
+                .email(token.getEmail())
+                .tokenVersion(version)
+                .build();
+        principal.setId(userId);
+        return Optional.of(principal);
     }
 }
@@ -1,14 +1,18 @@
 package com.pop.codelab.chatopbackend.security;
 
+import com.pop.codelab.chatopbackend.controllers.UploadedFilesController;
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.info.Info;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.annotation.web.configurers.HeadersConfigurer;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
@@ -52,6 +56,28 @@ public class SecurityConfiguration {
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
 
 
+    /**
+     * The imagesFilterChain method configures the security filters of the image URLs, which are public.
+     * It comes before the main security filter chain : the images are served without any authentication nor session,
+     * and the Cache-Control header set by the image controller is not overwritten by the no-cache one.
+     *
+     * @param http The HttpSecurity object used to configure the security filters.
+     * @return The configured SecurityFilterChain object.
+     * @throws Exception If an error occurs during the configuration.
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain imagesFilterChain(final HttpSecurity http) throws Exception {
+        http
+                .securityMatcher(UploadedFilesController.IMAGES_PATH_PREFIX + "**")
+                .csrf(AbstractHttpConfigurer::disable)
+                .requestCache(AbstractHttpConfigurer::disable)
+                .headers(headers -> headers.cacheControl(HeadersConfigurer.CacheControlConfig::disable))
+                .authorizeHttpRequests(request -> request.anyRequest().permitAll())
+                .sessionManagement(session -> session.sessionCreationPolicy(STATELESS));
+        return http.build();
+    }
+
     /**
      * The securityFilterChain method is used to configure the security filters for the application.
      * It takes an HttpSecurity object as a parameter and returns a SecurityFilterChain object.
@@ -62,15 +88,21 @@ public class SecurityConfiguration {
      * @throws Exception If an error occurs during the configuration.
      */
     @Bean
+    @Order(2)
     public SecurityFilterChain securityFilterChain(final HttpSecurity http) throws Exception {
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(request ->
-                        request.requestMatchers(WHITE_LIST_SWAGGER_URL)
+                        // The request has already been authorized before its asynchronous processing (streamed responses)
+                        request.dispatcherTypeMatchers(DispatcherType.ASYNC)
+                                .permitAll()
+                                .requestMatchers(WHITE_LIST_SWAGGER_URL)
                                 .permitAll()
                                 .requestMatchers("/images/**") // Assuming the URLs for serving images start with "/api/images/"
                                 .permitAll()
-                                .requestMatchers("/auth/register", "/auth/login").permitAll()
+                                .requestMatchers("/auth/register", "/auth/login", "/auth/refresh").permitAll()
+                                // Health probes : the other actuator endpoints are only served on the management port
+                                .requestMatchers("/livez", "/readyz").permitAll()
                                 .anyRequest()
                                 .authenticated()
                 )
@@ -0,0 +1,61 @@
+package com.pop.codelab.chatopbackend.services;
+
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The CachedImage class holds the bytes of an image kept in memory by the image bytes cache, outside the heap.
+ * <p>
+ * The bytes are never modified once cached : the cached image can be read by several requests at once, and keeps
+ * being readable after its eviction from the cache, until the last request reading it is over.</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ * @see ImageBytesCache
+ */
+@Getter
+public final class CachedImage {
+
+    /**
+     * The content variable represents the bytes of the image, in a read-only direct buffer.
+     */
+    private final ByteBuffer content;
+
+    /**
+     * The lastModified variable represents the last modification date of the image file, in milliseconds.
+     * It allows to check that the cached bytes are still those of the file.
+     */
+    private final long lastModified;
+
+    /**
+     * Constructs a cached image.
+     *
+     * @param content      the bytes of the image, in a direct buffer which must not be modified anymore
+     * @param lastModified the last modification date of the image file, in milliseconds
+     */
+    public CachedImage(final ByteBuffer content, final long lastModified) {
+        this.content = content.asReadOnlyBuffer();
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Returns the size of the image.
+     *
+     * @return the number of bytes of the image
+     */
+    public long getSize() {
+        return this.content.capacity();
+    }
+
+    /**
+     * Returns a part of the image bytes, as a buffer of its own which can be read without affecting the others.
+     *
+     * @param start  the position of the first byte
+     * @param length the number of bytes
+     * @return a read-only buffer holding the bytes
+     */
+    public ByteBuffer slice(final long start, final long length) {
+        return this.content.slice((int) start, (int) length);
+    }
+}
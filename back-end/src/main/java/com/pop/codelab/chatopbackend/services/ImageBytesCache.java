@@ -0,0 +1,40 @@
+package com.pop.codelab.chatopbackend.services;
+
+import java.util.Optional;
+
+/**
+ * The ImageBytesCache interface keeps the bytes of the most requested images in memory, in front of the image
+ * storage, so that they are served without reading them from the storage.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ * @see CachedImage
+ */
+public interface ImageBytesCache {
+
+    /**
+     * Retrieves a cached image, and records the request of the image, cached or not.
+     *
+     * @param key the file name of the image
+     * @return the cached image, or an empty Optional if the image is not cached
+     */
+    Optional<CachedImage> get(String key);
+
+    /**
+     * Loads an image into the cache, provided that it has been requested often enough to deserve its room.
+     * It is called after a cache miss, before serving the image from the image storage.
+     *
+     * @param key          the file name of the image
+     * @param size         the size of the image
+     * @param lastModified the last modification date of the image, in milliseconds
+     * @return the image loaded, or an empty Optional if the image has not been admitted into the cache
+     */
+    Optional<CachedImage> admit(String key, long size, long lastModified);
+
+    /**
+     * Removes an image from the cache, once it has been deleted or replaced.
+     *
+     * @param key the file name of the image
+     */
+    void invalidate(String key);
+}
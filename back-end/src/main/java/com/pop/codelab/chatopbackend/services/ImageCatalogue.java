@@ -0,0 +1,40 @@
+package com.pop.codelab.chatopbackend.services;
+
+import java.util.Optional;
+
+/**
+ * The ImageCatalogue interface provides an in-memory index of the images stored in the image storage,
+ * so that the URL of an image can be resolved without any storage access.
+ */
+public interface ImageCatalogue {
+
+    /**
+     * Registers an image which has just been stored.
+     *
+     * @param fileName the file name of the image
+     */
+    void register(String fileName);
+
+    /**
+     * Removes an image from the catalogue.
+     *
+     * @param fileName the file name of the image
+     */
+    void unregister(String fileName);
+
+    /**
+     * Returns the URL an image is served at.
+     *
+     * @param fileName the file name of the image
+     * @return the URL of the image, or an empty string if the image is not stored
+     */
+    String getImageUrl(String fileName);
+
+    /**
+     * Returns the file name of a stored image from its path in the images URL.
+     *
+     * @param relativePath the path of the image in the image storage, as found in its URL
+     * @return the file name of the image, or an empty Optional if no image of the catalogue is stored at this path
+     */
+    Optional<String> getImageFileName(String relativePath);
+}
@@ -0,0 +1,43 @@
+package com.pop.codelab.chatopbackend.services;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * The ImageDerivativeCache interface resizes the stored images on demand, to the widths and heights requested by
+ * the responsive images of the front end, and keeps the resized images, the derivatives, on the local disk.
+ * <p>
+ * Only the sizes and qualities of a whitelist are resized, so that the number of derivatives of an image stays
+ * bounded whatever the requests.</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ * @see ImageVariant
+ */
+public interface ImageDerivativeCache {
+
+    /**
+     * Tells whether a derivative may be requested : a width or a height is required, and each of the width, the
+     * height and the quality given must belong to its whitelist.
+     *
+     * @param width   the maximum width of the derivative, in pixels, 0 if not given
+     * @param height  the maximum height of the derivative, in pixels, 0 if not given
+     * @param quality the quality of the derivative, from 1 to 100, 0 if not given
+     * @return true if the derivative may be requested
+     */
+    boolean isAllowed(int width, int height, int quality);
+
+    /**
+     * Returns a derivative of a stored image, resizing the image on the first request of the derivative.
+     * The concurrent requests of the same derivative wait for a single resizing.
+     *
+     * @param fileName the file name of the stored image
+     * @param width    the maximum width of the derivative, in pixels, 0 for no limit
+     * @param height   the maximum height of the derivative, in pixels, 0 for no limit
+     * @param quality  the quality of a JPEG derivative, from 1 to 100, 0 for the default quality
+     * @return the path of the derivative, or an empty Optional if the image cannot be resized
+     * @throws IOException if the image cannot be read or the derivative cannot be written
+     */
+    Optional<Path> getDerivative(String fileName, int width, int height, int quality) throws IOException;
+}
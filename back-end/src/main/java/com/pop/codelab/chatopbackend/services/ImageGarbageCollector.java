@@ -0,0 +1,24 @@
+package com.pop.codelab.chatopbackend.services;
+
+import java.io.IOException;
+
+/**
+ * The ImageGarbageCollector interface reclaims the space of the stored images which no rental shows any more, such
+ * as the previous pictures of the updated rentals or the images uploaded for a rental which has not been saved.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ * @see ImageStorage
+ */
+public interface ImageGarbageCollector {
+
+    /**
+     * Collects the stored images which are neither the picture of a rental nor a variant of such a picture, once
+     * they are older than the grace period. The images uploaded within the grace period are spared, since their
+     * rental may not reference them yet.
+     *
+     * @return the number of bytes reclaimed from the image storage, 0 if a collection is already running
+     * @throws IOException if the images cannot be listed
+     */
+    long collect() throws IOException;
+}
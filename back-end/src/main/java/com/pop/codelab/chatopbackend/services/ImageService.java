@@ -3,6 +3,11 @@ package com.pop.codelab.chatopbackend.services;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The ImageService interface provides methods for saving images to storage and retrieving their URLs.
@@ -10,14 +15,35 @@ import java.io.IOException;
 public interface ImageService {
 
     /**
-     * Saves an image file to a specified directory in a storage system.
+     * Saves an image file to the image storage, under its content key, so that the same bytes are stored once.
      *
-     * @param uploadDirectory the directory where the image file will be saved
-     * @param imageFile       the image file to be saved
-     * @return the URL of the saved image file
+     * @param imageFile the image file to be saved
+     * @return the content key of the saved image file, to be used as its file name
      * @throws IOException if an I/O error occurs during the saving process
      */
-    String saveImageToStorage(String uploadDirectory, MultipartFile imageFile) throws IOException;
+    String saveImageToStorage(MultipartFile imageFile) throws IOException;
+
+    /**
+     * Saves an image read from a stream to the image storage, under its content key.
+     * The stream is read once, straight into a staging file of the storage, without any intermediate copy.
+     *
+     * @param content          the content of the image, read until its end but not closed
+     * @param originalFilename the name of the uploaded file, or null if unknown
+     * @return the content key of the saved image file, to be used as its file name
+     * @throws IOException if an I/O error occurs during the saving process
+     */
+    String saveImageToStorage(InputStream content, String originalFilename) throws IOException;
+
+    /**
+     * Saves an image already written to a staging file of the image storage, under its content key.
+     * The file is hashed then put under its content key : on a local storage, its bytes are not copied.
+     *
+     * @param imageFile        the file holding the image, in the staging directory, which is moved or deleted
+     * @param originalFilename the name of the uploaded file, or null if unknown
+     * @return the content key of the saved image file, to be used as its file name
+     * @throws IOException if an I/O error occurs during the saving process
+     */
+    String saveImageToStorage(Path imageFile, String originalFilename) throws IOException;
 
     /**
      * Returns the URL of an image file to be served.
@@ -26,4 +52,55 @@ public interface ImageService {
      * @return the URL of the image file
      */
     String getImageToServeUrl(String filePath);
+
+    /**
+     * Returns the URL of a variant of an image file to be served, or the URL of the image itself while its
+     * variant is not available.
+     *
+     * @param filePath the file path of the image
+     * @param variant  the variant of the image
+     * @return the URL of the variant, or of the image file if the variant is not available
+     */
+    String getImageToServeUrl(String filePath, ImageVariant variant);
+
+    /**
+     * Returns the file name of a stored image to be served from its path in the images URL.
+     *
+     * @param relativePath the path of the image in the image storage, as found in its URL
+     * @return the file name of the image, or an empty Optional if no image is stored at this path
+     */
+    Optional<String> getImageToServeFileName(String relativePath);
+
+    /**
+     * Generates the fixed-size variants of a stored image in the background.
+     *
+     * @param fileName the file name of the image
+     * @return a future completed with the variants generated once they are available
+     */
+    CompletableFuture<Set<ImageVariant>> generateImageVariants(String fileName);
+
+    /**
+     * Counts a new reference to a stored image, once a rental shows it. The images which are not content-addressed
+     * have no reference count.
+     *
+     * @param fileName the file name of the image
+     */
+    void addReference(String fileName);
+
+    /**
+     * Discounts a reference to a stored image, once a rental does not show it anymore. The images which are not
+     * content-addressed have no reference count.
+     *
+     * @param fileName the file name of the image
+     */
+    void removeReference(String fileName);
+
+    /**
+     * Deletes an image uploaded for a rental which has not been created. The image is kept if it has been
+     * uploaded before or since, or if a rental references it. The images which are not content-addressed are kept.
+     *
+     * @param fileName the file name of the image
+     * @throws IOException if the image cannot be deleted
+     */
+    void discardImage(String fileName) throws IOException;
 }
@@ -0,0 +1,125 @@
+package com.pop.codelab.chatopbackend.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The ImageStorage interface is the storage backend of the images, the originals as well as their variants.
+ * <p>
+ * The images are identified by their file name, a content key for the content-addressed images : each backend lays
+ * them out after {@link ImageStoragePaths#relativePath(String)}, so that the path of an image in its URL is the same
+ * whatever the backend. The content of an image is first written to a local staging file, whose bytes can be hashed
+ * and inspected, then put under its file name : the staging file is moved when the images are stored on the same
+ * file system, and uploaded otherwise.</p>
+ * <p>
+ * The backend is selected by the 'application.images.storage.type' property : {@code local}, {@code mapped} or
+ * {@code s3}. A missing image is reported by a {@link java.nio.file.NoSuchFileException}.</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+public interface ImageStorage {
+
+    /**
+     * Returns the local directory where the staging files are created, such as the temporary files of the uploads.
+     *
+     * @return the staging directory, which exists
+     */
+    Path getStagingDirectory();
+
+    /**
+     * Stores the content of a staging file under a file name, replacing the image stored under this name if any.
+     * The staging file is consumed : it is moved or deleted, even if the image cannot be stored.
+     *
+     * @param fileName   the file name of the image
+     * @param stagedFile the staging file holding the content of the image
+     * @throws IOException if the image cannot be stored
+     */
+    void put(String fileName, Path stagedFile) throws IOException;
+
+    /**
+     * Stores the content of a staging file under a file name without waiting for it, so that several images can
+     * be stored in parallel. The staging file is consumed as by {@link #put(String, Path)}.
+     *
+     * @param fileName   the file name of the image
+     * @param stagedFile the staging file holding the content of the image
+     * @return a future completed once the image is stored, or completed exceptionally if it cannot be stored
+     */
+    CompletableFuture<Void> putAsync(String fileName, Path stagedFile);
+
+    /**
+     * Opens a stream over the content of an image.
+     *
+     * @param fileName the file name of the image
+     * @return the content of the image, to be closed by the caller
+     * @throws IOException if the image is missing or cannot be read
+     */
+    InputStream get(String fileName) throws IOException;
+
+    /**
+     * Opens a stream over a range of bytes of an image.
+     *
+     * @param fileName the file name of the image
+     * @param start    the position of the first byte of the range
+     * @param length   the number of bytes of the range, which must lie within the image
+     * @return the bytes of the range, to be closed by the caller
+     * @throws IOException if the image is missing or cannot be read
+     */
+    InputStream get(String fileName, long start, long length) throws IOException;
+
+    /**
+     * Reads the whole content of an image outside the heap, in a direct or memory-mapped buffer.
+     *
+     * @param fileName the file name of the image
+     * @return the content of the image, from position 0 to its limit
+     * @throws IOException if the image is missing or cannot be read
+     */
+    ByteBuffer read(String fileName) throws IOException;
+
+    /**
+     * Reads the size and the last modification date of an image.
+     *
+     * @param fileName the file name of the image
+     * @return the attributes of the image, or an empty Optional if no image is stored under this name
+     * @throws IOException if the attributes cannot be read
+     */
+    Optional<ImageStorageAttributes> stat(String fileName) throws IOException;
+
+    /**
+     * Deletes an image, if it is stored.
+     *
+     * @param fileName the file name of the image
+     * @throws IOException if the image cannot be deleted
+     */
+    void delete(String fileName) throws IOException;
+
+    /**
+     * Lists the file names of all the stored images.
+     *
+     * @return the file names of the images, in no particular order
+     * @throws IOException if the images cannot be listed
+     */
+    List<String> listFileNames() throws IOException;
+
+    /**
+     * Returns the path of an image when the images are stored on a local file system, so that it can be sent
+     * without being copied through the heap. The image may not exist.
+     *
+     * @param fileName the file name of the image
+     * @return the path of the image, or an empty Optional if the images are not stored on a local file system
+     */
+    Optional<Path> getLocalPath(String fileName);
+
+    /**
+     * Returns the directory holding the images when they are stored on a local file system, so that it can be
+     * watched for the images added or removed by other means.
+     *
+     * @return the directory of the images, or an empty Optional if the images are not stored on a local file system
+     */
+    Optional<Path> getLocalDirectory();
+}
@@ -0,0 +1,35 @@
+package com.pop.codelab.chatopbackend.services;
+
+import lombok.Getter;
+
+/**
+ * The ImageStorageAttributes class holds the attributes of an image read from its storage backend.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ * @see ImageStorage#stat(String)
+ */
+@Getter
+public final class ImageStorageAttributes {
+
+    /**
+     * The size variable represents the size of the image, in bytes.
+     */
+    private final long size;
+
+    /**
+     * The lastModified variable represents the last modification date of the image, in milliseconds.
+     */
+    private final long lastModified;
+
+    /**
+     * Constructs the attributes of an image.
+     *
+     * @param size         the size of the image, in bytes
+     * @param lastModified the last modification date of the image, in milliseconds
+     */
+    public ImageStorageAttributes(final long size, final long lastModified) {
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+}
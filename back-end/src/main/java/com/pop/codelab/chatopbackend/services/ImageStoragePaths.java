@@ -0,0 +1,75 @@
+package com.pop.codelab.chatopbackend.services;
+
+import java.nio.file.Path;
+import java.util.regex.Pattern;
+
+/**
+ * The ImageStoragePaths class lays out the stored images in the upload directory.
+ * <p>
+ * An image is stored under its content key : the hexadecimal SHA-256 hash of its bytes followed by the extension of
+ * its format. The images and their variants are spread over a two-level directory fan-out taken from the first
+ * characters of the hash ({@code ab/cd/abcd...}), so that no directory holds too many files. The images stored before
+ * the content keys, named after their upload, stay at the root of the upload directory.</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+public final class ImageStoragePaths {
+
+    /**
+     * The file names of the content-addressed images and of their variants : the hash, an optional variant name and
+     * an optional extension.
+     */
+    private static final Pattern CONTENT_KEY_FILE_NAME = Pattern.compile("[0-9a-f]{64}(-[a-z]+)?(\\.[a-z0-9]+)?");
+
+    /**
+     * The utility class is not instantiated.
+     */
+    private ImageStoragePaths() {
+    }
+
+    /**
+     * Builds the content key of an image.
+     *
+     * @param sha256Hex the hexadecimal SHA-256 hash of the bytes of the image
+     * @param extension the extension of the format of the image, without the dot
+     * @return the content key of the image
+     */
+    public static String contentKey(final String sha256Hex, final String extension) {
+        return sha256Hex + "." + extension;
+    }
+
+    /**
+     * Tells whether a file name is a content key, or the name of the variant of a content-addressed image.
+     *
+     * @param fileName the file name of an image
+     * @return true if the image is stored in the directory fan-out
+     */
+    public static boolean isContentAddressed(final String fileName) {
+        return CONTENT_KEY_FILE_NAME.matcher(fileName).matches();
+    }
+
+    /**
+     * Returns the path of an image relative to the upload directory, with '/' separators.
+     *
+     * @param fileName the file name of the image
+     * @return {@code ab/cd/<fileName>} for a content-addressed image, the file name otherwise
+     */
+    public static String relativePath(final String fileName) {
+        if (!isContentAddressed(fileName)) {
+            return fileName;
+        }
+        return fileName.substring(0, 2) + "/" + fileName.substring(2, 4) + "/" + fileName;
+    }
+
+    /**
+     * Resolves the path of an image in the upload directory.
+     *
+     * @param uploadPath the upload directory
+     * @param fileName   the file name of the image
+     * @return the path of the image
+     */
+    public static Path resolve(final Path uploadPath, final String fileName) {
+        return uploadPath.resolve(relativePath(fileName));
+    }
+}
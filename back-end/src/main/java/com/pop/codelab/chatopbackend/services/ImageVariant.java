@@ -0,0 +1,106 @@
+package com.pop.codelab.chatopbackend.services;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The ImageVariant enum represents the fixed-size variants generated from each uploaded image.
+ * A variant is stored next to its original image, under the file name of the original suffixed by the name of the
+ * variant ({@code <hash>-thumb.jpg}), and is never larger than the original.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+public enum ImageVariant {
+
+    /**
+     * The thumbnail, shown by the rental lists.
+     */
+    THUMB(200),
+
+    /**
+     * The card picture, shown by the rental cards.
+     */
+    CARD(640),
+
+    /**
+     * The full-size picture, shown by the rental details.
+     */
+    FULL(1600);
+
+    /**
+     * The maxSize variable represents the maximum width and height of the variant, in pixels.
+     */
+    private final int maxSize;
+
+    /**
+     * Creates an image variant.
+     *
+     * @param maxSize the maximum width and height of the variant, in pixels
+     */
+    ImageVariant(final int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the maximum width and height of the variant.
+     *
+     * @return the maximum width and height of the variant, in pixels
+     */
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    /**
+     * Returns the name of the variant, as used in the file names and in the rentals table.
+     *
+     * @return the lower case name of the variant
+     */
+    public String getName() {
+        return this.name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the file name of the variant of an image : the name of the variant is inserted before the extension,
+     * so that the variants of a content-addressed image are stored next to it.
+     *
+     * @param fileName the file name of the original image
+     * @return the file name of the variant, stored next to the original image
+     */
+    public String fileName(final String fileName) {
+        int extension = fileName.lastIndexOf('.');
+        if (extension < 0) {
+            return fileName + "-" + this.getName();
+        }
+        return fileName.substring(0, extension) + "-" + this.getName() + fileName.substring(extension);
+    }
+
+    /**
+     * Joins variant names, as they are recorded in the rentals table.
+     *
+     * @param variants the image variants
+     * @return the comma separated names of the variants, in the order of the enum
+     */
+    public static String join(final Set<ImageVariant> variants) {
+        return variants.stream().sorted().map(ImageVariant::getName).collect(Collectors.joining(","));
+    }
+
+    /**
+     * Splits variant names, as they are recorded in the rentals table.
+     *
+     * @param names the comma separated names of the variants, may be null or empty
+     * @return the image variants
+     */
+    public static Set<ImageVariant> split(final String names) {
+        Set<ImageVariant> variants = EnumSet.noneOf(ImageVariant.class);
+        if (names != null && !names.isBlank()) {
+            Arrays.stream(names.split(","))
+                    .map(name -> ImageVariant.valueOf(name.strip().toUpperCase(Locale.ROOT)))
+                    .forEach(variants::add);
+        }
+        return variants;
+    }
+}
@@ -0,0 +1,24 @@
+package com.pop.codelab.chatopbackend.services;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The ImageVariantProcessor interface generates the fixed-size variants of the uploaded images in the background.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ * @see ImageVariant
+ */
+public interface ImageVariantProcessor {
+
+    /**
+     * Queues the generation of the variants of an image, stored in the image storage along with it.
+     * The call returns at once : the variants are generated by a bounded pool of workers.
+     *
+     * @param fileName the file name of the original image
+     * @return a future completed with the variants generated, empty if the image format is not supported, or
+     * completed exceptionally if the image cannot be processed or if the queue of the workers is full
+     */
+    CompletableFuture<Set<ImageVariant>> submit(String fileName);
+}
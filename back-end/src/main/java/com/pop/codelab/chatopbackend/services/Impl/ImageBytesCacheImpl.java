@@ -0,0 +1,390 @@
+package com.pop.codelab.chatopbackend.services.Impl;
+
+import com.pop.codelab.chatopbackend.services.CachedImage;
+import com.pop.codelab.chatopbackend.services.ImageBytesCache;
+import com.pop.codelab.chatopbackend.services.ImageStorage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The ImageBytesCacheImpl class is an implementation of the ImageBytesCache interface.
+ * <p>
+ * The bytes of the images are held outside the heap, in the direct or memory-mapped buffers read from the image
+ * storage : the cache neither grows the heap nor the work of the garbage collector, whatever its size. The memory
+ * used is bounded by the 'application.images.cache.max-bytes' property, which must stay below the
+ * {@code -XX:MaxDirectMemorySize} option of the JVM (the maximum heap size by default) for the direct buffers.</p>
+ * <p>
+ * The images are evicted from the least recently requested one, until the total size of the cached images fits the
+ * limit. An image only enters the cache when it has been requested at least twice, and more often than the images
+ * it would evict : the frequencies of the requests are counted by a count-min sketch, a few bytes per image
+ * whatever the number of images, whose counters are halved periodically so that the past popularity fades away.
+ * A burst of requests on images requested once, such as a crawler going through the rentals, cannot flush the
+ * popular images out of the cache.</p>
+ * <p>
+ * The requests, the admissions and the evictions, the size of the cache and its hit ratio are published as
+ * Micrometer metrics (images.cache.*).</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@Service
+@RequiredArgsConstructor
+@Log4j2
+public class ImageBytesCacheImpl implements ImageBytesCache {
+
+    /**
+     * The minimum number of requests of an image, within the sampling period of the sketch, to enter the cache.
+     */
+    private static final int MIN_ADMISSION_FREQUENCY = 2;
+
+    /**
+     * The average size of the cached images assumed to size the frequency sketch.
+     */
+    private static final long AVERAGE_IMAGE_SIZE = 16 * 1024;
+
+    /**
+     * The maxBytes variable represents the maximum total size of the cached images, 0 to disable the cache.
+     * It is set using the value from the application property 'application.images.cache.max-bytes'.
+     */
+    @Value("${application.images.cache.max-bytes}")
+    private long maxBytes;
+
+    /**
+     * The maxImageSize variable represents the size of the largest image cached. The larger images are always
+     * sent from their file.
+     * It is set using the value from the application property 'application.images.cache.max-image-size'.
+     */
+    @Value("${application.images.cache.max-image-size}")
+    private long maxImageSize;
+
+    /**
+     * The meterRegistry variable represents the registry of the metrics of the cache.
+     */
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * The imageStorage variable represents the storage backend the cached images are read from.
+     */
+    private final ImageStorage imageStorage;
+
+    /**
+     * The images variable holds the cached images by key, from the least recently requested one.
+     * It is guarded by the lock of the cache.
+     */
+    private final LinkedHashMap<String, CachedImage> images = new LinkedHashMap<>(256, 0.75f, true);
+
+    /**
+     * The sketch variable counts the requests of the images, cached or not.
+     * It is guarded by the lock of the cache.
+     */
+    private FrequencySketch sketch;
+
+    /**
+     * The usedBytes variable represents the total size of the cached images.
+     * It is guarded by the lock of the cache.
+     */
+    private long usedBytes;
+
+    /**
+     * The hitCounter variable counts the requests served from the cache.
+     */
+    private Counter hitCounter;
+
+    /**
+     * The missCounter variable counts the requests of images which were not cached.
+     */
+    private Counter missCounter;
+
+    /**
+     * The admittedCounter variable counts the images loaded into the cache.
+     */
+    private Counter admittedCounter;
+
+    /**
+     * The rejectedCounter variable counts the images refused by the admission policy.
+     */
+    private Counter rejectedCounter;
+
+    /**
+     * The evictionCounter variable counts the images evicted to make room for others.
+     */
+    private Counter evictionCounter;
+
+    /**
+     * Sizes the frequency sketch and registers the metrics of the cache.
+     */
+    @PostConstruct
+    public void init() {
+        this.sketch = new FrequencySketch((int) Math.min(1 << 20, Math.max(256, this.maxBytes / AVERAGE_IMAGE_SIZE)));
+        this.hitCounter = Counter.builder("images.cache.requests").tag("result", "hit")
+                .description("Image requests, by cache result").register(this.meterRegistry);
+        this.missCounter = Counter.builder("images.cache.requests").tag("result", "miss")
+                .description("Image requests, by cache result").register(this.meterRegistry);
+        this.admittedCounter = Counter.builder("images.cache.admissions").tag("result", "admitted")
+                .description("Admission decisions of the cache").register(this.meterRegistry);
+        this.rejectedCounter = Counter.builder("images.cache.admissions").tag("result", "rejected")
+                .description("Admission decisions of the cache").register(this.meterRegistry);
+        this.evictionCounter = Counter.builder("images.cache.evictions")
+                .description("Images evicted from the cache").register(this.meterRegistry);
+        Gauge.builder("images.cache.size", this, cache -> cache.usedBytes)
+                .description("Total size of the cached images")
+                .baseUnit("bytes")
+                .register(this.meterRegistry);
+        Gauge.builder("images.cache.entries", this.images, Map::size)
+                .description("Number of cached images")
+                .register(this.meterRegistry);
+        Gauge.builder("images.cache.hit.ratio", this, ImageBytesCacheImpl::hitRatio)
+                .description("Share of the image requests served from the cache")
+                .register(this.meterRegistry);
+        log.info("Image bytes cache : {} bytes at most, images up to {} bytes", this.maxBytes, this.maxImageSize);
+    }
+
+    /**
+     * Retrieves a cached image, and records the request of the image, cached or not.
+     *
+     * @param key the file name of the image
+     * @return the cached image, or an empty Optional if the image is not cached
+     */
+    public Optional<CachedImage> get(final String key) {
+        CachedImage image;
+        synchronized (this) {
+            this.sketch.increment(key);
+            image = this.images.get(key);
+        }
+        (image == null ? this.missCounter : this.hitCounter).increment();
+        return Optional.ofNullable(image);
+    }
+
+    /**
+     * Loads an image into the cache, provided that it has been requested often enough to deserve its room.
+     * The image is read from the image storage outside the lock of the cache.
+     *
+     * @param key          the file name of the image
+     * @param size         the size of the image
+     * @param lastModified the last modification date of the image, in milliseconds
+     * @return the image loaded, or an empty Optional if the image has not been admitted into the cache
+     */
+    public Optional<CachedImage> admit(final String key, final long size, final long lastModified) {
+        if (size <= 0 || size > this.maxImageSize || size > this.maxBytes) {
+            return Optional.empty();
+        }
+        synchronized (this) {
+            CachedImage cached = this.images.get(key);
+            if (cached != null && cached.getLastModified() == lastModified) {
+                // Loaded by a concurrent request in the meantime
+                return Optional.of(cached);
+            }
+            if (!shouldAdmit(key, size)) {
+                this.rejectedCounter.increment();
+                return Optional.empty();
+            }
+        }
+        ByteBuffer content;
+        try {
+            content = this.imageStorage.read(key);
+        } catch (IOException e) {
+            log.warn("The image {} cannot be loaded into the cache : {}", key, e.getMessage());
+            return Optional.empty();
+        }
+        if (content.remaining() != size) {
+            // The image has changed since its attributes have been read
+            return Optional.empty();
+        }
+        CachedImage image = new CachedImage(content, lastModified);
+        synchronized (this) {
+            remove(key);
+            while (this.usedBytes + size > this.maxBytes && !this.images.isEmpty()) {
+                Iterator<Map.Entry<String, CachedImage>> leastRecent = this.images.entrySet().iterator();
+                this.usedBytes -= leastRecent.next().getValue().getSize();
+                leastRecent.remove();
+                this.evictionCounter.increment();
+            }
+            this.images.put(key, image);
+            this.usedBytes += size;
+        }
+        this.admittedCounter.increment();
+        return Optional.of(image);
+    }
+
+    /**
+     * Removes an image from the cache, once it has been deleted or replaced.
+     *
+     * @param key the file name of the image
+     */
+    public synchronized void invalidate(final String key) {
+        remove(key);
+    }
+
+    /**
+     * Checks whether an image deserves to enter the cache : it must have been requested at least
+     * {@link #MIN_ADMISSION_FREQUENCY} times, and more often than each of the images it would evict.
+     * It must be called under the lock of the cache.
+     *
+     * @param key  the key of the candidate image
+     * @param size the size of the candidate image
+     * @return true if the image must be loaded into the cache
+     */
+    private boolean shouldAdmit(final String key, final long size) {
+        int frequency = this.sketch.frequency(key);
+        if (frequency < MIN_ADMISSION_FREQUENCY) {
+            return false;
+        }
+        long missingBytes = this.usedBytes + size - this.maxBytes;
+        Iterator<String> leastRecent = this.images.keySet().iterator();
+        while (missingBytes > 0 && leastRecent.hasNext()) {
+            String victim = leastRecent.next();
+            if (!victim.equals(key)) {
+                if (this.sketch.frequency(victim) >= frequency) {
+                    return false;
+                }
+                missingBytes -= this.images.get(victim).getSize();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes an image from the cache. It must be called under the lock of the cache.
+     *
+     * @param key the key of the image
+     */
+    private void remove(final String key) {
+        CachedImage removed = this.images.remove(key);
+        if (removed != null) {
+            this.usedBytes -= removed.getSize();
+        }
+    }
+
+    /**
+     * Computes the share of the image requests served from the cache since the start of the application.
+     *
+     * @return the hit ratio, between 0 and 1
+     */
+    private double hitRatio() {
+        double hits = this.hitCounter.count();
+        double requests = hits + this.missCounter.count();
+        return requests == 0 ? 0 : hits / requests;
+    }
+
+    /**
+     * The FrequencySketch class estimates the number of requests of each image with a count-min sketch : four rows
+     * of 4-bit counters, each image being counted by one counter per row, the estimate being the smallest of its
+     * counters. The estimates may be too high, never too low.
+     * <p>
+     * Once the number of increments reaches ten times the width of the rows, all the counters are halved, so that
+     * the estimates reflect the recent requests. The class is not thread-safe.</p>
+     */
+    static final class FrequencySketch {
+
+        /**
+         * The seeds of the hash functions of the rows.
+         */
+        private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+                0xcbf29ce484222325L};
+
+        /**
+         * The maximum value of a counter.
+         */
+        private static final int MAX_COUNT = 15;
+
+        /**
+         * The counters of the rows, one counter per byte.
+         */
+        private final byte[][] rows = new byte[SEEDS.length][];
+
+        /**
+         * The mask giving the index of a counter in a row from a hash.
+         */
+        private final int mask;
+
+        /**
+         * The number of increments after which the counters are halved.
+         */
+        private final int sampleSize;
+
+        /**
+         * The number of increments since the counters have last been halved.
+         */
+        private int increments;
+
+        /**
+         * Constructs a sketch sized for the given number of distinct images.
+         *
+         * @param expectedImages the expected number of distinct images requested within a sampling period
+         */
+        FrequencySketch(final int expectedImages) {
+            int width = Integer.highestOneBit(Math.max(16, expectedImages - 1) << 1);
+            for (int row = 0; row < this.rows.length; row++) {
+                this.rows[row] = new byte[width];
+            }
+            this.mask = width - 1;
+            this.sampleSize = 10 * width;
+        }
+
+        /**
+         * Records a request of an image.
+         *
+         * @param key the key of the image
+         */
+        void increment(final String key) {
+            int hash = key.hashCode();
+            int frequency = frequency(key);
+            for (int row = 0; row < this.rows.length; row++) {
+                byte[] counters = this.rows[row];
+                int index = index(hash, row);
+                // Conservative update : only the smallest counters are incremented, which tightens the estimates
+                if (counters[index] == frequency && frequency < MAX_COUNT) {
+                    counters[index]++;
+                }
+            }
+            if (++this.increments == this.sampleSize) {
+                for (byte[] counters : this.rows) {
+                    for (int index = 0; index < counters.length; index++) {
+                        counters[index] >>= 1;
+                    }
+                }
+                this.increments /= 2;
+            }
+        }
+
+        /**
+         * Estimates the number of requests of an image within the current sampling period.
+         *
+         * @param key the key of the image
+         * @return the estimated number of requests, at most 15
+         */
+        int frequency(final String key) {
+            int hash = key.hashCode();
+            int frequency = MAX_COUNT;
+            for (int row = 0; row < this.rows.length; row++) {
+                frequency = Math.min(frequency, this.rows[row][index(hash, row)]);
+            }
+            return frequency;
+        }
+
+        /**
+         * Computes the index of the counter of an image in a row.
+         *
+         * @param hash the hash code of the key of the image
+         * @param row  the row
+         * @return the index of the counter
+         */
+        private int index(final int hash, final int row) {
+            long mixed = (hash + SEEDS[row]) * SEEDS[row];
+            return (int) (mixed ^ (mixed >>> 32)) & this.mask;
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package com.pop.codelab.chatopbackend.services.Impl;
+
+import com.pop.codelab.chatopbackend.services.ImageCatalogue;
+import com.pop.codelab.chatopbackend.services.ImageStorage;
+import com.pop.codelab.chatopbackend.services.ImageStoragePaths;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * The ImageCatalogueImpl class is an implementation of the ImageCatalogue interface.
+ * <p>
+ * It indexes the images of the image storage in memory, with the encoded path each image is served at, precomputed
+ * from the storage layout of the image. The URL of an image is this path following the configured images base URL
+ * or, when none is configured, the images URL of the current request. The index is filled by a scan of the
+ * storage at startup, then it is kept up to date by the uploads and, for the images added or removed by other
+ * means, by a WatchService when the images are stored in a local directory, or by a periodic listing of the
+ * storage otherwise (the images of the other nodes sharing an object storage). The hidden files (temporary files
+ * of the uploads and of the image variants) are ignored.
+ * </p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 3.0
+ */
+@Service
+@RequiredArgsConstructor
+@Log4j2
+public class ImageCatalogueImpl implements ImageCatalogue {
+
+    /**
+     * The IMAGES_PATH constant represents the path the images are served at, relative to the context path.
+     */
+    private static final String IMAGES_PATH = "/images/";
+
+    /**
+     * The IMAGES_BASE_URL_ATTRIBUTE constant represents the request attribute holding the images base URL of the
+     * current request, so that it is built once by request whatever the number of images it serves.
+     */
+    private static final String IMAGES_BASE_URL_ATTRIBUTE = ImageCatalogueImpl.class.getName() + ".IMAGES_BASE_URL";
+
+    /**
+     * The imagesBaseUrl variable represents the base URL the images are served at.
+     * The URL of an image is this base URL followed by the encoded path of the image. When it is empty, the images
+     * base URL is built from the current request.
+     * It is set using the value from the application property 'application.local-storage.images-base-url'.
+     */
+    @Value("${application.local-storage.images-base-url:}")
+    private String imagesBaseUrl;
+
+    /**
+     * The contextPath variable represents the context path of the application, which starts the URL of the images
+     * served outside any request when no images base URL is configured.
+     * It is set using the value from the application property 'server.servlet.context-path'.
+     */
+    @Value("${server.servlet.context-path:}")
+    private String contextPath;
+
+    /**
+     * The imageStorage variable represents the storage backend of the images.
+     */
+    private final ImageStorage imageStorage;
+
+    /**
+     * The imageUrls variable maps the file name of each stored image to its encoded path, following the images base
+     * URL it is served at.
+     */
+    private final Map<String, String> imageUrls = new ConcurrentHashMap<>();
+
+    /**
+     * The watchService variable watches the local directory of the images and its subdirectories for files created
+     * or deleted. It is null when the images are not stored in a local directory.
+     */
+    private WatchService watchService;
+
+    /**
+     * The watchedDirectories variable maps the key of each watched directory to its path, as the watch events
+     * only hold paths relative to their directory.
+     */
+    private final Map<WatchKey, Path> watchedDirectories = new ConcurrentHashMap<>();
+
+    /**
+     * Scans the image storage to fill the catalogue, then starts watching its local directory, if any.
+     *
+     * @throws IOException if the local directory cannot be watched, or the storage cannot be listed
+     */
+    @PostConstruct
+    public void init() throws IOException {
+        Optional<Path> localDirectory = imageStorage.getLocalDirectory();
+        if (localDirectory.isEmpty()) {
+            imageStorage.listFileNames().forEach(this::register);
+            log.info("Image catalogue initialized with {} image(s) from the image storage", imageUrls.size());
+            return;
+        }
+        Path uploadPath = localDirectory.get();
+        this.watchService = uploadPath.getFileSystem().newWatchService();
+        this.scan(uploadPath);
+        Thread watcher = new Thread(() -> this.watch(uploadPath), "image-catalogue-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        log.info("Image catalogue initialized with {} image(s) from {}", imageUrls.size(), uploadPath.toAbsolutePath());
+    }
+
+    /**
+     * Lists the image storage when it is not a local directory, to catch up with the images added or removed by
+     * the other nodes. An image registered while the storage is listed is kept, even if the listing misses it.
+     * The interval between two listings is set by the 'application.images.storage.rescan-interval' property.
+     */
+    @Scheduled(fixedDelayString = "${application.images.storage.rescan-interval}",
+            initialDelayString = "${application.images.storage.rescan-interval}")
+    public void rescan() {
+        if (this.watchService != null) {
+            return;
+        }
+        Set<String> catalogued = new HashSet<>(imageUrls.keySet());
+        try {
+            Set<String> stored = new HashSet<>(imageStorage.listFileNames());
+            stored.forEach(this::register);
+            catalogued.removeAll(stored);
+            catalogued.forEach(this::unregister);
+            log.debug("Image catalogue rescanned : {} image(s), {} removed", imageUrls.size(), catalogued.size());
+        } catch (IOException e) {
+            log.warn("The image storage cannot be listed : {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Stops watching the local directory of the images.
+     *
+     * @throws IOException if the watch service cannot be closed
+     */
+    @PreDestroy
+    public void destroy() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    /**
+     * Registers an image which has just been stored.
+     *
+     * @param fileName the file name of the image
+     */
+    public void register(final String fileName) {
+        imageUrls.computeIfAbsent(fileName, ImageCatalogueImpl::encodeImagePath);
+    }
+
+    /**
+     * Removes an image from the catalogue.
+     *
+     * @param fileName the file name of the image
+     */
+    public void unregister(final String fileName) {
+        imageUrls.remove(fileName);
+    }
+
+    /**
+     * Returns the URL an image is served at, without any filesystem access.
+     *
+     * @param fileName the file name of the image
+     * @return the URL of the image, or an empty string if the image is not stored
+     */
+    public String getImageUrl(final String fileName) {
+        String imagePath = imageUrls.get(fileName);
+        return imagePath == null ? "" : this.getImagesBaseUrl() + imagePath;
+    }
+
+    /**
+     * Returns the file name of a stored image from its path in the images URL, without any storage access.
+     * Only the paths of the catalogued images, laid out as they are stored, are resolved : a path leading out of the
+     * image storage, or to a hidden file, is never resolved.
+     *
+     * @param relativePath the path of the image in the image storage, as found in its URL
+     * @return the file name of the image, or an empty Optional if no image of the catalogue is stored at this path
+     */
+    public Optional<String> getImageFileName(final String relativePath) {
+        String fileName = relativePath.substring(relativePath.lastIndexOf('/') + 1);
+        if (!imageUrls.containsKey(fileName) || !ImageStoragePaths.relativePath(fileName).equals(relativePath)) {
+            return Optional.empty();
+        }
+        return Optional.of(fileName);
+    }
+
+    /**
+     * Returns the base URL the images are served at : the configured images base URL, otherwise the images URL of
+     * the current request, built once by request. Outside any request, the images URL is relative to the host.
+     *
+     * @return the images base URL, ending with a slash
+     */
+    private String getImagesBaseUrl() {
+        if (!imagesBaseUrl.isEmpty()) {
+            return imagesBaseUrl;
+        }
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return contextPath + IMAGES_PATH;
+        }
+        String baseUrl = (String) attributes.getAttribute(IMAGES_BASE_URL_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (baseUrl == null) {
+            baseUrl = ServletUriComponentsBuilder.fromContextPath(attributes.getRequest()).path(IMAGES_PATH)
+                    .toUriString();
+            attributes.setAttribute(IMAGES_BASE_URL_ATTRIBUTE, baseUrl, RequestAttributes.SCOPE_REQUEST);
+        }
+        return baseUrl;
+    }
+
+    /**
+     * Encodes the path an image is served at, following the images base URL.
+     *
+     * @param fileName the file name of the image
+     * @return the encoded path of the image in the image storage
+     */
+    private static String encodeImagePath(final String fileName) {
+        return UriUtils.encodePath(ImageStoragePaths.relativePath(fileName), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Watches a directory and its subdirectories, and registers each image found in them. The directories are
+     * watched before being listed, so that no file created meanwhile is missed.
+     *
+     * @param directory the directory to scan
+     */
+    private void scan(final Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.forEach(path -> {
+                if (Files.isDirectory(path)) {
+                    this.watchDirectory(path);
+                } else if (isImage(path)) {
+                    this.register(path.getFileName().toString());
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            log.error("The image directory {} cannot be scanned.", directory, e);
+        }
+    }
+
+    /**
+     * Registers a directory to the watch service.
+     *
+     * @param directory the directory to watch
+     */
+    private void watchDirectory(final Path directory) {
+        try {
+            WatchKey key = directory.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE);
+            watchedDirectories.put(key, directory);
+        } catch (IOException e) {
+            log.error("The image directory {} cannot be watched.", directory, e);
+        }
+    }
+
+    /**
+     * Tells whether a file is an image of the catalogue : a regular file which is not hidden.
+     *
+     * @param path the path of the file
+     * @return true if the file is an image
+     */
+    private static boolean isImage(final Path path) {
+        return Files.isRegularFile(path) && !path.getFileName().toString().startsWith(".");
+    }
+
+    /**
+     * Processes the events of the watch service until it is closed.
+     * The catalogue is rescanned when events have been lost.
+     *
+     * @param uploadPath the local directory of the images
+     */
+    private void watch(final Path uploadPath) {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Path directory = watchedDirectories.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW || directory == null) {
+                        log.warn("Image catalogue events have been lost, rescanning {}", uploadPath);
+                        this.scan(uploadPath);
+                        continue;
+                    }
+                    Path path = directory.resolve((Path) event.context());
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                        if (Files.isDirectory(path)) {
+                            this.scan(path);
+                        } else if (isImage(path)) {
+                            this.register(path.getFileName().toString());
+                        }
+                    } else {
+                        this.unregister(path.getFileName().toString());
+                    }
+                }
+                if (!key.reset()) {
+                    watchedDirectories.remove(key);
+                    if (directory != null && directory.equals(uploadPath)) {
+                        log.error("The upload directory {} is no longer watched.", uploadPath);
+                        return;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            log.debug("Image catalogue watcher stopped.");
+        }
+    }
+}
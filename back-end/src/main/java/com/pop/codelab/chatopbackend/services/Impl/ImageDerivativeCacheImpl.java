@@ -0,0 +1,432 @@
+package com.pop.codelab.chatopbackend.services.Impl;
+
+import com.pop.codelab.chatopbackend.services.ImageDerivativeCache;
+import com.pop.codelab.chatopbackend.services.ImageStorage;
+import com.pop.codelab.chatopbackend.services.ImageStorageAttributes;
+import com.pop.codelab.chatopbackend.services.ImageStoragePaths;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * The ImageDerivativeCacheImpl class is an implementation of the ImageDerivativeCache interface.
+ * <p>
+ * The derivatives are written to a local directory, named after their image and their size, and evicted from the
+ * least recently requested one once their total size exceeds the 'application.images.resize.max-bytes' property :
+ * the recency of the derivatives is kept in memory, and rebuilt from the modification dates of their files at
+ * startup. The derivatives are served from their file, without being copied through the heap.</p>
+ * <p>
+ * A derivative is resized once however many requests ask for it at the same time : the first request resizes the
+ * image, the next ones wait for its result. The resizings are bounded by the
+ * 'application.images.resize.max-concurrent' property, so that the requests of many different derivatives cannot
+ * take all the CPU. The requests of the derivatives, the resizings and the evictions are published as Micrometer
+ * metrics (images.derivatives.*).</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@Service
+@RequiredArgsConstructor
+@Log4j2
+public class ImageDerivativeCacheImpl implements ImageDerivativeCache {
+
+    /**
+     * The prefix of the temporary files of the derivatives being written.
+     */
+    private static final String TEMPORARY_FILE_PREFIX = ".derivative-";
+
+    /**
+     * The cacheDirectory variable represents the local directory of the derivatives.
+     * It is set using the value from the application property 'application.images.resize.cache-directory'.
+     */
+    @Value("${application.images.resize.cache-directory}")
+    private String cacheDirectory;
+
+    /**
+     * The maxBytes variable represents the maximum total size of the derivatives kept on the disk.
+     * It is set using the value from the application property 'application.images.resize.max-bytes'.
+     */
+    @Value("${application.images.resize.max-bytes}")
+    private long maxBytes;
+
+    /**
+     * The widths variable represents the whitelist of the widths of the derivatives, in pixels.
+     * It is set using the value from the application property 'application.images.resize.widths'.
+     */
+    @Value("${application.images.resize.widths}")
+    private Set<Integer> widths;
+
+    /**
+     * The heights variable represents the whitelist of the heights of the derivatives, in pixels.
+     * It is set using the value from the application property 'application.images.resize.heights'.
+     */
+    @Value("${application.images.resize.heights}")
+    private Set<Integer> heights;
+
+    /**
+     * The qualities variable represents the whitelist of the qualities of the JPEG derivatives, from 1 to 100.
+     * It is set using the value from the application property 'application.images.resize.qualities'.
+     */
+    @Value("${application.images.resize.qualities}")
+    private Set<Integer> qualities;
+
+    /**
+     * The maxConcurrent variable represents the maximum number of images resized at the same time.
+     * It is set using the value from the application property 'application.images.resize.max-concurrent'.
+     */
+    @Value("${application.images.resize.max-concurrent}")
+    private int maxConcurrent;
+
+    /**
+     * The maxPixels variable represents the maximum number of pixels of an image resized.
+     * It is set using the value from the application property 'application.images.variants.max-pixels'.
+     */
+    @Value("${application.images.variants.max-pixels}")
+    private long maxPixels;
+
+    /**
+     * The jpegQuality variable represents the default quality, between 0 and 1, of the JPEG derivatives.
+     * It is set using the value from the application property 'application.images.variants.jpeg-quality'.
+     */
+    @Value("${application.images.variants.jpeg-quality}")
+    private float jpegQuality;
+
+    /**
+     * The imageStorage variable represents the storage backend the images are read from.
+     */
+    private final ImageStorage imageStorage;
+
+    /**
+     * The meterRegistry variable represents the registry of the metrics of the cache.
+     */
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * The sizes variable holds the size of each derivative by file name, from the least recently requested one.
+     * It is guarded by the lock of the cache.
+     */
+    private final LinkedHashMap<String, Long> sizes = new LinkedHashMap<>(256, 0.75f, true);
+
+    /**
+     * The resizings variable holds the resizings in progress by derivative file name, which the concurrent
+     * requests of the same derivative wait for.
+     */
+    private final Map<String, CompletableFuture<Optional<Path>>> resizings = new ConcurrentHashMap<>();
+
+    /**
+     * The usedBytes variable represents the total size of the derivatives.
+     * It is guarded by the lock of the cache.
+     */
+    private long usedBytes;
+
+    /**
+     * The directory of the derivatives.
+     */
+    private Path directory;
+
+    /**
+     * The permits of the resizings running at the same time.
+     */
+    private Semaphore resizePermits;
+
+    /**
+     * The hitCounter variable counts the requests of derivatives already on the disk.
+     */
+    private Counter hitCounter;
+
+    /**
+     * The missCounter variable counts the requests of derivatives which have been resized.
+     */
+    private Counter missCounter;
+
+    /**
+     * The coalescedCounter variable counts the requests which have waited for the resizing of another request.
+     */
+    private Counter coalescedCounter;
+
+    /**
+     * The evictionCounter variable counts the derivatives evicted to make room for others.
+     */
+    private Counter evictionCounter;
+
+    /**
+     * The resizeTimer variable measures the time taken to resize an image.
+     */
+    private Timer resizeTimer;
+
+    /**
+     * Creates the directory of the derivatives, registers the metrics of the cache, then indexes the derivatives
+     * left by a previous run, from the oldest one.
+     *
+     * @throws IOException if the directory cannot be created or listed
+     */
+    @PostConstruct
+    public void init() throws IOException {
+        this.directory = Files.createDirectories(Path.of(this.cacheDirectory));
+        this.resizePermits = new Semaphore(Math.max(1, this.maxConcurrent));
+        this.hitCounter = Counter.builder("images.derivatives.requests").tag("result", "hit")
+                .description("Derivative requests, by cache result").register(this.meterRegistry);
+        this.missCounter = Counter.builder("images.derivatives.requests").tag("result", "miss")
+                .description("Derivative requests, by cache result").register(this.meterRegistry);
+        this.coalescedCounter = Counter.builder("images.derivatives.requests").tag("result", "coalesced")
+                .description("Derivative requests, by cache result").register(this.meterRegistry);
+        this.evictionCounter = Counter.builder("images.derivatives.evictions")
+                .description("Derivatives evicted from the disk").register(this.meterRegistry);
+        this.resizeTimer = Timer.builder("images.derivatives.resizing")
+                .description("Time taken to resize an image").register(this.meterRegistry);
+        Gauge.builder("images.derivatives.size", this, cache -> cache.usedBytes)
+                .description("Total size of the derivatives on the disk")
+                .baseUnit("bytes")
+                .register(this.meterRegistry);
+        List<Path> derivatives = new ArrayList<>();
+        try (Stream<Path> files = Files.list(this.directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (file.getFileName().toString().startsWith(TEMPORARY_FILE_PREFIX)) {
+                    Files.deleteIfExists(file);
+                } else if (Files.isRegularFile(file)) {
+                    derivatives.add(file);
+                }
+            }
+        }
+        derivatives.sort(Comparator.comparing(file -> file.toFile().lastModified()));
+        for (Path derivative : derivatives) {
+            for (String evicted : this.add(derivative.getFileName().toString(), Files.size(derivative))) {
+                Files.deleteIfExists(this.directory.resolve(evicted));
+            }
+        }
+        log.info("Image derivatives cached in {} : {} derivative(s), {} bytes at most",
+                this.directory.toAbsolutePath(), derivatives.size(), this.maxBytes);
+    }
+
+    @Override
+    public boolean isAllowed(final int width, final int height, final int quality) {
+        return (width > 0 || height > 0)
+                && (width == 0 || this.widths.contains(width))
+                && (height == 0 || this.heights.contains(height))
+                && (quality == 0 || this.qualities.contains(quality));
+    }
+
+    @Override
+    public Optional<Path> getDerivative(final String fileName, final int width, final int height,
+                                        final int quality) throws IOException {
+        String suffix = ImageScaling.getWritableSuffix(fileName);
+        if (suffix == null) {
+            return Optional.empty();
+        }
+        boolean jpeg = "jpg".equals(suffix) || "jpeg".equals(suffix);
+        // The quality only matters to the JPEG derivatives, whose default quality is that of the variants
+        int derivativeQuality = !jpeg ? 0 : quality == 0 ? Math.round(this.jpegQuality * 100) : quality;
+        String derivativeName = derivativeName(fileName, width, height, derivativeQuality);
+        Path path = this.directory.resolve(derivativeName);
+        if (this.isCached(derivativeName, fileName, path)) {
+            this.hitCounter.increment();
+            return Optional.of(path);
+        }
+        CompletableFuture<Optional<Path>> resizing = new CompletableFuture<>();
+        CompletableFuture<Optional<Path>> running = this.resizings.putIfAbsent(derivativeName, resizing);
+        if (running != null) {
+            this.coalescedCounter.increment();
+            return await(running);
+        }
+        try {
+            Optional<Path> derivative;
+            synchronized (this) {
+                // Resized by a concurrent request since it has been looked up
+                derivative = this.sizes.containsKey(derivativeName) ? Optional.of(path) : null;
+            }
+            if (derivative == null) {
+                this.missCounter.increment();
+                derivative = this.resize(fileName, suffix, width, height, derivativeQuality, path);
+            }
+            resizing.complete(derivative);
+            return derivative;
+        } catch (IOException | RuntimeException e) {
+            resizing.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.resizings.remove(derivativeName, resizing);
+        }
+    }
+
+    /**
+     * Checks whether a derivative is on the disk, and still derived from the current image. The images stored
+     * before the content-addressed storage may have been replaced since their derivatives have been resized.
+     *
+     * @param derivativeName the file name of the derivative
+     * @param fileName       the file name of the image
+     * @param path           the path of the derivative
+     * @return true if the derivative can be served
+     * @throws IOException if the attributes of the image or of the derivative cannot be read
+     */
+    private boolean isCached(final String derivativeName, final String fileName, final Path path)
+            throws IOException {
+        synchronized (this) {
+            if (this.sizes.get(derivativeName) == null) {
+                return false;
+            }
+        }
+        if (ImageStoragePaths.isContentAddressed(fileName)) {
+            return true;
+        }
+        Optional<ImageStorageAttributes> image = this.imageStorage.stat(fileName);
+        if (image.isPresent() && Files.exists(path)
+                && image.get().getLastModified() <= Files.readAttributes(path, BasicFileAttributes.class)
+                .lastModifiedTime().toMillis()) {
+            return true;
+        }
+        synchronized (this) {
+            this.remove(derivativeName);
+        }
+        return false;
+    }
+
+    /**
+     * Resizes an image into a derivative, then adds the derivative to the cache, evicting the least recently
+     * requested derivatives if needed.
+     *
+     * @param fileName the file name of the image
+     * @param suffix   the file name suffix of the image format
+     * @param width    the maximum width of the derivative, 0 for no limit
+     * @param height   the maximum height of the derivative, 0 for no limit
+     * @param quality  the quality of a JPEG derivative, from 1 to 100
+     * @param path     the path of the derivative
+     * @return the path of the derivative, or an empty Optional if the image is not a readable image
+     * @throws IOException if the image cannot be read or the derivative cannot be written
+     */
+    private Optional<Path> resize(final String fileName, final String suffix, final int width, final int height,
+                                  final int quality, final Path path) throws IOException {
+        try {
+            this.resizePermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to resize " + fileName);
+        }
+        long startedAt = System.nanoTime();
+        try {
+            BufferedImage image;
+            try (InputStream content = this.imageStorage.get(fileName)) {
+                image = ImageScaling.read(content, fileName, this.maxPixels, Math.max(width, height));
+            }
+            if (image == null) {
+                log.warn("{} cannot be resized : it is not a readable image", fileName);
+                return Optional.empty();
+            }
+            image = ImageScaling.scale(image, width, height, ImageScaling.isOpaque(image, suffix));
+            Path temporaryPath = ImageScaling.write(image, suffix, quality / 100f, this.directory,
+                    TEMPORARY_FILE_PREFIX);
+            try {
+                Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporaryPath);
+            }
+        } finally {
+            this.resizePermits.release();
+            this.resizeTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+        List<String> evicted = this.add(path.getFileName().toString(), Files.size(path));
+        for (String derivative : evicted) {
+            Files.deleteIfExists(this.directory.resolve(derivative));
+        }
+        log.debug("{} resized to {}", fileName, path.getFileName());
+        return Optional.of(path);
+    }
+
+    /**
+     * Adds a derivative to the cache, and evicts the least recently requested derivatives until the total size
+     * of the derivatives fits the limit. The last derivative added is never evicted.
+     *
+     * @param derivativeName the file name of the derivative
+     * @param size           the size of the derivative
+     * @return the file names of the evicted derivatives, whose files are to be deleted
+     */
+    private synchronized List<String> add(final String derivativeName, final long size) {
+        this.remove(derivativeName);
+        List<String> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Long>> leastRecent = this.sizes.entrySet().iterator();
+        while (this.usedBytes + size > this.maxBytes && leastRecent.hasNext()) {
+            Map.Entry<String, Long> victim = leastRecent.next();
+            this.usedBytes -= victim.getValue();
+            evicted.add(victim.getKey());
+            leastRecent.remove();
+            this.evictionCounter.increment();
+        }
+        this.sizes.put(derivativeName, size);
+        this.usedBytes += size;
+        return evicted;
+    }
+
+    /**
+     * Removes a derivative from the cache. It must be called under the lock of the cache.
+     *
+     * @param derivativeName the file name of the derivative
+     */
+    private void remove(final String derivativeName) {
+        Long removed = this.sizes.remove(derivativeName);
+        if (removed != null) {
+            this.usedBytes -= removed;
+        }
+    }
+
+    /**
+     * Builds the file name of a derivative : the file name of its image followed by its size and quality.
+     *
+     * @param fileName the file name of the image
+     * @param width    the maximum width of the derivative, 0 for no limit
+     * @param height   the maximum height of the derivative, 0 for no limit
+     * @param quality  the quality of a JPEG derivative, 0 for the other formats
+     * @return the file name of the derivative, with the extension of the image
+     */
+    private static String derivativeName(final String fileName, final int width, final int height,
+                                         final int quality) {
+        int extension = fileName.lastIndexOf('.');
+        return fileName.substring(0, extension) + "-" + width + "x" + height + (quality > 0 ? "-q" + quality : "")
+                + fileName.substring(extension);
+    }
+
+    /**
+     * Waits for the resizing of a derivative by a concurrent request.
+     *
+     * @param resizing the resizing in progress
+     * @return its result
+     * @throws IOException if the resizing has failed
+     */
+    private static Optional<Path> await(final CompletableFuture<Optional<Path>> resizing) throws IOException {
+        try {
+            return resizing.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a resizing");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException cause ? cause : new IOException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package com.pop.codelab.chatopbackend.services.Impl;
+
+import com.pop.codelab.chatopbackend.business.image.entity.StoredImage;
+import com.pop.codelab.chatopbackend.business.image.repository.StoredImageRepository;
+import com.pop.codelab.chatopbackend.business.rental.repository.RentalRepository;
+import com.pop.codelab.chatopbackend.services.ImageBytesCache;
+import com.pop.codelab.chatopbackend.services.ImageCatalogue;
+import com.pop.codelab.chatopbackend.services.ImageGarbageCollector;
+import com.pop.codelab.chatopbackend.services.ImageStorage;
+import com.pop.codelab.chatopbackend.services.ImageStorageAttributes;
+import com.pop.codelab.chatopbackend.services.ImageStoragePaths;
+import com.pop.codelab.chatopbackend.services.ImageVariant;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * The ImageGarbageCollectorImpl class is an implementation of the ImageGarbageCollector interface.
+ * <p>
+ * The collection runs in the background, at the interval set by the 'application.images.gc.interval' property.
+ * The pictures of the rentals are streamed from the database through a server-side cursor, then the stored images
+ * are examined one by one : an image which no rental shows is collected once its file and its last upload are
+ * older than the grace period, and no rental has been given it meanwhile. The collected images are deleted, or
+ * moved to a quarantine directory from which they are purged after a retention period.</p>
+ * <p>
+ * The storage accesses are rate limited : the collection pauses after each batch of unreferenced images examined,
+ * so that it never competes with the requests for the storage. The images collected and the bytes reclaimed are
+ * logged after each collection and published as Micrometer metrics (images.gc.*).</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@Service
+@RequiredArgsConstructor
+@Log4j2
+public class ImageGarbageCollectorImpl implements ImageGarbageCollector {
+
+    /**
+     * The action deleting the collected images.
+     */
+    private static final String DELETE_ACTION = "delete";
+
+    /**
+     * The action moving the collected images to the quarantine directory.
+     */
+    private static final String QUARANTINE_ACTION = "quarantine";
+
+    /**
+     * The enabled variable tells whether the images are collected in the background.
+     * It is set using the value from the application property 'application.images.gc.enabled'.
+     */
+    @Value("${application.images.gc.enabled}")
+    private boolean enabled;
+
+    /**
+     * The gracePeriod variable represents the time an unreferenced image is kept after its upload.
+     * It is set using the value from the application property 'application.images.gc.grace-period'.
+     */
+    @Value("${application.images.gc.grace-period}")
+    private Duration gracePeriod;
+
+    /**
+     * The action variable represents what is done with the collected images : delete or quarantine.
+     * It is set using the value from the application property 'application.images.gc.action'.
+     */
+    @Value("${application.images.gc.action}")
+    private String action;
+
+    /**
+     * The quarantineDirectory variable represents the local directory the collected images are moved to.
+     * It is set using the value from the application property 'application.images.gc.quarantine-directory'.
+     */
+    @Value("${application.images.gc.quarantine-directory}")
+    private String quarantineDirectory;
+
+    /**
+     * The quarantineRetention variable represents the time the collected images are kept in quarantine.
+     * It is set using the value from the application property 'application.images.gc.quarantine-retention'.
+     */
+    @Value("${application.images.gc.quarantine-retention}")
+    private Duration quarantineRetention;
+
+    /**
+     * The batchSize variable represents the number of unreferenced images examined between two pauses.
+     * It is set using the value from the application property 'application.images.gc.batch-size'.
+     */
+    @Value("${application.images.gc.batch-size}")
+    private int batchSize;
+
+    /**
+     * The batchPause variable represents the pause after each batch of unreferenced images examined.
+     * It is set using the value from the application property 'application.images.gc.batch-pause'.
+     */
+    @Value("${application.images.gc.batch-pause}")
+    private Duration batchPause;
+
+    /**
+     * The imageStorage variable represents the storage backend the images are collected from.
+     */
+    private final ImageStorage imageStorage;
+
+    /**
+     * The imageCatalogue variable represents the in-memory index of the images, which the collected images are
+     * removed from.
+     */
+    private final ImageCatalogue imageCatalogue;
+
+    /**
+     * The imageBytesCache variable represents the off-heap cache of the images, which the collected images are
+     * removed from.
+     */
+    private final ImageBytesCache imageBytesCache;
+
+    /**
+     * The rentalRepository variable represents the repository of the rentals, whose pictures are the referenced
+     * images.
+     */
+    private final RentalRepository rentalRepository;
+
+    /**
+     * The storedImageRepository variable represents the repository of the reference counts of the stored images.
+     */
+    private final StoredImageRepository storedImageRepository;
+
+    /**
+     * The transactionTemplate variable represents the transaction the pictures of the rentals are streamed in.
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * The meterRegistry variable represents the registry of the metrics of the collections.
+     */
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * The running variable tells whether a collection is running, so that the collections never overlap.
+     */
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * The quarantine directory, or null if the collected images are deleted.
+     */
+    private Path quarantine;
+
+    /**
+     * The collectedCounter variable counts the images collected.
+     */
+    private Counter collectedCounter;
+
+    /**
+     * The reclaimedCounter variable counts the bytes reclaimed from the image storage.
+     */
+    private Counter reclaimedCounter;
+
+    /**
+     * Checks the action of the collection, creates the quarantine directory if needed and registers the metrics
+     * of the collections.
+     *
+     * @throws IOException if the quarantine directory cannot be created
+     */
+    @PostConstruct
+    public void init() throws IOException {
+        if (QUARANTINE_ACTION.equals(this.action)) {
+            this.quarantine = Files.createDirectories(Path.of(this.quarantineDirectory));
+        } else if (!DELETE_ACTION.equals(this.action)) {
+            throw new IllegalStateException("Unknown image garbage collection action : " + this.action);
+        }
+        this.collectedCounter = Counter.builder("images.gc.collected")
+                .description("Unreferenced images collected").register(this.meterRegistry);
+        this.reclaimedCounter = Counter.builder("images.gc.reclaimed")
+                .description("Bytes reclaimed from the image storage")
+                .baseUnit("bytes")
+                .register(this.meterRegistry);
+    }
+
+    /**
+     * Collects the unreferenced images in the background, on the task scheduler : the requests never wait for it.
+     * The collection is run at the interval set by the application property 'application.images.gc.interval'.
+     */
+    @Scheduled(fixedDelayString = "${application.images.gc.interval}",
+            initialDelayString = "${application.images.gc.initial-delay}")
+    public void collectUnreferencedImages() {
+        if (!this.enabled) {
+            return;
+        }
+        try {
+            this.collect();
+        } catch (IOException | RuntimeException e) {
+            log.warn("The unreferenced images cannot be collected.", e);
+        }
+    }
+
+    @Override
+    public long collect() throws IOException {
+        if (!this.running.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            long startedAt = System.nanoTime();
+            Instant deadline = Instant.now().minus(this.gracePeriod);
+            Set<String> referenced = this.findReferencedFileNames();
+            int stored = 0;
+            int examined = 0;
+            int collected = 0;
+            long reclaimed = 0;
+            for (String fileName : this.imageStorage.listFileNames()) {
+                stored++;
+                if (referenced.contains(fileName)) {
+                    continue;
+                }
+                if (examined > 0 && examined % this.batchSize == 0 && !this.pause()) {
+                    break;
+                }
+                examined++;
+                long size = this.collectIfUnreferenced(fileName, deadline);
+                if (size >= 0) {
+                    collected++;
+                    reclaimed += size;
+                }
+            }
+            this.purgeQuarantine();
+            log.info("Image garbage collection : {} image(s) stored, {} unreferenced, {} collected, {} bytes "
+                            + "reclaimed in {} ms", stored, examined, collected, reclaimed,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+            return reclaimed;
+        } finally {
+            this.running.set(false);
+        }
+    }
+
+    /**
+     * Reads the file names of the referenced images : the pictures of the rentals and their variants.
+     *
+     * @return the file names of the referenced images
+     */
+    private Set<String> findReferencedFileNames() {
+        Set<String> referenced = new HashSet<>();
+        this.transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<String> pictures = this.rentalRepository.streamPictures()) {
+                pictures.forEach(picture -> {
+                    if (referenced.add(picture)) {
+                        for (ImageVariant variant : ImageVariant.values()) {
+                            referenced.add(variant.fileName(picture));
+                        }
+                    }
+                });
+            }
+        });
+        return referenced;
+    }
+
+    /**
+     * Collects an image which was not referenced when the collection started, unless it is within the grace period
+     * or a rental has been given it since.
+     *
+     * @param fileName the file name of the image
+     * @param deadline the instant the images must have been uploaded before to be collected
+     * @return the size of the image collected, or -1 if the image has been kept
+     * @throws IOException if the image cannot be collected
+     */
+    private long collectIfUnreferenced(final String fileName, final Instant deadline) throws IOException {
+        Optional<ImageStorageAttributes> attributes = this.imageStorage.stat(fileName);
+        if (attributes.isEmpty() || attributes.get().getLastModified() > deadline.toEpochMilli()) {
+            return -1;
+        }
+        String picture = getPictureFileName(fileName);
+        if (ImageStoragePaths.isContentAddressed(picture)) {
+            // Kept if a rental has been given the image since the collection started, or if the image has been
+            // uploaded again within the grace period : stored once, its file keeps the date of its first upload
+            Optional<StoredImage> storedImage = this.storedImageRepository.findById(picture);
+            if (storedImage.isPresent() && (storedImage.get().getRefCount() > 0
+                    || storedImage.get().getReferencedAt() != null
+                    && storedImage.get().getReferencedAt().isAfter(deadline))) {
+                return -1;
+            }
+        }
+        // The reference of a rental is counted once the rental is saved : the rentals are checked as well
+        if (this.rentalRepository.existsByPicture(picture)) {
+            return -1;
+        }
+        try {
+            if (this.quarantine != null) {
+                try (InputStream content = this.imageStorage.get(fileName)) {
+                    Files.copy(content, this.quarantine.resolve(fileName), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            this.imageStorage.delete(fileName);
+        } catch (NoSuchFileException e) {
+            // Collected by another node meanwhile
+            return -1;
+        }
+        this.imageCatalogue.unregister(fileName);
+        this.imageBytesCache.invalidate(fileName);
+        if (picture.equals(fileName) && ImageStoragePaths.isContentAddressed(fileName)) {
+            this.storedImageRepository.deleteById(fileName);
+        }
+        this.collectedCounter.increment();
+        this.reclaimedCounter.increment(attributes.get().getSize());
+        log.debug("Unreferenced image {} collected ({} bytes)", fileName, attributes.get().getSize());
+        return attributes.get().getSize();
+    }
+
+    /**
+     * Deletes the images kept in quarantine for longer than the retention period.
+     *
+     * @throws IOException if the quarantine directory cannot be listed
+     */
+    private void purgeQuarantine() throws IOException {
+        if (this.quarantine == null) {
+            return;
+        }
+        long deadline = Instant.now().minus(this.quarantineRetention).toEpochMilli();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(this.quarantine)) {
+            for (Path file : files) {
+                if (file.toFile().lastModified() < deadline) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Pauses the collection between two batches of images examined.
+     *
+     * @return false if the collection has been interrupted and must stop
+     */
+    private boolean pause() {
+        try {
+            Thread.sleep(this.batchPause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("Image garbage collection interrupted");
+            return false;
+        }
+    }
+
+    /**
+     * Returns the file name of the picture an image is derived from : the original image of a variant, or the
+     * image itself.
+     *
+     * @param fileName the file name of the image
+     * @return the file name of the picture the image belongs to
+     */
+    private static String getPictureFileName(final String fileName) {
+        int extension = fileName.lastIndexOf('.');
+        String baseName = extension < 0 ? fileName : fileName.substring(0, extension);
+        for (ImageVariant variant : ImageVariant.values()) {
+            String suffix = "-" + variant.getName();
+            if (baseName.endsWith(suffix)) {
+                return baseName.substring(0, baseName.length() - suffix.length())
+                        + (extension < 0 ? "" : fileName.substring(extension));
+            }
+        }
+        return fileName;
+    }
+}
@@ -0,0 +1,193 @@
+package com.pop.codelab.chatopbackend.services.Impl;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Locale;
+
+/**
+ * The ImageScaling class gathers the decoding, scaling and encoding of the images with the Java image I/O, shared by
+ * the fixed-size variants and the on-demand resized images.
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+final class ImageScaling {
+
+    /**
+     * The utility class is not instantiated.
+     */
+    private ImageScaling() {
+    }
+
+    /**
+     * Tells whether the images of a file name can be scaled : their format must be written by the Java image I/O.
+     *
+     * @param fileName the file name of the image
+     * @return the lower case extension of the file name, or null if the image cannot be scaled
+     */
+    static String getWritableSuffix(final String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        if (dot < 0) {
+            return null;
+        }
+        String suffix = fileName.substring(dot + 1).toLowerCase(Locale.ROOT);
+        return ImageIO.getImageWritersBySuffix(suffix).hasNext() ? suffix : null;
+    }
+
+    /**
+     * Tells whether the images of a format are drawn on a white background : the formats without an alpha channel.
+     *
+     * @param image  the decoded image
+     * @param suffix the file name suffix of the image format
+     * @return true if the scaled image must be opaque
+     */
+    static boolean isOpaque(final BufferedImage image, final String suffix) {
+        return !image.getColorModel().hasAlpha() || !("png".equals(suffix) || "gif".equals(suffix));
+    }
+
+    /**
+     * Decodes an image, subsampling it when it is at least twice as large as the target size, so that neither the
+     * decoded image nor its scaling cost more than needed.
+     *
+     * @param content    the content of the image, not closed
+     * @param name       the name of the image, for the error messages
+     * @param maxPixels  the maximum number of pixels of the image, which protects the memory from the images whose
+     *                   decoding would exhaust it
+     * @param targetSize the largest side of the scaled image, in pixels
+     * @return the decoded image, or null if no reader supports its format
+     * @throws IOException if the image cannot be read or has too many pixels
+     */
+    static BufferedImage read(final InputStream content, final String name, final long maxPixels,
+                              final int targetSize) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(content)) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    throw new IOException("The image " + name + " is too large : " + width + "x" + height);
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, Math.max(width, height) / (2 * Math.max(1, targetSize)));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scales an image down so that it fits in a box, keeping its aspect ratio. The image is halved as long as it
+     * is twice as large as the result, so that the bilinear interpolation takes all its pixels into account.
+     *
+     * @param image     the image to scale
+     * @param maxWidth  the width of the box, in pixels, 0 for no limit
+     * @param maxHeight the height of the box, in pixels, 0 for no limit
+     * @param opaque    true to draw the image on a white background, without alpha channel
+     * @return the scaled image, or a copy of the image if it already fits in the box
+     */
+    static BufferedImage scale(final BufferedImage image, final int maxWidth, final int maxHeight,
+                               final boolean opaque) {
+        double ratio = 1.0;
+        if (maxWidth > 0) {
+            ratio = Math.min(ratio, (double) maxWidth / image.getWidth());
+        }
+        if (maxHeight > 0) {
+            ratio = Math.min(ratio, (double) maxHeight / image.getHeight());
+        }
+        int targetWidth = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+        BufferedImage scaled = image;
+        int width = image.getWidth();
+        int height = image.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            scaled = draw(scaled, width, height, opaque);
+        } while (width > targetWidth || height > targetHeight);
+        return scaled;
+    }
+
+    /**
+     * Writes an image to a new hidden file of a directory.
+     *
+     * @param image       the image to write
+     * @param suffix      the file name suffix of the image format
+     * @param jpegQuality the quality, between 0 and 1, of a JPEG image
+     * @param directory   the directory of the file
+     * @param prefix      the prefix of the name of the file
+     * @return the file written
+     * @throws IOException if the image cannot be written
+     */
+    static Path write(final BufferedImage image, final String suffix, final float jpegQuality,
+                      final Path directory, final String prefix) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersBySuffix(suffix).next();
+        Path temporaryPath = Files.createTempFile(directory, prefix, ".tmp");
+        try {
+            try (ImageOutputStream output = ImageIO.createImageOutputStream(temporaryPath.toFile())) {
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                if ("jpg".equals(suffix) || "jpeg".equals(suffix)) {
+                    param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                    param.setCompressionQuality(jpegQuality);
+                }
+                writer.setOutput(output);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            return temporaryPath;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporaryPath);
+            throw e;
+        }
+    }
+
+    /**
+     * Draws an image in a new image of the given size, with a bilinear interpolation.
+     *
+     * @param image  the image to draw
+     * @param width  the width of the new image
+     * @param height the height of the new image
+     * @param opaque true to draw the image on a white background, without alpha channel
+     * @return the new image
+     */
+    private static BufferedImage draw(final BufferedImage image, final int width, final int height,
+                                      final boolean opaque) {
+        BufferedImage drawn = new BufferedImage(width, height,
+                opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = drawn.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            if (opaque) {
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, width, height);
+            }
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return drawn;
+    }
+}
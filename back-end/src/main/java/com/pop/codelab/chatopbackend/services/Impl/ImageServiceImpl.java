@@ -1,80 +1,330 @@
 package com.pop.codelab.chatopbackend.services.Impl;
 
+import com.pop.codelab.chatopbackend.business.image.repository.StoredImageRepository;
+import com.pop.codelab.chatopbackend.services.ImageCatalogue;
 import com.pop.codelab.chatopbackend.services.ImageService;
+import com.pop.codelab.chatopbackend.services.ImageStorage;
+import com.pop.codelab.chatopbackend.services.ImageStoragePaths;
+import com.pop.codelab.chatopbackend.services.ImageVariant;
+import com.pop.codelab.chatopbackend.services.ImageVariantProcessor;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
-import java.util.UUID;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
 
 /**
  * The ImageServiceImpl class is an implementation of the ImageService interface.
  * It provides methods for saving images to a storage system and retrieving their URLs.
  */
 @Service
+@RequiredArgsConstructor
 @Log4j2
 public class ImageServiceImpl implements ImageService {
 
     /**
-     * The uploadDirectory variable represents the directory where the image files will be saved.
-     * It is configured using the application.local-storage.upload-directory property in the application's configuration.
-     * It is injected using the @Value annotation and can be accessed throughout the class.
+     * The extensions of original file names kept for the images whose format is not recognized.
      */
-    @Value("${application.local-storage.upload-directory}")
-    private String uploadDirectory;
+    private static final Pattern FILE_EXTENSION = Pattern.compile("[a-z0-9]{1,8}");
 
+    /**
+     * The size of the buffer the staging files already written are hashed through.
+     */
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The imageStorage variable represents the storage backend of the images.
+     *
+     * @see ImageStorage
+     */
+    private final ImageStorage imageStorage;
+
+    /**
+     * The imageCatalogue variable represents the in-memory index of the stored images, which resolves
+     * the URL of an image without any filesystem access.
+     *
+     * @see ImageCatalogue
+     */
+    private final ImageCatalogue imageCatalogue;
+
+    /**
+     * The imageVariantProcessor variable represents the background processor generating the fixed-size variants
+     * of the stored images.
+     *
+     * @see ImageVariantProcessor
+     */
+    private final ImageVariantProcessor imageVariantProcessor;
 
     /**
-     * Saves an image file to a specified directory in a storage system.
+     * The storedImageRepository variable represents the repository of the reference counts of the stored images.
      *
-     * @param uploadDirectory the directory where the image file will be saved
-     * @param imageFile       the image file to be saved
-     * @return the URL of the saved image file
+     * @see StoredImageRepository
+     */
+    private final StoredImageRepository storedImageRepository;
+
+    /**
+     * Saves an image file to the image storage, under its content key.
+     * <p>
+     * The bytes of the upload are hashed while they are copied to a staging file, which is then put under its
+     * content key, unless the same bytes are already stored : an image uploaded for several rentals is stored
+     * once, its reference count recording each upload. The file name of the upload is not used, apart from the
+     * extension of the files whose format is not recognized.</p>
+     * <p>
+     * The original file is stored as is : its variants are generated afterwards by generateImageVariants.</p>
+     *
+     * @param imageFile the image file to be saved
+     * @return the content key of the saved image file
      * @throws IOException if an I/O error occurs during the saving process
      */
-    public String saveImageToStorage(final String uploadDirectory, final MultipartFile imageFile) throws IOException {
+    public String saveImageToStorage(final MultipartFile imageFile) throws IOException {
         log.debug("Uploading {} MultipartFile ...", imageFile.getOriginalFilename());
-        String uniqueFileName = UUID.randomUUID().toString() + "_" + imageFile.getOriginalFilename();
+        try (InputStream content = imageFile.getInputStream()) {
+            return this.saveImageToStorage(content, imageFile.getOriginalFilename());
+        }
+    }
+
+    /**
+     * Saves an image read from a stream to the image storage, under its content key.
+     * <p>
+     * The stream is hashed while it is copied to a staging file, which is then put under its content key : the
+     * bytes of an upload streamed from the request are written to the disk once.</p>
+     *
+     * @param content          the content of the image, read until its end but not closed
+     * @param originalFilename the name of the uploaded file, or null if unknown
+     * @return the content key of the saved image file
+     * @throws IOException if an I/O error occurs during the saving process
+     */
+    public String saveImageToStorage(final InputStream content, final String originalFilename) throws IOException {
+        Path temporaryPath = Files.createTempFile(imageStorage.getStagingDirectory(), ".upload-", ".tmp");
+        try {
+            MessageDigest digest = newSha256Digest();
+            long size = Files.copy(new DigestInputStream(content, digest), temporaryPath,
+                    StandardCopyOption.REPLACE_EXISTING);
+            return this.storeUnderContentKey(temporaryPath, digest, size, originalFilename);
+        } finally {
+            Files.deleteIfExists(temporaryPath);
+        }
+    }
 
-        Path uploadPath = Path.of(uploadDirectory);
-        Path filePath = uploadPath.resolve(uniqueFileName);
+    /**
+     * Saves an image already written to a staging file of the image storage, under its content key.
+     * <p>
+     * The file, typically assembled from the chunks of a resumable upload, is read once to be hashed, then put
+     * under its content key : on a local storage, it is moved without copying its bytes.</p>
+     *
+     * @param imageFile        the file holding the image, in the staging directory, which is moved or deleted
+     * @param originalFilename the name of the uploaded file, or null if unknown
+     * @return the content key of the saved image file
+     * @throws IOException if an I/O error occurs during the saving process
+     */
+    public String saveImageToStorage(final Path imageFile, final String originalFilename) throws IOException {
+        try {
+            MessageDigest digest = newSha256Digest();
+            long size = 0;
+            try (FileChannel channel = FileChannel.open(imageFile, StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.allocate(HASH_BUFFER_SIZE);
+                int read;
+                while ((read = channel.read(buffer)) >= 0) {
+                    buffer.flip();
+                    digest.update(buffer);
+                    buffer.clear();
+                    size += read;
+                }
+            }
+            return this.storeUnderContentKey(imageFile, digest, size, originalFilename);
+        } finally {
+            Files.deleteIfExists(imageFile);
+        }
+    }
 
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
+    /**
+     * Puts a hashed staging file under its content key, unless the same bytes are already stored, then records
+     * the upload and registers the image in the catalogue. The reference is counted once a rental shows the image.
+     *
+     * @param file             the staging file holding the image
+     * @param digest           the SHA-256 digest of the bytes of the file
+     * @param size             the size of the file
+     * @param originalFilename the name of the uploaded file, or null if unknown
+     * @return the content key of the saved image file
+     * @throws IOException if an I/O error occurs during the saving process
+     */
+    private String storeUnderContentKey(final Path file, final MessageDigest digest, final long size,
+                                        final String originalFilename) throws IOException {
+        String contentKey = ImageStoragePaths.contentKey(HexFormat.of().formatHex(digest.digest()),
+                getFormatExtension(file, originalFilename));
+        if (imageStorage.stat(contentKey).isPresent()) {
+            log.debug("{} is already stored", contentKey);
+        } else {
+            // The same bytes uploaded concurrently are put under the same key : the last put wins
+            imageStorage.put(contentKey, file);
         }
+        storedImageRepository.recordUpload(contentKey, size);
+        imageCatalogue.register(contentKey);
+        log.debug("{} has been uploaded as {}", originalFilename, contentKey);
+        return contentKey;
+    }
 
-        Files.copy(imageFile.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-        log.debug("{} has been uploaded", uniqueFileName);
-        return uniqueFileName;
+    /**
+     * Counts a new reference to a stored image, once a rental shows it.
+     *
+     * @param fileName the file name of the image
+     */
+    public void addReference(final String fileName) {
+        if (ImageStoragePaths.isContentAddressed(fileName)) {
+            storedImageRepository.addReference(fileName);
+        }
+    }
+
+    /**
+     * Discounts a reference to a stored image, once a rental does not show it anymore.
+     *
+     * @param fileName the file name of the image
+     */
+    public void removeReference(final String fileName) {
+        if (ImageStoragePaths.isContentAddressed(fileName)) {
+            storedImageRepository.removeReference(fileName);
+        }
+    }
+
+    /**
+     * Deletes an image uploaded for a rental which has not been created, unless it is shared : its record is only
+     * deleted if the image has been uploaded once and has no reference, then the image itself is deleted.
+     *
+     * @param fileName the file name of the image
+     * @throws IOException if the image cannot be deleted
+     */
+    public void discardImage(final String fileName) throws IOException {
+        if (!ImageStoragePaths.isContentAddressed(fileName)
+                || storedImageRepository.deleteIfUploadedOnce(fileName) == 0) {
+            return;
+        }
+        imageCatalogue.unregister(fileName);
+        imageStorage.delete(fileName);
+        log.debug("{} has been discarded", fileName);
     }
 
     /**
      * Returns the URL of an image file to be served.
+     * The URL is read from the image catalogue, without any filesystem access.
      *
      * @param filePath the file path of the image
-     * @return the URL of the image file
+     * @return the URL of the image file, or an empty string if the image has not been found
      */
     public String getImageToServeUrl(final String filePath) {
-        log.debug("Checking the {} image.", filePath);
-        String imageToServeUrl = "";
-        String fileName = String.valueOf(Path.of(uploadDirectory).resolve(filePath));
-
-        if (Files.exists(Path.of(fileName))) {
-            log.debug("Retrieving the image : {} ", fileName);
-            imageToServeUrl = ServletUriComponentsBuilder.fromCurrentContextPath()
-                    .path("/images/")
-                    .path(filePath)
-                    .toUriString();
-            log.debug("Image will be served at  = {}", imageToServeUrl);
-        } else {
-            log.warn("The image {} has not been found !", fileName);
+        String imageToServeUrl = imageCatalogue.getImageUrl(filePath);
+        if (imageToServeUrl.isEmpty()) {
+            log.warn("The image {} has not been found !", filePath);
         }
         return imageToServeUrl;
     }
+
+    /**
+     * Returns the URL of a variant of an image file to be served, or the URL of the image itself while its
+     * variant is not available. Both are read from the image catalogue.
+     *
+     * @param filePath the file path of the image
+     * @param variant  the variant of the image
+     * @return the URL of the variant, or of the image file, or an empty string if the image has not been found
+     */
+    public String getImageToServeUrl(final String filePath, final ImageVariant variant) {
+        String variantUrl = imageCatalogue.getImageUrl(variant.fileName(filePath));
+        return variantUrl.isEmpty() ? this.getImageToServeUrl(filePath) : variantUrl;
+    }
+
+    /**
+     * Returns the file name of a stored image to be served from its path in the images URL.
+     * The file name is read from the image catalogue, which only resolves the paths of the stored images.
+     *
+     * @param relativePath the path of the image in the image storage, as found in its URL
+     * @return the file name of the image, or an empty Optional if no image is stored at this path
+     */
+    public Optional<String> getImageToServeFileName(final String relativePath) {
+        return imageCatalogue.getImageFileName(relativePath);
+    }
+
+    /**
+     * Generates the fixed-size variants of a stored image in the background, and registers them in the image
+     * catalogue once written.
+     *
+     * @param fileName the file name of the image
+     * @return a future completed with the variants generated once they are available
+     */
+    public CompletableFuture<Set<ImageVariant>> generateImageVariants(final String fileName) {
+        Set<ImageVariant> storedVariants = EnumSet.noneOf(ImageVariant.class);
+        for (ImageVariant variant : ImageVariant.values()) {
+            if (!imageCatalogue.getImageUrl(variant.fileName(fileName)).isEmpty()) {
+                storedVariants.add(variant);
+            }
+        }
+        if (storedVariants.size() == ImageVariant.values().length) {
+            // The same image has already been uploaded : its variants are shared too
+            return CompletableFuture.completedFuture(storedVariants);
+        }
+        return imageVariantProcessor.submit(fileName).thenApply(variants -> {
+            variants.forEach(variant -> imageCatalogue.register(variant.fileName(fileName)));
+            return variants;
+        });
+    }
+
+    /**
+     * Returns the extension of the format of an image : the format read from its content, or the extension of its
+     * original file name if its format is not recognized.
+     *
+     * @param imagePath        the path of the staging file of the image
+     * @param originalFileName the original file name of the image, may be null
+     * @return the lower case extension, without the dot
+     * @throws IOException if the image cannot be read
+     */
+    private static String getFormatExtension(final Path imagePath, final String originalFileName) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(imagePath.toFile())) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers != null && readers.hasNext()) {
+                String formatName = readers.next().getFormatName().toLowerCase(Locale.ROOT);
+                return "jpeg".equals(formatName) ? "jpg" : formatName;
+            }
+        }
+        if (originalFileName != null) {
+            int dot = originalFileName.lastIndexOf('.');
+            String extension = originalFileName.substring(dot + 1).toLowerCase(Locale.ROOT);
+            if (dot >= 0 && FILE_EXTENSION.matcher(extension).matches()) {
+                return extension;
+            }
+        }
+        return "bin";
+    }
+
+    /**
+     * Creates the message digest hashing the uploaded images.
+     *
+     * @return a new SHA-256 MessageDigest
+     */
+    private static MessageDigest newSha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
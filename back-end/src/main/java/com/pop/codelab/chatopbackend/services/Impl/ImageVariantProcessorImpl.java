@@ -0,0 +1,221 @@
+package com.pop.codelab.chatopbackend.services.Impl;
+
+import com.pop.codelab.chatopbackend.services.ImageStorage;
+import com.pop.codelab.chatopbackend.services.ImageVariant;
+import com.pop.codelab.chatopbackend.services.ImageVariantProcessor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The ImageVariantProcessorImpl class is an implementation of the ImageVariantProcessor interface.
+ * <p>
+ * The variants are generated with the Java image I/O by a fixed pool of workers fed by a bounded queue : an upload
+ * never waits for its variants, and a burst of uploads can neither exhaust the memory nor the CPU. When the queue is
+ * full the generation is rejected, and the original image keeps being served in place of its variants.</p>
+ * <p>
+ * Each image is decoded once, subsampled while decoding when it is much larger than the full-size variant, then
+ * the variants are scaled down from the largest to the smallest, each from the previous one. The variants are
+ * written to staging files, then put in the image storage in parallel. The depth of the queue,
+ * the waiting and processing times and the rejected generations are published as Micrometer metrics
+ * (images.variants.*).</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@Service
+@RequiredArgsConstructor
+@Log4j2
+public class ImageVariantProcessorImpl implements ImageVariantProcessor {
+
+    /**
+     * The variants, from the largest to the smallest.
+     */
+    private static final ImageVariant[] LARGEST_FIRST = {ImageVariant.FULL, ImageVariant.CARD, ImageVariant.THUMB};
+
+    /**
+     * The workers variable represents the number of threads generating the variants.
+     * It is set using the value from the application property 'application.images.variants.workers'.
+     */
+    @Value("${application.images.variants.workers}")
+    private int workers;
+
+    /**
+     * The queueCapacity variable represents the maximum number of images waiting for their variants.
+     * It is set using the value from the application property 'application.images.variants.queue-capacity'.
+     */
+    @Value("${application.images.variants.queue-capacity}")
+    private int queueCapacity;
+
+    /**
+     * The maxPixels variable represents the maximum number of pixels of an image processed, which protects the
+     * workers from the images whose decoding would exhaust the memory.
+     * It is set using the value from the application property 'application.images.variants.max-pixels'.
+     */
+    @Value("${application.images.variants.max-pixels}")
+    private long maxPixels;
+
+    /**
+     * The jpegQuality variable represents the quality, between 0 and 1, of the JPEG variants.
+     * It is set using the value from the application property 'application.images.variants.jpeg-quality'.
+     */
+    @Value("${application.images.variants.jpeg-quality}")
+    private float jpegQuality;
+
+    /**
+     * The meterRegistry variable represents the registry of the metrics of the processor.
+     */
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * The imageStorage variable represents the storage backend the images are read from and the variants put in.
+     */
+    private final ImageStorage imageStorage;
+
+    /**
+     * The executor variable represents the pool of workers generating the variants.
+     */
+    private ThreadPoolExecutor executor;
+
+    /**
+     * The waitTimer variable measures the time the images wait in the queue.
+     */
+    private Timer waitTimer;
+
+    /**
+     * The processingTimer variable measures the time taken to generate the variants of an image.
+     */
+    private Timer processingTimer;
+
+    /**
+     * The rejectedCounter variable counts the generations rejected because the queue was full.
+     */
+    private Counter rejectedCounter;
+
+    /**
+     * Starts the workers and registers the metrics of the processor.
+     */
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(this.workers, this.workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(this.queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "image-variants-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    // Behind the request threads : the variants are not urgent
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        Gauge.builder("images.variants.queue", this.executor, pool -> pool.getQueue().size())
+                .description("Images waiting for their variants")
+                .register(this.meterRegistry);
+        Gauge.builder("images.variants.active", this.executor, ThreadPoolExecutor::getActiveCount)
+                .description("Images whose variants are being generated")
+                .register(this.meterRegistry);
+        this.waitTimer = Timer.builder("images.variants.wait")
+                .description("Time spent by the images in the queue")
+                .register(this.meterRegistry);
+        this.processingTimer = Timer.builder("images.variants.processing")
+                .description("Time taken to generate the variants of an image")
+                .register(this.meterRegistry);
+        this.rejectedCounter = Counter.builder("images.variants.rejected")
+                .description("Images whose variants have not been generated because the queue was full")
+                .register(this.meterRegistry);
+    }
+
+    /**
+     * Stops the workers, abandoning the images still queued : they keep being served without their variants.
+     */
+    @PreDestroy
+    public void destroy() {
+        this.executor.shutdownNow();
+    }
+
+    @Override
+    public CompletableFuture<Set<ImageVariant>> submit(final String fileName) {
+        long queuedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                this.waitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                return this.processingTimer.record(() -> {
+                    try {
+                        return this.generateVariants(fileName);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }, this.executor);
+        } catch (RejectedExecutionException e) {
+            this.rejectedCounter.increment();
+            log.warn("The variants of {} are not generated : {} images are already waiting.",
+                    fileName, this.queueCapacity);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Generates the variants of an image, and puts them in the image storage once they are all written.
+     *
+     * @param fileName the file name of the original image
+     * @return the variants generated, empty if the format of the image cannot be read or written
+     * @throws IOException if the image cannot be read or a variant cannot be written or stored
+     */
+    private Set<ImageVariant> generateVariants(final String fileName) throws IOException {
+        String suffix = ImageScaling.getWritableSuffix(fileName);
+        if (suffix == null) {
+            log.debug("No variant for {} : its format cannot be written", fileName);
+            return EnumSet.noneOf(ImageVariant.class);
+        }
+        BufferedImage image;
+        try (InputStream content = this.imageStorage.get(fileName)) {
+            image = ImageScaling.read(content, fileName, this.maxPixels, ImageVariant.FULL.getMaxSize());
+        }
+        if (image == null) {
+            log.warn("No variant for {} : it is not a readable image", fileName);
+            return EnumSet.noneOf(ImageVariant.class);
+        }
+        boolean opaque = ImageScaling.isOpaque(image, suffix);
+        Set<ImageVariant> variants = EnumSet.noneOf(ImageVariant.class);
+        List<CompletableFuture<Void>> puts = new ArrayList<>();
+        for (ImageVariant variant : LARGEST_FIRST) {
+            image = ImageScaling.scale(image, variant.getMaxSize(), variant.getMaxSize(), opaque);
+            // Written to a staging file, so that a variant is never served while being written
+            Path stagedFile = ImageScaling.write(image, suffix, this.jpegQuality,
+                    this.imageStorage.getStagingDirectory(), ".variant-");
+            // The variants are uploaded while the next ones are scaled
+            puts.add(this.imageStorage.putAsync(variant.fileName(fileName), stagedFile));
+            variants.add(variant);
+        }
+        try {
+            CompletableFuture.allOf(puts.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof IOException cause ? cause : new IOException(e.getCause());
+        }
+        log.debug("Variants of {} generated : {}", fileName, variants);
+        return variants;
+    }
+}
@@ -1,30 +1,80 @@
 package com.pop.codelab.chatopbackend.services.Impl;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTCreator;
+import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTDecodeException;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.pop.codelab.chatopbackend.auth.dto.responses.JwtDto;
 import com.pop.codelab.chatopbackend.business.user.entity.User;
 import com.pop.codelab.chatopbackend.services.JwtService;
+import com.pop.codelab.chatopbackend.services.VerifiedToken;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.UUID;
 
 
 /**
  * The JwtServiceImpl class is responsible for generating and validating JSON Web Tokens (JWT).
  * It provides methods for extracting claims from a token, generating a token based on user details,
  * and checking if a token is valid and not expired.
+ * <p>
+ * The signing algorithm and the verifier, which are thread-safe, are built once. The tokens verified are kept in a
+ * bounded cache, by the SHA-256 digest of the token, until they expire : a client sending the same token again and
+ * again is authenticated without checking its signature nor parsing it again. The cache statistics (jwt.verified.*)
+ * and the time taken to verify a token (jwt.verification) are published as Micrometer metrics.</p>
+ * <p>
+ * When the 'application.security.jwt.self-contained' property is set, the tokens also carry the name, the email and
+ * the token version of their user, so that the requests can be authenticated from the token alone.</p>
  *
  * @author Pignon Pierre-Olivier
- * @version 1.0
+ * @version 2.0
  */
 @Service
+@RequiredArgsConstructor
 @Log4j2
 public class JwtServiceImpl implements JwtService {
 
+    /**
+     * The name of the claim holding the name of the user in the self-contained tokens.
+     */
+    private static final String NAME_CLAIM = "name";
+
+    /**
+     * The name of the claim holding the email of the user in the self-contained tokens.
+     */
+    private static final String EMAIL_CLAIM = "email";
+
+    /**
+     * The name of the claim holding the token version of the user in the self-contained tokens.
+     */
+    private static final String VERSION_CLAIM = "ver";
+
+    /**
+     * The name of the claim holding the instant the token was issued, in milliseconds since the epoch : the iat
+     * claim is in seconds, too coarse to tell a token issued just before a revocation from one issued just after.
+     */
+    private static final String ISSUED_AT_MILLIS_CLAIM = "iat_ms";
+
     /**
      * The secret key used for generating and validating JSON Web Tokens (JWT).
      * The value of this key is retrieved from the application configuration.
@@ -41,6 +91,85 @@ public class JwtServiceImpl implements JwtService {
     @Value("${application.security.jwt.expiration}")
     private long jwtExpiration;
 
+    /**
+     * The verifiedCacheSize variable represents the maximum number of verified tokens kept in memory.
+     * It is set using the value from the application property 'application.security.jwt.verified-cache-size'.
+     */
+    @Value("${application.security.jwt.verified-cache-size}")
+    private long verifiedCacheSize;
+
+    /**
+     * The selfContained variable tells whether the tokens carry the claims authenticating their user on their own.
+     * It is set using the value from the application property 'application.security.jwt.self-contained'.
+     */
+    @Value("${application.security.jwt.self-contained}")
+    private boolean selfContained;
+
+    /**
+     * The meterRegistry variable represents the registry of the metrics of the token verification.
+     */
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * The HMAC256 algorithm signing and checking the tokens, built once from the secret key.
+     */
+    private Algorithm algorithm;
+
+    /**
+     * The verifier of the tokens, built once : it is thread-safe.
+     */
+    private JWTVerifier verifier;
+
+    /**
+     * The verifiedTokens variable holds the claims of the verified tokens by the digest of the token, each one
+     * until the token expires.
+     */
+    private Cache<String, VerifiedToken> verifiedTokens;
+
+    /**
+     * The verificationTimer variable measures the time taken to verify the tokens missing from the cache.
+     */
+    private Timer verificationTimer;
+
+    /**
+     * Builds the signing algorithm, the verifier and the cache of the verified tokens, then registers the metrics
+     * of the token verification.
+     */
+    @PostConstruct
+    public void init() {
+        this.algorithm = Algorithm.HMAC256(jwtSecretKey);
+        this.verifier = JWT.require(this.algorithm).build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(this.verifiedCacheSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(final String key, final VerifiedToken token, final long currentTime) {
+                        return Math.max(0, Duration.between(Instant.now(), token.getExpiresAt()).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(final String key, final VerifiedToken token, final long currentTime,
+                                                  final long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(final String key, final VerifiedToken token, final long currentTime,
+                                                final long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(this.meterRegistry, this.verifiedTokens, "jwt.verified");
+        Gauge.builder("jwt.verified.hit.ratio", this.verifiedTokens, cache -> cache.stats().hitRate())
+                .description("Ratio of the tokens authenticated from the cache of the verified tokens")
+                .register(this.meterRegistry);
+        this.verificationTimer = Timer.builder("jwt.verification")
+                .description("Time taken to check the signature of a token and parse it")
+                .register(this.meterRegistry);
+    }
+
     /**
      * Generates a JSON Web Token (JWT) for the given user.
      *
@@ -48,7 +177,10 @@ public class JwtServiceImpl implements JwtService {
      * @return The generated JWT as a JwtDto object.
      */
     public JwtDto generateToken(final User user) {
-        JwtDto response = JwtDto.builder().accessToken(this.buildJwtToken(user)).build();
+        JwtDto response = JwtDto.builder()
+                .accessToken(this.buildJwtToken(user))
+                .expiresIn(this.jwtExpiration / 1000)
+                .build();
         log.debug("Generated token : {}", response);
         return response;
     }
@@ -60,35 +192,115 @@ public class JwtServiceImpl implements JwtService {
      * @return The decoded JWT token as a DecodedJWT object
      */
     public DecodedJWT decodeJwtToken(final String token) {
-        return JWT
-                .require(generateCheckJwtSignature())
-                .build()
-                .verify(token);
+        return this.verifier.verify(token);
+    }
+
+    /**
+     * Verifies a JSON Web Token (JWT) and returns its claims.
+     * The token is looked up in the cache of the verified tokens first : only the tokens missing from the cache
+     * have their signature checked and are parsed. The invalid tokens are never cached.
+     *
+     * @param token The JWT token to verify
+     * @return The claims of the verified token
+     * @throws com.auth0.jwt.exceptions.JWTVerificationException if the token is invalid or expired
+     */
+    public VerifiedToken verifyToken(final String token) {
+        String digest = digest(token);
+        VerifiedToken verifiedToken = this.verifiedTokens.getIfPresent(digest);
+        if (verifiedToken != null) {
+            return verifiedToken;
+        }
+        long startedAt = System.nanoTime();
+        DecodedJWT decodedToken;
+        try {
+            decodedToken = this.verifier.verify(token);
+        } finally {
+            this.verificationTimer.record(Duration.ofNanos(System.nanoTime() - startedAt));
+        }
+        verifiedToken = this.toVerifiedToken(decodedToken);
+        if (verifiedToken.getExpiresAt() != null) {
+            // The tokens without expiry are verified at each request
+            this.verifiedTokens.put(digest, verifiedToken);
+        }
+        return verifiedToken;
+    }
+
+    /**
+     * Reads the claims of a decoded token. The claims of the user are only read from the self-contained tokens when
+     * the self-contained mode is enabled.
+     *
+     * @param decodedToken The decoded JWT token
+     * @return The claims of the token
+     * @throws JWTDecodeException if the subject of the token is not the ID of a user
+     */
+    private VerifiedToken toVerifiedToken(final DecodedJWT decodedToken) {
+        Long issuedAt = decodedToken.getClaim(ISSUED_AT_MILLIS_CLAIM).asLong();
+        if (issuedAt == null) {
+            // Issued before the claim existed : the token is taken as issued at the start of its second
+            Instant issuedAtSecond = decodedToken.getIssuedAtAsInstant();
+            issuedAt = issuedAtSecond == null ? 0 : issuedAtSecond.getEpochSecond() * 1000;
+        }
+        try {
+            return new VerifiedToken(decodedToken.getSubject(), parseTokenId(decodedToken.getId()),
+                    issuedAt, decodedToken.getExpiresAtAsInstant(),
+                    this.selfContained ? decodedToken.getClaim(NAME_CLAIM).asString() : null,
+                    this.selfContained ? decodedToken.getClaim(EMAIL_CLAIM).asString() : null,
+                    this.selfContained ? decodedToken.getClaim(VERSION_CLAIM).asInt() : null);
+        } catch (NumberFormatException e) {
+            throw new JWTDecodeException("The subject of the token is not a user ID", e);
+        }
     }
 
     /**
      * Builds a JSON Web Token (JWT) for the given user.
+     * The self-contained tokens also carry the name, the email and the token version of the user.
      *
      * @param user The user for whom the token is generated.
      * @return The generated JWT as a string.
      */
     private String buildJwtToken(final User user) {
-        return JWT.create()
+        long issuedAt = System.currentTimeMillis();
+        JWTCreator.Builder token = JWT.create()
+                .withJWTId(UUID.randomUUID().toString())
                 .withSubject(user.getId().toString())
-                .withIssuedAt(new Date(System.currentTimeMillis()))
-                .withExpiresAt(new Date(System.currentTimeMillis() + jwtExpiration))
-                .sign(generateCheckJwtSignature());
+                .withIssuedAt(new Date(issuedAt))
+                .withClaim(ISSUED_AT_MILLIS_CLAIM, issuedAt)
+                .withExpiresAt(new Date(issuedAt + jwtExpiration));
+        if (this.selfContained) {
+            token.withClaim(NAME_CLAIM, user.getName())
+                    .withClaim(EMAIL_CLAIM, user.getEmail())
+                    .withClaim(VERSION_CLAIM, user.getTokenVersion());
+        }
+        return token.sign(this.algorithm);
     }
 
     /**
-     * Generates the signature for checking the JSON Web Token (JWT).
-     * The signature is generated using the HMAC256 algorithm and the secret key.
+     * Parses the ID of a token.
      *
-     * @return The generated JWT signature as an Algorithm object.
+     * @param tokenId The jti claim of the token, may be null
+     * @return The ID of the token, or null if the token has no ID, or an ID which has not been issued by the service
      */
-    private Algorithm generateCheckJwtSignature() {
-        return Algorithm.HMAC256(jwtSecretKey);
+    private static UUID parseTokenId(final String tokenId) {
+        try {
+            return tokenId == null ? null : UUID.fromString(tokenId);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
     }
 
-
+    /**
+     * Computes the key of a token in the cache of the verified tokens : the SHA-256 digest of the token, so that
+     * the cache does not hold the tokens themselves.
+     *
+     * @param token The JWT token
+     * @return The hexadecimal SHA-256 digest of the token
+     */
+    private static String digest(final String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
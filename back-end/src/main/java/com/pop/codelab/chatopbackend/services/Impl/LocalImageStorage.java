@@ -0,0 +1,209 @@
+package com.pop.codelab.chatopbackend.services.Impl;
+
+import com.pop.codelab.chatopbackend.services.ImageStorage;
+import com.pop.codelab.chatopbackend.services.ImageStorageAttributes;
+import com.pop.codelab.chatopbackend.services.ImageStoragePaths;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * The LocalImageStorage class is the implementation of the ImageStorage interface storing the images in a
+ * directory of the local file system, the upload directory.
+ * <p>
+ * The content-addressed images are spread over the two-level fan-out of {@link ImageStoragePaths}, the older images
+ * staying at the root of the directory. The staging files are hidden files of the directory itself, so that putting
+ * an image is an atomic rename, and that an image is never seen while being written.</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@Service
+@ConditionalOnProperty(name = "application.images.storage.type", havingValue = "local", matchIfMissing = true)
+@Log4j2
+public class LocalImageStorage implements ImageStorage {
+
+    /**
+     * The uploadDirectory variable represents the directory where the image files are stored.
+     * It is set using the value from the application property 'application.local-storage.upload-directory'.
+     */
+    @Value("${application.local-storage.upload-directory}")
+    private String uploadDirectory;
+
+    /**
+     * The directory where the image files are stored.
+     */
+    private Path root;
+
+    /**
+     * Creates the upload directory if needed.
+     *
+     * @throws IOException if the directory cannot be created
+     */
+    @PostConstruct
+    public void init() throws IOException {
+        this.root = Path.of(this.uploadDirectory);
+        Files.createDirectories(this.root);
+        log.info("Images stored in {}", this.root.toAbsolutePath());
+    }
+
+    @Override
+    public Path getStagingDirectory() {
+        return this.root;
+    }
+
+    @Override
+    public void put(final String fileName, final Path stagedFile) throws IOException {
+        try {
+            Path path = this.resolve(fileName);
+            Files.createDirectories(path.getParent());
+            Files.move(stagedFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(stagedFile);
+        }
+    }
+
+    /**
+     * Stores the content of a staging file under a file name. The staging file being renamed, the image is stored
+     * before the call returns.
+     *
+     * @param fileName   the file name of the image
+     * @param stagedFile the staging file holding the content of the image
+     * @return a completed future, or a future completed exceptionally if the image cannot be stored
+     */
+    @Override
+    public CompletableFuture<Void> putAsync(final String fileName, final Path stagedFile) {
+        try {
+            this.put(fileName, stagedFile);
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public InputStream get(final String fileName) throws IOException {
+        return Files.newInputStream(this.resolve(fileName));
+    }
+
+    @Override
+    public InputStream get(final String fileName, final long start, final long length) throws IOException {
+        FileChannel channel = FileChannel.open(this.resolve(fileName), StandardOpenOption.READ).position(start);
+        return new FilterInputStream(Channels.newInputStream(channel)) {
+            private long remaining = length;
+
+            @Override
+            public int read() throws IOException {
+                if (this.remaining <= 0) {
+                    return -1;
+                }
+                int read = super.read();
+                this.remaining--;
+                return read;
+            }
+
+            @Override
+            public int read(final byte[] bytes, final int offset, final int count) throws IOException {
+                if (this.remaining <= 0) {
+                    return -1;
+                }
+                int read = super.read(bytes, offset, (int) Math.min(count, this.remaining));
+                this.remaining -= Math.max(read, 0);
+                return read;
+            }
+        };
+    }
+
+    /**
+     * Reads the whole content of an image into a direct buffer.
+     *
+     * @param fileName the file name of the image
+     * @return the content of the image, from position 0 to its limit
+     * @throws IOException if the image is missing or cannot be read
+     */
+    @Override
+    public ByteBuffer read(final String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(this.resolve(fileName), StandardOpenOption.READ)) {
+            ByteBuffer content = ByteBuffer.allocateDirect((int) channel.size());
+            while (content.hasRemaining() && channel.read(content) >= 0) {
+                // Reads until the buffer is full or the end of the file is reached
+            }
+            return content.flip();
+        }
+    }
+
+    @Override
+    public Optional<ImageStorageAttributes> stat(final String fileName) throws IOException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(this.resolve(fileName), BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                return Optional.empty();
+            }
+            return Optional.of(new ImageStorageAttributes(attributes.size(),
+                    attributes.lastModifiedTime().toMillis()));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void delete(final String fileName) throws IOException {
+        Files.deleteIfExists(this.resolve(fileName));
+    }
+
+    /**
+     * Lists the file names of the images of the upload directory and of its fan-out subdirectories.
+     * The hidden files, such as the staging files, are not listed.
+     *
+     * @return the file names of the images
+     * @throws IOException if the directory cannot be walked
+     */
+    @Override
+    public List<String> listFileNames() throws IOException {
+        try (Stream<Path> paths = Files.walk(this.root)) {
+            return paths.filter(Files::isRegularFile)
+                    .map(path -> path.getFileName().toString())
+                    .filter(fileName -> !fileName.startsWith("."))
+                    .toList();
+        }
+    }
+
+    @Override
+    public Optional<Path> getLocalPath(final String fileName) {
+        return Optional.of(this.resolve(fileName));
+    }
+
+    @Override
+    public Optional<Path> getLocalDirectory() {
+        return Optional.of(this.root);
+    }
+
+    /**
+     * Resolves the path of an image in the upload directory.
+     *
+     * @param fileName the file name of the image
+     * @return the path of the image
+     */
+    protected Path resolve(final String fileName) {
+        return ImageStoragePaths.resolve(this.root, fileName);
+    }
+}
@@ -0,0 +1,42 @@
+package com.pop.codelab.chatopbackend.services.Impl;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The MappedImageStorage class is the implementation of the ImageStorage interface storing the images in the
+ * upload directory, like {@link LocalImageStorage}, whose whole images are read by mapping their file in memory.
+ * <p>
+ * A mapped image is not copied : its buffer reads the pages of the file from the page cache of the system, and the
+ * mapping only holds address space, whatever the number of the images mapped. The images held by the
+ * {@link com.pop.codelab.chatopbackend.services.ImageBytesCache} are then shared with the page cache rather than
+ * duplicated in the direct memory. The content-addressed images are never rewritten in place, which keeps their
+ * mappings valid for as long as they are stored.</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@Service
+@ConditionalOnProperty(name = "application.images.storage.type", havingValue = "mapped")
+public class MappedImageStorage extends LocalImageStorage {
+
+    /**
+     * Maps the whole content of an image in memory, read-only.
+     *
+     * @param fileName the file name of the image
+     * @return the mapped content of the image, from position 0 to its limit
+     * @throws IOException if the image is missing or cannot be mapped
+     */
+    @Override
+    public ByteBuffer read(final String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(this.resolve(fileName), StandardOpenOption.READ)) {
+            // The mapping outlives the channel
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+}
@@ -0,0 +1,466 @@
+package com.pop.codelab.chatopbackend.services.Impl;
+
+import com.pop.codelab.chatopbackend.services.ImageStorage;
+import com.pop.codelab.chatopbackend.services.ImageStorageAttributes;
+import com.pop.codelab.chatopbackend.services.ImageStoragePaths;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+/**
+ * The S3ImageStorage class is the implementation of the ImageStorage interface storing the images in a bucket of
+ * an S3-compatible object storage (Amazon S3, MinIO, Ceph...), so that several nodes of the application share
+ * the same images.
+ * <p>
+ * The objects are addressed in the path style, {@code endpoint/bucket/key}, their key being the path of the image
+ * given by {@link ImageStoragePaths#relativePath(String)}. The requests are signed with the AWS Signature Version 4
+ * and sent by the HTTP client of the JDK, whose connections are kept alive and shared by all the requests : the
+ * uploads are streamed from their staging file, and {@link #putAsync(String, Path)} sends them without blocking,
+ * so that the variants of an image are uploaded in parallel.</p>
+ * <p>
+ * The staging files are created in a local directory, given by the
+ * 'application.images.storage.s3.staging-directory' property.</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@Service
+@ConditionalOnProperty(name = "application.images.storage.type", havingValue = "s3")
+@Log4j2
+public class S3ImageStorage implements ImageStorage {
+
+    /**
+     * The format of the Last-Modified header of the objects.
+     */
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME;
+
+    /**
+     * The endpoint variable represents the URL of the object storage, such as https://s3.eu-west-3.amazonaws.com.
+     * It is set using the value from the application property 'application.images.storage.s3.endpoint'.
+     */
+    @Value("${application.images.storage.s3.endpoint}")
+    private String endpoint;
+
+    /**
+     * The region variable represents the region of the object storage, part of the signature of the requests.
+     * It is set using the value from the application property 'application.images.storage.s3.region'.
+     */
+    @Value("${application.images.storage.s3.region}")
+    private String region;
+
+    /**
+     * The bucket variable represents the bucket holding the images.
+     * It is set using the value from the application property 'application.images.storage.s3.bucket'.
+     */
+    @Value("${application.images.storage.s3.bucket}")
+    private String bucket;
+
+    /**
+     * The accessKey variable represents the access key ID signing the requests.
+     * It is set using the value from the application property 'application.images.storage.s3.access-key'.
+     */
+    @Value("${application.images.storage.s3.access-key}")
+    private String accessKey;
+
+    /**
+     * The secretKey variable represents the secret access key signing the requests.
+     * It is set using the value from the application property 'application.images.storage.s3.secret-key'.
+     */
+    @Value("${application.images.storage.s3.secret-key}")
+    private String secretKey;
+
+    /**
+     * The stagingDirectory variable represents the local directory of the staging files.
+     * It is set using the value from the application property 'application.images.storage.s3.staging-directory'.
+     */
+    @Value("${application.images.storage.s3.staging-directory}")
+    private String stagingDirectory;
+
+    /**
+     * The HTTP client sending the requests to the object storage.
+     */
+    private HttpClient httpClient;
+
+    /**
+     * The signer of the requests.
+     */
+    private S3RequestSigner signer;
+
+    /**
+     * The URL of the bucket, without trailing slash.
+     */
+    private String bucketUrl;
+
+    /**
+     * Creates the HTTP client and the staging directory.
+     *
+     * @throws IOException if the staging directory cannot be created
+     */
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(Path.of(this.stagingDirectory));
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        this.signer = new S3RequestSigner(this.accessKey, this.secretKey, this.region);
+        this.bucketUrl = this.endpoint.replaceAll("/+$", "") + "/" + S3RequestSigner.encode(this.bucket);
+        log.info("Images stored in the bucket {} of {}", this.bucket, this.endpoint);
+    }
+
+    @Override
+    public Path getStagingDirectory() {
+        return Path.of(this.stagingDirectory);
+    }
+
+    @Override
+    public void put(final String fileName, final Path stagedFile) throws IOException {
+        try {
+            HttpResponse<Void> response = this.send(this.newPutRequest(fileName, stagedFile),
+                    HttpResponse.BodyHandlers.discarding());
+            checkStatus("PUT", fileName, response.statusCode());
+        } finally {
+            Files.deleteIfExists(stagedFile);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> putAsync(final String fileName, final Path stagedFile) {
+        CompletableFuture<HttpResponse<Void>> response;
+        try {
+            response = this.httpClient.sendAsync(this.newPutRequest(fileName, stagedFile),
+                    HttpResponse.BodyHandlers.discarding());
+        } catch (IOException e) {
+            deleteStagedFile(stagedFile);
+            return CompletableFuture.failedFuture(e);
+        }
+        return response.handle((sent, failure) -> {
+            deleteStagedFile(stagedFile);
+            if (failure != null) {
+                throw failure instanceof CompletionException completion ? completion : new CompletionException(failure);
+            }
+            try {
+                checkStatus("PUT", fileName, sent.statusCode());
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public InputStream get(final String fileName) throws IOException {
+        return this.getObject(fileName, Map.of());
+    }
+
+    @Override
+    public InputStream get(final String fileName, final long start, final long length) throws IOException {
+        return this.getObject(fileName, Map.of("Range", "bytes=" + start + "-" + (start + length - 1)));
+    }
+
+    /**
+     * Downloads the whole content of an image into a direct buffer, without copying it through the heap.
+     *
+     * @param fileName the file name of the image
+     * @return the content of the image, from position 0 to its limit
+     * @throws IOException if the image is missing or cannot be downloaded
+     */
+    @Override
+    public ByteBuffer read(final String fileName) throws IOException {
+        HttpResponse<InputStream> response = this.send(this.newRequest("GET", this.objectUri(fileName), Map.of())
+                .GET().build(), HttpResponse.BodyHandlers.ofInputStream());
+        try (ReadableByteChannel body = Channels.newChannel(response.body())) {
+            checkStatus("GET", fileName, response.statusCode());
+            long size = response.headers().firstValueAsLong("Content-Length")
+                    .orElseThrow(() -> new IOException("The size of the image " + fileName + " is unknown"));
+            ByteBuffer content = ByteBuffer.allocateDirect((int) size);
+            while (content.hasRemaining() && body.read(content) >= 0) {
+                // Reads until the buffer is full or the end of the body is reached
+            }
+            return content.flip();
+        }
+    }
+
+    @Override
+    public Optional<ImageStorageAttributes> stat(final String fileName) throws IOException {
+        HttpResponse<Void> response = this.send(this.newRequest("HEAD", this.objectUri(fileName), Map.of())
+                .method("HEAD", HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 404) {
+            return Optional.empty();
+        }
+        checkStatus("HEAD", fileName, response.statusCode());
+        long size = response.headers().firstValueAsLong("Content-Length").orElse(0);
+        long lastModified = response.headers().firstValue("Last-Modified").map(value -> {
+            try {
+                return ZonedDateTime.parse(value, HTTP_DATE).toInstant().toEpochMilli();
+            } catch (DateTimeParseException e) {
+                return 0L;
+            }
+        }).orElse(0L);
+        return Optional.of(new ImageStorageAttributes(size, lastModified));
+    }
+
+    @Override
+    public void delete(final String fileName) throws IOException {
+        HttpResponse<Void> response = this.send(this.newRequest("DELETE", this.objectUri(fileName), Map.of())
+                .DELETE().build(), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 404) {
+            checkStatus("DELETE", fileName, response.statusCode());
+        }
+    }
+
+    /**
+     * Lists the file names of the images of the bucket, one page of the ListObjectsV2 operation after the other.
+     * The hidden files are not listed.
+     *
+     * @return the file names of the images
+     * @throws IOException if the bucket cannot be listed
+     */
+    @Override
+    public List<String> listFileNames() throws IOException {
+        List<String> fileNames = new ArrayList<>();
+        String continuationToken = null;
+        do {
+            String query = "list-type=2" + (continuationToken == null ? ""
+                    : "&continuation-token=" + S3RequestSigner.encode(continuationToken));
+            HttpResponse<InputStream> response = this.send(
+                    this.newRequest("GET", URI.create(this.bucketUrl + "?" + query), Map.of()).GET().build(),
+                    HttpResponse.BodyHandlers.ofInputStream());
+            Element result;
+            try (InputStream body = response.body()) {
+                checkStatus("GET", this.bucket, response.statusCode());
+                result = parseXml(body).getDocumentElement();
+            }
+            NodeList keys = result.getElementsByTagName("Key");
+            for (int index = 0; index < keys.getLength(); index++) {
+                String key = keys.item(index).getTextContent();
+                String fileName = key.substring(key.lastIndexOf('/') + 1);
+                if (!fileName.isEmpty() && !fileName.startsWith(".")) {
+                    fileNames.add(fileName);
+                }
+            }
+            continuationToken = "true".equals(childText(result, "IsTruncated"))
+                    ? childText(result, "NextContinuationToken") : null;
+        } while (continuationToken != null && !continuationToken.isEmpty());
+        return fileNames;
+    }
+
+    /**
+     * The images stored in a bucket have no local path : they are always sent through the heap.
+     *
+     * @param fileName the file name of the image
+     * @return an empty Optional
+     */
+    @Override
+    public Optional<Path> getLocalPath(final String fileName) {
+        return Optional.empty();
+    }
+
+    /**
+     * The images stored in a bucket have no local directory : they cannot be watched.
+     *
+     * @return an empty Optional
+     */
+    @Override
+    public Optional<Path> getLocalDirectory() {
+        return Optional.empty();
+    }
+
+    /**
+     * Downloads an image, or a range of it.
+     *
+     * @param fileName the file name of the image
+     * @param headers  the headers of the request
+     * @return the body of the response, to be closed by the caller
+     * @throws IOException if the image is missing or cannot be downloaded
+     */
+    private InputStream getObject(final String fileName, final Map<String, String> headers) throws IOException {
+        HttpResponse<InputStream> response = this.send(this.newRequest("GET", this.objectUri(fileName), headers)
+                .GET().build(), HttpResponse.BodyHandlers.ofInputStream());
+        try {
+            checkStatus("GET", fileName, response.statusCode());
+        } catch (IOException e) {
+            response.body().close();
+            throw e;
+        }
+        return response.body();
+    }
+
+    /**
+     * Builds the request uploading a staging file, streamed from the disk.
+     *
+     * @param fileName   the file name of the image
+     * @param stagedFile the staging file
+     * @return the request
+     * @throws IOException if the staging file is missing
+     */
+    private HttpRequest newPutRequest(final String fileName, final Path stagedFile) throws IOException {
+        String contentType = MediaTypeFactory.getMediaType(fileName).orElse(MediaType.APPLICATION_OCTET_STREAM)
+                .toString();
+        return this.newRequest("PUT", this.objectUri(fileName), Map.of("Content-Type", contentType),
+                        S3RequestSigner.UNSIGNED_PAYLOAD)
+                .PUT(HttpRequest.BodyPublishers.ofFile(stagedFile))
+                .build();
+    }
+
+    /**
+     * Builds a signed request without body.
+     *
+     * @param method  the method of the request
+     * @param uri     the URI of the request
+     * @param headers the headers of the request
+     * @return the request builder, whose method and body are to be set
+     */
+    private HttpRequest.Builder newRequest(final String method, final URI uri, final Map<String, String> headers) {
+        return this.newRequest(method, uri, headers, S3RequestSigner.EMPTY_PAYLOAD);
+    }
+
+    /**
+     * Builds a signed request.
+     *
+     * @param method      the method of the request
+     * @param uri         the URI of the request
+     * @param headers     the headers of the request
+     * @param payloadHash the hash of the body of the request
+     * @return the request builder, whose method and body are to be set
+     */
+    private HttpRequest.Builder newRequest(final String method, final URI uri, final Map<String, String> headers,
+                                           final String payloadHash) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30));
+        headers.forEach(builder::header);
+        this.signer.sign(method, uri, headers, payloadHash, Instant.now()).forEach(builder::header);
+        return builder;
+    }
+
+    /**
+     * Sends a request and waits for its response.
+     *
+     * @param request the request
+     * @param handler the handler of the body of the response
+     * @param <T>     the type of the body of the response
+     * @return the response
+     * @throws IOException if the request cannot be sent
+     */
+    private <T> HttpResponse<T> send(final HttpRequest request, final HttpResponse.BodyHandler<T> handler)
+            throws IOException {
+        try {
+            return this.httpClient.send(request, handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while requesting " + request.uri());
+        }
+    }
+
+    /**
+     * Builds the URI of the object of an image.
+     *
+     * @param fileName the file name of the image
+     * @return the URI of the object, whose key is the path of the image
+     */
+    private URI objectUri(final String fileName) {
+        return URI.create(this.bucketUrl + "/" + Arrays.stream(ImageStoragePaths.relativePath(fileName).split("/"))
+                .map(S3RequestSigner::encode)
+                .collect(Collectors.joining("/")));
+    }
+
+    /**
+     * Checks the status of a response of the object storage.
+     *
+     * @param method   the method of the request
+     * @param fileName the file name of the image, or the bucket
+     * @param status   the status of the response
+     * @throws NoSuchFileException if the object does not exist
+     * @throws IOException         if the status is not a success
+     */
+    private static void checkStatus(final String method, final String fileName, final int status) throws IOException {
+        if (status == 404) {
+            throw new NoSuchFileException(fileName);
+        }
+        if (status < 200 || status >= 300) {
+            throw new IOException(method + " " + fileName + " failed with the status " + status);
+        }
+    }
+
+    /**
+     * Deletes a staging file once uploaded.
+     *
+     * @param stagedFile the staging file
+     */
+    private static void deleteStagedFile(final Path stagedFile) {
+        try {
+            Files.deleteIfExists(stagedFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Parses an XML response of the object storage, the external entities and the DOCTYPE being disallowed.
+     *
+     * @param body the body of the response
+     * @return the parsed document
+     * @throws IOException if the body is not well-formed XML
+     */
+    private static Document parseXml(final InputStream body) throws IOException {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setExpandEntityReferences(false);
+            return factory.newDocumentBuilder().parse(body);
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("The response of the object storage cannot be parsed", e);
+        }
+    }
+
+    /**
+     * Returns the text of the first child element of the given name.
+     *
+     * @param parent the parent element
+     * @param name   the name of the child element
+     * @return the text of the child, or null if there is none
+     */
+    private static String childText(final Element parent, final String name) {
+        NodeList children = parent.getElementsByTagName(name);
+        return children.getLength() == 0 ? null : children.item(0).getTextContent();
+    }
+}
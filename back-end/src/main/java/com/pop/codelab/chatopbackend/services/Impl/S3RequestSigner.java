@@ -0,0 +1,196 @@
+package com.pop.codelab.chatopbackend.services.Impl;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * The S3RequestSigner class signs the requests sent to an S3-compatible object storage, with the AWS Signature
+ * Version 4 in the Authorization header.
+ * <p>
+ * The signature covers the method, the path and the query of the request, the Host header, the headers given by the
+ * caller (such as Range or Content-Type) and the hash of the payload, or {@link #UNSIGNED_PAYLOAD} for the uploads
+ * streamed from a file. The path and the query must be encoded as S3 expects them : every character but the
+ * unreserved ones percent-encoded, the '/' of the path excepted.</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+public final class S3RequestSigner {
+
+    /**
+     * The hash of an empty payload, sent with the requests without body.
+     */
+    public static final String EMPTY_PAYLOAD = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+
+    /**
+     * The payload hash of the requests whose body is not signed.
+     */
+    public static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+
+    /**
+     * The signing algorithm.
+     */
+    private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+
+    /**
+     * The format of the date of the signed requests (x-amz-date header).
+     */
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'")
+            .withZone(ZoneOffset.UTC);
+
+    /**
+     * The access key ID of the credentials.
+     */
+    private final String accessKey;
+
+    /**
+     * The secret access key of the credentials.
+     */
+    private final String secretKey;
+
+    /**
+     * The region of the object storage.
+     */
+    private final String region;
+
+    /**
+     * Constructs a signer.
+     *
+     * @param accessKey the access key ID of the credentials
+     * @param secretKey the secret access key of the credentials
+     * @param region    the region of the object storage
+     */
+    public S3RequestSigner(final String accessKey, final String secretKey, final String region) {
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.region = region;
+    }
+
+    /**
+     * Signs a request.
+     *
+     * @param method      the method of the request
+     * @param uri         the URI of the request, whose path and query are already encoded
+     * @param headers     the headers of the request to be signed along with it, apart from the Host header
+     * @param payloadHash the hexadecimal SHA-256 hash of the body, or {@link #UNSIGNED_PAYLOAD}
+     * @param time        the time of the request
+     * @return the headers to add to the request : x-amz-date, x-amz-content-sha256 and Authorization
+     */
+    public Map<String, String> sign(final String method, final URI uri, final Map<String, String> headers,
+                                    final String payloadHash, final Instant time) {
+        String amzDate = AMZ_DATE.format(time);
+        String scope = amzDate.substring(0, 8) + "/" + this.region + "/s3/aws4_request";
+
+        Map<String, String> signedHeaders = new TreeMap<>();
+        headers.forEach((name, value) -> signedHeaders.put(name.toLowerCase(Locale.ROOT), value.trim()));
+        signedHeaders.put("host", uri.getPort() < 0 ? uri.getHost() : uri.getHost() + ":" + uri.getPort());
+        signedHeaders.put("x-amz-content-sha256", payloadHash);
+        signedHeaders.put("x-amz-date", amzDate);
+        String signedHeaderNames = String.join(";", signedHeaders.keySet());
+
+        String canonicalRequest = method + "\n"
+                + (uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath()) + "\n"
+                + canonicalQuery(uri.getRawQuery()) + "\n"
+                + signedHeaders.entrySet().stream()
+                        .map(header -> header.getKey() + ":" + header.getValue() + "\n")
+                        .collect(Collectors.joining()) + "\n"
+                + signedHeaderNames + "\n"
+                + payloadHash;
+        String stringToSign = ALGORITHM + "\n" + amzDate + "\n" + scope + "\n" + sha256Hex(canonicalRequest);
+
+        byte[] signingKey = hmac(("AWS4" + this.secretKey).getBytes(StandardCharsets.UTF_8), amzDate.substring(0, 8));
+        signingKey = hmac(signingKey, this.region);
+        signingKey = hmac(signingKey, "s3");
+        signingKey = hmac(signingKey, "aws4_request");
+        String signature = HexFormat.of().formatHex(hmac(signingKey, stringToSign));
+
+        Map<String, String> authenticationHeaders = new LinkedHashMap<>();
+        authenticationHeaders.put("x-amz-date", amzDate);
+        authenticationHeaders.put("x-amz-content-sha256", payloadHash);
+        authenticationHeaders.put("Authorization", ALGORITHM + " Credential=" + this.accessKey + "/" + scope
+                + ", SignedHeaders=" + signedHeaderNames + ", Signature=" + signature);
+        return authenticationHeaders;
+    }
+
+    /**
+     * Percent-encodes a path segment or a query parameter as S3 expects it.
+     *
+     * @param value the value to encode
+     * @return the value whose characters, apart from the unreserved ones, are percent-encoded in UTF-8
+     */
+    public static String encode(final String value) {
+        StringBuilder encoded = new StringBuilder();
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xff);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~') {
+                encoded.append(c);
+            } else {
+                encoded.append('%').append(HexFormat.of().withUpperCase().toHexDigits(b));
+            }
+        }
+        return encoded.toString();
+    }
+
+    /**
+     * Builds the canonical query of a request : its parameters sorted by name, then by value.
+     *
+     * @param rawQuery the encoded query, or null
+     * @return the canonical query, empty if the request has no query
+     */
+    private static String canonicalQuery(final String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return "";
+        }
+        return Arrays.stream(rawQuery.split("&"))
+                .map(parameter -> parameter.contains("=") ? parameter : parameter + "=")
+                .sorted()
+                .collect(Collectors.joining("&"));
+    }
+
+    /**
+     * Hashes a string with SHA-256.
+     *
+     * @param value the string to hash
+     * @return the hexadecimal hash of its UTF-8 bytes
+     */
+    private static String sha256Hex(final String value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Computes the HMAC-SHA256 of a string.
+     *
+     * @param key   the key
+     * @param value the string
+     * @return the HMAC of the UTF-8 bytes of the string
+     */
+    private static byte[] hmac(final byte[] key, final String value) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(value.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -25,4 +25,14 @@ public interface JwtService {
      */
     DecodedJWT decodeJwtToken(String token);
 
+    /**
+     * Verifies the provided JSON Web Token (JWT) and returns its claims. A token already verified is not checked
+     * again until it expires.
+     *
+     * @param token The JWT to verify.
+     * @return The claims of the verified JWT.
+     * @throws com.auth0.jwt.exceptions.JWTVerificationException if the token is invalid or expired.
+     */
+    VerifiedToken verifyToken(String token);
+
 }
@@ -0,0 +1,97 @@
+package com.pop.codelab.chatopbackend.services;
+
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * The VerifiedToken class holds the claims of a JSON Web Token (JWT) whose signature and expiry have been checked.
+ * It is kept by the cache of the verified tokens until the token expires, so it never changes once built.
+ * <p>
+ * A self-contained token also carries the name, the email and the token version of its user, which are enough to
+ * authenticate the request without loading the user.</p>
+ * <p>
+ * The claims checked by each request against the token revocations are parsed once : the ID of the token, the ID of
+ * its user and its issue instant.</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 3.0
+ * @see JwtService#verifyToken(String)
+ */
+@Getter
+public final class VerifiedToken {
+
+    /**
+     * The subject variable represents the subject of the token : the ID of the authenticated user.
+     */
+    private final String subject;
+
+    /**
+     * The userId variable represents the ID of the authenticated user, parsed from the subject.
+     */
+    private final Long userId;
+
+    /**
+     * The id variable represents the ID of the token (jti claim), or null for the tokens issued without ID.
+     */
+    private final UUID id;
+
+    /**
+     * The issuedAt variable represents the instant the token was issued, in milliseconds since the epoch.
+     */
+    private final long issuedAt;
+
+    /**
+     * The expiresAt variable represents the instant the token expires.
+     */
+    private final Instant expiresAt;
+
+    /**
+     * The name variable represents the name of the user of a self-contained token, null otherwise.
+     */
+    private final String name;
+
+    /**
+     * The email variable represents the email of the user of a self-contained token, null otherwise.
+     */
+    private final String email;
+
+    /**
+     * The version variable represents the token version of the user of a self-contained token, null otherwise.
+     */
+    private final Integer version;
+
+    /**
+     * Constructs a verified token.
+     *
+     * @param subject   the subject of the token, the ID of its user
+     * @param id        the ID of the token, null if the token has no ID
+     * @param issuedAt  the instant the token was issued, in milliseconds since the epoch
+     * @param expiresAt the instant the token expires
+     * @param name      the name of the user, null if the token is not self-contained
+     * @param email     the email of the user, null if the token is not self-contained
+     * @param version   the token version of the user, null if the token is not self-contained
+     * @throws NumberFormatException if the subject is not the ID of a user
+     */
+    public VerifiedToken(final String subject, final UUID id, final long issuedAt, final Instant expiresAt,
+                         final String name, final String email, final Integer version) {
+        this.subject = subject;
+        this.userId = Long.valueOf(subject);
+        this.id = id;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+        this.name = name;
+        this.email = email;
+        this.version = version;
+    }
+
+    /**
+     * Tells whether the token carries the claims of its user, which authenticate the request on their own.
+     *
+     * @return true if the token is self-contained
+     */
+    public boolean isSelfContained() {
+        return this.name != null && this.email != null && this.version != null;
+    }
+}
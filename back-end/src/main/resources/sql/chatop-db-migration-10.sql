@@ -0,0 +1,18 @@
+-- Pignon Pierre-Olivier
+-- Migrates a database created by the script version 9 to the version 10
+-- The tokens revoked before their expiry, by their ID or all the tokens of a user, polled by every node
+-- ------------------------------------------------------
+
+USE
+    chatop;
+
+CREATE TABLE `token_revocations`
+(
+    `id`         bigint       NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    `user_id`    bigint       NOT NULL,
+    `token_id`   varchar(36)  NULL,
+    `revoked_at` timestamp(3) NOT NULL,
+    `expires_at` timestamp(3) NOT NULL
+);
+CREATE INDEX `token_revocations_revoked_at_IDX` ON `token_revocations` (`revoked_at`);
+CREATE INDEX `token_revocations_expires_at_IDX` ON `token_revocations` (`expires_at`);
@@ -0,0 +1,21 @@
+-- Pignon Pierre-Olivier
+-- Migrates a database created by the script version 10 to the version 11
+-- The refresh tokens, stored as their SHA-256 digest, exchanged once for new tokens of the same family
+-- ------------------------------------------------------
+
+USE
+    chatop;
+
+CREATE TABLE `refresh_tokens`
+(
+    `id`         bigint       NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    `user_id`    bigint       NOT NULL,
+    `token_hash` varchar(64)  NOT NULL,
+    `family_id`  varchar(36)  NOT NULL,
+    `expires_at` timestamp(3) NOT NULL,
+    `used_at`    timestamp(3) NULL
+);
+CREATE UNIQUE INDEX `refresh_tokens_token_hash_IDX` ON `refresh_tokens` (`token_hash`);
+CREATE INDEX `refresh_tokens_family_id_IDX` ON `refresh_tokens` (`family_id`);
+CREATE INDEX `refresh_tokens_user_id_IDX` ON `refresh_tokens` (`user_id`);
+CREATE INDEX `refresh_tokens_expires_at_IDX` ON `refresh_tokens` (`expires_at`);
@@ -0,0 +1,10 @@
+-- Pignon Pierre-Olivier
+-- Migrates a database created by the script version 11 to the version 12
+-- The reference count of an image is the number of rentals showing it, instead of the number of its uploads
+-- ------------------------------------------------------
+
+USE
+    chatop;
+
+UPDATE `images` i
+SET i.`ref_count` = (SELECT COUNT(*) FROM `rentals` r WHERE r.`picture` = i.`content_key`);
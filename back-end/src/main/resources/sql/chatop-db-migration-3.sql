@@ -0,0 +1,14 @@
+-- Pignon Pierre-Olivier
+-- Migrates a database created by the script version 2 to the version 3
+-- The rentals get a version, for their ETag and the optimistic locking, and a millisecond modification date
+-- ------------------------------------------------------
+
+USE
+    chatop;
+
+ALTER TABLE `rentals`
+    ADD `version`     bigint       NOT NULL DEFAULT 0 AFTER `picture`,
+    ADD `modified_at` timestamp(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) AFTER `version`;
+
+-- The existing rentals keep their last modification date as their Last-Modified date
+UPDATE `rentals` SET `modified_at` = `updated_at`;
@@ -0,0 +1,15 @@
+-- Pignon Pierre-Olivier
+-- Migrates a database created by the script version 3 to the version 4
+-- The rental search gets its indexes
+-- ------------------------------------------------------
+
+USE
+    chatop;
+
+-- Search indexes : the ID closes each index so that the keyset pagination (sort key, id) is read from it
+-- The index of the rentals_users_FK foreign key serves the owner filter sorted from the newest rentals
+CREATE INDEX `rentals_price_IDX` ON `rentals` (`price`, `id`);
+CREATE INDEX `rentals_surface_IDX` ON `rentals` (`surface`, `id`);
+CREATE INDEX `rentals_owner_price_IDX` ON `rentals` (`owner_id`, `price`, `id`);
+CREATE INDEX `rentals_owner_surface_IDX` ON `rentals` (`owner_id`, `surface`, `id`);
+CREATE INDEX `rentals_name_IDX` ON `rentals` (`name`, `id`);
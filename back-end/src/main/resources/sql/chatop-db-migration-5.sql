@@ -0,0 +1,32 @@
+-- Pignon Pierre-Olivier
+-- Migrates a database created by the script version 4 to the version 5
+-- The IDs are no longer generated by AUTO_INCREMENT columns but by the *_seq tables, seeded past the existing IDs
+-- ------------------------------------------------------
+
+USE
+    chatop;
+
+-- The referenced IDs keep their type : the foreign keys are left as they are
+SET FOREIGN_KEY_CHECKS = 0;
+ALTER TABLE `messages` MODIFY `id` bigint NOT NULL;
+ALTER TABLE `rentals` MODIFY `id` bigint NOT NULL;
+ALTER TABLE `users` MODIFY `id` bigint NOT NULL;
+SET FOREIGN_KEY_CHECKS = 1;
+
+CREATE TABLE `users_seq`
+(
+    `next_val` bigint
+);
+INSERT INTO `users_seq` SELECT COALESCE(MAX(`id`), 0) + 1 FROM `users`;
+
+CREATE TABLE `rentals_seq`
+(
+    `next_val` bigint
+);
+INSERT INTO `rentals_seq` SELECT COALESCE(MAX(`id`), 0) + 1 FROM `rentals`;
+
+CREATE TABLE `messages_seq`
+(
+    `next_val` bigint
+);
+INSERT INTO `messages_seq` SELECT COALESCE(MAX(`id`), 0) + 1 FROM `messages`;
@@ -0,0 +1,9 @@
+-- Pignon Pierre-Olivier
+-- Migrates a database created by the script version 5 to the version 6
+-- The rentals record the fixed-size variants generated from their picture
+-- ------------------------------------------------------
+
+USE
+    chatop;
+
+ALTER TABLE `rentals` ADD COLUMN `picture_variants` varchar(64) DEFAULT NULL AFTER `picture`;
@@ -0,0 +1,16 @@
+-- Pignon Pierre-Olivier
+-- Migrates a database created by the script version 6 to the version 7
+-- The uploaded images are stored once under their content key, with a reference count. The pictures uploaded
+-- before keep their file name and are not counted.
+-- ------------------------------------------------------
+
+USE
+    chatop;
+
+CREATE TABLE `images`
+(
+    `content_key` varchar(80)  NOT NULL PRIMARY KEY,
+    `ref_count`   int          NOT NULL,
+    `size`        bigint       NOT NULL,
+    `created_at`  timestamp(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3)
+);
@@ -0,0 +1,12 @@
+-- Pignon Pierre-Olivier
+-- Migrates a database created by the script version 7 to the version 8
+-- The garbage collection of the unreferenced images looks up the rentals by picture, and spares the images which
+-- have been uploaded again recently.
+-- ------------------------------------------------------
+
+USE
+    chatop;
+
+CREATE INDEX `rentals_picture_IDX` ON `rentals` (`picture`);
+
+ALTER TABLE `images` ADD COLUMN `referenced_at` timestamp(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) AFTER `created_at`;
@@ -0,0 +1,9 @@
+-- Pignon Pierre-Olivier
+-- Migrates a database created by the script version 8 to the version 9
+-- The self-contained tokens carry the token version of their user, which invalidates them once incremented
+-- ------------------------------------------------------
+
+USE
+    chatop;
+
+ALTER TABLE `users` ADD COLUMN `token_version` int NOT NULL DEFAULT 0 AFTER `password`;
@@ -1,5 +1,5 @@
 -- Pignon Pierre-Olivier
--- Script version : 2
+-- Script version : 12
 -- ------------------------------------------------------
 -- Server version	8.3.0
 
@@ -15,13 +15,20 @@ USE
 DROP TABLE IF EXISTS `messages`;
 DROP TABLE IF EXISTS `rentals`;
 DROP TABLE IF EXISTS `users`;
+DROP TABLE IF EXISTS `images`;
+DROP TABLE IF EXISTS `token_revocations`;
+DROP TABLE IF EXISTS `refresh_tokens`;
+DROP TABLE IF EXISTS `messages_seq`;
+DROP TABLE IF EXISTS `rentals_seq`;
+DROP TABLE IF EXISTS `users_seq`;
 
 CREATE TABLE `users`
 (
-    `id`         bigint PRIMARY KEY NOT NULL AUTO_INCREMENT,
+    `id`         bigint PRIMARY KEY NOT NULL,
     `email`      varchar(248)       NOT NULL,
     `name`       varchar(64)        NOT NULL,
     `password`   varchar(64)        NOT NULL,
+    `token_version` int             NOT NULL DEFAULT 0,
     `created_at` timestamp          NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     `updated_at` timestamp          NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     UNIQUE (`email`)
@@ -30,24 +37,37 @@ CREATE TABLE `users`
 
 CREATE TABLE `rentals`
 (
-    `id`          bigint         NOT NULL PRIMARY KEY AUTO_INCREMENT,
+    `id`          bigint         NOT NULL PRIMARY KEY,
     `name`        varchar(248)   NOT NULL,
     `price`       decimal(38, 2) NOT NULL,
     `surface`     decimal(38, 2) NOT NULL,
     `description` varchar(2000)  NOT NULL,
     `owner_id`    bigint         NOT NULL,
     `picture`     varchar(248)            DEFAULT NULL,
+    `picture_variants` varchar(64)        DEFAULT NULL,
+    `version`     bigint         NOT NULL DEFAULT 0,
+    `modified_at` timestamp(3)   NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
     `created_at`  timestamp      NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     `updated_at`  timestamp      NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
 
     CONSTRAINT `rentals_users_FK` FOREIGN KEY (`owner_id`) REFERENCES `users` (`id`)
 );
 
+-- Search indexes : the ID closes each index so that the keyset pagination (sort key, id) is read from it
+-- The index of the rentals_users_FK foreign key serves the owner filter sorted from the newest rentals
+CREATE INDEX `rentals_price_IDX` ON `rentals` (`price`, `id`);
+CREATE INDEX `rentals_surface_IDX` ON `rentals` (`surface`, `id`);
+CREATE INDEX `rentals_owner_price_IDX` ON `rentals` (`owner_id`, `price`, `id`);
+CREATE INDEX `rentals_owner_surface_IDX` ON `rentals` (`owner_id`, `surface`, `id`);
+CREATE INDEX `rentals_name_IDX` ON `rentals` (`name`, `id`);
+-- The references to an image are looked up by the garbage collection of the unreferenced images
+CREATE INDEX `rentals_picture_IDX` ON `rentals` (`picture`);
+
 
 CREATE TABLE `messages`
 (
 
-    `id`         bigint        NOT NULL PRIMARY KEY AUTO_INCREMENT,
+    `id`         bigint        NOT NULL PRIMARY KEY,
     `message`    varchar(3000) not NULL,
     `rental_id`  bigint        NOT NULL,
     `user_id`    bigint        NOT NULL,
@@ -57,3 +77,67 @@ CREATE TABLE `messages`
     CONSTRAINT `messages_rentals_FK` FOREIGN KEY (`rental_id`) REFERENCES `rentals` (`id`),
     CONSTRAINT `messages_users_FK` FOREIGN KEY (`user_id`) REFERENCES `users` (`id`)
 );
+
+
+-- Content-addressed images : each image is stored once under its content key (SHA-256 hash and format extension),
+-- whatever the number of uploads sharing it. ref_count is the number of rentals showing the image
+CREATE TABLE `images`
+(
+    `content_key` varchar(80)  NOT NULL PRIMARY KEY,
+    `ref_count`   int          NOT NULL,
+    `size`        bigint       NOT NULL,
+    `created_at`  timestamp(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    `referenced_at` timestamp(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3)
+);
+
+
+-- The tokens revoked before their expiry : a single token by its ID, or all the tokens of the user issued before
+-- revoked_at when token_id is null. The rows are deleted once expires_at has passed
+CREATE TABLE `token_revocations`
+(
+    `id`         bigint       NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    `user_id`    bigint       NOT NULL,
+    `token_id`   varchar(36)  NULL,
+    `revoked_at` timestamp(3) NOT NULL,
+    `expires_at` timestamp(3) NOT NULL
+);
+CREATE INDEX `token_revocations_revoked_at_IDX` ON `token_revocations` (`revoked_at`);
+CREATE INDEX `token_revocations_expires_at_IDX` ON `token_revocations` (`expires_at`);
+
+
+-- The refresh tokens, stored as their SHA-256 digest. The tokens issued by the rotations of a refresh token share
+-- its family_id, and used_at is set once a token has been exchanged, so that its reuse revokes the family
+CREATE TABLE `refresh_tokens`
+(
+    `id`         bigint       NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    `user_id`    bigint       NOT NULL,
+    `token_hash` varchar(64)  NOT NULL,
+    `family_id`  varchar(36)  NOT NULL,
+    `expires_at` timestamp(3) NOT NULL,
+    `used_at`    timestamp(3) NULL
+);
+CREATE UNIQUE INDEX `refresh_tokens_token_hash_IDX` ON `refresh_tokens` (`token_hash`);
+CREATE INDEX `refresh_tokens_family_id_IDX` ON `refresh_tokens` (`family_id`);
+CREATE INDEX `refresh_tokens_user_id_IDX` ON `refresh_tokens` (`user_id`);
+CREATE INDEX `refresh_tokens_expires_at_IDX` ON `refresh_tokens` (`expires_at`);
+
+
+-- ID sequences : Hibernate allocates the IDs by blocks of 50 (pooled-lo optimizer), next_val holding the lowest ID
+-- of the next block, so that it can batch the inserts
+CREATE TABLE `users_seq`
+(
+    `next_val` bigint
+);
+INSERT INTO `users_seq` VALUES (1);
+
+CREATE TABLE `rentals_seq`
+(
+    `next_val` bigint
+);
+INSERT INTO `rentals_seq` VALUES (1);
+
+CREATE TABLE `messages_seq`
+(
+    `next_val` bigint
+);
+INSERT INTO `messages_seq` VALUES (1);
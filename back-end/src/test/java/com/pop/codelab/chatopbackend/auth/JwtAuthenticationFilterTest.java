@@ -0,0 +1,119 @@
+package com.pop.codelab.chatopbackend.auth;
+
+import com.pop.codelab.chatopbackend.auth.service.TokenRevocationService;
+import com.pop.codelab.chatopbackend.business.user.entity.User;
+import com.pop.codelab.chatopbackend.business.user.repository.UserRepository;
+import com.pop.codelab.chatopbackend.configuration.CacheConfiguration;
+import com.pop.codelab.chatopbackend.security.JwtAuthenticationFilter;
+import com.pop.codelab.chatopbackend.services.Impl.JwtServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that the self-contained tokens are rejected once the token version of their user has been increased,
+ * whether the user is in the users cache or not.
+ */
+class JwtAuthenticationFilterTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+
+    private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(CacheConfiguration.USERS_CACHE);
+
+    private JwtServiceImpl jwtService;
+
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void createFilter() {
+        this.jwtService = new JwtServiceImpl(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(this.jwtService, "jwtSecretKey", "a secret key long enough for HMAC256");
+        ReflectionTestUtils.setField(this.jwtService, "jwtExpiration", 60_000L);
+        ReflectionTestUtils.setField(this.jwtService, "verifiedCacheSize", 100L);
+        ReflectionTestUtils.setField(this.jwtService, "selfContained", true);
+        this.jwtService.init();
+        this.filter = new JwtAuthenticationFilter(this.jwtService, this.userRepository, this.cacheManager,
+                mock(TokenRevocationService.class));
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void rejectsAnOldTokenOnceTheUserHasLeftTheCache() throws Exception {
+        String token = this.jwtService.generateToken(user(0)).getAccessToken();
+        // The bump of the token version has evicted the user from the cache
+        when(this.userRepository.findPrincipalById(42L)).thenReturn(Optional.of(user(1)));
+
+        filter(token);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void rejectsAnOldTokenAgainstTheCachedUser() throws Exception {
+        String token = this.jwtService.generateToken(user(0)).getAccessToken();
+        this.cacheManager.getCache(CacheConfiguration.USERS_CACHE).put(42L, user(1));
+
+        filter(token);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        // The user stays cached for its current tokens, and the database is not read
+        assertNotNull(this.cacheManager.getCache(CacheConfiguration.USERS_CACHE).get(42L));
+        verify(this.userRepository, never()).findPrincipalById(42L);
+    }
+
+    @Test
+    void reloadsACachedUserOlderThanTheToken() throws Exception {
+        String token = this.jwtService.generateToken(user(1)).getAccessToken();
+        this.cacheManager.getCache(CacheConfiguration.USERS_CACHE).put(42L, user(0));
+        when(this.userRepository.findPrincipalById(42L)).thenReturn(Optional.of(user(1)));
+
+        filter(token);
+
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(this.userRepository).findPrincipalById(42L);
+    }
+
+    @Test
+    void acceptsACurrentTokenFromTheCache() throws Exception {
+        String token = this.jwtService.generateToken(user(1)).getAccessToken();
+        this.cacheManager.getCache(CacheConfiguration.USERS_CACHE).put(42L, user(1));
+
+        filter(token);
+
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(this.userRepository, never()).findPrincipalById(42L);
+    }
+
+    private void filter(final String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/auth/me");
+        request.setServletPath("/auth/me");
+        request.addHeader("Authorization", "Bearer " + token);
+        this.filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+    }
+
+    private static User user(final int tokenVersion) {
+        User user = User.builder().name("Bob").email("bob@chatop.fr").tokenVersion(tokenVersion).build();
+        user.setId(42L);
+        return user;
+    }
+}
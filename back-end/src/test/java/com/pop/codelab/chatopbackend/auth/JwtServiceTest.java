@@ -0,0 +1,75 @@
+package com.pop.codelab.chatopbackend.auth;
+
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.pop.codelab.chatopbackend.business.user.entity.User;
+import com.pop.codelab.chatopbackend.services.Impl.JwtServiceImpl;
+import com.pop.codelab.chatopbackend.services.VerifiedToken;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the verified tokens are served from the cache, that the invalid tokens are never cached, and the
+ * claims of the self-contained tokens.
+ */
+class JwtServiceTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private JwtServiceImpl jwtService;
+
+    @BeforeEach
+    void createService() {
+        this.jwtService = new JwtServiceImpl(this.meterRegistry);
+        ReflectionTestUtils.setField(this.jwtService, "jwtSecretKey", "a secret key long enough for HMAC256");
+        ReflectionTestUtils.setField(this.jwtService, "jwtExpiration", 60_000L);
+        ReflectionTestUtils.setField(this.jwtService, "verifiedCacheSize", 100L);
+        this.jwtService.init();
+    }
+
+    @Test
+    void verifiesATokenOnce() {
+        User user = new User();
+        user.setId(42L);
+        String token = this.jwtService.generateToken(user).getAccessToken();
+
+        VerifiedToken verifiedToken = this.jwtService.verifyToken(token);
+        assertEquals("42", verifiedToken.getSubject());
+        assertSame(verifiedToken, this.jwtService.verifyToken(token));
+        assertEquals(1, this.meterRegistry.get("jwt.verification").timer().count());
+        assertEquals(0.5, this.meterRegistry.get("jwt.verified.hit.ratio").gauge().value(), 1e-9);
+    }
+
+    @Test
+    void rejectsATamperedTokenEveryTime() {
+        User user = new User();
+        user.setId(42L);
+        String token = this.jwtService.generateToken(user).getAccessToken();
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThrows(JWTVerificationException.class, () -> this.jwtService.verifyToken(tampered));
+        assertThrows(JWTVerificationException.class, () -> this.jwtService.verifyToken(tampered));
+        assertEquals(2, this.meterRegistry.get("jwt.verification").timer().count());
+    }
+
+    @Test
+    void carriesTheClaimsOfTheUserInSelfContainedMode() {
+        ReflectionTestUtils.setField(this.jwtService, "selfContained", true);
+        User user = User.builder().name("Bob").email("bob@chatop.fr").tokenVersion(3).build();
+        user.setId(42L);
+        String token = this.jwtService.generateToken(user).getAccessToken();
+
+        VerifiedToken verifiedToken = this.jwtService.verifyToken(token);
+        assertTrue(verifiedToken.isSelfContained());
+        assertEquals("Bob", verifiedToken.getName());
+        assertEquals("bob@chatop.fr", verifiedToken.getEmail());
+        assertEquals(3, verifiedToken.getVersion());
+    }
+}
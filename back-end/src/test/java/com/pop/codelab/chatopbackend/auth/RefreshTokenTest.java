@@ -0,0 +1,106 @@
+package com.pop.codelab.chatopbackend.auth;
+
+import com.pop.codelab.chatopbackend.auth.dto.responses.JwtDto;
+import com.pop.codelab.chatopbackend.auth.entity.RefreshToken;
+import com.pop.codelab.chatopbackend.auth.repository.RefreshTokenRepository;
+import com.pop.codelab.chatopbackend.auth.service.RefreshTokenServiceImpl;
+import com.pop.codelab.chatopbackend.auth.service.TokenRevocationService;
+import com.pop.codelab.chatopbackend.business.user.entity.User;
+import com.pop.codelab.chatopbackend.business.user.repository.UserRepository;
+import com.pop.codelab.chatopbackend.services.JwtService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that a refresh token is exchanged once for a token of the same family, and that its reuse revokes the
+ * family and the access tokens of its user.
+ */
+class RefreshTokenTest {
+
+    private final RefreshTokenRepository repository = mock(RefreshTokenRepository.class);
+
+    private final TokenRevocationService tokenRevocationService = mock(TokenRevocationService.class);
+
+    private final List<RefreshToken> storedTokens = new ArrayList<>();
+
+    private RefreshTokenServiceImpl refreshTokenService;
+
+    private User user;
+
+    @BeforeEach
+    void createService() {
+        this.user = new User();
+        this.user.setId(42L);
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findPrincipalById(42L)).thenReturn(Optional.of(this.user));
+        JwtService jwtService = mock(JwtService.class);
+        when(jwtService.generateToken(any())).thenAnswer(invocation -> JwtDto.builder().accessToken("access").build());
+        when(this.repository.save(any())).thenAnswer(invocation -> {
+            RefreshToken token = invocation.getArgument(0);
+            token.setId((long) this.storedTokens.size());
+            this.storedTokens.add(token);
+            return token;
+        });
+        when(this.repository.findByTokenHash(anyString())).thenAnswer(invocation -> this.storedTokens.stream()
+                .filter(token -> token.getTokenHash().equals(invocation.getArgument(0))).findFirst());
+        when(this.repository.markUsed(anyLong(), any())).thenAnswer(invocation -> {
+            RefreshToken token = this.storedTokens.get(((Long) invocation.getArgument(0)).intValue());
+            if (token.getUsedAt() != null) {
+                return 0;
+            }
+            token.setUsedAt(invocation.getArgument(1));
+            return 1;
+        });
+        this.refreshTokenService = new RefreshTokenServiceImpl(this.repository, userRepository, jwtService,
+                this.tokenRevocationService);
+        ReflectionTestUtils.setField(this.refreshTokenService, "refreshExpiration", Duration.ofDays(1));
+    }
+
+    @Test
+    void rotatesTheRefreshTokenWithinItsFamily() {
+        JwtDto issued = this.refreshTokenService.issueTokens(this.user);
+        JwtDto refreshed = this.refreshTokenService.refresh(issued.getRefreshToken());
+
+        assertNotEquals(issued.getRefreshToken(), refreshed.getRefreshToken());
+        assertEquals(2, this.storedTokens.size());
+        assertEquals(this.storedTokens.get(0).getFamilyId(), this.storedTokens.get(1).getFamilyId());
+        assertNotEquals(issued.getRefreshToken(), this.storedTokens.get(0).getTokenHash());
+    }
+
+    @Test
+    void revokesTheFamilyOfAReusedRefreshToken() {
+        JwtDto issued = this.refreshTokenService.issueTokens(this.user);
+        this.refreshTokenService.refresh(issued.getRefreshToken());
+
+        assertThrows(BadCredentialsException.class, () -> this.refreshTokenService.refresh(issued.getRefreshToken()));
+        verify(this.repository).deleteByFamilyId(this.storedTokens.get(0).getFamilyId());
+        verify(this.tokenRevocationService).revokeAll(42L);
+    }
+
+    @Test
+    void rejectsAnExpiredRefreshToken() {
+        JwtDto issued = this.refreshTokenService.issueTokens(this.user);
+        this.storedTokens.get(0).setExpiresAt(Instant.now().minusSeconds(1));
+
+        assertThrows(BadCredentialsException.class, () -> this.refreshTokenService.refresh(issued.getRefreshToken()));
+        assertThrows(BadCredentialsException.class, () -> this.refreshTokenService.refresh("unknown"));
+    }
+}
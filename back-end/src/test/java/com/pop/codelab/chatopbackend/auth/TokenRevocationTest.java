@@ -0,0 +1,143 @@
+package com.pop.codelab.chatopbackend.auth;
+
+import com.pop.codelab.chatopbackend.auth.entity.TokenRevocation;
+import com.pop.codelab.chatopbackend.auth.repository.TokenRevocationRepository;
+import com.pop.codelab.chatopbackend.auth.service.TokenRevocationServiceImpl;
+import com.pop.codelab.chatopbackend.services.VerifiedToken;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks the revocation of a single token and of all the tokens of a user, and that the revocations recorded by
+ * another node are applied by the poll of the revocations.
+ */
+class TokenRevocationTest {
+
+    private final TokenRevocationRepository repository = mock(TokenRevocationRepository.class);
+
+    private TokenRevocationServiceImpl revocationService;
+
+    @BeforeEach
+    void createService() {
+        when(this.repository.findByExpiresAtAfter(any())).thenReturn(List.of());
+        when(this.repository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        this.revocationService = new TokenRevocationServiceImpl(this.repository, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(this.revocationService, "jwtExpiration", 60_000L);
+        ReflectionTestUtils.setField(this.revocationService, "expectedRevocations", 1000L);
+        ReflectionTestUtils.setField(this.revocationService, "falsePositiveRate", 0.01);
+        this.revocationService.init();
+    }
+
+    @Test
+    void revokesASingleToken() {
+        VerifiedToken revoked = token(42L, Instant.now().getEpochSecond());
+        VerifiedToken kept = token(42L, Instant.now().getEpochSecond());
+
+        this.revocationService.revoke(revoked);
+
+        assertTrue(this.revocationService.isRevoked(revoked));
+        assertFalse(this.revocationService.isRevoked(kept));
+    }
+
+    @Test
+    void revokesTheTokensOfAUserIssuedBefore() {
+        long now = Instant.now().getEpochSecond();
+        VerifiedToken older = token(42L, now - 10);
+        VerifiedToken otherUser = token(43L, now - 10);
+
+        this.revocationService.revokeAll(42L);
+
+        assertTrue(this.revocationService.isRevoked(older));
+        assertFalse(this.revocationService.isRevoked(otherUser));
+        assertFalse(this.revocationService.isRevoked(token(42L, now + 1)));
+    }
+
+    @Test
+    void revokesTheTokensIssuedWithinTheSecondOfTheRevocation() {
+        VerifiedToken justBefore = tokenIssuedAtMillis(42L, System.currentTimeMillis() - 1);
+
+        this.revocationService.revokeAll(42L);
+        VerifiedToken justAfter = tokenIssuedAtMillis(42L, System.currentTimeMillis());
+
+        assertTrue(this.revocationService.isRevoked(justBefore));
+        assertFalse(this.revocationService.isRevoked(justAfter));
+    }
+
+    @Test
+    void appliesTheRevocationsOfTheOtherNodes() {
+        VerifiedToken revoked = token(42L, Instant.now().getEpochSecond());
+        TokenRevocation revocation = new TokenRevocation();
+        revocation.setUserId(42L);
+        revocation.setTokenId(revoked.getId().toString());
+        revocation.setRevokedAt(Instant.now());
+        revocation.setExpiresAt(revoked.getExpiresAt());
+        when(this.repository.findByRevokedAtGreaterThanEqual(any())).thenReturn(List.of(revocation));
+
+        assertFalse(this.revocationService.isRevoked(revoked));
+        this.revocationService.syncRevocations();
+        this.revocationService.syncRevocations();
+
+        assertTrue(this.revocationService.isRevoked(revoked));
+    }
+
+    @Test
+    void purgesOnlyTheExpiredRevocations() {
+        long now = Instant.now().getEpochSecond();
+        TokenRevocation expired = new TokenRevocation();
+        expired.setUserId(42L);
+        expired.setRevokedAt(Instant.now());
+        expired.setExpiresAt(Instant.now().minusSeconds(1));
+        when(this.repository.findByRevokedAtGreaterThanEqual(any())).thenReturn(List.of(expired));
+        this.revocationService.syncRevocations();
+        this.revocationService.revokeAll(43L);
+
+        this.revocationService.purgeExpiredRevocations();
+
+        assertFalse(this.revocationService.isRevoked(token(42L, now - 10)));
+        assertTrue(this.revocationService.isRevoked(token(43L, now - 10)));
+    }
+
+    @Test
+    void keepsTheRevokedTokensWhileTheExactSetGrowsAndIsPurged() {
+        long now = Instant.now().getEpochSecond();
+        List<VerifiedToken> revoked = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            VerifiedToken token = token(42L, i % 2 == 0 ? now : now - 3600);
+            this.revocationService.revoke(token);
+            revoked.add(token);
+        }
+
+        assertTrue(revoked.stream().allMatch(this.revocationService::isRevoked));
+        assertFalse(this.revocationService.isRevoked(token(42L, now)));
+
+        this.revocationService.purgeExpiredRevocations();
+
+        for (int i = 0; i < revoked.size(); i++) {
+            // The tokens issued an hour ago have expired, and their revocations are forgotten
+            assertEquals(i % 2 == 0, this.revocationService.isRevoked(revoked.get(i)));
+        }
+    }
+
+    private static VerifiedToken token(final Long userId, final long issuedAt) {
+        return tokenIssuedAtMillis(userId, issuedAt * 1000);
+    }
+
+    private static VerifiedToken tokenIssuedAtMillis(final Long userId, final long issuedAt) {
+        return new VerifiedToken(userId.toString(), UUID.randomUUID(), issuedAt,
+                Instant.ofEpochMilli(issuedAt).plusSeconds(60), null, null, null);
+    }
+}
@@ -0,0 +1,161 @@
+package com.pop.codelab.chatopbackend.benchmark;
+
+import com.pop.codelab.chatopbackend.auth.dto.responses.UserDto;
+import com.pop.codelab.chatopbackend.business.message.dto.requests.MessageToSendDto;
+import com.pop.codelab.chatopbackend.business.message.entity.Message;
+import com.pop.codelab.chatopbackend.business.message.mapper.MessageMapper;
+import com.pop.codelab.chatopbackend.business.message.mapper.MessageMapperImpl;
+import com.pop.codelab.chatopbackend.business.rental.dto.requests.RentalCreationDto;
+import com.pop.codelab.chatopbackend.business.rental.dto.responses.OneRentalDto;
+import com.pop.codelab.chatopbackend.business.rental.entity.Rental;
+import com.pop.codelab.chatopbackend.business.rental.mapper.RentalMapper;
+import com.pop.codelab.chatopbackend.business.rental.mapper.RentalMapperImpl;
+import com.pop.codelab.chatopbackend.business.user.entity.User;
+import com.pop.codelab.chatopbackend.business.user.mapper.UserMapper;
+import com.pop.codelab.chatopbackend.business.user.mapper.UserMapperImpl;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.convention.MatchingStrategies;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark comparing the mappers generated by MapStruct with the reflection based ModelMapper
+ * that was previously used by the services (configured with the STRICT matching strategy).
+ * <p>
+ * Run it from the IDE through the main method, or from the command line once the test classes are compiled :</p>
+ * <pre>
+ * mvn test-compile exec:java -Dexec.mainClass=com.pop.codelab.chatopbackend.benchmark.MapperBenchmark -Dexec.classpathScope=test
+ * </pre>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    private ModelMapper modelMapper;
+
+    private final RentalMapper rentalMapper = new RentalMapperImpl();
+
+    private final MessageMapper messageMapper = new MessageMapperImpl();
+
+    private final UserMapper userMapper = new UserMapperImpl();
+
+    private Rental rental;
+
+    private RentalCreationDto rentalCreationDto;
+
+    private MessageToSendDto messageToSendDto;
+
+    private User user;
+
+    /**
+     * Builds the ModelMapper the same way the former ModelMapperConfiguration did, and the objects to map.
+     */
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        modelMapper.getConfiguration().setMatchingStrategy(MatchingStrategies.STRICT);
+
+        rental = new Rental();
+        rental.setId(42L);
+        rental.setName("Appartement Montmartre");
+        rental.setSurface(new BigDecimal("54.50"));
+        rental.setPrice(new BigDecimal("1250.00"));
+        rental.setPicture("picture.jpg");
+        rental.setDescription("Bel appartement lumineux au coeur de Montmartre.");
+        rental.setOwnerId(7L);
+        rental.setCreatedAt(LocalDate.now());
+        rental.setUpdatedAt(LocalDate.now());
+
+        rentalCreationDto = new RentalCreationDto();
+        rentalCreationDto.setName(rental.getName());
+        rentalCreationDto.setSurface(rental.getSurface());
+        rentalCreationDto.setPrice(rental.getPrice());
+        rentalCreationDto.setDescription(rental.getDescription());
+
+        messageToSendDto = new MessageToSendDto();
+        messageToSendDto.setMessage("Bonjour, le logement est-il disponible en août ?");
+        messageToSendDto.setUserId(7L);
+        messageToSendDto.setRentalId(42L);
+
+        user = User.builder().name("Pierre").email("pierre@chatop.fr").password("secret").build();
+        user.setId(7L);
+        user.setCreatedAt(LocalDate.now());
+        user.setUpdatedAt(LocalDate.now());
+    }
+
+    @Benchmark
+    public OneRentalDto rentalToDtoModelMapper() {
+        return modelMapper.map(rental, OneRentalDto.class);
+    }
+
+    @Benchmark
+    public OneRentalDto rentalToDtoMapStruct() {
+        return rentalMapper.toOneRentalDto(rental);
+    }
+
+    @Benchmark
+    public Rental rentalCreationDtoToRentalModelMapper() {
+        // The former createRental mapped the DTO to a DTO, then to the entity
+        RentalCreationDto rentalDto = modelMapper.map(rentalCreationDto, RentalCreationDto.class);
+        return modelMapper.map(rentalDto, Rental.class);
+    }
+
+    @Benchmark
+    public Rental rentalCreationDtoToRentalMapStruct() {
+        return rentalMapper.toRental(rentalCreationDto);
+    }
+
+    @Benchmark
+    public Message messageToSendDtoToMessageModelMapper() {
+        return modelMapper.map(messageToSendDto, Message.class);
+    }
+
+    @Benchmark
+    public Message messageToSendDtoToMessageMapStruct() {
+        return messageMapper.toMessage(messageToSendDto);
+    }
+
+    @Benchmark
+    public UserDto userToDtoModelMapper() {
+        return modelMapper.map(user, UserDto.class);
+    }
+
+    @Benchmark
+    public UserDto userToDtoMapStruct() {
+        return userMapper.toUserDto(user);
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args the command line arguments, not used
+     * @throws RunnerException if the benchmark fails
+     */
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MapperBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
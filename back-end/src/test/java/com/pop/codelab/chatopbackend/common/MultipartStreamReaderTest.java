@@ -0,0 +1,126 @@
+package com.pop.codelab.chatopbackend.common;
+
+import com.pop.codelab.chatopbackend.common.multipart.MultipartPart;
+import com.pop.codelab.chatopbackend.common.multipart.MultipartStreamReader;
+import com.pop.codelab.chatopbackend.exception.BadRequestException;
+import com.pop.codelab.chatopbackend.exception.PayloadTooLargeException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the streaming parsing of the multipart/form-data bodies and the enforcement of their limits.
+ */
+class MultipartStreamReaderTest {
+
+    private static final String BOUNDARY = "----form42";
+
+    private static final MediaType CONTENT_TYPE = MediaType.parseMediaType("multipart/form-data; boundary=" + BOUNDARY);
+
+    @Test
+    void readsTheFieldsAndTheFileWhateverTheChunkSize() throws Exception {
+        byte[] picture = new byte[100_000];
+        new Random(3).nextBytes(picture);
+        // Bytes looking like the beginning of the delimiter must be kept in the file
+        System.arraycopy("\r\n------form4".getBytes(StandardCharsets.ISO_8859_1), 0, picture, 50_000, 13);
+        byte[] body = body(picture);
+        for (int chunkSize : new int[]{1, 7, 4096, body.length}) {
+            MultipartStreamReader reader = new MultipartStreamReader(chunked(body, chunkSize), CONTENT_TYPE,
+                    picture.length, body.length);
+            MultipartPart name = reader.nextPart().orElseThrow();
+            assertEquals("name", name.getName());
+            assertFalse(name.isFile());
+            assertEquals("Maison été", name.readValue(100));
+            MultipartPart file = reader.nextPart().orElseThrow();
+            assertEquals("photo.jpg", file.getFileName());
+            assertEquals("image/jpeg", file.getContentType());
+            assertArrayEquals(picture, file.getInputStream().readAllBytes(), "Chunk size " + chunkSize);
+            // The price part is skipped without being read
+            assertEquals("price", reader.nextPart().orElseThrow().getName());
+            assertEquals("description", reader.nextPart().orElseThrow().getName());
+            assertTrue(reader.nextPart().isEmpty());
+        }
+    }
+
+    @Test
+    void enforcesTheLimitsWhileReading() throws Exception {
+        byte[] body = body(new byte[10_000]);
+        MultipartStreamReader partLimit = new MultipartStreamReader(new ByteArrayInputStream(body), CONTENT_TYPE,
+                9_999, body.length);
+        partLimit.nextPart();
+        InputStream file = partLimit.nextPart().orElseThrow().getInputStream();
+        assertThrows(PayloadTooLargeException.class, file::readAllBytes);
+
+        MultipartStreamReader bodyLimit = new MultipartStreamReader(new ByteArrayInputStream(body), CONTENT_TYPE,
+                body.length, 5_000);
+        assertThrows(PayloadTooLargeException.class, () -> {
+            while (bodyLimit.nextPart().isPresent()) {
+                // Reads the whole body
+            }
+        });
+    }
+
+    @Test
+    void rejectsMalformedBodies() throws Exception {
+        byte[] body = body(new byte[10]);
+        MultipartStreamReader truncated = new MultipartStreamReader(
+                new ByteArrayInputStream(body, 0, body.length - 40), CONTENT_TYPE, body.length, body.length);
+        truncated.nextPart();
+        truncated.nextPart();
+        truncated.nextPart();
+        assertThrows(BadRequestException.class, truncated::nextPart);
+        assertThrows(BadRequestException.class, () -> new MultipartStreamReader(new ByteArrayInputStream(body),
+                MediaType.MULTIPART_FORM_DATA, body.length, body.length));
+        MultipartStreamReader noDisposition = new MultipartStreamReader(new ByteArrayInputStream(
+                ("--" + BOUNDARY + "\r\nContent-Type: text/plain\r\n\r\nx\r\n--" + BOUNDARY + "--\r\n")
+                        .getBytes(StandardCharsets.ISO_8859_1)), CONTENT_TYPE, 100, 1000);
+        assertThrows(BadRequestException.class, noDisposition::nextPart);
+    }
+
+    @Test
+    void readsAnEmptyFilePart() throws Exception {
+        String body = "preamble\r\n--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"picture\"; filename=\"\"\r\n"
+                + "Content-Type: application/octet-stream\r\n\r\n\r\n--" + BOUNDARY + "--\r\n";
+        MultipartStreamReader reader = new MultipartStreamReader(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.ISO_8859_1)), CONTENT_TYPE, 100, 1000);
+        MultipartPart picture = reader.nextPart().orElseThrow();
+        assertEquals("", picture.getFileName());
+        assertEquals(0, picture.getInputStream().readAllBytes().length);
+        assertTrue(reader.nextPart().isEmpty());
+    }
+
+    private static byte[] body(final byte[] picture) throws Exception {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.writeBytes(("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"name\"\r\n\r\n")
+                .getBytes(StandardCharsets.ISO_8859_1));
+        body.writeBytes("Maison été".getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(("\r\n--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"picture\"; "
+                + "filename=\"photo.jpg\"\r\nContent-Type: image/jpeg\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+        body.writeBytes(picture);
+        body.writeBytes(("\r\n--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"price\"\r\n\r\n120.50"
+                + "\r\n--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"description\"\r\n\r\nVue mer"
+                + "\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.ISO_8859_1));
+        return body.toByteArray();
+    }
+
+    private static InputStream chunked(final byte[] bytes, final int chunkSize) {
+        return new ByteArrayInputStream(bytes) {
+            @Override
+            public synchronized int read(final byte[] buffer, final int offset, final int length) {
+                return super.read(buffer, offset, Math.min(length, chunkSize));
+            }
+        };
+    }
+}
@@ -0,0 +1,67 @@
+package com.pop.codelab.chatopbackend.image;
+
+import com.pop.codelab.chatopbackend.services.Impl.ImageBytesCacheImpl;
+import com.pop.codelab.chatopbackend.services.Impl.LocalImageStorage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the frequency-based admission and the size-bounded eviction of the off-heap image bytes cache.
+ */
+class ImageBytesCacheTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ImageBytesCacheImpl cache;
+
+    @BeforeEach
+    void createCache(@TempDir final Path directory) throws Exception {
+        Files.write(directory.resolve("first.png"), new byte[1000]);
+        Files.write(directory.resolve("second.png"), new byte[800]);
+        LocalImageStorage imageStorage = new LocalImageStorage();
+        ReflectionTestUtils.setField(imageStorage, "uploadDirectory", directory.toString());
+        imageStorage.init();
+        this.cache = new ImageBytesCacheImpl(this.meterRegistry, imageStorage);
+        ReflectionTestUtils.setField(this.cache, "maxBytes", 1500L);
+        ReflectionTestUtils.setField(this.cache, "maxImageSize", 1000L);
+        this.cache.init();
+    }
+
+    @Test
+    void admitsTheImagesRequestedAgain() {
+        assertTrue(this.cache.get("first.png").isEmpty());
+        assertTrue(this.cache.admit("first.png", 1000, 1).isEmpty(), "Admitted on its first request");
+        this.cache.get("first.png");
+        assertEquals(1000, this.cache.admit("first.png", 1000, 1).orElseThrow().getSize());
+        assertTrue(this.cache.get("first.png").isPresent());
+        assertEquals(1.0 / 3, this.meterRegistry.get("images.cache.hit.ratio").gauge().value(), 1e-9);
+    }
+
+    @Test
+    void evictsTheLeastRecentImageOnlyForAMoreFrequentOne() {
+        for (int request = 0; request < 4; request++) {
+            this.cache.get("first.png");
+        }
+        this.cache.admit("first.png", 1000, 1);
+        this.cache.get("second.png");
+        this.cache.get("second.png");
+        assertTrue(this.cache.admit("second.png", 800, 1).isEmpty(), "Evicted a more frequent image");
+        for (int request = 0; request < 5; request++) {
+            this.cache.get("second.png");
+        }
+        assertTrue(this.cache.admit("second.png", 800, 1).isPresent());
+        assertFalse(this.cache.get("first.png").isPresent());
+        assertEquals(800, this.meterRegistry.get("images.cache.size").gauge().value());
+    }
+}
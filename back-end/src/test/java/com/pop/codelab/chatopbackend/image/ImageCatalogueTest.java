@@ -0,0 +1,67 @@
+package com.pop.codelab.chatopbackend.image;
+
+import com.pop.codelab.chatopbackend.services.Impl.ImageCatalogueImpl;
+import com.pop.codelab.chatopbackend.services.Impl.LocalImageStorage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the base URL of the images served by the image catalogue.
+ */
+class ImageCatalogueTest {
+
+    private static final String KEY = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+
+    private ImageCatalogueImpl imageCatalogue;
+
+    @BeforeEach
+    void createCatalogue(@TempDir final Path uploadDirectory) throws Exception {
+        LocalImageStorage imageStorage = new LocalImageStorage();
+        ReflectionTestUtils.setField(imageStorage, "uploadDirectory", uploadDirectory.toString());
+        imageStorage.init();
+        this.imageCatalogue = new ImageCatalogueImpl(imageStorage);
+        ReflectionTestUtils.setField(this.imageCatalogue, "imagesBaseUrl", "");
+        ReflectionTestUtils.setField(this.imageCatalogue, "contextPath", "/api");
+        this.imageCatalogue.init();
+        this.imageCatalogue.register(KEY + ".png");
+    }
+
+    @AfterEach
+    void destroyCatalogue() throws Exception {
+        RequestContextHolder.resetRequestAttributes();
+        this.imageCatalogue.destroy();
+    }
+
+    @Test
+    void servesTheImagesAtTheUrlOfTheCurrentRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/rentals");
+        request.setScheme("https");
+        request.setServerName("chatop.example.com");
+        request.setServerPort(443);
+        request.setContextPath("/api");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        assertEquals("https://chatop.example.com/api/images/01/23/" + KEY + ".png",
+                this.imageCatalogue.getImageUrl(KEY + ".png"));
+        assertEquals("", this.imageCatalogue.getImageUrl("unknown.png"));
+        RequestContextHolder.resetRequestAttributes();
+        assertEquals("/api/images/01/23/" + KEY + ".png", this.imageCatalogue.getImageUrl(KEY + ".png"));
+    }
+
+    @Test
+    void servesTheImagesAtTheConfiguredBaseUrl() {
+        ReflectionTestUtils.setField(this.imageCatalogue, "imagesBaseUrl", "https://cdn.example.com/images/");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertEquals("https://cdn.example.com/images/01/23/" + KEY + ".png",
+                this.imageCatalogue.getImageUrl(KEY + ".png"));
+    }
+}
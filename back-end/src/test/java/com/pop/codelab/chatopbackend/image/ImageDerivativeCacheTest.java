@@ -0,0 +1,95 @@
+package com.pop.codelab.chatopbackend.image;
+
+import com.pop.codelab.chatopbackend.services.Impl.ImageDerivativeCacheImpl;
+import com.pop.codelab.chatopbackend.services.Impl.LocalImageStorage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the whitelist, the coalesced resizings and the size-bounded eviction of the derivative cache.
+ */
+class ImageDerivativeCacheTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ImageDerivativeCacheImpl cache;
+
+    @BeforeEach
+    void createCache(@TempDir final Path directory) throws Exception {
+        Path uploadDirectory = Files.createDirectories(directory.resolve("images"));
+        ImageIO.write(new BufferedImage(800, 400, BufferedImage.TYPE_INT_RGB), "png",
+                uploadDirectory.resolve("picture.png").toFile());
+        LocalImageStorage imageStorage = new LocalImageStorage();
+        ReflectionTestUtils.setField(imageStorage, "uploadDirectory", uploadDirectory.toString());
+        imageStorage.init();
+        this.cache = new ImageDerivativeCacheImpl(imageStorage, this.meterRegistry);
+        ReflectionTestUtils.setField(this.cache, "cacheDirectory", directory.resolve("derivatives").toString());
+        ReflectionTestUtils.setField(this.cache, "maxBytes", 100_000L);
+        ReflectionTestUtils.setField(this.cache, "widths", Set.of(160, 320));
+        ReflectionTestUtils.setField(this.cache, "heights", Set.of(160));
+        ReflectionTestUtils.setField(this.cache, "qualities", Set.of(75));
+        ReflectionTestUtils.setField(this.cache, "maxConcurrent", 1);
+        ReflectionTestUtils.setField(this.cache, "maxPixels", 50_000_000L);
+        ReflectionTestUtils.setField(this.cache, "jpegQuality", 0.85f);
+        this.cache.init();
+    }
+
+    @Test
+    void allowsOnlyTheWhitelistedSizes() {
+        assertTrue(this.cache.isAllowed(320, 0, 0));
+        assertTrue(this.cache.isAllowed(160, 160, 75));
+        assertFalse(this.cache.isAllowed(0, 0, 75), "Neither a width nor a height");
+        assertFalse(this.cache.isAllowed(321, 0, 0));
+        assertFalse(this.cache.isAllowed(160, 0, 80));
+    }
+
+    @Test
+    void resizesOnceForConcurrentRequests() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Path>> requests = new ArrayList<>();
+            for (int request = 0; request < 8; request++) {
+                requests.add(executor.submit(() -> this.cache.getDerivative("picture.png", 320, 0, 0).orElseThrow()));
+            }
+            for (Future<Path> request : requests) {
+                assertEquals("picture-320x0.png", request.get().getFileName().toString());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        BufferedImage derivative = ImageIO.read(this.cache.getDerivative("picture.png", 320, 0, 0).orElseThrow()
+                .toFile());
+        assertEquals(320, derivative.getWidth());
+        assertEquals(160, derivative.getHeight());
+        assertEquals(1, this.meterRegistry.get("images.derivatives.resizing").timer().count());
+    }
+
+    @Test
+    void evictsTheLeastRecentDerivative() throws Exception {
+        Path first = this.cache.getDerivative("picture.png", 160, 0, 0).orElseThrow();
+        ReflectionTestUtils.setField(this.cache, "maxBytes", Files.size(first) + 1);
+        Path second = this.cache.getDerivative("picture.png", 320, 0, 0).orElseThrow();
+        assertFalse(Files.exists(first));
+        assertTrue(Files.exists(second));
+        assertEquals(1, this.meterRegistry.get("images.derivatives.evictions").counter().count());
+    }
+}
@@ -0,0 +1,138 @@
+package com.pop.codelab.chatopbackend.image;
+
+import com.pop.codelab.chatopbackend.business.image.entity.StoredImage;
+import com.pop.codelab.chatopbackend.business.image.repository.StoredImageRepository;
+import com.pop.codelab.chatopbackend.business.rental.repository.RentalRepository;
+import com.pop.codelab.chatopbackend.services.ImageBytesCache;
+import com.pop.codelab.chatopbackend.services.ImageCatalogue;
+import com.pop.codelab.chatopbackend.services.ImageStoragePaths;
+import com.pop.codelab.chatopbackend.services.Impl.ImageGarbageCollectorImpl;
+import com.pop.codelab.chatopbackend.services.Impl.LocalImageStorage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that the garbage collection only collects the images which no rental shows, once out of the grace period.
+ */
+class ImageGarbageCollectorTest {
+
+    private static final String KEPT = "a".repeat(64) + ".png";
+
+    private static final String UNREFERENCED = "b".repeat(64) + ".png";
+
+    private static final String REUPLOADED = "c".repeat(64) + ".png";
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final RentalRepository rentalRepository = mock(RentalRepository.class);
+
+    private final StoredImageRepository storedImageRepository = mock(StoredImageRepository.class);
+
+    private final ImageCatalogue imageCatalogue = mock(ImageCatalogue.class);
+
+    private Path uploadDirectory;
+
+    private Path quarantineDirectory;
+
+    private ImageGarbageCollectorImpl collector;
+
+    @BeforeEach
+    void createCollector(@TempDir final Path directory) throws Exception {
+        this.uploadDirectory = Files.createDirectories(directory.resolve("images"));
+        this.quarantineDirectory = directory.resolve("quarantine");
+        LocalImageStorage imageStorage = new LocalImageStorage();
+        ReflectionTestUtils.setField(imageStorage, "uploadDirectory", this.uploadDirectory.toString());
+        imageStorage.init();
+        when(this.rentalRepository.streamPictures()).thenAnswer(invocation -> Stream.of(KEPT, "legacy.jpg", KEPT));
+        when(this.rentalRepository.existsByPicture(anyString())).thenReturn(false);
+        StoredImage reuploaded = new StoredImage();
+        reuploaded.setReferencedAt(Instant.now());
+        when(this.storedImageRepository.findById(anyString())).thenReturn(Optional.empty());
+        when(this.storedImageRepository.findById(REUPLOADED)).thenReturn(Optional.of(reuploaded));
+        this.collector = new ImageGarbageCollectorImpl(imageStorage, this.imageCatalogue, mock(ImageBytesCache.class),
+                this.rentalRepository, this.storedImageRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), this.meterRegistry);
+        ReflectionTestUtils.setField(this.collector, "gracePeriod", Duration.ofHours(1));
+        ReflectionTestUtils.setField(this.collector, "action", "quarantine");
+        ReflectionTestUtils.setField(this.collector, "quarantineDirectory", this.quarantineDirectory.toString());
+        ReflectionTestUtils.setField(this.collector, "quarantineRetention", Duration.ofDays(1));
+        ReflectionTestUtils.setField(this.collector, "batchSize", 2);
+        ReflectionTestUtils.setField(this.collector, "batchPause", Duration.ZERO);
+        this.collector.init();
+    }
+
+    @Test
+    void collectsTheUnreferencedImagesOutOfTheGracePeriod() throws Exception {
+        this.store(KEPT, 100, true);
+        this.store("a".repeat(64) + "-thumb.png", 10, true);
+        this.store("legacy.jpg", 100, true);
+        this.store(UNREFERENCED, 300, true);
+        this.store("b".repeat(64) + "-card.png", 30, true);
+        this.store(REUPLOADED, 100, true);
+        this.store("d".repeat(64) + ".png", 100, false);
+
+        assertEquals(330, this.collector.collect());
+
+        assertFalse(Files.exists(ImageStoragePaths.resolve(this.uploadDirectory, UNREFERENCED)));
+        assertTrue(Files.exists(this.quarantineDirectory.resolve(UNREFERENCED)));
+        assertTrue(Files.exists(this.quarantineDirectory.resolve("b".repeat(64) + "-card.png")));
+        try (Stream<Path> files = Files.walk(this.uploadDirectory)) {
+            assertEquals(5, files.filter(Files::isRegularFile).count());
+        }
+        verify(this.imageCatalogue).unregister(UNREFERENCED);
+        verify(this.storedImageRepository).deleteById(UNREFERENCED);
+        assertEquals(330, this.meterRegistry.get("images.gc.reclaimed").counter().count());
+    }
+
+    @Test
+    void keepsTheImagesGivenToARentalDuringTheCollection() throws Exception {
+        this.store(UNREFERENCED, 300, true);
+        when(this.rentalRepository.existsByPicture(UNREFERENCED)).thenReturn(true);
+
+        assertEquals(0, this.collector.collect());
+        assertTrue(Files.exists(ImageStoragePaths.resolve(this.uploadDirectory, UNREFERENCED)));
+    }
+
+    @Test
+    void keepsTheImagesWhichARentalReferences() throws Exception {
+        this.store(UNREFERENCED, 300, true);
+        StoredImage referenced = new StoredImage();
+        referenced.setRefCount(1);
+        referenced.setReferencedAt(Instant.now().minus(Duration.ofDays(2)));
+        when(this.storedImageRepository.findById(UNREFERENCED)).thenReturn(Optional.of(referenced));
+
+        assertEquals(0, this.collector.collect());
+        assertTrue(Files.exists(ImageStoragePaths.resolve(this.uploadDirectory, UNREFERENCED)));
+    }
+
+    private void store(final String fileName, final int size, final boolean old) throws Exception {
+        Path file = ImageStoragePaths.resolve(this.uploadDirectory, fileName);
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[size]);
+        if (old) {
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofDays(2))));
+        }
+    }
+}
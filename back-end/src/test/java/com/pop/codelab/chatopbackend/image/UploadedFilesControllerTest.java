@@ -0,0 +1,147 @@
+package com.pop.codelab.chatopbackend.image;
+
+import com.pop.codelab.chatopbackend.controllers.UploadedFilesController;
+import com.pop.codelab.chatopbackend.services.ImageDerivativeCache;
+import com.pop.codelab.chatopbackend.services.ImageService;
+import com.pop.codelab.chatopbackend.services.Impl.ImageBytesCacheImpl;
+import com.pop.codelab.chatopbackend.services.Impl.LocalImageStorage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks the byte ranges, the conditional requests, the cache headers and the in-memory cache of the served images.
+ */
+class UploadedFilesControllerTest {
+
+    private static final String KEY = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+
+    private static final String URL = "/images/01/23/" + KEY + ".png";
+
+    private final byte[] image = new byte[1000];
+
+    private Path imagePath;
+
+    private ImageDerivativeCache imageDerivativeCache;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void storeImage(@TempDir final Path uploadDirectory) throws Exception {
+        Arrays.fill(this.image, (byte) 'x');
+        this.image[100] = 'a';
+        Path path = Files.createDirectories(uploadDirectory.resolve("01/23")).resolve(KEY + ".png");
+        Files.write(path, this.image);
+        ImageService imageService = mock(ImageService.class);
+        when(imageService.getImageToServeFileName(anyString())).thenReturn(Optional.empty());
+        when(imageService.getImageToServeFileName("01/23/" + KEY + ".png")).thenReturn(Optional.of(KEY + ".png"));
+        this.imagePath = path;
+        LocalImageStorage imageStorage = new LocalImageStorage();
+        ReflectionTestUtils.setField(imageStorage, "uploadDirectory", uploadDirectory.toString());
+        imageStorage.init();
+        ImageBytesCacheImpl imageBytesCache = new ImageBytesCacheImpl(new SimpleMeterRegistry(), imageStorage);
+        ReflectionTestUtils.setField(imageBytesCache, "maxBytes", 1500L);
+        ReflectionTestUtils.setField(imageBytesCache, "maxImageSize", 1000L);
+        imageBytesCache.init();
+        this.imageDerivativeCache = mock(ImageDerivativeCache.class);
+        when(this.imageDerivativeCache.isAllowed(anyInt(), anyInt(), anyInt())).thenReturn(false);
+        when(this.imageDerivativeCache.isAllowed(320, 0, 0)).thenReturn(true);
+        this.mockMvc = MockMvcBuilders.standaloneSetup(new UploadedFilesController(imageService, imageStorage,
+                        imageBytesCache, this.imageDerivativeCache))
+                .build();
+    }
+
+    @Test
+    void servesTheWholeImageWithImmutableCaching() throws Exception {
+        this.mockMvc.perform(get(URL))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/png"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 1000))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("immutable")))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + KEY + ".png\""))
+                .andExpect(content().bytes(this.image));
+        this.mockMvc.perform(get("/images/01/23/unknown.png")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void servesASingleRange() throws Exception {
+        this.mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=100-104"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 100-104/1000"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 5))
+                .andExpect(content().bytes("axxxx".getBytes()));
+        this.mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=-10"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 990-999/1000"));
+        this.mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=1000-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */1000"));
+        this.mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=0-1,5-6"))
+                .andExpect(status().isOk());
+        this.mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=0-1").header(HttpHeaders.IF_RANGE, "\"old\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void servesAFrequentImageFromTheCache() throws Exception {
+        this.mockMvc.perform(get(URL)).andExpect(status().isOk());
+        this.mockMvc.perform(get(URL)).andExpect(status().isOk());
+        Files.delete(this.imagePath);
+        this.mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=98-101"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 98-101/1000"))
+                .andExpect(content().bytes("xxax".getBytes()));
+    }
+
+    @Test
+    void answersHeadAndConditionalRequests() throws Exception {
+        this.mockMvc.perform(head(URL))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 1000))
+                .andExpect(content().bytes(new byte[0]));
+        this.mockMvc.perform(get(URL).header(HttpHeaders.IF_NONE_MATCH, "\"" + KEY + ".png\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void rejectsTheSizesWhichAreNotWhitelisted() throws Exception {
+        this.mockMvc.perform(get(URL).param("w", "123")).andExpect(status().isBadRequest());
+        this.mockMvc.perform(get(URL).param("w", "wide")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void resizesAgainADerivativeEvictedBeforeBeingOpened(@TempDir final Path derivativeDirectory) throws Exception {
+        Path evicted = derivativeDirectory.resolve(KEY + "-w320.png");
+        Path resized = Files.write(derivativeDirectory.resolve(KEY + "-w320-q0.png"), "small".getBytes());
+        // Another request evicts the first derivative between its resizing and its opening
+        when(this.imageDerivativeCache.getDerivative(KEY + ".png", 320, 0, 0))
+                .thenReturn(Optional.of(evicted), Optional.of(resized));
+        this.mockMvc.perform(get(URL).param("w", "320"))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 5))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + KEY + "-w320-q0.png\""))
+                .andExpect(content().bytes("small".getBytes()));
+    }
+}
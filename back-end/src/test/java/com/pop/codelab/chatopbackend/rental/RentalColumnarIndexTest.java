@@ -0,0 +1,171 @@
+package com.pop.codelab.chatopbackend.rental;
+
+import com.pop.codelab.chatopbackend.business.rental.dto.requests.RentalSearchDto;
+import com.pop.codelab.chatopbackend.business.rental.index.RentalColumnarIndex;
+import com.pop.codelab.chatopbackend.business.rental.index.RentalIndexEntry;
+import com.pop.codelab.chatopbackend.business.rental.repository.RentalRepository;
+import com.pop.codelab.chatopbackend.business.rental.repository.RentalSearchCursor;
+import com.pop.codelab.chatopbackend.business.rental.repository.RentalSearchSort;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks the searches of the RentalColumnarIndex against the same searches run on a plain list of rentals.
+ */
+class RentalColumnarIndexTest {
+
+    private static final int RENTALS = 3000;
+
+    private static final int PAGE_SIZE = 7;
+
+    private final Random random = new Random(42);
+
+    private final TreeMap<Long, RentalIndexEntry> rentals = new TreeMap<>();
+
+    private RentalColumnarIndex index;
+
+    @BeforeEach
+    void buildIndex() {
+        long id = 0;
+        for (int i = 0; i < RENTALS; i++) {
+            id += 1 + this.random.nextInt(3);
+            this.rentals.put(id, this.randomEntry(id));
+        }
+        RentalRepository rentalRepository = mock(RentalRepository.class);
+        when(rentalRepository.findRentalIndexEntriesAfter(anyLong(), any(Limit.class))).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            int limit = invocation.<Limit>getArgument(1).max();
+            return this.rentals.tailMap(after, false).values().stream().limit(limit).toList();
+        });
+        this.index = new RentalColumnarIndex(rentalRepository);
+        this.index.rebuild();
+    }
+
+    @Test
+    void buildsFromAllTheRentals() {
+        assertEquals(RENTALS, this.index.size());
+    }
+
+    @Test
+    void searchesLikeTheDatabase() {
+        this.assertAllSearches();
+    }
+
+    @Test
+    void searchesLikeTheDatabaseAfterUpdates() {
+        long lastId = this.rentals.lastKey();
+        List<RentalIndexEntry> updates = List.of(
+                this.randomEntry(this.rentals.firstKey()),
+                this.randomEntry(this.rentals.higherKey(lastId / 2)),
+                this.randomEntry(lastId + 1),
+                this.randomEntry(lastId + 2));
+        for (RentalIndexEntry update : updates) {
+            this.rentals.put(update.getId(), update);
+            this.index.upsert(update);
+        }
+        // Gaps between IDs : inserted among the existing rentals
+        for (long id = 1; id < lastId; id += 97) {
+            if (!this.rentals.containsKey(id)) {
+                RentalIndexEntry inserted = this.randomEntry(id);
+                this.rentals.put(id, inserted);
+                this.index.upsert(inserted);
+            }
+        }
+        assertEquals(this.rentals.size(), this.index.size());
+        this.assertAllSearches();
+    }
+
+    private void assertAllSearches() {
+        for (RentalSearchSort sort : RentalSearchSort.values()) {
+            this.assertSearch(sort, criteria -> { });
+            this.assertSearch(sort, criteria -> {
+                criteria.setMinPrice(new BigDecimal("200.005"));
+                criteria.setMaxPrice(new BigDecimal("450"));
+            });
+            this.assertSearch(sort, criteria -> {
+                criteria.setMinSurface(BigDecimal.valueOf(40));
+                criteria.setMaxSurface(new BigDecimal("80.5"));
+            });
+            this.assertSearch(sort, criteria -> criteria.setOwnerId(3L));
+            this.assertSearch(sort, criteria -> {
+                criteria.setOwnerId(5L);
+                criteria.setMaxPrice(BigDecimal.valueOf(300));
+                criteria.setMinSurface(BigDecimal.valueOf(30));
+            });
+            this.assertSearch(sort, criteria -> criteria.setOwnerId(999L));
+        }
+    }
+
+    private void assertSearch(final RentalSearchSort sort, final Consumer<RentalSearchDto> criteriaSetter) {
+        RentalSearchDto criteria = new RentalSearchDto();
+        criteria.setSort(sort);
+        criteriaSetter.accept(criteria);
+        List<Long> expected = this.rentals.values().stream()
+                .filter(matches(criteria))
+                .sorted(order(sort))
+                .map(RentalIndexEntry::getId)
+                .toList();
+
+        List<Long> found = new ArrayList<>();
+        RentalSearchCursor after = null;
+        long[] page;
+        do {
+            page = this.index.search(criteria, after, PAGE_SIZE);
+            for (long id : page) {
+                found.add(id);
+            }
+            if (page.length > 0) {
+                RentalIndexEntry last = this.rentals.get(page[page.length - 1]);
+                BigDecimal sortValue = switch (sort) {
+                    case PRICE -> last.getPrice();
+                    case SURFACE -> last.getSurface();
+                    case NEWEST -> null;
+                };
+                after = new RentalSearchCursor(sort, sortValue, last.getId());
+            }
+        } while (page.length == PAGE_SIZE);
+
+        assertEquals(expected, found, () -> "Search " + criteria);
+        assertEquals(expected.size(), this.index.count(criteria), () -> "Count " + criteria);
+    }
+
+    private static Predicate<RentalIndexEntry> matches(final RentalSearchDto criteria) {
+        return entry -> (criteria.getMinPrice() == null || entry.getPrice().compareTo(criteria.getMinPrice()) >= 0)
+                && (criteria.getMaxPrice() == null || entry.getPrice().compareTo(criteria.getMaxPrice()) <= 0)
+                && (criteria.getMinSurface() == null || entry.getSurface().compareTo(criteria.getMinSurface()) >= 0)
+                && (criteria.getMaxSurface() == null || entry.getSurface().compareTo(criteria.getMaxSurface()) <= 0)
+                && (criteria.getOwnerId() == null || entry.getOwnerId().equals(criteria.getOwnerId()));
+    }
+
+    private static Comparator<RentalIndexEntry> order(final RentalSearchSort sort) {
+        return switch (sort) {
+            case PRICE -> Comparator.comparing(RentalIndexEntry::getPrice).thenComparing(RentalIndexEntry::getId);
+            case SURFACE -> Comparator.comparing(RentalIndexEntry::getSurface).thenComparing(RentalIndexEntry::getId);
+            case NEWEST -> Comparator.comparing(RentalIndexEntry::getId).reversed();
+        };
+    }
+
+    private RentalIndexEntry randomEntry(final long id) {
+        // Few distinct prices and surfaces, so that many rentals share the same sort key
+        return new RentalIndexEntry(id,
+                BigDecimal.valueOf(10_000 + 250L * this.random.nextInt(200), 2),
+                BigDecimal.valueOf(1_000 + 50L * this.random.nextInt(200), 2),
+                1L + this.random.nextInt(10));
+    }
+}
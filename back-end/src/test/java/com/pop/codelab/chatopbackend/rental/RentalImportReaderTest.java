@@ -0,0 +1,81 @@
+package com.pop.codelab.chatopbackend.rental;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pop.codelab.chatopbackend.business.rental.importer.RentalImportFormat;
+import com.pop.codelab.chatopbackend.business.rental.importer.RentalImportReader;
+import com.pop.codelab.chatopbackend.business.rental.importer.RentalImportRow;
+import com.pop.codelab.chatopbackend.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks the reading of the rows of the NDJSON and CSV bulk import files.
+ */
+class RentalImportReaderTest {
+
+    @Test
+    void readsQuotedCsvValuesAndNumbersTheLines() throws IOException {
+        List<RentalImportRow> rows = read(RentalImportFormat.CSV, """
+                \uFEFFPrice,Name,Surface,Description,Extra
+                250.5,"Loft, centre",42,"Grand loft
+                sur deux lignes, ""neuf""\",x
+                12,Cabane,abc,Bois
+
+                300,Péniche,30,Sur le canal
+                """);
+        assertEquals(3, rows.size());
+        RentalImportRow loft = rows.get(0);
+        assertEquals(2, loft.getLine());
+        assertEquals("Loft, centre", loft.getRental().getName());
+        assertEquals("Grand loft\nsur deux lignes, \"neuf\"", loft.getRental().getDescription());
+        assertEquals(new BigDecimal("250.5"), loft.getRental().getPrice());
+        assertEquals(4, rows.get(1).getLine());
+        assertNull(rows.get(1).getRental());
+        assertNotNull(rows.get(1).getError());
+        assertEquals(6, rows.get(2).getLine());
+        assertEquals("Péniche", rows.get(2).getRental().getName());
+    }
+
+    @Test
+    void rejectsACsvHeaderWithoutAllTheColumns() {
+        assertThrows(BadRequestException.class, () -> read(RentalImportFormat.CSV, "name,price\n"));
+    }
+
+    @Test
+    void readsNdjsonLinesAndKeepsGoingAfterAMalformedOne() throws IOException {
+        List<RentalImportRow> rows = read(RentalImportFormat.NDJSON, """
+                {"name":"Studio","surface":18,"price":450,"description":"Proche gare"}
+
+                {bad json
+                {"name":"Chalet","surface":80,"price":900,"description":"Au pied des pistes"}
+                """);
+        assertEquals(3, rows.size());
+        assertEquals("Studio", rows.get(0).getRental().getName());
+        assertEquals(3, rows.get(1).getLine());
+        assertNotNull(rows.get(1).getError());
+        assertEquals(4, rows.get(2).getLine());
+        assertEquals(new BigDecimal("80"), rows.get(2).getRental().getSurface());
+    }
+
+    private static List<RentalImportRow> read(final RentalImportFormat format, final String content) throws IOException {
+        RentalImportReader reader = RentalImportReader.of(format,
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), new ObjectMapper());
+        List<RentalImportRow> rows = new ArrayList<>();
+        RentalImportRow row;
+        while ((row = reader.read()) != null) {
+            rows.add(row);
+        }
+        return rows;
+    }
+}
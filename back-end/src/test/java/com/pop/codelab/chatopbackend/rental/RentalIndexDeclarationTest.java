@@ -0,0 +1,119 @@
+package com.pop.codelab.chatopbackend.rental;
+
+import com.pop.codelab.chatopbackend.business.rental.entity.Rental;
+import com.pop.codelab.chatopbackend.business.rental.repository.RentalSearchSort;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks, without any database, that the rentals table declares an index for every shape of rental search, and
+ * that the entity, the schema script and the migrations declare the same rentals indexes.
+ * <p>
+ * It runs in the default build, whereas {@link RentalSearchIndexTest}, which checks the execution plans on MySQL,
+ * only runs when the APP_DB_* environment variables are set.</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+class RentalIndexDeclarationTest {
+
+    /**
+     * Matches a CREATE INDEX statement on the rentals table, capturing the index name and its columns.
+     */
+    private static final Pattern CREATE_RENTALS_INDEX =
+            Pattern.compile("CREATE (?:UNIQUE )?INDEX `(\\w+)` ON `rentals` \\(([^)]+)\\);");
+
+    @Test
+    void schemaScriptDeclaresTheEntityIndexes() throws IOException {
+        assertEquals(entityIndexes(), scriptIndexes(new ClassPathResource("sql/chatop-db.sql")));
+    }
+
+    @Test
+    void migrationsCreateTheSchemaScriptIndexes() throws IOException {
+        Map<String, List<String>> migrated = new TreeMap<>();
+        for (Resource migration : new PathMatchingResourcePatternResolver()
+                .getResources("classpath:sql/chatop-db-migration-*.sql")) {
+            migrated.putAll(scriptIndexes(migration));
+        }
+        assertEquals(scriptIndexes(new ClassPathResource("sql/chatop-db.sql")), migrated);
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = RentalSearchSort.class, names = {"PRICE", "SURFACE"})
+    void sortOrderHasAnIndex(final RentalSearchSort sort) {
+        assertIndexed(List.of(sort.getAttribute(), "id"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = RentalSearchSort.class, names = {"PRICE", "SURFACE"})
+    void ownerFilterSortedByAnAttributeHasAnIndex(final RentalSearchSort sort) {
+        assertIndexed(List.of("owner_id", sort.getAttribute(), "id"));
+    }
+
+    @Test
+    void namePrefixFilterHasAnIndex() {
+        assertIndexed(List.of("name", "id"));
+    }
+
+    /**
+     * Asserts that an index of the rentals entity starts with the given columns.
+     *
+     * @param columns the leading columns expected
+     */
+    private static void assertIndexed(final List<String> columns) {
+        Map<String, List<String>> indexes = entityIndexes();
+        assertTrue(indexes.values().stream()
+                        .anyMatch(index -> index.size() >= columns.size()
+                                && index.subList(0, columns.size()).equals(columns)),
+                () -> "No rentals index starts with " + columns + " : " + indexes);
+    }
+
+    /**
+     * Reads the indexes declared on the Rental entity.
+     *
+     * @return the columns of each index, by index name
+     */
+    private static Map<String, List<String>> entityIndexes() {
+        Map<String, List<String>> indexes = new TreeMap<>();
+        for (Index index : Rental.class.getAnnotation(Table.class).indexes()) {
+            indexes.put(index.name(), Arrays.stream(index.columnList().split(",")).map(String::strip).toList());
+        }
+        return indexes;
+    }
+
+    /**
+     * Reads the rentals indexes created by an SQL script.
+     *
+     * @param script the SQL script
+     * @return the columns of each index, by index name
+     * @throws IOException if the script cannot be read
+     */
+    private static Map<String, List<String>> scriptIndexes(final Resource script) throws IOException {
+        Map<String, List<String>> indexes = new TreeMap<>();
+        Matcher matcher = CREATE_RENTALS_INDEX.matcher(script.getContentAsString(StandardCharsets.UTF_8));
+        while (matcher.find()) {
+            indexes.put(matcher.group(1), Arrays.stream(matcher.group(2).split(","))
+                    .map(column -> column.replace("`", "").strip())
+                    .toList());
+        }
+        return indexes;
+    }
+}
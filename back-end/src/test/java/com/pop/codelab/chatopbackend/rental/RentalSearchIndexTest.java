@@ -0,0 +1,189 @@
+package com.pop.codelab.chatopbackend.rental;
+
+import com.pop.codelab.chatopbackend.business.rental.dto.requests.RentalSearchDto;
+import com.pop.codelab.chatopbackend.business.rental.repository.RentalRepository;
+import com.pop.codelab.chatopbackend.business.rental.repository.RentalSearchCursor;
+import com.pop.codelab.chatopbackend.business.rental.repository.RentalSearchSort;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Checks that every shape of rental search query is resolved with an index of the rentals table, rather than
+ * with a full table scan, by running EXPLAIN on the SQL actually generated by the search repository.
+ * <p>
+ * The test needs the MySQL database configured by the APP_DB_* environment variables, and is skipped
+ * when they are not set : it is run manually. Its rentals and users are removed once done.
+ * The default build checks the declaration of the indexes with {@link RentalIndexDeclarationTest}.</p>
+ *
+ * @author Pignon Pierre-Olivier
+ * @version 1.0
+ */
+@DataJpaTest(properties = {
+        // Criteria values are rendered as SQL literals, so that the captured statements can be explained as is
+        "spring.jpa.properties.hibernate.criteria.value_handling_mode=inline",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.pop.codelab.chatopbackend.rental.RentalSearchIndexTest$StatementCapture"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfEnvironmentVariable(named = "APP_DB_HOST", matches = ".+")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RentalSearchIndexTest {
+
+    /**
+     * The number of owners of the test rentals.
+     */
+    private static final int OWNERS = 20;
+
+    /**
+     * The number of test rentals, large enough for the optimizer to prefer the indexes to a table scan.
+     */
+    private static final int RENTALS = 5000;
+
+    /**
+     * The page size of the searches.
+     */
+    private static final int LIMIT = 21;
+
+    /**
+     * The SQL statements captured while searching.
+     */
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * The IDs of the test users.
+     */
+    private final List<Long> ownerIds = new ArrayList<>();
+
+    /**
+     * Captures the SQL statements prepared by Hibernate.
+     */
+    public static class StatementCapture implements StatementInspector {
+        @Override
+        public String inspect(final String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+
+    @BeforeAll
+    void insertRentals() {
+        String marker = "explain-" + System.nanoTime();
+        // The IDs are allocated by Hibernate : the test rows take the IDs after the last ones in use
+        long userId = this.jdbcTemplate.queryForObject("select coalesce(max(id), 0) from users", Long.class);
+        for (int owner = 0; owner < OWNERS; owner++) {
+            this.jdbcTemplate.update("insert into users (id, email, name, password) values (?, ?, ?, ?)",
+                    ++userId, marker + "-" + owner + "@test.com", marker, "password");
+            this.ownerIds.add(userId);
+        }
+        long rentalId = this.jdbcTemplate.queryForObject("select coalesce(max(id), 0) from rentals", Long.class);
+        List<Object[]> rentals = new ArrayList<>();
+        for (int rental = 0; rental < RENTALS; rental++) {
+            rentals.add(new Object[]{
+                    ++rentalId,
+                    "Rental " + (char) ('A' + rental % 26) + rental,
+                    BigDecimal.valueOf(50 + (rental * 37L) % 950),
+                    BigDecimal.valueOf(10 + (rental * 13L) % 190),
+                    "Explain test rental",
+                    this.ownerIds.get(rental % OWNERS)});
+        }
+        this.jdbcTemplate.batchUpdate(
+                "insert into rentals (id, name, price, surface, description, owner_id) values (?, ?, ?, ?, ?, ?)", rentals);
+        this.jdbcTemplate.execute("analyze table rentals");
+    }
+
+    @AfterAll
+    void deleteRentals() {
+        for (Long ownerId : this.ownerIds) {
+            this.jdbcTemplate.update("delete from rentals where owner_id = ?", ownerId);
+            this.jdbcTemplate.update("delete from users where id = ?", ownerId);
+        }
+    }
+
+    Stream<Arguments> searches() {
+        return Stream.of(
+                search("newest", RentalSearchSort.NEWEST, criteria -> { }, null),
+                search("newest, next page", RentalSearchSort.NEWEST, criteria -> { },
+                        new RentalSearchCursor(RentalSearchSort.NEWEST, null, Long.MAX_VALUE)),
+                search("price", RentalSearchSort.PRICE, criteria -> { }, null),
+                search("price range by price, next page", RentalSearchSort.PRICE, criteria -> {
+                    criteria.setMinPrice(BigDecimal.valueOf(100));
+                    criteria.setMaxPrice(BigDecimal.valueOf(200));
+                }, new RentalSearchCursor(RentalSearchSort.PRICE, BigDecimal.valueOf(150), 1L)),
+                search("surface range by surface", RentalSearchSort.SURFACE, criteria -> {
+                    criteria.setMinSurface(BigDecimal.valueOf(20));
+                    criteria.setMaxSurface(BigDecimal.valueOf(40));
+                }, null),
+                search("surface, next page", RentalSearchSort.SURFACE, criteria -> { },
+                        new RentalSearchCursor(RentalSearchSort.SURFACE, BigDecimal.valueOf(100), 1L)),
+                search("owner by price", RentalSearchSort.PRICE,
+                        criteria -> criteria.setOwnerId(this.ownerIds.get(0)), null),
+                search("owner and price range by surface", RentalSearchSort.SURFACE, criteria -> {
+                    criteria.setOwnerId(this.ownerIds.get(1));
+                    criteria.setMaxPrice(BigDecimal.valueOf(300));
+                }, null),
+                search("owner by newest", RentalSearchSort.NEWEST,
+                        criteria -> criteria.setOwnerId(this.ownerIds.get(2)), null),
+                search("name prefix by newest", RentalSearchSort.NEWEST,
+                        criteria -> criteria.setName("Rental B1"), null),
+                search("name prefix and price range by price", RentalSearchSort.PRICE, criteria -> {
+                    criteria.setName("Rental C");
+                    criteria.setMinPrice(BigDecimal.valueOf(500));
+                }, null));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("searches")
+    void searchUsesAnIndex(final String name, final RentalSearchDto criteria, final RentalSearchCursor after) {
+        STATEMENTS.clear();
+        this.rentalRepository.searchRentals(criteria, after, LIMIT);
+        assertFalse(STATEMENTS.isEmpty(), "No statement captured");
+        // The page size is the only bound parameter left
+        String sql = STATEMENTS.get(STATEMENTS.size() - 1).replace("?", String.valueOf(LIMIT));
+
+        List<Map<String, Object>> plan = this.jdbcTemplate.queryForList("explain " + sql);
+        for (Map<String, Object> step : plan) {
+            assertNotEquals("ALL", step.get("type"), () -> "Full table scan for '" + name + "' : " + plan);
+            assertNotNull(step.get("key"), () -> "No index used for '" + name + "' : " + plan);
+        }
+    }
+
+    private static Arguments search(final String name, final RentalSearchSort sort,
+                                    final Consumer<RentalSearchDto> criteriaSetter, final RentalSearchCursor after) {
+        RentalSearchDto criteria = new RentalSearchDto();
+        criteria.setSort(sort);
+        criteria.setSummary(true);
+        criteriaSetter.accept(criteria);
+        return Arguments.of(name, criteria, after);
+    }
+}
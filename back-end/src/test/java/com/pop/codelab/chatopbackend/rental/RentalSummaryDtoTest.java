@@ -0,0 +1,47 @@
+package com.pop.codelab.chatopbackend.rental;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pop.codelab.chatopbackend.business.rental.dto.responses.OneRentalDto;
+import com.pop.codelab.chatopbackend.business.rental.dto.responses.RentalSummaryDto;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that only the rental summaries leave the description key out of their JSON representation.
+ */
+class RentalSummaryDtoTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void fullRentalKeepsANullDescription() throws Exception {
+        JsonNode json = this.objectMapper.valueToTree(rental(null));
+        assertTrue(json.has("description"));
+        assertTrue(json.get("description").isNull());
+    }
+
+    @Test
+    void summaryHasNoDescription() throws Exception {
+        JsonNode json = this.objectMapper.valueToTree(new RentalSummaryDto(rental("A description")));
+        assertFalse(json.has("description"));
+        assertEquals("Rental", json.get("name").asText());
+        assertEquals(1L, json.get("owner_id").asLong());
+    }
+
+    private static OneRentalDto rental(final String description) {
+        return OneRentalDto.builder()
+                .id(1L)
+                .name("Rental")
+                .surface(BigDecimal.valueOf(30))
+                .price(BigDecimal.valueOf(80))
+                .description(description)
+                .ownerId(1L)
+                .build();
+    }
+}
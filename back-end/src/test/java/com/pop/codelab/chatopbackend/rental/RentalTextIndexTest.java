@@ -0,0 +1,121 @@
+package com.pop.codelab.chatopbackend.rental;
+
+import com.pop.codelab.chatopbackend.business.rental.index.RentalTextAnalyzer;
+import com.pop.codelab.chatopbackend.business.rental.index.RentalTextEntry;
+import com.pop.codelab.chatopbackend.business.rental.index.RentalTextIndex;
+import com.pop.codelab.chatopbackend.business.rental.index.RentalTextSearchCursor;
+import com.pop.codelab.chatopbackend.business.rental.repository.RentalRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks the analysis of the rental texts and the ranking and paging of the full-text rental index.
+ */
+class RentalTextIndexTest {
+
+    private static final String[] WORDS = {"appartement", "maison", "jardin", "terrasse", "lumineux", "calme",
+            "centre", "plage", "montagne", "piscine", "garage", "studio", "balcon", "vue", "mer", "parc"};
+
+    private final TreeMap<Long, RentalTextEntry> rentals = new TreeMap<>();
+
+    private RentalTextIndex index;
+
+    @BeforeEach
+    void buildIndex() {
+        this.rentals.put(1L, new RentalTextEntry(1L, "Appartement lumineux", "Proche de la plage."));
+        this.rentals.put(2L, new RentalTextEntry(2L, "Maison de campagne", "Un grand jardin et un appartement "
+                + "indépendant pour les amis, au calme."));
+        this.rentals.put(3L, new RentalTextEntry(3L, "Studio", "Vue sur l'Été indien, cœur de ville."));
+        Random random = new Random(7);
+        for (long id = 10; id < 2000; id++) {
+            StringBuilder description = new StringBuilder();
+            for (int word = 0; word < 5 + random.nextInt(30); word++) {
+                description.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            this.rentals.put(id, new RentalTextEntry(id, WORDS[random.nextInt(WORDS.length)], description.toString()));
+        }
+        RentalRepository rentalRepository = mock(RentalRepository.class);
+        when(rentalRepository.findRentalTextEntriesAfter(anyLong(), any(Limit.class))).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            int limit = invocation.<Limit>getArgument(1).max();
+            return this.rentals.tailMap(after, false).values().stream().limit(limit).toList();
+        });
+        this.index = new RentalTextIndex(rentalRepository);
+        this.index.rebuild();
+    }
+
+    @Test
+    void foldsAccentsAndDropsStopWords() {
+        assertEquals(List.of("ete", "indien", "coeur", "ville"),
+                RentalTextAnalyzer.analyze("L'Été  indien, au CŒUR de la ville !"));
+        assertEquals(List.of("appartement", "lumineux", "balcon", "75"),
+                RentalTextAnalyzer.analyze("Appartements lumineux avec balcons : 75 m²"));
+    }
+
+    @Test
+    void ranksTheNameBeforeTheDescription() {
+        RentalTextIndex.Hits hits = this.index.search("appartement", null, 3000);
+        List<Long> ids = toList(hits.getIds());
+        assertTrue(ids.indexOf(1L) < ids.indexOf(2L), "Name match ranked after description match : " + ids);
+        assertEquals(ids.size(), hits.getTotal());
+    }
+
+    @Test
+    void matchesFoldedTerms() {
+        assertArrayEquals(new long[]{3L}, this.index.search("ete COEUR", null, 10).getIds());
+        assertArrayEquals(new long[]{3L}, this.index.search("l'été", null, 10).getIds());
+        assertEquals(0, this.index.search("inconnu", null, 10).getTotal());
+    }
+
+    @Test
+    void pagesLikeASinglePage() {
+        for (String query : List.of("appartement jardin", "vue mer", "piscine calme centre")) {
+            RentalTextIndex.Hits all = this.index.search(query, null, 5000);
+            List<Long> paged = new ArrayList<>();
+            RentalTextSearchCursor after = null;
+            RentalTextIndex.Hits page;
+            do {
+                page = this.index.search(query, after, 13);
+                paged.addAll(toList(page.getIds()));
+                if (page.getIds().length > 0) {
+                    int last = page.getIds().length - 1;
+                    after = RentalTextSearchCursor.decode(
+                            new RentalTextSearchCursor(page.getScores()[last], page.getIds()[last]).encode());
+                }
+            } while (page.getIds().length == 13);
+            assertEquals(toList(all.getIds()), paged, "Query " + query);
+            assertEquals(all.getTotal(), paged.size());
+        }
+    }
+
+    @Test
+    void replacesTheTextsOfAnUpdatedRental() {
+        this.index.index(new RentalTextEntry(3L, "Chalet", "Au pied des pistes"));
+        this.index.index(new RentalTextEntry(5000L, "Nouvelle péniche", "Sur le canal"));
+        assertEquals(0, this.index.search("coeur indien", null, 10).getTotal());
+        assertArrayEquals(new long[]{3L}, this.index.search("chalet", null, 10).getIds());
+        assertArrayEquals(new long[]{5000L}, this.index.search("peniches", null, 10).getIds());
+    }
+
+    private static List<Long> toList(final long[] ids) {
+        List<Long> list = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+}
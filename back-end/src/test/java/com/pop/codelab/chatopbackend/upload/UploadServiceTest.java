@@ -0,0 +1,192 @@
+package com.pop.codelab.chatopbackend.upload;
+
+import com.pop.codelab.chatopbackend.business.rental.dto.responses.OneRentalDto;
+import com.pop.codelab.chatopbackend.business.rental.service.RentalService;
+import com.pop.codelab.chatopbackend.business.upload.dto.requests.UploadCompletionDto;
+import com.pop.codelab.chatopbackend.business.upload.dto.requests.UploadCreationDto;
+import com.pop.codelab.chatopbackend.business.upload.dto.responses.UploadRangeDto;
+import com.pop.codelab.chatopbackend.business.upload.dto.responses.UploadSessionDto;
+import com.pop.codelab.chatopbackend.business.upload.service.UploadServiceImpl;
+import com.pop.codelab.chatopbackend.business.user.entity.User;
+import com.pop.codelab.chatopbackend.exception.BadRequestException;
+import com.pop.codelab.chatopbackend.exception.ResourceNotFoundException;
+import com.pop.codelab.chatopbackend.services.ImageService;
+import com.pop.codelab.chatopbackend.services.ImageStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks the assembly of the resumable uploads from chunks sent out of order, concurrently or interrupted,
+ * and the discarding of the expired uploads.
+ */
+class UploadServiceTest {
+
+    private final ImageService imageService = mock(ImageService.class);
+
+    private final RentalService rentalService = mock(RentalService.class);
+
+    private final ImageStorage imageStorage = mock(ImageStorage.class);
+
+    private final Authentication authentication = authentication(7L);
+
+    private UploadServiceImpl uploadService;
+
+    private Path directory;
+
+    @BeforeEach
+    void createService(@TempDir final Path directory) {
+        this.directory = directory;
+        when(this.imageStorage.getStagingDirectory()).thenReturn(directory);
+        this.uploadService = new UploadServiceImpl(this.imageService, this.rentalService, this.imageStorage);
+        ReflectionTestUtils.setField(this.uploadService, "maxFileSize", DataSize.ofMegabytes(5));
+        ReflectionTestUtils.setField(this.uploadService, "sessionTtl", Duration.ofHours(1));
+        ReflectionTestUtils.setField(this.uploadService, "maxSessions", 10);
+        ReflectionTestUtils.setField(this.uploadService, "maxSessionsPerUser", 2);
+    }
+
+    @Test
+    void assemblesConcurrentAndInterruptedChunks() throws Exception {
+        byte[] file = new byte[1_000_000];
+        new Random(5).nextBytes(file);
+        String id = this.uploadService.createUpload(creation(file.length), this.authentication).getId();
+
+        // The first chunk is interrupted after 100 000 bytes : only the rest has to be sent again
+        assertThrows(IOException.class, () -> this.uploadService.writeChunk(id, 0,
+                interrupted(new ByteArrayInputStream(file, 0, 300_000), 100_000), this.authentication));
+        assertEquals(List.of(new UploadRangeDto(100_000, 900_000)),
+                this.uploadService.getUpload(id, this.authentication).getMissingRanges());
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] chunks = new Future<?>[9];
+            for (int chunk = 9; chunk >= 1; chunk--) {
+                int offset = chunk * 100_000;
+                chunks[chunk - 1] = executor.submit(() -> this.uploadService.writeChunk(id, offset,
+                        new ByteArrayInputStream(file, offset, 100_000), this.authentication));
+            }
+            for (Future<?> chunk : chunks) {
+                chunk.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        UploadSessionDto progress = this.uploadService.getUpload(id, this.authentication);
+        assertEquals(file.length, progress.getReceived());
+        assertTrue(progress.getMissingRanges().isEmpty());
+
+        AtomicReference<byte[]> stored = new AtomicReference<>();
+        when(this.imageService.saveImageToStorage(any(Path.class), eq("photo.jpg")))
+                .thenAnswer(invocation -> {
+                    stored.set(Files.readAllBytes(invocation.getArgument(0, Path.class)));
+                    return "cafe.jpg";
+                });
+        when(this.rentalService.getRentalById(3L)).thenReturn(OneRentalDto.builder().id(3L).ownerId(7L).build());
+        this.uploadService.completeUpload(id, completion(3L), this.authentication);
+        assertArrayEquals(file, stored.get());
+        verify(this.rentalService).updateRentalPicture(3L, "cafe.jpg", this.authentication);
+        assertThrows(ResourceNotFoundException.class, () -> this.uploadService.getUpload(id, this.authentication));
+        assertEquals(0, countFiles());
+    }
+
+    @Test
+    void rejectsTheIncompleteUploadsAndTheChunksBeyondTheFile() throws Exception {
+        String id = this.uploadService.createUpload(creation(10), this.authentication).getId();
+        this.uploadService.writeChunk(id, 0, new ByteArrayInputStream(new byte[4]), this.authentication);
+        this.uploadService.writeChunk(id, 6, new ByteArrayInputStream(new byte[4]), this.authentication);
+        assertEquals(List.of(new UploadRangeDto(4, 2)),
+                this.uploadService.getUpload(id, this.authentication).getMissingRanges());
+        assertThrows(BadRequestException.class, () -> this.uploadService.writeChunk(id, 8,
+                new ByteArrayInputStream(new byte[3]), this.authentication));
+
+        when(this.rentalService.getRentalById(3L)).thenReturn(OneRentalDto.builder().id(3L).ownerId(7L).build());
+        assertThrows(BadRequestException.class,
+                () -> this.uploadService.completeUpload(id, completion(3L), this.authentication));
+        // The uploads of the other users are not disclosed
+        assertThrows(ResourceNotFoundException.class, () -> this.uploadService.getUpload(id, authentication(8L)));
+        this.uploadService.createUpload(creation(10), this.authentication);
+        assertThrows(BadRequestException.class,
+                () -> this.uploadService.createUpload(creation(10), this.authentication));
+    }
+
+    @Test
+    void discardsTheExpiredUploads() throws Exception {
+        String id = this.uploadService.createUpload(creation(10), this.authentication).getId();
+        this.uploadService.discardExpiredUploads();
+        assertEquals(1, countFiles());
+
+        ReflectionTestUtils.setField(this.uploadService, "sessionTtl", Duration.ofNanos(-1));
+        this.uploadService.discardExpiredUploads();
+        assertEquals(0, countFiles());
+        assertThrows(ResourceNotFoundException.class, () -> this.uploadService.getUpload(id, this.authentication));
+    }
+
+    private long countFiles() throws IOException {
+        try (var files = Files.list(this.directory)) {
+            return files.count();
+        }
+    }
+
+    private static UploadCreationDto creation(final long size) {
+        UploadCreationDto creation = new UploadCreationDto();
+        creation.setSize(size);
+        creation.setFileName("photo.jpg");
+        return creation;
+    }
+
+    private static UploadCompletionDto completion(final long rentalId) {
+        UploadCompletionDto completion = new UploadCompletionDto();
+        completion.setRentalId(rentalId);
+        return completion;
+    }
+
+    private static Authentication authentication(final long userId) {
+        User user = new User();
+        user.setId(userId);
+        return new UsernamePasswordAuthenticationToken(user, null, List.of());
+    }
+
+    private static InputStream interrupted(final InputStream input, final int failAfter) {
+        return new FilterInputStream(input) {
+            private int read;
+
+            @Override
+            public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+                if (this.read >= failAfter) {
+                    throw new IOException("Connection reset");
+                }
+                int count = super.read(bytes, offset, Math.min(length, failAfter - this.read));
+                this.read += Math.max(count, 0);
+                return count;
+            }
+        };
+    }
+}